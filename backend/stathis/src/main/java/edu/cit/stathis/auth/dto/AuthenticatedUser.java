@@ -0,0 +1,20 @@
+package edu.cit.stathis.auth.dto;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * The principal of a request authenticated by access token, built from the token's claims so the
+ * caller's identifiers are known without a database lookup. {@link #getName()} is the email, so
+ * {@code Authentication.getName()} is unchanged.
+ *
+ * @param role the granted authority, e.g. {@code ROLE_STUDENT}
+ */
+public record AuthenticatedUser(UUID userId, String physicalId, String email, String role)
+    implements Principal {
+
+  @Override
+  public String getName() {
+    return email;
+  }
+}
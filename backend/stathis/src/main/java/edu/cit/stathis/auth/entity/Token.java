@@ -13,7 +13,13 @@ import org.hibernate.annotations.CreationTimestamp;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "tokens")
+@Table(
+    name = "tokens",
+    indexes = {
+      @Index(name = "uk_tokens_selector", columnList = "selector", unique = true),
+      @Index(name = "idx_tokens_user_type", columnList = "user_id, token_type"),
+      @Index(name = "idx_tokens_expires_at", columnList = "expires_at")
+    })
 public class Token {
 
   @Id
@@ -29,6 +35,10 @@ public class Token {
   @Column(name = "token_type", nullable = false)
   private TokenTypeEnum tokenType;
 
+  // Null for tokens issued before the selector.verifier format
+  @Column(name = "selector", length = 32)
+  private String selector;
+
   @Column(name = "token_hash", nullable = false)
   private String tokenHash;
 
@@ -3,5 +3,7 @@ package edu.cit.stathis.auth.enums;
 public enum UserRoleEnum {
   GUEST_USER,
   STUDENT,
-  TEACHER
+  TEACHER,
+  // Provisioned directly in the database; never assignable through registration
+  ADMIN
 }
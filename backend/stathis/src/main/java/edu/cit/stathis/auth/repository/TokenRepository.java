@@ -8,21 +8,50 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, UUID> {
 
   // Find
-  Optional<Token> findByTokenHash(String tokenHash);
+  Optional<Token> findBySelector(String selector);
 
   Optional<Token> findByUser_UserIdAndTokenType(UUID userId, TokenTypeEnum tokenType);
 
-  // Exist
-  boolean existsByTokenHashAndRevokedFalse(String tokenHash);
+  List<Token> findAllBySelectorIsNullAndRevokedFalseAndExpiresAtAfter(OffsetDateTime now);
 
-  List<Token> findAllByUserAndTokenTypeAndRevokedFalse(User user, TokenTypeEnum tokenType);
+  long countBySelectorIsNullAndRevokedFalse();
 
-  List<Token> findAllByTokenTypeAndRevokedFalseAndExpiresAtAfter(
-      TokenTypeEnum tokenType, OffsetDateTime now);
+  // Update
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "UPDATE Token t SET t.revoked = true"
+          + " WHERE t.user = :user AND t.tokenType = :tokenType AND t.revoked = false")
+  int revokeAllByUserAndTokenType(
+      @Param("user") User user, @Param("tokenType") TokenTypeEnum tokenType);
+
+  @Modifying
+  @Query("UPDATE Token t SET t.revoked = true WHERE t.selector IS NULL AND t.revoked = false")
+  int revokeAllLegacyTokens();
+
+  // Delete
+  /**
+   * Deletes up to {@code batchSize} tokens that expired before {@code cutoff}, or that were revoked
+   * or used and created before it. Each call is its own short transaction.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tokens WHERE token_id IN ("
+              + "SELECT token_id FROM tokens"
+              + " WHERE expires_at < :cutoff"
+              + " OR ((revoked = true OR used_at IS NOT NULL) AND created_at < :cutoff)"
+              + " LIMIT :batchSize)",
+      nativeQuery = true)
+  int deletePurgeable(@Param("cutoff") OffsetDateTime cutoff, @Param("batchSize") int batchSize);
 }
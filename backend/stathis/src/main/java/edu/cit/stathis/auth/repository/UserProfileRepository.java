@@ -2,6 +2,9 @@ package edu.cit.stathis.auth.repository;
 
 import edu.cit.stathis.auth.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.stereotype.Repository;
@@ -13,4 +16,7 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, UUID>
   Optional<UserProfile> findByUser_UserId(UUID userId);
   Optional<UserProfile> findByUser_PhysicalId(String physicalId);
 
+  @Query("SELECT p FROM UserProfile p JOIN FETCH p.user u WHERE u.email IN :emails")
+  List<UserProfile> findAllByUserEmailIn(Collection<String> emails);
+
 }
@@ -1,19 +1,58 @@
 package edu.cit.stathis.auth.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
 import edu.cit.stathis.auth.entity.User;
 import edu.cit.stathis.auth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  @Value("${auth.user-check.enabled:false}")
+  private boolean userCheckEnabled;
+
+  @Value("${auth.user-check.ttl-ms:30000}")
+  private long userCheckTtlMillis;
+
+  @Value("${auth.user-check.max-size:10000}")
+  private long userCheckMaxSize;
+
+  // Email to the user's current identity; empty once the user is gone
+  private Cache<String, Optional<AuthenticatedUser>> currentUsers;
+
+  @PostConstruct
+  void init() {
+    currentUsers =
+        CacheBuilder.newBuilder()
+            .maximumSize(userCheckMaxSize)
+            .expireAfterWrite(userCheckTtlMillis, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, currentUsers, "auth.user-check");
+    }
+  }
+
   @Override
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
     User user =
@@ -30,4 +69,69 @@ public class CustomUserDetailsService implements UserDetailsService {
         true,
         Collections.singletonList(() -> "ROLE_" + user.getUserRole().toString()));
   }
+
+  /**
+   * Stores a rehash of the password after a successful login whose stored hash uses an older
+   * format or a lower cost than {@code password.bcrypt.strength}. Called by the authentication
+   * provider, which has already hashed the presented password with the current encoder.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+    userRepository
+        .findByEmail(userDetails.getUsername())
+        .ifPresent(
+            user -> {
+              user.setPasswordHash(newPassword);
+              userRepository.save(user);
+            });
+    return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+        .password(newPassword)
+        .build();
+  }
+
+  /**
+   * The principal for a verified access token. A token carrying the user's identifiers is trusted
+   * as is, with no query, unless {@code auth.user-check.enabled} is on; then the user must still
+   * exist with the same role, checked against a lookup cached for {@code auth.user-check.ttl-ms}.
+   * That bounds how long a deleted or re-roled user keeps access to the TTL rather than the
+   * token's lifetime. Tokens issued without the identifiers are always resolved by lookup.
+   *
+   * @param fromToken the principal carried by the token, or {@code null} for an older token
+   * @return empty if the user no longer exists or no longer has the token's role
+   */
+  public Optional<AuthenticatedUser> resolvePrincipal(String email, AuthenticatedUser fromToken) {
+    if (fromToken != null && !userCheckEnabled) {
+      return Optional.of(fromToken);
+    }
+    Optional<AuthenticatedUser> current = findCurrentUser(email);
+    if (fromToken == null) {
+      return current;
+    }
+    return current.filter(user -> user.role().equals(fromToken.role())).map(user -> fromToken);
+  }
+
+  /** Drops the cached identity so the next check sees the user's current state. */
+  public void evict(String email) {
+    currentUsers.invalidate(email);
+  }
+
+  private Optional<AuthenticatedUser> findCurrentUser(String email) {
+    Optional<AuthenticatedUser> cached = currentUsers.getIfPresent(email);
+    if (cached != null) {
+      return cached;
+    }
+    Optional<AuthenticatedUser> current =
+        userRepository
+            .findByEmail(email)
+            .map(
+                user ->
+                    new AuthenticatedUser(
+                        user.getUserId(),
+                        user.getPhysicalId(),
+                        user.getEmail(),
+                        "ROLE_" + user.getUserRole().toString()));
+    currentUsers.put(email, current);
+    return current;
+  }
 }
@@ -1,49 +1,171 @@
 package edu.cit.stathis.auth.service;
 
+import com.google.common.util.concurrent.RateLimiter;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.outbox.DomainEventBus;
+import edu.cit.stathis.common.outbox.DomainEventHandler;
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import jakarta.annotation.PostConstruct;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntFunction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+/**
+ * Sends account email through the outbox. Callers only record the message in their transaction;
+ * it is sent after commit in batches, each batch over one SMTP connection, at no more than {@code
+ * email.rate-limit.per-minute}. Messages over the rate limit wait for the next attempt without
+ * counting as failures; messages the server refuses are retried with the outbox's backoff.
+ */
 @Service
-public class EmailService {
+public class EmailService implements DomainEventHandler<EmailService.OutgoingEmail> {
+
+  static final String EVENT_TYPE = "email.send";
 
   @Autowired private JavaMailSender mailSender;
 
+  @Autowired private DomainEventBus domainEventBus;
+
   @Value("${MAIL_USERNAME}")
   private String mailFrom;
 
+  @Value("${email.rate-limit.per-minute:60}")
+  private double ratePerMinute;
+
+  private RateLimiter rateLimiter;
+
+  public record OutgoingEmail(String to, String subject, String html) {}
+
+  @PostConstruct
+  void init() {
+    rateLimiter = RateLimiter.create(ratePerMinute / 60.0);
+  }
+
   // DISABLED: Email verification functionality
   public void sendVerificationEmail(String to, String token) throws MessagingException {
-    // MimeMessage message = mailSender.createMimeMessage();
-    // MimeMessageHelper helper = new MimeMessageHelper(message, true);
-    // helper.setFrom(mailFrom);
-    // helper.setTo(to);
-    // helper.setSubject("Verify Your Email");
-    // helper.setText(
-    //     "Please verify your email by clicking the link: "
-    //         + "http://stathis.onrender.com/api/auth/verify-email?token="
-    //         + token,
-    //     true);
-    // mailSender.send(message);
+    // domainEventBus.publish(
+    //     EVENT_TYPE,
+    //     new OutgoingEmail(
+    //         to,
+    //         "Verify Your Email",
+    //         "Please verify your email by clicking the link: "
+    //             + "http://stathis.onrender.com/api/auth/verify-email?token="
+    //             + token));
     
     // Email verification is disabled - no action needed
   }
 
-  public void sendPasswordResetEmail(String to, String token) throws MessagingException {
+  /**
+   * Records a password reset mail for the user. Only the user is recorded: the token is issued by
+   * {@link PasswordResetEmailHandler} when the mail is actually sent, so it is never stored in the
+   * outbox.
+   */
+  public void sendPasswordResetEmail(UUID userId, String to) {
+    domainEventBus.publish(
+        PasswordResetEmailHandler.EVENT_TYPE, new PasswordResetEmailHandler.PasswordResetEmail(userId, to));
+  }
+
+  static OutgoingEmail passwordResetEmail(String to, String token) {
+    return new OutgoingEmail(
+        to,
+        "Reset Your Password",
+        "Please reset your password by clicking the link: "
+            + "http://stathis.onrender.com/api/auth/reset-password?token="
+            + token);
+  }
+
+  @Override
+  public String eventType() {
+    return EVENT_TYPE;
+  }
+
+  @Override
+  public Class<OutgoingEmail> payloadType() {
+    return OutgoingEmail.class;
+  }
+
+  @Override
+  @UsesWorkload(Workload.BACKGROUND)
+  public void handle(List<OutgoingEmail> emails) {
+    send(emails.size(), emails::get);
+  }
+
+  /**
+   * Sends {@code count} messages over one connection, with the same {@link
+   * PartialDeliveryException} contract as {@link #handle}. A message is only composed once the rate
+   * limit lets it through; composing it as null skips it as delivered.
+   */
+  void send(int count, IntFunction<OutgoingEmail> compose) {
+    Set<Integer> failed = new HashSet<>();
+    Set<Integer> deferred = new HashSet<>();
+    Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+    List<MimeMessage> messages = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      if (!rateLimiter.tryAcquire()) {
+        deferred.add(i);
+        continue;
+      }
+      try {
+        OutgoingEmail email = compose.apply(i);
+        if (email == null) {
+          continue;
+        }
+        MimeMessage message = toMimeMessage(email);
+        indexes.put(message, i);
+        messages.add(message);
+      } catch (MessagingException | RuntimeException e) {
+        failed.add(i);
+      }
+    }
+    MailException error = null;
+    if (!messages.isEmpty()) {
+      try {
+        // One connection for the whole array
+        mailSender.send(messages.toArray(new MimeMessage[0]));
+      } catch (MailSendException e) {
+        error = e;
+        if (e.getFailedMessages().isEmpty()) {
+          failed.addAll(indexes.values());
+        }
+        for (Object message : e.getFailedMessages().keySet()) {
+          Integer index = indexes.get(message);
+          if (index != null) {
+            failed.add(index);
+          }
+        }
+      } catch (MailException e) {
+        error = e;
+        failed.addAll(indexes.values());
+      }
+    }
+    if (!failed.isEmpty() || !deferred.isEmpty()) {
+      Duration retryAfter = Duration.ofMillis(Math.max(1000, Math.round(60_000 / ratePerMinute)));
+      throw new PartialDeliveryException(failed, deferred, retryAfter, error);
+    }
+  }
+
+  private MimeMessage toMimeMessage(OutgoingEmail email) throws MessagingException {
     MimeMessage message = mailSender.createMimeMessage();
     MimeMessageHelper helper = new MimeMessageHelper(message, true);
     helper.setFrom(mailFrom);
-    helper.setTo(to);
-    helper.setSubject("Reset Your Password");
-    helper.setText(
-        "Please reset your password by clicking the link: "
-            + "http://stathis.onrender.com/api/auth/reset-password?token="
-            + token,
-        true);
-    mailSender.send(message);
+    helper.setTo(email.to());
+    helper.setSubject(email.subject());
+    helper.setText(email.html(), true);
+    return message;
   }
 }
@@ -0,0 +1,46 @@
+package edu.cit.stathis.auth.service;
+
+import edu.cit.stathis.auth.repository.TokenRepository;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Handles tokens issued before the selector.verifier format. While the legacy fallback is on they
+ * keep working until they are rotated or expire, and the number left is logged at startup; once it
+ * is switched off they are revoked in one statement so none can linger.
+ */
+@Component
+public class LegacyTokenMigration {
+
+  private static final Logger logger = LoggerFactory.getLogger(LegacyTokenMigration.class);
+
+  @Autowired private TokenRepository tokenRepo;
+
+  @Value("${token.legacy-fallback.enabled:true}")
+  private boolean legacyFallbackEnabled;
+
+  @EventListener(ApplicationReadyEvent.class)
+  @UsesWorkload(Workload.BACKGROUND)
+  @Transactional
+  public void migrate() {
+    if (legacyFallbackEnabled) {
+      long remaining = tokenRepo.countBySelectorIsNullAndRevokedFalse();
+      if (remaining > 0) {
+        logger.info("{} legacy tokens still accepted through the fallback", remaining);
+      }
+      return;
+    }
+    int revoked = tokenRepo.revokeAllLegacyTokens();
+    if (revoked > 0) {
+      logger.info("Revoked {} legacy tokens; their users sign in again", revoked);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package edu.cit.stathis.auth.service;
+
+import edu.cit.stathis.auth.enums.TokenTypeEnum;
+import edu.cit.stathis.auth.repository.UserRepository;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.outbox.DomainEventHandler;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends password reset mail recorded by {@link EmailService#sendPasswordResetEmail}. The event
+ * carries only the user; each token is issued here, right before its mail goes out, so the raw
+ * token exists only in the mail and the table keeps just its HMAC. A retried event gets a fresh
+ * token, and one issued for a mail the server then refused is never seen by anyone and expires.
+ */
+@Service
+public class PasswordResetEmailHandler
+    implements DomainEventHandler<PasswordResetEmailHandler.PasswordResetEmail> {
+
+  static final String EVENT_TYPE = "email.password-reset";
+
+  public record PasswordResetEmail(UUID userId, String to) {}
+
+  @Autowired private EmailService emailService;
+
+  @Autowired private TokenService tokenService;
+
+  @Autowired private UserRepository userRepository;
+
+  @Override
+  public String eventType() {
+    return EVENT_TYPE;
+  }
+
+  @Override
+  public Class<PasswordResetEmail> payloadType() {
+    return PasswordResetEmail.class;
+  }
+
+  @Override
+  @UsesWorkload(Workload.BACKGROUND)
+  public void handle(List<PasswordResetEmail> events) {
+    emailService.send(events.size(), i -> compose(events.get(i)));
+  }
+
+  // Null for a user deleted since the request: nothing to send
+  private EmailService.OutgoingEmail compose(PasswordResetEmail event) {
+    return userRepository
+        .findByUserId(event.userId())
+        .map(
+            user ->
+                EmailService.passwordResetEmail(
+                    event.to(),
+                    tokenService
+                        .createToken(
+                            user, TokenTypeEnum.PASSWORD_RESET, OffsetDateTime.now().plusMinutes(30))
+                        .rawToken()))
+        .orElse(null);
+  }
+}
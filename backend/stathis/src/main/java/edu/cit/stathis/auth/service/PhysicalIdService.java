@@ -1,5 +1,6 @@
 package edu.cit.stathis.auth.service;
 
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
 import edu.cit.stathis.auth.entity.User;
 import edu.cit.stathis.auth.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,33 +16,30 @@ public class PhysicalIdService {
     private UserRepository userRepository;
 
     /**
-     * Gets the physical ID of the currently authenticated user
+     * Gets the physical ID of the currently authenticated user. Requests authenticated by access
+     * token carry it in their principal; other authentications fall back to a lookup by email.
      * @return the physical ID of the current user
      * @throws IllegalStateException if no user is authenticated or user not found
      */
     public String getCurrentUserPhysicalId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new IllegalStateException("No authenticated user found");
+        Authentication authentication = currentAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.physicalId();
         }
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new IllegalStateException("User not found"));
-        return user.getPhysicalId();
+        return getPhysicalIdByEmail(authentication.getName());
     }
 
     /**
-     * Gets the UUID of the currently authenticated user
+     * Gets the UUID of the currently authenticated user, from the principal when it carries one
      * @return the UUID ID of the current user
      * @throws IllegalStateException if no user is authenticated or user not found
      */
     public UUID getCurrentUserUUID() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new IllegalStateException("No authenticated user found");
+        Authentication authentication = currentAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.userId();
         }
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findByEmail(authentication.getName())
             .orElseThrow(() -> new IllegalStateException("User not found"));
         return user.getUserId();
     }
@@ -69,4 +67,12 @@ public class PhysicalIdService {
             .orElseThrow(() -> new IllegalStateException("User not found"));
         return user.getPhysicalId();
     }
+
+    private static Authentication currentAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("No authenticated user found");
+        }
+        return authentication;
+    }
 } 
\ No newline at end of file
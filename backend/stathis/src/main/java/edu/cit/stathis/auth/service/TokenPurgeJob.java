@@ -0,0 +1,103 @@
+package edu.cit.stathis.auth.service;
+
+import edu.cit.stathis.auth.repository.TokenRepository;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes tokens that can no longer be used: expired ones, and revoked or used ones, once they are
+ * older than the retention period. Rows go in batches of {@code token.purge.batch-size}, each in its
+ * own transaction with a pause in between, so a large backlog never holds locks on {@code tokens}
+ * for long or competes with logins; a run stops after {@code token.purge.max-batches} and the
+ * next one continues.
+ */
+@Component
+public class TokenPurgeJob {
+
+  private static final Logger logger = LoggerFactory.getLogger(TokenPurgeJob.class);
+
+  private final TokenRepository tokenRepo;
+  private final boolean enabled;
+  private final Duration retention;
+  private final int batchSize;
+  private final int maxBatches;
+  private final long pauseMillis;
+
+  private final Counter purged;
+  private final Timer runs;
+  private final AtomicLong rows = new AtomicLong(-1);
+
+  public TokenPurgeJob(
+      TokenRepository tokenRepo,
+      MeterRegistry meterRegistry,
+      @Value("${token.purge.enabled:true}") boolean enabled,
+      @Value("${token.purge.retention-days:7}") long retentionDays,
+      @Value("${token.purge.batch-size:500}") int batchSize,
+      @Value("${token.purge.max-batches:200}") int maxBatches,
+      @Value("${token.purge.pause-ms:100}") long pauseMillis) {
+    this.tokenRepo = tokenRepo;
+    this.enabled = enabled;
+    this.retention = Duration.ofDays(retentionDays);
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.pauseMillis = pauseMillis;
+    this.purged =
+        Counter.builder("stathis.tokens.purged")
+            .description("Tokens deleted by the purge job")
+            .register(meterRegistry);
+    this.runs =
+        Timer.builder("stathis.tokens.purge")
+            .description("Duration of token purge runs")
+            .register(meterRegistry);
+    Gauge.builder("stathis.tokens.rows", rows, AtomicLong::get)
+        .description("Rows in the tokens table after the last purge run, -1 before the first")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${token.purge.initial-delay-ms:60000}",
+      fixedDelayString = "${token.purge.interval-ms:3600000}")
+  @UsesWorkload(Workload.BACKGROUND)
+  public void purge() {
+    if (!enabled) {
+      return;
+    }
+    long deleted = runs.record(this::purgeBatches);
+    rows.set(tokenRepo.count());
+    if (deleted > 0) {
+      logger.info("Purged {} tokens; {} remain", deleted, rows.get());
+    }
+  }
+
+  private long purgeBatches() {
+    OffsetDateTime cutoff = OffsetDateTime.now().minus(retention);
+    long total = 0;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      int deleted = tokenRepo.deletePurgeable(cutoff, batchSize);
+      total += deleted;
+      purged.increment(deleted);
+      if (deleted < batchSize) {
+        break;
+      }
+      try {
+        Thread.sleep(pauseMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return total;
+  }
+}
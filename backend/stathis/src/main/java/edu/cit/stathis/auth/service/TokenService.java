@@ -4,40 +4,74 @@ import edu.cit.stathis.auth.entity.Token;
 import edu.cit.stathis.auth.entity.User;
 import edu.cit.stathis.auth.enums.TokenTypeEnum;
 import edu.cit.stathis.auth.repository.TokenRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.time.OffsetDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Issues and checks opaque tokens (refresh, password reset, email verification).
+ *
+ * <p>A token is {@code selector.verifier}: the selector is stored in plain text under a unique
+ * index and finds the row, the verifier is stored as an HMAC-SHA256 under a server-side key and
+ * compared in constant time. Checking a token is one indexed lookup and one HMAC however many
+ * tokens exist; the verifier is 256 random bits, so a slow password hash adds nothing.
+ *
+ * <p>Tokens issued before this format (a bare UUID with a BCrypt hash and no selector) are still
+ * accepted while {@code token.legacy-fallback.enabled} is on, by scanning only the remaining legacy
+ * rows. Every refresh rotates to the new format and legacy tokens expire within a week, so that set
+ * drains on its own; see {@link LegacyTokenMigration}.
+ */
 @Service
 public class TokenService {
 
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  private static final int SELECTOR_BYTES = 12;
+  private static final int VERIFIER_BYTES = 32;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
   @Autowired private TokenRepository tokenRepo;
 
   @Autowired private PasswordEncoder passwordEncoder;
 
+  @Value("${token.hash-secret}")
+  private String hashSecret;
+
+  @Value("${token.legacy-fallback.enabled:true}")
+  private boolean legacyFallbackEnabled;
+
   public record CreatedToken(String rawToken, Token savedToken) {}
 
   @Transactional
   public CreatedToken createToken(User user, TokenTypeEnum tokenType, OffsetDateTime expiresAt) {
-    String tokenValue = UUID.randomUUID().toString();
-    String tokenHash = passwordEncoder.encode(tokenValue);
+    String selector = randomToken(SELECTOR_BYTES);
+    String verifier = randomToken(VERIFIER_BYTES);
 
     Token token =
         Token.builder()
             .user(user)
             .tokenType(tokenType)
-            .tokenHash(tokenHash)
+            .selector(selector)
+            .tokenHash(hash(verifier))
             .expiresAt(expiresAt)
             .createdAt(OffsetDateTime.now())
             .build();
 
     tokenRepo.save(token);
-    return new CreatedToken(tokenValue, token);
+    return new CreatedToken(selector + "." + verifier, token);
   }
 
   public CreatedToken createRefreshToken(User user) {
@@ -45,32 +79,31 @@ public class TokenService {
     return createToken(user, TokenTypeEnum.REFRESH, expiry);
   }
 
+  /** Revokes the user's refresh tokens and issues a new one, in one transaction. */
+  @Transactional
+  public CreatedToken rotateRefreshToken(User user) {
+    revokeAllTokensForUser(user, TokenTypeEnum.REFRESH);
+    return createRefreshToken(user);
+  }
+
   public boolean validateToken(String tokenValue, TokenTypeEnum expectedType) {
-    return tokenRepo
-        .findByTokenHash(tokenValue)
-        .map(
-            token ->
-                passwordEncoder.matches(tokenValue, token.getTokenHash())
-                    && !token.isRevoked()
-                    && !token.getExpiresAt().isBefore(OffsetDateTime.now())
-                    && token.getTokenType() == expectedType)
-        .orElse(false);
+    return getValidToken(tokenValue, expectedType).isPresent();
   }
 
+  /** The matching token if it is of the expected type, not revoked and not expired. */
   public Optional<Token> getValidToken(String rawToken, TokenTypeEnum expectedType) {
-    List<Token> tokens =
-        tokenRepo.findAllByTokenTypeAndRevokedFalseAndExpiresAtAfter(
-            expectedType, OffsetDateTime.now());
-
-    return tokens.stream()
-        .filter(token -> passwordEncoder.matches(rawToken, token.getTokenHash()))
-        .findFirst();
+    OffsetDateTime now = OffsetDateTime.now();
+    return findToken(rawToken)
+        .filter(
+            token ->
+                token.getTokenType() == expectedType
+                    && !token.isRevoked()
+                    && token.getExpiresAt().isAfter(now));
   }
 
   @Transactional
   public void revokeToken(String tokenValue) {
-    tokenRepo
-        .findByTokenHash(tokenValue)
+    findToken(tokenValue)
         .ifPresent(
             token -> {
               token.setRevoked(true);
@@ -78,14 +111,52 @@ public class TokenService {
             });
   }
 
+  /** Revokes the user's live tokens of the given type in one statement. */
   @Transactional
-  public void revokeAllTokensForUser(User user, TokenTypeEnum type) {
-    tokenRepo
-        .findAllByUserAndTokenTypeAndRevokedFalse(user, type)
-        .forEach(
-            token -> {
-              token.setRevoked(true);
-              tokenRepo.save(token);
-            });
+  public int revokeAllTokensForUser(User user, TokenTypeEnum type) {
+    return tokenRepo.revokeAllByUserAndTokenType(user, type);
+  }
+
+  private Optional<Token> findToken(String rawToken) {
+    if (rawToken == null || rawToken.isEmpty()) {
+      return Optional.empty();
+    }
+    int separator = rawToken.indexOf('.');
+    if (separator < 0) {
+      return legacyFallbackEnabled ? findLegacyToken(rawToken) : Optional.empty();
+    }
+    String selector = rawToken.substring(0, separator);
+    byte[] presented = hash(rawToken.substring(separator + 1)).getBytes(StandardCharsets.US_ASCII);
+    return tokenRepo
+        .findBySelector(selector)
+        .filter(
+            token ->
+                MessageDigest.isEqual(
+                    presented, token.getTokenHash().getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  // Pre-selector tokens: BCrypt against the unexpired legacy rows only
+  private Optional<Token> findLegacyToken(String rawToken) {
+    List<Token> legacy =
+        tokenRepo.findAllBySelectorIsNullAndRevokedFalseAndExpiresAtAfter(OffsetDateTime.now());
+    return legacy.stream()
+        .filter(token -> passwordEncoder.matches(rawToken, token.getTokenHash()))
+        .findFirst();
+  }
+
+  String hash(String verifier) {
+    try {
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(new SecretKeySpec(hashSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+      return ENCODER.encodeToString(mac.doFinal(verifier.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HMAC-SHA256 is not available", e);
+    }
+  }
+
+  private static String randomToken(int bytes) {
+    byte[] value = new byte[bytes];
+    RANDOM.nextBytes(value);
+    return ENCODER.encodeToString(value);
   }
 }
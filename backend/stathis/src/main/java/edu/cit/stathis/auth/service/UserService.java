@@ -19,6 +19,8 @@ import edu.cit.stathis.auth.service.TokenService.CreatedToken;
 import edu.cit.stathis.common.utils.JwtUtil;
 import jakarta.mail.MessagingException;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +51,8 @@ public class UserService {
 
   @Autowired private JwtUtil jwtUtil;
 
+  @Autowired private CustomUserDetailsService userDetailsService;
+
   @Autowired private WebhookService webhookService;
 
   @Autowired
@@ -56,6 +60,9 @@ public class UserService {
 
   @Transactional
   public User createUser(CreateUserDTO userDTO, UserRoleEnum role) {
+    if (role == UserRoleEnum.ADMIN) {
+      throw new IllegalArgumentException("Administrator accounts cannot be registered.");
+    }
     if (existByEmail(userDTO.getEmail())) {
       throw new IllegalArgumentException("Email is already in use.");
     }
@@ -130,7 +137,10 @@ public class UserService {
     return "Email verification is currently disabled.";
   }
 
-  @Transactional
+  /**
+   * Not transactional: authentication can wait on the password hashing pool, and must not hold a
+   * database connection while it does. Only the token rotation runs in a transaction.
+   */
   public AuthResponseDTO loginAndGenerateTokens(LoginDTO loginDTO) {
     Authentication authentication =
         authenticationManager.authenticate(
@@ -147,10 +157,8 @@ public class UserService {
     //   throw new IllegalArgumentException("Email not verified.");
     // }
 
-    tokenService.revokeAllTokensForUser(user, TokenTypeEnum.REFRESH);
-
     String accessToken = jwtUtil.generateToken(user);
-    CreatedToken refresh = tokenService.createRefreshToken(user);
+    CreatedToken refresh = tokenService.rotateRefreshToken(user);
     String tokenValue = refresh.rawToken();
 
     return AuthResponseDTO.builder().accessToken(accessToken).refreshToken(tokenValue).build();
@@ -183,33 +191,19 @@ public class UserService {
     User user =
         uRepo.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("User not found."));
 
-    CreatedToken created =
-        tokenService.createToken(
-            user, TokenTypeEnum.PASSWORD_RESET, OffsetDateTime.now().plusMinutes(30));
-
-    String tokenValue = created.rawToken();
-
-    try {
-      emailService.sendPasswordResetEmail(user.getEmail(), tokenValue);
-    } catch (MessagingException e) {
-      throw new RuntimeException("Failed to send password reset email", e);
-    }
+    // Recorded in this transaction and sent after commit; the token is issued when it is sent
+    emailService.sendPasswordResetEmail(user.getUserId(), user.getEmail());
   }
 
   @Transactional
   public void resetPassword(String tokenValue, String newPassword) {
     Token token =
-        tokenRepo
-            .findByTokenHash(tokenValue)
+        tokenService
+            .getValidToken(tokenValue, TokenTypeEnum.PASSWORD_RESET)
             .orElseThrow(() -> new IllegalArgumentException("Invalid or expired token."));
-    if (token.isRevoked()
-        || token.getExpiresAt().isBefore(OffsetDateTime.now())
-        || token.getUsedAt() != null) {
+    if (token.getUsedAt() != null) {
       throw new IllegalArgumentException("Invalid or expired token.");
     }
-    if (token.getTokenType() != TokenTypeEnum.PASSWORD_RESET) {
-      throw new IllegalArgumentException("Invalid token type.");
-    }
 
     User user = token.getUser();
     user.setPasswordHash(passwordEncoder.encode(newPassword));
@@ -262,6 +256,11 @@ public class UserService {
         .orElseThrow(() -> new IllegalArgumentException("User profile not found."));
   }
 
+  /** Profiles, with their users, for whichever of the emails are registered. One query. */
+  public List<UserProfile> findUserProfilesByEmails(Collection<String> emails) {
+    return upRepo.findAllByUserEmailIn(emails);
+  }
+
   @Transactional
   public UserResponseDTO updateUserProfile(UpdateUserProfileDTO profileDTO) {
     UUID userId = physicalIdService.getCurrentUserUUID();
@@ -411,6 +410,7 @@ public class UserService {
   public boolean deleteUser(UUID userId) {
     User user = findById(userId);
     uRepo.delete(user);
+    userDetailsService.evict(user.getEmail());
     webhookService.notifyUserEvent(user, "deleted");
     return true;
   }
@@ -1,17 +1,69 @@
 package edu.cit.stathis.auth.service;
 
 import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.outbox.DomainEventBus;
+import edu.cit.stathis.common.outbox.DomainEventHandler;
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+/**
+ * Notifies {@code /topic/user/{userId}} of account changes. Notifications are recorded through the
+ * outbox in the caller's transaction and sent after it commits.
+ */
 @Service
-public class WebhookService {
+public class WebhookService implements DomainEventHandler<WebhookService.UserEvent> {
+
+  static final String EVENT_TYPE = "user.event";
 
   @Autowired private SimpMessagingTemplate messagingTemplate;
 
+  @Autowired private DomainEventBus domainEventBus;
+
+  public record UserEvent(UUID userId, String email, String physicalId, String event) {}
+
   public void notifyUserEvent(User user, String event) {
-    String message = String.format("User %s (%s) %s", user.getEmail(), user.getPhysicalId(), event);
-    messagingTemplate.convertAndSend("/topic/user/" + user.getUserId(), message);
+    domainEventBus.publish(
+        EVENT_TYPE, new UserEvent(user.getUserId(), user.getEmail(), user.getPhysicalId(), event));
+  }
+
+  @Override
+  public String eventType() {
+    return EVENT_TYPE;
+  }
+
+  @Override
+  public Class<UserEvent> payloadType() {
+    return UserEvent.class;
+  }
+
+  // Only the events that could not be sent are retried; the others were already delivered
+  @Override
+  @UsesWorkload(Workload.BACKGROUND)
+  public void handle(List<UserEvent> events) {
+    Set<Integer> failed = new HashSet<>();
+    RuntimeException error = null;
+    for (int i = 0; i < events.size(); i++) {
+      UserEvent event = events.get(i);
+      try {
+        String message =
+            String.format("User %s (%s) %s", event.email(), event.physicalId(), event.event());
+        messagingTemplate.convertAndSend("/topic/user/" + event.userId(), message);
+      } catch (RuntimeException e) {
+        failed.add(i);
+        error = e;
+      }
+    }
+    if (!failed.isEmpty()) {
+      throw new PartialDeliveryException(failed, Set.of(), Duration.ZERO, error);
+    }
   }
 }
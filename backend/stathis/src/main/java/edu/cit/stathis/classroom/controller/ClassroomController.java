@@ -8,19 +8,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.Map;
 
+import edu.cit.stathis.classroom.service.ClassroomRosterService;
 import edu.cit.stathis.classroom.service.ClassroomService;
 import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.dto.BulkStudentsBodyDTO;
 import edu.cit.stathis.classroom.dto.ClassroomBodyDTO;
 import edu.cit.stathis.classroom.dto.ClassroomResponseDTO;
+import edu.cit.stathis.classroom.dto.RosterRowResultDTO;
+import edu.cit.stathis.classroom.dto.StudentListPageDTO;
 import edu.cit.stathis.classroom.dto.StudentListResponseDTO;
 
 @RestController
@@ -31,6 +36,9 @@ public class ClassroomController {
     @Autowired
     private ClassroomService classroomService;
 
+    @Autowired
+    private ClassroomRosterService classroomRosterService;
+
     @PostMapping
     @Operation(summary = "Create a new classroom", description = "Create a new classroom")
     public ResponseEntity<ClassroomResponseDTO> createClassroom(@RequestBody ClassroomBodyDTO classroomDTO) {
@@ -67,20 +75,14 @@ public class ClassroomController {
     @GetMapping("/teacher")
     @Operation(summary = "Get classrooms by current teacher", description = "Get classrooms by current teacher")
     public ResponseEntity<List<ClassroomResponseDTO>> getClassroomsByCurrentTeacher() {
-        List<Classroom> classrooms = classroomService.getClassroomsByCurrentTeacher();
-        List<ClassroomResponseDTO> response = classrooms.stream()
-            .map(classroomService::buildClassroomResponse)
-            .collect(Collectors.toList());
+        List<ClassroomResponseDTO> response = classroomService.listClassroomsByCurrentTeacher();
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/student")
     @Operation(summary = "Get classrooms by current student", description = "Get classrooms by current student")
     public ResponseEntity<List<ClassroomResponseDTO>> getClassroomsByCurrentStudent() {
-        List<Classroom> classrooms = classroomService.getClassroomsByCurrentStudent();
-        List<ClassroomResponseDTO> response = classrooms.stream()
-            .map(classroomService::buildClassroomResponse)
-            .collect(Collectors.toList());
+        List<ClassroomResponseDTO> response = classroomService.listClassroomsByCurrentStudent();
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
@@ -99,6 +101,18 @@ public class ClassroomController {
         return new ResponseEntity<>(students, HttpStatus.OK);
     }
 
+    @GetMapping("/{classroomPhysicalId}/students/page")
+    @Operation(summary = "Get a page of students in a classroom",
+            description = "Keyset-paginated by last name, first name; q searches name and email prefixes, verified filters by status. Pass the returned nextCursor to fetch the following page")
+    public ResponseEntity<StudentListPageDTO> getStudentPageByClassroomPhysicalId(
+            @PathVariable String classroomPhysicalId,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean verified,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(classroomRosterService.getRosterPage(classroomPhysicalId, q, verified, cursor, size));
+    }
+
     @PostMapping("/{classroomPhysicalId}/students/{studentId}/verify")
     @Operation(summary = "Verify a student's status in a classroom", description = "Verify a student's status in a classroom")
     public ResponseEntity<Void> verifyStudentStatus(@PathVariable String classroomPhysicalId, @PathVariable String studentId) {
@@ -113,6 +127,27 @@ public class ClassroomController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @PostMapping("/{classroomPhysicalId}/students/verify")
+    @Operation(summary = "Verify several students in a classroom", description = "Verify a list of students in a classroom and report the outcome per student")
+    public ResponseEntity<List<RosterRowResultDTO>> verifyStudents(@PathVariable String classroomPhysicalId, @Valid @RequestBody BulkStudentsBodyDTO body) {
+        List<RosterRowResultDTO> results = classroomService.verifyStudents(classroomPhysicalId, body.getStudentIds());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @PostMapping("/{classroomPhysicalId}/students/unenroll")
+    @Operation(summary = "Remove several students from a classroom", description = "Remove a list of students from a classroom and report the outcome per student")
+    public ResponseEntity<List<RosterRowResultDTO>> unenrollStudents(@PathVariable String classroomPhysicalId, @Valid @RequestBody BulkStudentsBodyDTO body) {
+        List<RosterRowResultDTO> results = classroomService.unenrollStudents(classroomPhysicalId, body.getStudentIds());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/{classroomPhysicalId}/students/import", consumes = {"text/csv", "text/plain"})
+    @Operation(summary = "Import a classroom roster", description = "Enroll the students listed in a CSV of email addresses and report the outcome per line")
+    public ResponseEntity<List<RosterRowResultDTO>> importRoster(@PathVariable String classroomPhysicalId, @RequestBody String csv) {
+        List<RosterRowResultDTO> results = classroomService.importRoster(classroomPhysicalId, csv);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @PostMapping("/{classroomPhysicalId}/deactivate")
     @Operation(summary = "Deactivate a classroom", description = "Deactivate a classroom")
     public ResponseEntity<Void> deactivateClassroom(@PathVariable String classroomPhysicalId) {
@@ -0,0 +1,15 @@
+package edu.cit.stathis.classroom.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStudentsBodyDTO {
+    @NotEmpty(message = "At least one student ID is required")
+    private List<String> studentIds;
+}
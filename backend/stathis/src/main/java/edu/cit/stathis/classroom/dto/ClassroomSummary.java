@@ -0,0 +1,34 @@
+package edu.cit.stathis.classroom.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A classroom's header fields with its teacher's name and roster size, read by a single JPQL
+ * constructor expression so listings never load enrolled students.
+ */
+public record ClassroomSummary(
+    String physicalId,
+    String name,
+    String description,
+    OffsetDateTime createdAt,
+    OffsetDateTime updatedAt,
+    boolean active,
+    String classroomCode,
+    String teacherFirstName,
+    String teacherLastName,
+    long studentCount) {
+
+    /**
+     * "First Last", or null when the teacher has no profile; the listing keeps such classrooms
+     * rather than dropping them with an inner join.
+     */
+    public String teacherName() {
+        if (teacherFirstName == null && teacherLastName == null) {
+            return null;
+        }
+        if (teacherFirstName == null || teacherLastName == null) {
+            return teacherFirstName != null ? teacherFirstName : teacherLastName;
+        }
+        return teacherFirstName + " " + teacherLastName;
+    }
+}
@@ -0,0 +1,19 @@
+package edu.cit.stathis.classroom.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One enrolled student as read by the roster queries' constructor expression. The lower-cased
+ * names are the keyset sort key, taken from the database so cursors compare exactly as it does.
+ */
+public record RosterEntry(
+    String enrollmentId,
+    String physicalId,
+    String firstName,
+    String lastName,
+    String email,
+    String profilePictureUrl,
+    OffsetDateTime joinedAt,
+    boolean verified,
+    String sortLastName,
+    String sortFirstName) {}
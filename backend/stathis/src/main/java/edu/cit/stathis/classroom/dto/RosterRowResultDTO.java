@@ -0,0 +1,16 @@
+package edu.cit.stathis.classroom.dto;
+
+import edu.cit.stathis.classroom.enums.RosterRowStatusEnum;
+import lombok.*;
+
+/** The outcome of one entry of a bulk roster operation, in request order. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RosterRowResultDTO {
+    private int row;
+    private String value;
+    private RosterRowStatusEnum status;
+}
@@ -0,0 +1,13 @@
+package edu.cit.stathis.classroom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class StudentListPageDTO {
+    private List<StudentListResponseDTO> items;
+    // Opaque cursor for the next page; null once the roster is exhausted
+    private String nextCursor;
+}
@@ -3,16 +3,22 @@ package edu.cit.stathis.classroom.entity;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import edu.cit.stathis.auth.entity.UserProfile;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 @Entity
-@Table(name = "classroom_students")
+@Table(
+    name = "classroom_students",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_classroom_students_classroom_student", columnNames = {"classroom_id", "student_id"}),
+    indexes = @Index(name = "idx_classroom_students_classroom_verified", columnList = "classroom_id, verified"))
 @Getter
 @Setter
 @NoArgsConstructor
-public class ClassroomStudents {
+public class ClassroomStudents implements Persistable<String> {
     @Id
     @Column(name = "physical_id", length = 15)
     private String physicalId;
@@ -34,6 +40,28 @@ public class ClassroomStudents {
     @Column(nullable = false)
     private OffsetDateTime updatedAt;
 
+    // The id is assigned, so without this save() would merge and SELECT before every insert
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return physicalId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        persisted = true;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = OffsetDateTime.now();
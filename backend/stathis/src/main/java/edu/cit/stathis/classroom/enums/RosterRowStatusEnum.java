@@ -0,0 +1,14 @@
+package edu.cit.stathis.classroom.enums;
+
+public enum RosterRowStatusEnum {
+    ENROLLED,
+    VERIFIED,
+    UNENROLLED,
+    ALREADY_ENROLLED,
+    ALREADY_VERIFIED,
+    NOT_ENROLLED,
+    USER_NOT_FOUND,
+    NOT_A_STUDENT,
+    DUPLICATE,
+    INVALID
+}
@@ -3,6 +3,7 @@ package edu.cit.stathis.classroom.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import edu.cit.stathis.classroom.dto.ClassroomSummary;
 import edu.cit.stathis.classroom.entity.Classroom;
 import java.util.List;
 import java.util.Optional;
@@ -18,5 +19,24 @@ public interface ClassroomRepository extends JpaRepository<Classroom, String> {
     List<Classroom> findByClassroomStudents_Student_User_PhysicalId(@Param("studentPhysicalId") String studentPhysicalId);
     @Query("SELECT c FROM Classroom c LEFT JOIN FETCH c.classroomStudents WHERE c.classroomCode = :classroomCode")
     Optional<Classroom> findByClassroomCode(@Param("classroomCode") String classroomCode);
+    @Query("SELECT c FROM Classroom c WHERE c.classroomCode = :classroomCode")
+    Optional<Classroom> findWithoutStudentsByClassroomCode(@Param("classroomCode") String classroomCode);
     boolean existsByPhysicalId(String physicalId);
+
+    String SUMMARY_SELECT = "SELECT new edu.cit.stathis.classroom.dto.ClassroomSummary("
+        + "c.physicalId, c.name, c.description, c.createdAt, c.updatedAt, c.active, c.classroomCode, "
+        + "p.firstName, p.lastName, "
+        + "(SELECT COUNT(cs) FROM ClassroomStudents cs WHERE cs.classroom = c)) "
+        + "FROM Classroom c LEFT JOIN User t ON t.physicalId = c.teacherId LEFT JOIN t.userProfile p ";
+
+    @Query(SUMMARY_SELECT + "WHERE c.teacherId = :teacherId ORDER BY c.createdAt, c.physicalId")
+    List<ClassroomSummary> findSummariesByTeacherId(@Param("teacherId") String teacherId);
+
+    @Query(SUMMARY_SELECT
+        + "WHERE EXISTS (SELECT 1 FROM ClassroomStudents e "
+        + "WHERE e.classroom = c AND e.student.user.physicalId = :studentPhysicalId) "
+        + "ORDER BY c.createdAt, c.physicalId")
+    List<ClassroomSummary> findSummariesByStudentPhysicalId(@Param("studentPhysicalId") String studentPhysicalId);
+    boolean existsByPhysicalIdAndTeacherId(String physicalId, String teacherId);
+    boolean existsByClassroomCode(String classroomCode);
 }
@@ -0,0 +1,95 @@
+package edu.cit.stathis.classroom.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import edu.cit.stathis.classroom.dto.RosterEntry;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import org.springframework.data.domain.Limit;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Enrollment lookups by student rather than by roster. Each one resolves through the unique
+ * (classroom_id, student_id) index and the unique users.physical_id, so it costs the same for a
+ * classroom of five or five thousand; the bulk variants take one statement per batch.
+ */
+@Repository
+public interface ClassroomStudentsRepository extends JpaRepository<ClassroomStudents, String> {
+    @Query("SELECT COUNT(cs) > 0 FROM ClassroomStudents cs "
+        + "WHERE cs.classroom.physicalId = :classroomId AND cs.student.user.physicalId = :studentPhysicalId")
+    boolean existsEnrollment(
+        @Param("classroomId") String classroomId, @Param("studentPhysicalId") String studentPhysicalId);
+
+    @Query("SELECT COUNT(cs) > 0 FROM ClassroomStudents cs "
+        + "WHERE cs.classroom.physicalId = :classroomId AND cs.student.user.physicalId = :studentPhysicalId "
+        + "AND cs.verified = true")
+    boolean existsVerifiedEnrollment(
+        @Param("classroomId") String classroomId, @Param("studentPhysicalId") String studentPhysicalId);
+
+    @Query("SELECT cs FROM ClassroomStudents cs "
+        + "WHERE cs.classroom.physicalId = :classroomId AND cs.student.user.physicalId = :studentPhysicalId")
+    Optional<ClassroomStudents> findEnrollment(
+        @Param("classroomId") String classroomId, @Param("studentPhysicalId") String studentPhysicalId);
+
+    /**
+     * A classroom's roster ordered by (last name, first name, enrollment id), case-insensitively.
+     * Every filter is optional: {@code verified}, a LIKE {@code prefix} already lower-cased and
+     * escaped with {@code !}, matched against first name, last name and email, and the keyset
+     * position to continue after.
+     */
+    @Query("SELECT new edu.cit.stathis.classroom.dto.RosterEntry("
+        + "cs.physicalId, u.physicalId, p.firstName, p.lastName, u.email, p.profilePictureUrl, "
+        + "cs.createdAt, cs.verified, LOWER(p.lastName), LOWER(p.firstName)) "
+        + "FROM ClassroomStudents cs JOIN cs.student p JOIN p.user u "
+        + "WHERE cs.classroom.physicalId = :classroomId "
+        + "AND (:verified IS NULL OR cs.verified = :verified) "
+        + "AND (:prefix IS NULL OR LOWER(p.lastName) LIKE :prefix ESCAPE '!' "
+        + "OR LOWER(p.firstName) LIKE :prefix ESCAPE '!' OR LOWER(u.email) LIKE :prefix ESCAPE '!') "
+        + "AND (:afterLastName IS NULL OR LOWER(p.lastName) > :afterLastName "
+        + "OR (LOWER(p.lastName) = :afterLastName AND (LOWER(p.firstName) > :afterFirstName "
+        + "OR (LOWER(p.firstName) = :afterFirstName AND cs.physicalId > :afterId)))) "
+        + "ORDER BY LOWER(p.lastName), LOWER(p.firstName), cs.physicalId")
+    List<RosterEntry> findRoster(
+        @Param("classroomId") String classroomId,
+        @Param("verified") Boolean verified,
+        @Param("prefix") String prefix,
+        @Param("afterLastName") String afterLastName,
+        @Param("afterFirstName") String afterFirstName,
+        @Param("afterId") String afterId,
+        Limit limit);
+
+    @Query("SELECT cs FROM ClassroomStudents cs JOIN FETCH cs.student s JOIN FETCH s.user u "
+        + "WHERE cs.classroom.physicalId = :classroomId AND u.physicalId IN :studentPhysicalIds")
+    List<ClassroomStudents> findEnrollments(
+        @Param("classroomId") String classroomId,
+        @Param("studentPhysicalIds") Collection<String> studentPhysicalIds);
+
+    @Query("SELECT cs.student.userId FROM ClassroomStudents cs "
+        + "WHERE cs.classroom.physicalId = :classroomId AND cs.student.userId IN :userIds")
+    List<UUID> findEnrolledUserIds(
+        @Param("classroomId") String classroomId, @Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT cs.physicalId FROM ClassroomStudents cs WHERE cs.physicalId IN :physicalIds")
+    List<String> findExistingPhysicalIds(@Param("physicalIds") Collection<String> physicalIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ClassroomStudents cs SET cs.verified = true, cs.updatedAt = :now "
+        + "WHERE cs.physicalId IN :physicalIds")
+    int verifyAll(@Param("physicalIds") Collection<String> physicalIds, @Param("now") OffsetDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ClassroomStudents cs WHERE cs.physicalId IN :physicalIds")
+    int deleteAllByPhysicalIdIn(@Param("physicalIds") Collection<String> physicalIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM ClassroomStudents cs WHERE cs.classroom.physicalId = :classroomId "
+        + "AND cs.student.userId IN (SELECT u.userId FROM User u WHERE u.physicalId = :studentPhysicalId)")
+    int deleteEnrollment(
+        @Param("classroomId") String classroomId, @Param("studentPhysicalId") String studentPhysicalId);
+}
@@ -0,0 +1,126 @@
+package edu.cit.stathis.classroom.service;
+
+import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.classroom.dto.RosterEntry;
+import edu.cit.stathis.classroom.dto.StudentListPageDTO;
+import edu.cit.stathis.classroom.dto.StudentListResponseDTO;
+import edu.cit.stathis.classroom.repository.ClassroomStudentsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Classroom rosters read as projections, never as entities: keyset pages ordered by name, with an
+ * optional name/email prefix search and verified filter. A page costs one query whatever its
+ * position in the roster.
+ */
+@Service
+public class ClassroomRosterService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Autowired
+    private ClassroomStudentsRepository classroomStudentsRepository;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private PhysicalIdService physicalIdService;
+
+    /** A page of the roster, for the classroom's teacher or its students. */
+    @Transactional(readOnly = true)
+    public StudentListPageDTO getRosterPage(
+            String classroomPhysicalId, String query, Boolean verified, String cursor, int size) {
+        if (!classroomService.isUserEnrolledInClassroom(
+                physicalIdService.getCurrentUserPhysicalId(), classroomPhysicalId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not a member of this classroom");
+        }
+        int pageSize = clampPageSize(size);
+        Cursor after = decodeCursor(cursor);
+        List<RosterEntry> entries = classroomStudentsRepository.findRoster(
+                classroomPhysicalId,
+                verified,
+                toPrefixPattern(query),
+                after == null ? null : after.lastName(),
+                after == null ? null : after.firstName(),
+                after == null ? null : after.enrollmentId(),
+                Limit.of(pageSize));
+        String nextCursor = null;
+        if (entries.size() == pageSize) {
+            RosterEntry last = entries.get(entries.size() - 1);
+            nextCursor = encodeCursor(last.sortLastName(), last.sortFirstName(), last.enrollmentId());
+        }
+        List<StudentListResponseDTO> items = entries.stream().map(ClassroomRosterService::toResponse).toList();
+        return new StudentListPageDTO(items, nextCursor);
+    }
+
+    static StudentListResponseDTO toResponse(RosterEntry entry) {
+        return StudentListResponseDTO.builder()
+                .physicalId(entry.physicalId())
+                .firstName(entry.firstName())
+                .lastName(entry.lastName())
+                .email(entry.email())
+                .profilePictureUrl(entry.profilePictureUrl())
+                .joinedAt(entry.joinedAt().toString())
+                .isVerified(entry.verified())
+                .build();
+    }
+
+    // Lower-cased, LIKE metacharacters escaped with '!', then the trailing wildcard
+    static String toPrefixPattern(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String escaped = query.strip().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return escaped + "%";
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private record Cursor(String lastName, String firstName, String enrollmentId) {}
+
+    // Each part is encoded on its own, so names may contain any character
+    static String encodeCursor(String lastName, String firstName, String enrollmentId) {
+        return encode(lastName) + "." + encode(firstName) + "." + encode(enrollmentId);
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        try {
+            return new Cursor(decode(parts[0]), decode(parts[1]), decode(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -3,19 +3,36 @@ package edu.cit.stathis.classroom.service;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import edu.cit.stathis.classroom.repository.ClassroomRepository;
+import edu.cit.stathis.classroom.repository.ClassroomStudentsRepository;
 import edu.cit.stathis.classroom.dto.ClassroomBodyDTO;
 import edu.cit.stathis.classroom.dto.ClassroomResponseDTO;
+import edu.cit.stathis.classroom.dto.ClassroomSummary;
+import edu.cit.stathis.classroom.dto.RosterRowResultDTO;
 import edu.cit.stathis.classroom.dto.StudentListResponseDTO;
 import edu.cit.stathis.classroom.entity.Classroom;
 import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import edu.cit.stathis.classroom.enums.RosterRowStatusEnum;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
 import edu.cit.stathis.auth.service.UserService;
 import edu.cit.stathis.auth.service.PhysicalIdService;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.OffsetDateTime;
 import java.util.Random;
 import java.util.List;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 @Service
@@ -23,12 +40,18 @@ public class ClassroomService {
     @Autowired
     private ClassroomRepository classroomRepository;
 
+    @Autowired
+    private ClassroomStudentsRepository classroomStudentsRepository;
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private PhysicalIdService physicalIdService;
 
+    @Value("${classroom.roster.max-rows:1000}")
+    private int rosterMaxRows;
+
     @PreAuthorize("hasRole('TEACHER')")
     @Transactional
     public Classroom createClassroom(ClassroomBodyDTO createClassroomDTO) {
@@ -82,6 +105,24 @@ public class ClassroomService {
             physicalIdService.getCurrentUserPhysicalId());
     }
 
+    /** The current teacher's classrooms for the dashboard, read in one statement. */
+    @Transactional(readOnly = true)
+    public List<ClassroomResponseDTO> listClassroomsByCurrentTeacher() {
+        return classroomRepository.findSummariesByTeacherId(physicalIdService.getCurrentUserPhysicalId())
+            .stream()
+            .map(this::buildClassroomResponse)
+            .collect(Collectors.toList());
+    }
+
+    /** The classrooms the current student is enrolled in, read in one statement. */
+    @Transactional(readOnly = true)
+    public List<ClassroomResponseDTO> listClassroomsByCurrentStudent() {
+        return classroomRepository.findSummariesByStudentPhysicalId(physicalIdService.getCurrentUserPhysicalId())
+            .stream()
+            .map(this::buildClassroomResponse)
+            .collect(Collectors.toList());
+    }
+
     @Transactional
     public String generateClassroomCode(Classroom classroom) {
         String classroomCode = provideUniqueClassroomCode();
@@ -90,6 +131,8 @@ public class ClassroomService {
         return classroomCode;
     }
 
+    private static final Set<String> ROSTER_HEADER_NAMES = Set.of("email", "e-mail", "email address");
+
     private static final List<String> CODE_WORDS = Arrays.asList(
         "FISH", "STAR", "MOON", "SUN", "TREE", "BOOK", "BIRD", "ROCK",
         "WAVE", "CLOUD", "LEAF", "SNOW", "FIRE", "WIND", "RAIN", "LAKE",
@@ -105,7 +148,7 @@ public class ClassroomService {
             String word = CODE_WORDS.get(random.nextInt(CODE_WORDS.size()));
             int number = random.nextInt(1000000);
             classroomCode = String.format("%s-%06d", word, number);
-        } while (classroomRepository.findByClassroomCode(classroomCode).isPresent());
+        } while (classroomRepository.existsByClassroomCode(classroomCode));
         return classroomCode;
     }
 
@@ -114,16 +157,15 @@ public class ClassroomService {
     public void enrollStudentInClassroom(String classroomCode) {
         String studentPhysicalId = physicalIdService.getCurrentUserPhysicalId();
 
-        Classroom classroom = classroomRepository.findByClassroomCode(classroomCode)
+        // The roster is never loaded here; the enrollment row is checked and written on its own
+        Classroom classroom = classroomRepository.findWithoutStudentsByClassroomCode(classroomCode)
             .orElseThrow(() -> new RuntimeException("Classroom not found"));
         
         if (!classroom.isActive()) {
             throw new RuntimeException("Classroom is not active");
         }
         
-        boolean alreadyEnrolled = classroom.getClassroomStudents().stream()
-            .anyMatch(cs -> cs.getStudent().getUser().getPhysicalId().equals(studentPhysicalId));
-        if (alreadyEnrolled) {
+        if (classroomStudentsRepository.existsEnrollment(classroom.getPhysicalId(), studentPhysicalId)) {
             throw new RuntimeException("Student is already enrolled");
         }
         
@@ -136,54 +178,39 @@ public class ClassroomService {
             classroomStudents.setCreatedAt(OffsetDateTime.now());
             classroomStudents.setUpdatedAt(OffsetDateTime.now());
             classroomStudents.setVerified(false);
-            classroom.getClassroomStudents().add(classroomStudents);
-            classroomRepository.save(classroom);
+            classroomStudentsRepository.save(classroomStudents);
         } catch (Exception e) {
             throw e;
         }
     }
 
+    /** The whole roster in name order, read as a projection; see {@link ClassroomRosterService} for pages. */
     @Transactional(readOnly = true)
     public List<StudentListResponseDTO> getStudentListByClassroomPhysicalId(String classroomPhysicalId) {
-        Classroom classroom = classroomRepository.findByPhysicalId(classroomPhysicalId)
-            .orElseThrow(() -> new RuntimeException("Classroom not found"));
-        return classroom.getClassroomStudents().stream()
-            .map(this::buildStudentListResponse)
+        requireClassroom(classroomPhysicalId);
+        return classroomStudentsRepository
+            .findRoster(classroomPhysicalId, null, null, null, null, null, Limit.unlimited())
+            .stream()
+            .map(ClassroomRosterService::toResponse)
             .collect(Collectors.toList());
     }
 
     @PreAuthorize("hasRole('TEACHER')")
     @Transactional
     public void verifyStudentStatus(String classroomPhysicalId, String studentId) {
-        Classroom classroom = classroomRepository.findByPhysicalId(classroomPhysicalId)
-            .orElseThrow(() -> new RuntimeException("Classroom not found"));
-        ClassroomStudents classroomStudents = classroom.getClassroomStudents().stream()
-            .filter(cs -> cs.getStudent().getUser().getPhysicalId().equals(studentId))
-            .findFirst()
+        requireClassroom(classroomPhysicalId);
+        ClassroomStudents classroomStudents = classroomStudentsRepository
+            .findEnrollment(classroomPhysicalId, studentId)
             .orElseThrow(() -> new RuntimeException("Student not found in classroom"));
         classroomStudents.setVerified(true);
-        classroomRepository.save(classroom);
+        classroomStudentsRepository.save(classroomStudents);
     }
 
     @PreAuthorize("hasRole('TEACHER')")
     @Transactional
     public void unenrollStudentInClassroom(String classroomPhysicalId, String studentId) {
-        Classroom classroom = classroomRepository.findByPhysicalId(classroomPhysicalId)
-            .orElseThrow(() -> new RuntimeException("Classroom not found"));
-        classroom.getClassroomStudents().removeIf(cs -> cs.getStudent().getUser().getPhysicalId().equals(studentId));
-        classroomRepository.save(classroom);
-    }
-
-    private StudentListResponseDTO buildStudentListResponse(ClassroomStudents classroomStudents) {
-        return StudentListResponseDTO.builder()
-            .physicalId(classroomStudents.getStudent().getUser().getPhysicalId())
-            .firstName(classroomStudents.getStudent().getFirstName())
-            .lastName(classroomStudents.getStudent().getLastName())
-            .email(classroomStudents.getStudent().getUser().getEmail())
-            .profilePictureUrl(classroomStudents.getStudent().getProfilePictureUrl())
-            .joinedAt(classroomStudents.getCreatedAt().toString())
-            .isVerified(classroomStudents.isVerified())
-            .build();
+        requireClassroom(classroomPhysicalId);
+        classroomStudentsRepository.deleteEnrollment(classroomPhysicalId, studentId);
     }
 
     public ClassroomResponseDTO buildClassroomResponse(Classroom classroom) {
@@ -200,10 +227,24 @@ public class ClassroomService {
             .build();
     }
 
+    public ClassroomResponseDTO buildClassroomResponse(ClassroomSummary summary) {
+        return ClassroomResponseDTO.builder()
+            .physicalId(summary.physicalId())
+            .name(summary.name())
+            .description(summary.description())
+            .createdAt(summary.createdAt().toString())
+            .updatedAt(summary.updatedAt().toString())
+            .isActive(summary.active())
+            .teacherName(summary.teacherName())
+            .studentCount((int) summary.studentCount())
+            .classroomCode(summary.classroomCode())
+            .build();
+    }
+
     @Transactional(readOnly = true)
     public String getTeacherName(String teacherId) {
-        return userService.findUserProfileByPhysicalId(teacherId).getFirstName() + " " + 
-               userService.findUserProfileByPhysicalId(teacherId).getLastName();
+        var teacherProfile = userService.findUserProfileByPhysicalId(teacherId);
+        return teacherProfile.getFirstName() + " " + teacherProfile.getLastName();
     }
 
     private String generatePhysicalId() {
@@ -223,12 +264,227 @@ public class ClassroomService {
     }
 
     private String provideUniqueClassroomStudentId() {
+        return provideUniqueClassroomStudentIds(1).get(0);
+    }
+
+    // Checks every candidate in one query and redraws only the ones already taken
+    private List<String> provideUniqueClassroomStudentIds(int count) {
+        Set<String> ids = new LinkedHashSet<>();
+        while (ids.size() < count) {
+            Set<String> candidates = new HashSet<>();
+            while (candidates.size() < count - ids.size()) {
+                String candidate = generateClassroomStudentId();
+                if (!ids.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            candidates.removeAll(classroomStudentsRepository.findExistingPhysicalIds(candidates));
+            ids.addAll(candidates);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private String generateClassroomStudentId() {
         String year = String.valueOf(OffsetDateTime.now().getYear()).substring(2);
         Random random = new Random();
-        String secondPart = String.format("%03d", random.nextInt(1000));
+        String secondPart = String.format("%09d", random.nextInt(1_000_000_000));
         return String.format("CS-%s-%s", year, secondPart);
     }
 
+    /**
+     * Verifies the listed students with one lookup and one update, however many there are. The
+     * report has one row per requested ID, in request order.
+     */
+    @PreAuthorize("hasRole('TEACHER')")
+    @Transactional
+    public List<RosterRowResultDTO> verifyStudents(String classroomPhysicalId, List<String> studentIds) {
+        requireOwnClassroom(classroomPhysicalId);
+        requireRosterSize(studentIds.size());
+        Map<String, ClassroomStudents> enrollments = findEnrollments(classroomPhysicalId, studentIds);
+        List<RosterRowResultDTO> results = new ArrayList<>();
+        List<String> toVerify = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < studentIds.size(); i++) {
+            String studentId = studentIds.get(i);
+            ClassroomStudents enrollment = enrollments.get(studentId);
+            RosterRowStatusEnum status;
+            if (studentId == null || studentId.isBlank()) {
+                status = RosterRowStatusEnum.INVALID;
+            } else if (!seen.add(studentId)) {
+                status = RosterRowStatusEnum.DUPLICATE;
+            } else if (enrollment == null) {
+                status = RosterRowStatusEnum.NOT_ENROLLED;
+            } else if (enrollment.isVerified()) {
+                status = RosterRowStatusEnum.ALREADY_VERIFIED;
+            } else {
+                status = RosterRowStatusEnum.VERIFIED;
+                toVerify.add(enrollment.getPhysicalId());
+            }
+            results.add(buildRosterRow(i + 1, studentId, status));
+        }
+        if (!toVerify.isEmpty()) {
+            classroomStudentsRepository.verifyAll(toVerify, OffsetDateTime.now());
+        }
+        return results;
+    }
+
+    /** Removes the listed students with one lookup and one delete. */
+    @PreAuthorize("hasRole('TEACHER')")
+    @Transactional
+    public List<RosterRowResultDTO> unenrollStudents(String classroomPhysicalId, List<String> studentIds) {
+        requireOwnClassroom(classroomPhysicalId);
+        requireRosterSize(studentIds.size());
+        Map<String, ClassroomStudents> enrollments = findEnrollments(classroomPhysicalId, studentIds);
+        List<RosterRowResultDTO> results = new ArrayList<>();
+        List<String> toRemove = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < studentIds.size(); i++) {
+            String studentId = studentIds.get(i);
+            ClassroomStudents enrollment = enrollments.get(studentId);
+            RosterRowStatusEnum status;
+            if (studentId == null || studentId.isBlank()) {
+                status = RosterRowStatusEnum.INVALID;
+            } else if (!seen.add(studentId)) {
+                status = RosterRowStatusEnum.DUPLICATE;
+            } else if (enrollment == null) {
+                status = RosterRowStatusEnum.NOT_ENROLLED;
+            } else {
+                status = RosterRowStatusEnum.UNENROLLED;
+                toRemove.add(enrollment.getPhysicalId());
+            }
+            results.add(buildRosterRow(i + 1, studentId, status));
+        }
+        if (!toRemove.isEmpty()) {
+            classroomStudentsRepository.deleteAllByPhysicalIdIn(toRemove);
+        }
+        return results;
+    }
+
+    /**
+     * Enrolls the students listed in a CSV whose first column is an email address; a first line
+     * whose first column is a header name such as {@code email} is skipped. Imported students are enrolled as verified, since their teacher added them. Users
+     * and existing enrollments are looked up once for the whole file and the new rows are written
+     * in JDBC batches, all in one transaction. The report has one row per non-blank line, numbered
+     * as in the file.
+     */
+    @PreAuthorize("hasRole('TEACHER')")
+    @Transactional
+    public List<RosterRowResultDTO> importRoster(String classroomPhysicalId, String csv) {
+        requireOwnClassroom(classroomPhysicalId);
+        Map<Integer, String> rows = parseRosterCsv(csv == null ? "" : csv);
+        requireRosterSize(rows.size());
+
+        Map<String, UserProfile> profiles = userService
+            .findUserProfilesByEmails(new HashSet<>(rows.values())).stream()
+            .collect(Collectors.toMap(profile -> profile.getUser().getEmail(), Function.identity()));
+        Set<UUID> enrolled = profiles.isEmpty() ? Set.of() : new HashSet<>(
+            classroomStudentsRepository.findEnrolledUserIds(
+                classroomPhysicalId,
+                profiles.values().stream().map(UserProfile::getUserId).toList()));
+
+        List<RosterRowResultDTO> results = new ArrayList<>();
+        List<UserProfile> toEnroll = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Map.Entry<Integer, String> row : rows.entrySet()) {
+            String email = row.getValue();
+            UserProfile profile = profiles.get(email);
+            RosterRowStatusEnum status;
+            if (email.indexOf('@') < 1) {
+                status = RosterRowStatusEnum.INVALID;
+            } else if (!seen.add(email)) {
+                status = RosterRowStatusEnum.DUPLICATE;
+            } else if (profile == null) {
+                status = RosterRowStatusEnum.USER_NOT_FOUND;
+            } else if (profile.getUser().getUserRole() != UserRoleEnum.STUDENT) {
+                status = RosterRowStatusEnum.NOT_A_STUDENT;
+            } else if (enrolled.contains(profile.getUserId())) {
+                status = RosterRowStatusEnum.ALREADY_ENROLLED;
+            } else {
+                status = RosterRowStatusEnum.ENROLLED;
+                toEnroll.add(profile);
+            }
+            results.add(buildRosterRow(row.getKey(), email, status));
+        }
+
+        if (!toEnroll.isEmpty()) {
+            Classroom classroom = classroomRepository.getReferenceById(classroomPhysicalId);
+            List<String> ids = provideUniqueClassroomStudentIds(toEnroll.size());
+            List<ClassroomStudents> enrollments = new ArrayList<>();
+            for (int i = 0; i < toEnroll.size(); i++) {
+                ClassroomStudents classroomStudents = new ClassroomStudents();
+                classroomStudents.setPhysicalId(ids.get(i));
+                classroomStudents.setClassroom(classroom);
+                classroomStudents.setStudent(toEnroll.get(i));
+                classroomStudents.setVerified(true);
+                enrollments.add(classroomStudents);
+            }
+            classroomStudentsRepository.saveAll(enrollments);
+        }
+        return results;
+    }
+
+    private Map<String, ClassroomStudents> findEnrollments(String classroomPhysicalId, List<String> studentIds) {
+        Set<String> ids = studentIds.stream()
+            .filter(id -> id != null && !id.isBlank())
+            .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return classroomStudentsRepository.findEnrollments(classroomPhysicalId, ids).stream()
+            .collect(Collectors.toMap(cs -> cs.getStudent().getUser().getPhysicalId(), Function.identity()));
+    }
+
+    // Line number to the trimmed first column, skipping blank lines and a leading header; any other
+    // first line is kept, so a mistyped first email is reported as invalid rather than dropped
+    static Map<Integer, String> parseRosterCsv(String csv) {
+        Map<Integer, String> rows = new LinkedHashMap<>();
+        List<String> lines = csv.lines().toList();
+        boolean firstLineSeen = false;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            String value = (comma < 0 ? line : line.substring(0, comma)).strip();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1).strip();
+            }
+            boolean first = !firstLineSeen;
+            firstLineSeen = true;
+            if (first && ROSTER_HEADER_NAMES.contains(value.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            rows.put(i + 1, value);
+        }
+        return rows;
+    }
+
+    private void requireOwnClassroom(String classroomPhysicalId) {
+        if (!classroomRepository.existsByPhysicalIdAndTeacherId(
+                classroomPhysicalId, physicalIdService.getCurrentUserPhysicalId())) {
+            requireClassroom(classroomPhysicalId);
+            throw new RuntimeException("You are not authorized to update this classroom");
+        }
+    }
+
+    private void requireRosterSize(int rows) {
+        if (rows == 0) {
+            throw new RuntimeException("No students given");
+        }
+        if (rows > rosterMaxRows) {
+            throw new RuntimeException("At most " + rosterMaxRows + " students can be processed at once");
+        }
+    }
+
+    private RosterRowResultDTO buildRosterRow(int row, String value, RosterRowStatusEnum status) {
+        return RosterRowResultDTO.builder()
+            .row(row)
+            .value(value)
+            .status(status)
+            .build();
+    }
+
     @PreAuthorize("hasRole('TEACHER')")
     @Transactional
     public void deactivateClassroom(String physicalId) {
@@ -251,18 +507,34 @@ public class ClassroomService {
         classroomRepository.save(classroom);
     }
 
+    /**
+     * Whether the user teaches or is enrolled in the classroom. Answered by indexed existence
+     * queries; the roster is never loaded.
+     */
     @Transactional(readOnly = true)
     public boolean isUserEnrolledInClassroom(String userPhysicalId, String classroomPhysicalId) {
-        Classroom classroom = getClassroomById(classroomPhysicalId);
-        return classroom.getClassroomStudents().stream()
-            .anyMatch(cs -> cs.getStudent().getUser().getPhysicalId().equals(userPhysicalId)) ||
-            classroom.getTeacherId().equals(userPhysicalId);
+        if (classroomStudentsRepository.existsEnrollment(classroomPhysicalId, userPhysicalId)
+            || classroomRepository.existsByPhysicalIdAndTeacherId(classroomPhysicalId, userPhysicalId)) {
+            return true;
+        }
+        requireClassroom(classroomPhysicalId);
+        return false;
     }
 
+    /** Whether the user is enrolled in the classroom and verified by its teacher. */
     @Transactional(readOnly = true)
     public boolean isUserEnrolledAndVerifiedInClassroom(String userPhysicalId, String classroomPhysicalId) {
-        Classroom classroom = getClassroomById(classroomPhysicalId);
-        return classroom.getClassroomStudents().stream()
-            .anyMatch(cs -> cs.getStudent().getUser().getPhysicalId().equals(userPhysicalId) && cs.isVerified());
+        if (classroomStudentsRepository.existsVerifiedEnrollment(classroomPhysicalId, userPhysicalId)) {
+            return true;
+        }
+        requireClassroom(classroomPhysicalId);
+        return false;
+    }
+
+    // Keeps "Classroom not found" for unknown ids without loading the classroom
+    private void requireClassroom(String classroomPhysicalId) {
+        if (!classroomRepository.existsByPhysicalId(classroomPhysicalId)) {
+            throw new RuntimeException("Classroom not found");
+        }
     }
 }
@@ -0,0 +1,75 @@
+package edu.cit.stathis.common.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * Sends CBOR frames as binary WebSocket messages on sessions of the plain endpoint.
+ *
+ * <p>{@code StompSubProtocolHandler} only sends a binary message for content compatible with
+ * {@code application/octet-stream}; a CBOR frame goes out as a {@link TextMessage} and the client
+ * decodes its bytes as UTF-8. The text message still holds the encoded bytes, so the session
+ * re-sends them unchanged as a {@link BinaryMessage}.
+ */
+public class BinaryFrameHandlerDecorator extends WebSocketHandlerDecorator {
+
+  private static final byte[] CBOR_CONTENT_TYPE =
+      ("\ncontent-type:" + CborSubscriptionInterceptor.APPLICATION_CBOR)
+          .getBytes(StandardCharsets.UTF_8);
+
+  public BinaryFrameHandlerDecorator(WebSocketHandler delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+    super.afterConnectionEstablished(
+        BinaryTransportHandshakeInterceptor.isBinaryTransport(session.getAttributes())
+            ? new BinaryFrameSession(session)
+            : session);
+  }
+
+  /** Whether the STOMP frame's headers, up to the blank line, declare CBOR content. */
+  static boolean isCborFrame(byte[] frame) {
+    int end = 0;
+    while (end + 1 < frame.length && !(frame[end] == '\n' && frame[end + 1] == '\n')) {
+      end++;
+    }
+    outer:
+    for (int i = 0; i + CBOR_CONTENT_TYPE.length <= end; i++) {
+      for (int j = 0; j < CBOR_CONTENT_TYPE.length; j++) {
+        if (frame[i + j] != CBOR_CONTENT_TYPE[j]) {
+          continue outer;
+        }
+      }
+      int next = i + CBOR_CONTENT_TYPE.length;
+      if (frame[next] == '\n' || frame[next] == '\r' || frame[next] == ';') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class BinaryFrameSession extends WebSocketSessionDecorator {
+
+    BinaryFrameSession(WebSocketSession delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+      if (message instanceof TextMessage text && isCborFrame(text.asBytes())) {
+        super.sendMessage(new BinaryMessage(text.asBytes()));
+        return;
+      }
+      super.sendMessage(message);
+    }
+  }
+}
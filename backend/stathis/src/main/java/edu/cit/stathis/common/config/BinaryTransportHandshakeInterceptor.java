@@ -0,0 +1,38 @@
+package edu.cit.stathis.common.config;
+
+import java.util.Map;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * Marks sessions opened on the plain WebSocket endpoint as able to receive binary frames. SockJS
+ * transports cannot carry them, so only marked sessions get CBOR subscriptions.
+ */
+public class BinaryTransportHandshakeInterceptor implements HandshakeInterceptor {
+
+  public static final String BINARY_TRANSPORT_ATTRIBUTE = "stathis.websocket.binaryTransport";
+
+  static boolean isBinaryTransport(Map<String, Object> sessionAttributes) {
+    return sessionAttributes != null
+        && Boolean.TRUE.equals(sessionAttributes.get(BINARY_TRANSPORT_ATTRIBUTE));
+  }
+
+  @Override
+  public boolean beforeHandshake(
+      ServerHttpRequest request,
+      ServerHttpResponse response,
+      WebSocketHandler wsHandler,
+      Map<String, Object> attributes) {
+    attributes.put(BINARY_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+    return true;
+  }
+
+  @Override
+  public void afterHandshake(
+      ServerHttpRequest request,
+      ServerHttpResponse response,
+      WebSocketHandler wsHandler,
+      Exception exception) {}
+}
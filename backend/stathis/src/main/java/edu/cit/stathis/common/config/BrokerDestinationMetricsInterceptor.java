@@ -0,0 +1,81 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts messages and payload bytes per broker destination. Identifier segments (classroom IDs,
+ * user UUIDs) are collapsed to {@code {id}} so the meter count stays bounded, e.g. {@code
+ * /topic/classroom/ROOM-25-123/vitals} is recorded as {@code /topic/classroom/{id}/vitals}.
+ */
+@Component
+public class BrokerDestinationMetricsInterceptor implements ChannelInterceptor {
+
+  private static final String UNKNOWN_DESTINATION = "none";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, DestinationMeters> meters = new ConcurrentHashMap<>();
+
+  public BrokerDestinationMetricsInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    if (destination == null) {
+      return message;
+    }
+    DestinationMeters destinationMeters =
+        meters.computeIfAbsent(normalize(destination), this::registerMeters);
+    destinationMeters.messages.increment();
+    if (message.getPayload() instanceof byte[] payload) {
+      destinationMeters.payloadBytes.record(payload.length);
+    }
+    return message;
+  }
+
+  static String normalize(String destination) {
+    if (destination.isEmpty()) {
+      return UNKNOWN_DESTINATION;
+    }
+    String[] segments = destination.split("/");
+    StringBuilder normalized = new StringBuilder(destination.length());
+    for (int i = 1; i < segments.length; i++) {
+      normalized.append('/').append(containsDigit(segments[i]) ? "{id}" : segments[i]);
+    }
+    return normalized.length() == 0 ? destination : normalized.toString();
+  }
+
+  private static boolean containsDigit(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      if (Character.isDigit(segment.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private DestinationMeters registerMeters(String destination) {
+    return new DestinationMeters(
+        Counter.builder("stathis.websocket.broker.messages")
+            .description("Messages published to the STOMP broker")
+            .tag("destination", destination)
+            .register(meterRegistry),
+        DistributionSummary.builder("stathis.websocket.broker.payload")
+            .description("Payload size of messages published to the STOMP broker")
+            .baseUnit("bytes")
+            .tag("destination", destination)
+            .register(meterRegistry));
+  }
+
+  private record DestinationMeters(Counter messages, DistributionSummary payloadBytes) {}
+}
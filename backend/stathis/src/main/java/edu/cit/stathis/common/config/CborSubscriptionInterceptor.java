@@ -0,0 +1,166 @@
+package edu.cit.stathis.common.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Lets a client receive a subscription's frames as CBOR instead of JSON by subscribing with a
+ * {@code content-type:application/cbor} header. Broadcasts are still published once as JSON; frames
+ * for CBOR subscriptions are transcoded token-by-token on the way out, once per broadcast per
+ * fan-out thread, so JSON subscribers pay nothing.
+ *
+ * <p>Registered on both client channels: inbound to track subscriptions, outbound to transcode.
+ * Only sessions on the plain WebSocket endpoint can receive binary frames, so subscriptions from
+ * SockJS sessions stay JSON even when they ask for CBOR; {@link BinaryFrameHandlerDecorator} sends
+ * the transcoded frames as binary messages.
+ */
+@Component
+public class CborSubscriptionInterceptor implements ChannelInterceptor {
+
+  public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+  private static final Logger logger = LoggerFactory.getLogger(CborSubscriptionInterceptor.class);
+  private static final String CONTENT_TYPE_HEADER = "content-type";
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final CBORFactory cborFactory = new CBORFactory();
+  // sessionId -> subscription IDs that asked for CBOR
+  private final Map<String, Set<String>> cborSubscriptions = new ConcurrentHashMap<>();
+  // The simple broker fans one payload out to every subscriber on the same thread
+  private final ThreadLocal<Transcoded> lastTranscoded = new ThreadLocal<>();
+  private final DistributionSummary cborPayloadBytes;
+
+  public CborSubscriptionInterceptor(MeterRegistry meterRegistry) {
+    this.cborPayloadBytes =
+        DistributionSummary.builder("stathis.websocket.cbor.payload")
+            .description("Payload size of frames delivered to CBOR subscriptions")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+    if (type == null) {
+      return message;
+    }
+    switch (type) {
+      case MESSAGE:
+        return transcodeIfRequested(message);
+      case SUBSCRIBE:
+        trackSubscription(message);
+        return message;
+      case UNSUBSCRIBE:
+        untrackSubscription(message);
+        return message;
+      case DISCONNECT:
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+          cborSubscriptions.remove(sessionId);
+        }
+        return message;
+      default:
+        return message;
+    }
+  }
+
+  private void trackSubscription(Message<?> message) {
+    StompHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    if (accessor == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+      return;
+    }
+    String requested = accessor.getFirstNativeHeader(CONTENT_TYPE_HEADER);
+    if (requested != null
+        && BinaryTransportHandshakeInterceptor.isBinaryTransport(accessor.getSessionAttributes()) && APPLICATION_CBOR.equalsTypeAndSubtype(MimeTypeUtils.parseMimeType(requested))) {
+      cborSubscriptions
+          .computeIfAbsent(accessor.getSessionId(), id -> ConcurrentHashMap.newKeySet())
+          .add(accessor.getSubscriptionId());
+    }
+  }
+
+  private void untrackSubscription(Message<?> message) {
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+    Set<String> subscriptions = sessionId != null ? cborSubscriptions.get(sessionId) : null;
+    if (subscriptions != null && subscriptionId != null) {
+      subscriptions.remove(subscriptionId);
+    }
+  }
+
+  private Message<?> transcodeIfRequested(Message<?> message) {
+    MessageHeaders headers = message.getHeaders();
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+    Set<String> subscriptions = sessionId != null ? cborSubscriptions.get(sessionId) : null;
+    if (subscriptions == null
+        || !subscriptions.contains(SimpMessageHeaderAccessor.getSubscriptionId(headers))
+        || !(message.getPayload() instanceof byte[] json)
+        || !isJson(headers.get(MessageHeaders.CONTENT_TYPE))) {
+      return message;
+    }
+    byte[] cbor;
+    try {
+      cbor = transcode(json);
+    } catch (IOException e) {
+      logger.warn("Could not transcode frame for session {} to CBOR, sending JSON", sessionId, e);
+      return message;
+    }
+    cborPayloadBytes.record(cbor.length);
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+    accessor.setContentType(APPLICATION_CBOR);
+    accessor.setNativeHeader(CONTENT_TYPE_HEADER, APPLICATION_CBOR.toString());
+    return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+  }
+
+  byte[] transcode(byte[] json) throws IOException {
+    Transcoded last = lastTranscoded.get();
+    if (last != null && last.json == json) {
+      return last.cbor;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+    try (JsonParser parser = jsonFactory.createParser(json);
+        JsonGenerator generator = cborFactory.createGenerator(out)) {
+      parser.nextToken();
+      generator.copyCurrentStructure(parser);
+    }
+    byte[] cbor = out.toByteArray();
+    lastTranscoded.set(new Transcoded(json, cbor));
+    return cbor;
+  }
+
+  private static boolean isJson(Object contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    MimeType mimeType =
+        contentType instanceof MimeType type
+            ? type
+            : MimeTypeUtils.parseMimeType(contentType.toString());
+    return MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(mimeType);
+  }
+
+  private record Transcoded(byte[] json, byte[] cbor) {}
+}
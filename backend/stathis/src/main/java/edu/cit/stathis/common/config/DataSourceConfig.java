@@ -0,0 +1,178 @@
+package edu.cit.stathis.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import edu.cit.stathis.common.datasource.ReplicaRoutingDataSource;
+import edu.cit.stathis.common.datasource.ReplicaSelector;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadRoutingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+/**
+ * Connection routing, outermost first:
+ *
+ * <ol>
+ *   <li>a lazy proxy, so no connection is taken until the first statement, when the transaction's
+ *       read-only flag is known;
+ *   <li>{@link ReplicaRoutingDataSource}: read-only transactions to a replica within the lag
+ *       tolerance, everything else to the primary;
+ *   <li>{@link WorkloadRoutingDataSource}: on the primary and on each replica, one Hikari pool per
+ *       {@link Workload} so a vitals burst or a long export cannot take the connections logins and
+ *       dashboards need.
+ * </ol>
+ *
+ * <p>Every pool starts from {@code spring.datasource.*} and the shared {@code
+ * spring.datasource.hikari.*} settings, though each sets its own maximum size; {@code datasource.workloads.<workload>.*} then override any
+ * Hikari property on the primary, and {@code datasource.replica.pool.*} followed by {@code
+ * datasource.replica.workloads.<workload>.*} on the replicas. Pools are named {@code
+ * <pool-name>-<workload>} or {@code <pool-name>-replica-<n>-<workload>} and publish the standard
+ * {@code hikaricp.*} meters.
+ */
+@Configuration
+public class DataSourceConfig {
+
+  private static final String DEFAULT_POOL_NAME = "HikariPool-Stathis";
+
+  @Bean
+  public WorkloadRoutingDataSource workloadRoutingDataSource(
+      DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+    MicrometerMetricsTrackerFactory metricsTrackerFactory =
+        new MicrometerMetricsTrackerFactory(meterRegistry);
+    Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+    for (Workload workload : Workload.values()) {
+      HikariDataSource pool =
+          pool(
+              properties.getUrl(),
+              properties.getUsername(),
+              properties.getPassword(),
+              properties,
+              environment,
+              workload.key(),
+              "datasource.workloads." + workload.key());
+      pool.setMetricsTrackerFactory(metricsTrackerFactory);
+      pools.put(workload, pool);
+      Gauge.builder("stathis.db.pool.saturation", pool, DataSourceConfig::saturation)
+          .description("Connections in use plus threads waiting for one, relative to the pool's maximum size")
+          .tag("workload", workload.key())
+          .register(meterRegistry);
+    }
+    return new WorkloadRoutingDataSource(pools);
+  }
+
+  @Bean
+  public ReplicaSelector replicaSelector(
+      @Value("${datasource.replica.urls:}") List<String> urls,
+      @Value("${datasource.replica.max-lag-ms:2000}") long maxLagMillis,
+      @Value("${datasource.replica.read-your-writes-ms:5000}") long readYourWritesMillis,
+      @Value("${datasource.replica.read-your-writes-max-users:100000}") long maxTrackedWriters) {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < replicaUrls(urls).size(); i++) {
+      names.add("replica-" + i);
+    }
+    return new ReplicaSelector(names, maxLagMillis, readYourWritesMillis, maxTrackedWriters);
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      WorkloadRoutingDataSource workloadRoutingDataSource,
+      ReplicaSelector replicaSelector,
+      DataSourceProperties properties,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${datasource.replica.urls:}") List<String> urls,
+      @Value("${datasource.replica.username:}") String username,
+      @Value("${datasource.replica.password:}") String password) {
+    MicrometerMetricsTrackerFactory metricsTrackerFactory =
+        new MicrometerMetricsTrackerFactory(meterRegistry);
+    List<String> replicaUrls = replicaUrls(urls);
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      String name = replicaSelector.getReplicas().get(i);
+      Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+      for (Workload workload : Workload.values()) {
+        HikariDataSource pool =
+            pool(
+                replicaUrls.get(i),
+                StringUtils.hasText(username) ? username : properties.getUsername(),
+                StringUtils.hasText(password) ? password : properties.getPassword(),
+                properties,
+                environment,
+                name + "-" + workload.key(),
+                "datasource.replica.pool",
+                "datasource.replica.workloads." + workload.key());
+        pool.setReadOnly(true);
+        pool.setMetricsTrackerFactory(metricsTrackerFactory);
+        pools.put(workload, pool);
+      }
+      WorkloadRoutingDataSource replica = new WorkloadRoutingDataSource(pools);
+      replica.afterPropertiesSet();
+      replicas.put(name, replica);
+    }
+    return new ReplicaRoutingDataSource(
+        workloadRoutingDataSource, replicas, replicaSelector, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  private static HikariDataSource pool(
+      String url,
+      String username,
+      String password,
+      DataSourceProperties properties,
+      Environment environment,
+      String suffix,
+      String... overridesPrefixes) {
+    Binder binder = Binder.get(environment);
+    HikariDataSource pool =
+        properties
+            .initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+    binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+    String baseName = pool.getPoolName() != null ? pool.getPoolName() : DEFAULT_POOL_NAME;
+    for (String overridesPrefix : overridesPrefixes) {
+      binder.bind(overridesPrefix, Bindable.ofInstance(pool));
+    }
+    // Named last so an override cannot give two pools the same name and merge their meters
+    pool.setPoolName(baseName + "-" + suffix);
+    return pool;
+  }
+
+  private static List<String> replicaUrls(List<String> urls) {
+    return urls.stream().map(String::trim).filter(StringUtils::hasText).toList();
+  }
+
+  private static double saturation(HikariDataSource pool) {
+    HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+    if (mxBean == null) {
+      return 0;
+    }
+    return (double) (mxBean.getActiveConnections() + mxBean.getThreadsAwaitingConnection())
+        / pool.getMaximumPoolSize();
+  }
+}
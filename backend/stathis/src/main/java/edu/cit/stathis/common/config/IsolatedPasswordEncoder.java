@@ -0,0 +1,122 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Runs a slow password encoder on a small dedicated pool instead of the calling request thread.
+ * The pool has a bounded queue, so when a whole class signs in at once the hashing backlog is capped
+ * at {@code threads + queueCapacity} and further logins get an immediate 503 instead of tying up
+ * request threads that other endpoints need. A hash that is queued for longer than {@code
+ * maxWaitMillis} is cancelled with the same 503.
+ *
+ * <p>{@link #upgradeEncoding(String)} only inspects the stored hash and runs on the caller.
+ */
+public class IsolatedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final long maxWaitMillis;
+  private final Timer hashing;
+  private final Counter rejected;
+
+  public IsolatedPasswordEncoder(
+      PasswordEncoder delegate,
+      int threads,
+      int queueCapacity,
+      long maxWaitMillis,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.maxWaitMillis = maxWaitMillis;
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    this.hashing =
+        Timer.builder("stathis.password.hashing")
+            .description("Time from submitting a password hash to its result, queueing included")
+            .register(meterRegistry);
+    this.rejected =
+        Counter.builder("stathis.password.hashing.rejected")
+            .description("Password hashes refused because the hashing pool was saturated")
+            .register(meterRegistry);
+    Gauge.builder("stathis.password.hashing.queue", executor, e -> e.getQueue().size())
+        .description("Password hashes waiting for a hashing thread")
+        .register(meterRegistry);
+    Gauge.builder("stathis.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing threads currently busy")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T run(Callable<T> task) {
+    long start = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      throw saturated();
+    }
+    try {
+      return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw saturated();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing a password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    } finally {
+      hashing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private ResponseStatusException saturated() {
+    rejected.increment();
+    return new ResponseStatusException(
+        HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-ins at once, retry shortly");
+  }
+
+  /** Called by the container when the encoder bean is destroyed. */
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
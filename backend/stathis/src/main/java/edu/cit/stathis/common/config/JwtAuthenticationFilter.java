@@ -1,7 +1,9 @@
 package edu.cit.stathis.common.config;
 
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
 import edu.cit.stathis.auth.service.CustomUserDetailsService;
 import edu.cit.stathis.common.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,7 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -55,29 +56,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            String username = jwtUtil.extractUsername(token);
+            // One signature check per token; repeats are served from the verified-token cache
+            Claims claims = jwtUtil.verify(token);
+            String username = claims.getSubject();
             logger.debug("Extracted username: {}", username);
 
     if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-      if (jwtUtil.validateToken(token, username)) {
-                    String role = jwtUtil.extractClaim(token, claims -> claims.get("role", String.class));
-                    if (!role.startsWith("ROLE_")) {
-                        role = "ROLE_" + role;
-                    }
-                    logger.debug("Role from token: {}", role);
-                    logger.debug("User authorities: {}", userDetails.getAuthorities());
+                // The caller's identity comes from the token; no user query unless the user check is on
+                AuthenticatedUser principal =
+                    userDetailsService
+                        .resolvePrincipal(username, jwtUtil.toPrincipal(claims))
+                        .orElse(null);
+                if (principal == null) {
+                    logger.debug("User {} no longer matches the token", username);
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+                    logger.debug("Role from token: {}", principal.role());
 
         UsernamePasswordAuthenticationToken authToken =
             new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            Collections.singletonList(new SimpleGrantedAuthority(role)));
+                            Collections.singletonList(new SimpleGrantedAuthority(principal.role())));
         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
                     logger.debug("Authentication set in context: {}", 
                         SecurityContextHolder.getContext().getAuthentication());
-      }
             }
         } catch (Exception e) {
             logger.error("Error processing JWT token: {}", e.getMessage(), e);
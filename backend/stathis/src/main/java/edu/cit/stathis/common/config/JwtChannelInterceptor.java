@@ -1,7 +1,9 @@
 package edu.cit.stathis.common.config;
 
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
 import edu.cit.stathis.auth.service.CustomUserDetailsService;
 import edu.cit.stathis.common.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import java.util.List;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -9,9 +11,10 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -34,13 +37,18 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
       List<String> tokens = accessor.getNativeHeader("token");
       if (tokens != null && !tokens.isEmpty()) {
         String token = tokens.get(0);
-        String username = jwtUtil.extractUsername(token);
+        // verify() throws on a bad token, which rejects the CONNECT
+        Claims claims = jwtUtil.verify(token);
+        String username = claims.getSubject();
 
-        if (username != null && jwtUtil.validateToken(token, username)) {
-          UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (username != null) {
+          AuthenticatedUser principal =
+              userDetailsService
+                  .resolvePrincipal(username, jwtUtil.toPrincipal(claims))
+                  .orElseThrow(() -> new BadCredentialsException("User no longer matches the token"));
           UsernamePasswordAuthenticationToken authentication =
               new UsernamePasswordAuthenticationToken(
-                  userDetails, null, userDetails.getAuthorities());
+                  principal, null, List.of(new SimpleGrantedAuthority(principal.role())));
           SecurityContextHolder.getContext().setAuthentication(authentication);
           accessor.setUser(authentication);
         }
@@ -0,0 +1,61 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Caps the STOMP sessions a node relays to the broker. The relay opens one broker connection per
+ * client session, so this limit is also the node's share of the broker's connections. A {@code
+ * CONNECT} past it fails at once, and the client gets an {@code ERROR} frame, instead of waiting on
+ * a pool slot that no session will give back.
+ */
+public class RelaySessionLimitInterceptor implements ChannelInterceptor {
+
+  private final int maxSessions;
+  // Guarded by its own monitor when adding, so the size check and the add happen together
+  private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+  private final Counter rejectedSessions;
+
+  public RelaySessionLimitInterceptor(int maxSessions, MeterRegistry meterRegistry) {
+    this.maxSessions = maxSessions;
+    this.rejectedSessions =
+        Counter.builder("stathis.websocket.session.rejected")
+            .description("STOMP sessions refused because the node's relay session limit was reached")
+            .register(meterRegistry);
+    Gauge.builder("stathis.websocket.relay.sessions", sessions, Set::size)
+        .description("STOMP sessions holding a broker connection on this node")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    if (sessionId == null) {
+      return message;
+    }
+    if (type == SimpMessageType.CONNECT) {
+      synchronized (sessions) {
+        if (!sessions.contains(sessionId) && sessions.size() >= maxSessions) {
+          rejectedSessions.increment();
+          throw new MessageDeliveryException(
+              message, "This node already relays its limit of " + maxSessions + " sessions");
+        }
+        sessions.add(sessionId);
+      }
+    } else if (type == SimpMessageType.DISCONNECT) {
+      // Also sent by the transport for every session that closes without one
+      sessions.remove(sessionId);
+    }
+    return message;
+  }
+}
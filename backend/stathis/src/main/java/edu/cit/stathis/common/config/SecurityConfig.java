@@ -2,7 +2,9 @@ package edu.cit.stathis.common.config;
 
 import edu.cit.stathis.auth.service.CustomUserDetailsService;
 import edu.cit.stathis.common.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +17,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -46,6 +49,7 @@ public class SecurityConfig {
                         "/api/auth/**",
                         "/api/posture/**",
                         "/ws/**",
+                        "/ws-cbor",
                         "/swagger-ui.html",
                         "/swagger-ui/**",
                         "/v3/api-docs/**")
@@ -57,6 +61,9 @@ public class SecurityConfig {
                         .authenticated()
                         .requestMatchers("/api/users/**")
                     .authenticated()
+                    // Per-destination and pool meters are operational detail, not for end users
+                    .requestMatchers("/actuator/metrics/**")
+                    .hasRole("ADMIN")
                     .anyRequest()
                     .authenticated())
         .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -82,9 +89,28 @@ public class SecurityConfig {
     return source;
   }
 
+  /**
+   * BCrypt at {@code password.bcrypt.strength}, stored as {@code {bcrypt}<hash>}. Hashes without a
+   * prefix (everything stored before) still match, and a hash that is unprefixed or weaker than the
+   * configured cost is replaced on the user's next successful login (see {@link
+   * CustomUserDetailsService#updatePassword}). Hashing runs on its own bounded pool.
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public IsolatedPasswordEncoder passwordEncoder(
+      MeterRegistry meterRegistry,
+      @Value("${password.bcrypt.strength:10}") int strength,
+      @Value("${password.hashing.threads:2}") int threads,
+      @Value("${password.hashing.queue-capacity:32}") int queueCapacity,
+      @Value("${password.hashing.max-wait-ms:3000}") long maxWaitMillis) {
+    return new IsolatedPasswordEncoder(
+        delegatingPasswordEncoder(strength), threads, queueCapacity, maxWaitMillis, meterRegistry);
+  }
+
+  static PasswordEncoder delegatingPasswordEncoder(int strength) {
+    DelegatingPasswordEncoder encoder =
+        new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+    encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+    return encoder;
   }
 
   @Bean
@@ -0,0 +1,160 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Executor for the client outbound channel that gives every session its own bounded queue, drained
+ * by a shared pool one session at a time. A session's frames therefore stay in order, and a slow
+ * consumer backs up only its own queue: its frames are the ones dropped, never those of the other
+ * sessions in its classroom.
+ *
+ * <p>The sender never waits. When a session's queue is full a {@code MESSAGE} frame is dropped and
+ * counted; a control frame ({@code CONNECTED}, {@code RECEIPT}, {@code ERROR}, heartbeats) is
+ * queued past the limit, since losing one breaks the client's session rather than skipping an
+ * update. A session that stays behind is closed by the transport's send-time and buffer limits. A
+ * drain runs at most {@value #FRAMES_PER_TURN} frames before yielding its thread to other sessions.
+ */
+public class SessionOrderedExecutor implements TaskExecutor {
+
+  private static final Logger logger = LoggerFactory.getLogger(SessionOrderedExecutor.class);
+
+  static final int FRAMES_PER_TURN = 32;
+
+  private final ThreadPoolExecutor pool;
+  private final int sessionQueueCapacity;
+  private final Map<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final DistributionSummary sessionQueueDepth;
+  private final Counter droppedFrames;
+
+  public SessionOrderedExecutor(int threads, int sessionQueueCapacity, MeterRegistry meterRegistry) {
+    this.sessionQueueCapacity = sessionQueueCapacity;
+    // Holds at most one drain per session with frames waiting
+    this.pool =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            new CustomizableThreadFactory("ws-outbound-"),
+            new ThreadPoolExecutor.DiscardPolicy());
+    this.droppedFrames =
+        Counter.builder("stathis.websocket.outbound.dropped")
+            .description("Outbound frames dropped because their session's queue was full")
+            .register(meterRegistry);
+    this.sessionQueueDepth =
+        DistributionSummary.builder("stathis.websocket.session.queue.depth")
+            .description("Frames queued for a session when another frame is enqueued for it")
+            .register(meterRegistry);
+    Gauge.builder("stathis.websocket.outbound.queue", queued, AtomicInteger::get)
+        .description("Outbound frames waiting across all session queues")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Message<?> message =
+        task instanceof MessageHandlingRunnable handling ? handling.getMessage() : null;
+    String sessionId =
+        message != null ? SimpMessageHeaderAccessor.getSessionId(message.getHeaders()) : null;
+    if (sessionId == null) {
+      // Not addressed to a session, so there is no order to keep
+      pool.execute(task);
+      return;
+    }
+    while (!sessions.computeIfAbsent(sessionId, SessionQueue::new).offer(task)) {
+      // The queue drained and retired between the lookup and the offer; take its successor
+    }
+  }
+
+  // Only broadcast data may be skipped; a frame without a message is treated as data
+  static boolean isDroppable(Runnable task) {
+    if (!(task instanceof MessageHandlingRunnable handling)) {
+      return true;
+    }
+    SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(handling.getMessage().getHeaders());
+    return type == null || type == SimpMessageType.MESSAGE;
+  }
+
+  private final class SessionQueue implements Runnable {
+    private final String sessionId;
+    // All fields below are guarded by this queue's monitor
+    private final ArrayDeque<Runnable> frames = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean retired;
+
+    private SessionQueue(String sessionId) {
+      this.sessionId = sessionId;
+    }
+
+    /** False once this queue has retired; the caller then offers to a fresh one. */
+    boolean offer(Runnable task) {
+      synchronized (this) {
+        if (retired) {
+          return false;
+        }
+        if (frames.size() >= sessionQueueCapacity && isDroppable(task)) {
+          droppedFrames.increment();
+          return true;
+        }
+        frames.add(task);
+        queued.incrementAndGet();
+        sessionQueueDepth.record(frames.size());
+        if (scheduled) {
+          return true;
+        }
+        scheduled = true;
+      }
+      pool.execute(this);
+      return true;
+    }
+
+    @Override
+    public void run() {
+      for (int turn = 0; turn < FRAMES_PER_TURN || pool.isShutdown(); turn++) {
+        Runnable next;
+        synchronized (this) {
+          next = frames.poll();
+          if (next == null) {
+            // Removed under the monitor, so no frame can be added to a queue no drain will run
+            scheduled = false;
+            retired = true;
+            sessions.remove(sessionId, this);
+            return;
+          }
+        }
+        queued.decrementAndGet();
+        try {
+          next.run();
+        } catch (RuntimeException e) {
+          logger.debug("Failed to send a frame to session {}", sessionId, e);
+        }
+      }
+      pool.execute(this);
+    }
+  }
+
+  /** The destroy method of the executor bean; frames still queued are delivered first. */
+  public void shutdown() {
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,30 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * Counts sessions closed because they exceeded the transport's send-time or send-buffer limit.
+ * Spring closes those with {@link CloseStatus#SESSION_NOT_RELIABLE}.
+ */
+public class SlowConsumerCloseHandlerDecorator extends WebSocketHandlerDecorator {
+
+  private final Counter droppedSessions;
+
+  public SlowConsumerCloseHandlerDecorator(WebSocketHandler delegate, Counter droppedSessions) {
+    super(delegate);
+    this.droppedSessions = droppedSessions;
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus)
+      throws Exception {
+    if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+      droppedSessions.increment();
+    }
+    super.afterConnectionClosed(session, closeStatus);
+  }
+}
@@ -1,11 +1,26 @@
 package edu.cit.stathis.common.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.TcpClient;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -20,14 +35,196 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
   @Value("${websocket.endpoint}")
   private String endpoint;
 
+  // Plain WebSocket endpoint without SockJS fallback, for clients that want CBOR frames
+  @Value("${websocket.cbor-endpoint:/ws-cbor}")
+  private String cborEndpoint;
+
+  // "simple" keeps the in-memory broker (single node); "relay" forwards to an external STOMP broker
+  @Value("${websocket.broker.mode:simple}")
+  private String brokerMode;
+
+  @Value("${websocket.broker.relay.host:localhost}")
+  private String relayHost;
+
+  @Value("${websocket.broker.relay.port:61613}")
+  private int relayPort;
+
+  @Value("${websocket.broker.relay.virtual-host:}")
+  private String relayVirtualHost;
+
+  @Value("${websocket.broker.relay.client-login:guest}")
+  private String relayClientLogin;
+
+  @Value("${websocket.broker.relay.client-passcode:guest}")
+  private String relayClientPasscode;
+
+  @Value("${websocket.broker.relay.system-login:guest}")
+  private String relaySystemLogin;
+
+  @Value("${websocket.broker.relay.system-passcode:guest}")
+  private String relaySystemPasscode;
+
+  @Value("${websocket.broker.relay.heartbeat-ms:10000}")
+  private long relayHeartbeatMs;
+
+  // Each relayed session holds a broker connection; the pool adds one for the system session
+  @Value("${websocket.broker.relay.max-sessions:2000}")
+  private int relayMaxSessions;
+
+  @Value("${websocket.broker.relay.pool.pending-acquire-timeout-ms:5000}")
+  private long relayPendingAcquireTimeoutMs;
+
+  // Threads draining the per-session outbound queues; 0 means one per available processor
+  @Value("${websocket.outbound.threads:0}")
+  private int outboundThreads;
+
+  @Value("${websocket.outbound.session-queue-capacity:1000}")
+  private int outboundSessionQueueCapacity;
+
+  // Sessions that cannot take a frame within this time, or fall this far behind, are closed
+  @Value("${websocket.transport.send-time-limit-ms:10000}")
+  private int sendTimeLimitMs;
+
+  @Value("${websocket.transport.send-buffer-size-limit-bytes:524288}")
+  private int sendBufferSizeLimitBytes;
+
+  @Value("${websocket.transport.message-size-limit-bytes:65536}")
+  private int messageSizeLimitBytes;
+
+  private final BrokerDestinationMetricsInterceptor brokerDestinationMetricsInterceptor;
+
+  private final CborSubscriptionInterceptor cborSubscriptionInterceptor;
+
+  private final MeterRegistry meterRegistry;
+
+  private ConnectionProvider relayConnectionProvider;
+
+  public WebSocketConfig(
+      BrokerDestinationMetricsInterceptor brokerDestinationMetricsInterceptor,
+      CborSubscriptionInterceptor cborSubscriptionInterceptor,
+      MeterRegistry meterRegistry) {
+    this.brokerDestinationMetricsInterceptor = brokerDestinationMetricsInterceptor;
+    this.cborSubscriptionInterceptor = cborSubscriptionInterceptor;
+    this.meterRegistry = meterRegistry;
+  }
+
   @Override
   public void configureMessageBroker(MessageBrokerRegistry config) {
-    config.enableSimpleBroker(brokerPrefix);
+    if (isRelayMode()) {
+      var relay =
+          config
+              .enableStompBrokerRelay(brokerPrefix)
+              .setRelayHost(relayHost)
+              .setRelayPort(relayPort)
+              .setClientLogin(relayClientLogin)
+              .setClientPasscode(relayClientPasscode)
+              .setSystemLogin(relaySystemLogin)
+              .setSystemPasscode(relaySystemPasscode)
+              .setSystemHeartbeatSendInterval(relayHeartbeatMs)
+              .setSystemHeartbeatReceiveInterval(relayHeartbeatMs)
+              // Let /user destinations resolve on whichever node holds the session
+              .setUserDestinationBroadcast(brokerPrefix + "/unresolved-user-destination")
+              .setUserRegistryBroadcast(brokerPrefix + "/user-registry")
+              .setTcpClient(createRelayTcpClient());
+      if (!relayVirtualHost.isBlank()) {
+        relay.setVirtualHost(relayVirtualHost);
+      }
+    } else {
+      config.enableSimpleBroker(brokerPrefix);
+    }
     config.setApplicationDestinationPrefixes("/app");
+    config.configureBrokerChannel().interceptors(brokerDestinationMetricsInterceptor);
+  }
+
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    if (isRelayMode()) {
+      registration.interceptors(
+          new RelaySessionLimitInterceptor(relayMaxSessions, meterRegistry),
+          cborSubscriptionInterceptor);
+    } else {
+      registration.interceptors(cborSubscriptionInterceptor);
+    }
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    registration.executor(clientOutboundExecutor()).interceptors(cborSubscriptionInterceptor);
+  }
+
+  /** A bean, unlike an executor built inline, so its threads stop with the context. */
+  @Bean(destroyMethod = "shutdown")
+  public SessionOrderedExecutor clientOutboundExecutor() {
+    int threads =
+        outboundThreads > 0 ? outboundThreads : Runtime.getRuntime().availableProcessors();
+    return new SessionOrderedExecutor(threads, outboundSessionQueueCapacity, meterRegistry);
+  }
+
+  @Override
+  public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+    Counter droppedSessions =
+        Counter.builder("stathis.websocket.session.dropped")
+            .description("Sessions closed for exceeding the send-time or send-buffer limit")
+            .register(meterRegistry);
+    registration
+        .setSendTimeLimit(sendTimeLimitMs)
+        .setSendBufferSizeLimit(sendBufferSizeLimitBytes)
+        .setMessageSizeLimit(messageSizeLimitBytes)
+        .addDecoratorFactory(
+            handler -> new SlowConsumerCloseHandlerDecorator(handler, droppedSessions))
+        .addDecoratorFactory(BinaryFrameHandlerDecorator::new);
+  }
+
+  /**
+   * Accepts {@code SEND} frames with {@code content-type:application/cbor} next to the default
+   * converters. Strict matching keeps JSON the default for frames without a content type and for
+   * everything the server publishes.
+   */
+  @Override
+  public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+    MappingJackson2MessageConverter cborConverter =
+        new MappingJackson2MessageConverter(
+            Jackson2ObjectMapperBuilder.cbor().build(),
+            CborSubscriptionInterceptor.APPLICATION_CBOR);
+    cborConverter.setStrictContentTypeMatch(true);
+    messageConverters.add(cborConverter);
+    return true;
   }
 
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
     registry.addEndpoint(endpoint).setAllowedOrigins(allowedOrigins).withSockJS();
+    registry
+        .addEndpoint(cborEndpoint)
+        .setAllowedOrigins(allowedOrigins)
+        .addInterceptors(new BinaryTransportHandshakeInterceptor());
+  }
+
+  private boolean isRelayMode() {
+    return "relay".equalsIgnoreCase(brokerMode);
+  }
+
+  /**
+   * Builds the TCP client used by the relay on top of a bounded connection pool. The relay keeps
+   * one connection per session for the session's lifetime, so the pool is sized to the session
+   * limit plus the system session: sessions past the limit are refused by {@link
+   * RelaySessionLimitInterceptor} and never left waiting on the pool.
+   */
+  private ReactorNettyTcpClient<byte[]> createRelayTcpClient() {
+    relayConnectionProvider =
+        ConnectionProvider.builder("stomp-relay")
+            .maxConnections(relayMaxSessions + 1)
+            .pendingAcquireTimeout(Duration.ofMillis(relayPendingAcquireTimeoutMs))
+            .metrics(true)
+            .build();
+    TcpClient tcpClient = TcpClient.create(relayConnectionProvider).host(relayHost).port(relayPort);
+    return new ReactorNettyTcpClient<>(tcpClient, new StompReactorNettyCodec());
+  }
+
+  @PreDestroy
+  public void disposeRelayConnectionProvider() {
+    if (relayConnectionProvider != null) {
+      relayConnectionProvider.dispose();
+    }
   }
 }
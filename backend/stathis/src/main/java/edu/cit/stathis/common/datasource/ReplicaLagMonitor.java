@@ -0,0 +1,66 @@
+package edu.cit.stathis.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Measures each replica's replay lag on a fixed delay and feeds it to the {@link ReplicaSelector}.
+ * A replica that has replayed everything it received counts as 0 ms behind even if the primary has
+ * been idle; otherwise lag is the age of the last replayed transaction. A database that is not in
+ * recovery (a plain local database standing in for a replica) always reports 0.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  private static final String LAG_SQL =
+      "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0"
+          + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+          + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)"
+          + " END";
+
+  private final ReplicaRoutingDataSource replicaRoutingDataSource;
+  private final ReplicaSelector replicaSelector;
+
+  public ReplicaLagMonitor(
+      ReplicaRoutingDataSource replicaRoutingDataSource,
+      ReplicaSelector replicaSelector,
+      MeterRegistry meterRegistry) {
+    this.replicaRoutingDataSource = replicaRoutingDataSource;
+    this.replicaSelector = replicaSelector;
+    for (String replica : replicaSelector.getReplicas()) {
+      Gauge.builder("stathis.db.replica.lag", replicaSelector, selector -> selector.getLagMillis(replica))
+          .description("Last measured replay lag of the replica, -1 when unknown or unreachable")
+          .baseUnit("milliseconds")
+          .tag("replica", replica)
+          .register(meterRegistry);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+  public void check() {
+    for (Map.Entry<String, DataSource> replica : replicaRoutingDataSource.getReplicas().entrySet()) {
+      try (Connection connection = replica.getValue().getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+        resultSet.next();
+        replicaSelector.updateLag(replica.getKey(), Math.round(resultSet.getDouble(1)));
+      } catch (Exception e) {
+        if (replicaSelector.isEligible(replica.getKey())) {
+          logger.warn("Replica {} is unreachable, reading from the primary", replica.getKey(), e);
+        }
+        replicaSelector.markUnavailable(replica.getKey());
+      }
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package edu.cit.stathis.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to a replica chosen by the {@link ReplicaSelector} and everything
+ * else to the primary. Read-write transactions record their user on commit so that user's next
+ * reads stay on the primary for the read-your-writes window.
+ *
+ * <p>The read-only flag is only known once the transaction has started, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; otherwise the
+ * connection is fetched before the flag is set and every transaction goes to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  static final String PRIMARY = "primary";
+
+  private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+  private final Map<String, DataSource> replicas;
+  private final ReplicaSelector replicaSelector;
+  private final Counter primaryReads;
+  private final Counter replicaReads;
+
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      Map<String, DataSource> replicas,
+      ReplicaSelector replicaSelector,
+      MeterRegistry meterRegistry) {
+    this.replicas = Map.copyOf(replicas);
+    this.replicaSelector = replicaSelector;
+    Map<Object, Object> targets = new HashMap<>(replicas);
+    targets.put(PRIMARY, primary);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    this.primaryReads =
+        Counter.builder("stathis.db.reads")
+            .description("Read-only transactions by the database they were routed to")
+            .tag("target", "primary")
+            .register(meterRegistry);
+    this.replicaReads =
+        Counter.builder("stathis.db.reads")
+            .description("Read-only transactions by the database they were routed to")
+            .tag("target", "replica")
+            .register(meterRegistry);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      return PRIMARY;
+    }
+    String user = currentUser();
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (user != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+              @Override
+              public void afterCommit() {
+                replicaSelector.recordWrite(user);
+              }
+            });
+      }
+      return PRIMARY;
+    }
+    String replica = Boolean.TRUE.equals(PRIMARY_ONLY.get()) ? null : replicaSelector.select(user);
+    if (replica == null) {
+      primaryReads.increment();
+      return PRIMARY;
+    }
+    replicaReads.increment();
+    return replica;
+  }
+
+  /**
+   * Runs the action with the read-only transactions it starts routed to the primary, for reads
+   * that must not see a lagging replica. A transaction already open on a replica keeps its
+   * connection, so the action has to start its own.
+   */
+  public static <T> T onPrimary(Supplier<T> action) {
+    Boolean previous = PRIMARY_ONLY.get();
+    PRIMARY_ONLY.set(Boolean.TRUE);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        PRIMARY_ONLY.remove();
+      } else {
+        PRIMARY_ONLY.set(previous);
+      }
+    }
+  }
+
+  public Map<String, DataSource> getReplicas() {
+    return replicas;
+  }
+
+  /** Closes the replica pools; the primary is closed by its own bean. */
+  @Override
+  public void close() throws Exception {
+    for (DataSource replica : replicas.values()) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  private static String currentUser() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+  }
+}
@@ -0,0 +1,83 @@
+package edu.cit.stathis.common.datasource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a read-only transaction may go to a replica, and to which one.
+ *
+ * <p>A replica is eligible while its last measured lag is within {@code maxLagMillis}; one that has
+ * not been measured yet, or whose check failed, is not. A user who committed a write within the
+ * last {@code readYourWritesMillis} reads from the primary so they see their own write (a quiz
+ * submission followed by the score page, for example).
+ */
+public class ReplicaSelector {
+
+  private static final long UNKNOWN = -1;
+
+  private final List<String> replicas;
+  private final long maxLagMillis;
+  private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+  private final Cache<String, Boolean> recentWriters;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaSelector(
+      List<String> replicas, long maxLagMillis, long readYourWritesMillis, long maxTrackedWriters) {
+    this.replicas = List.copyOf(replicas);
+    this.maxLagMillis = maxLagMillis;
+    this.recentWriters =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxTrackedWriters)
+            .expireAfterWrite(readYourWritesMillis, TimeUnit.MILLISECONDS)
+            .build();
+    replicas.forEach(replica -> lagMillis.put(replica, UNKNOWN));
+  }
+
+  /** The replica to read from, or null when the read must go to the primary. */
+  public String select(String user) {
+    if (replicas.isEmpty() || (user != null && recentWriters.getIfPresent(user) != null)) {
+      return null;
+    }
+    int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+    for (int i = 0; i < replicas.size(); i++) {
+      String replica = replicas.get((start + i) % replicas.size());
+      if (isEligible(replica)) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  public void recordWrite(String user) {
+    if (user != null) {
+      recentWriters.put(user, Boolean.TRUE);
+    }
+  }
+
+  public void updateLag(String replica, long lagMillis) {
+    this.lagMillis.put(replica, lagMillis);
+  }
+
+  public void markUnavailable(String replica) {
+    lagMillis.put(replica, UNKNOWN);
+  }
+
+  public boolean isEligible(String replica) {
+    long lag = lagMillis.getOrDefault(replica, UNKNOWN);
+    return lag != UNKNOWN && lag <= maxLagMillis;
+  }
+
+  /** Last measured lag, or -1 when unknown. */
+  public long getLagMillis(String replica) {
+    return lagMillis.getOrDefault(replica, UNKNOWN);
+  }
+
+  public List<String> getReplicas() {
+    return replicas;
+  }
+}
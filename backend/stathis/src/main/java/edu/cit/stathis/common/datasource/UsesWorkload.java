@@ -0,0 +1,20 @@
+package edu.cit.stathis.common.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method (or every method of the annotated class) against the given workload's
+ * connection pool, behind that workload's bulkhead. Only takes effect where the connection is
+ * acquired, i.e. on a method that opens the transaction; inside an existing transaction the
+ * connection is already bound and the annotation only re-enters the bulkhead.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsesWorkload {
+  Workload value();
+}
@@ -0,0 +1,15 @@
+package edu.cit.stathis.common.datasource;
+
+/** Workload classes that get their own connection pool. */
+public enum Workload {
+  /** Vitals writes from devices: high volume, short statements. */
+  INGEST,
+  /** Request/response traffic: logins, dashboards, grading. The default. */
+  INTERACTIVE,
+  /** Exports, finalization and other jobs that may hold a connection for a long time. */
+  BACKGROUND;
+
+  public String key() {
+    return name().toLowerCase();
+  }
+}
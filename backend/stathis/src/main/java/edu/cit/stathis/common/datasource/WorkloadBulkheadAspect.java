@@ -0,0 +1,123 @@
+package edu.cit.stathis.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Applies {@link UsesWorkload}: switches the thread's workload before the transaction interceptor
+ * runs (so the transaction's connection comes from that workload's pool) and admits the call
+ * through the workload's bulkhead.
+ *
+ * <p>A bulkhead caps how many threads may be working on a workload at once. Beyond that, callers
+ * wait up to {@code datasource.bulkhead.<workload>.max-wait-ms} and are then rejected with 503
+ * instead of piling up behind the pool's connection timeout. A workload without a configured
+ * {@code max-concurrent} is not limited beyond its pool.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadBulkheadAspect {
+
+  private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+
+  public WorkloadBulkheadAspect(Environment environment, MeterRegistry meterRegistry) {
+    for (Workload workload : Workload.values()) {
+      String prefix = "datasource.bulkhead." + workload.key() + ".";
+      Integer maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class);
+      if (maxConcurrent == null || maxConcurrent <= 0) {
+        continue;
+      }
+      long maxWaitMillis = environment.getProperty(prefix + "max-wait-ms", Long.class, 0L);
+      bulkheads.put(workload, new Bulkhead(workload, maxConcurrent, maxWaitMillis, meterRegistry));
+    }
+  }
+
+  @Around(
+      "@annotation(edu.cit.stathis.common.datasource.UsesWorkload)"
+          + " || @within(edu.cit.stathis.common.datasource.UsesWorkload)")
+  public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+    Workload workload = resolve(joinPoint);
+    if (workload == null || workload == WorkloadContext.current()) {
+      // Already running on this workload's pool and bulkhead
+      return joinPoint.proceed();
+    }
+    Bulkhead bulkhead = bulkheads.get(workload);
+    if (bulkhead != null) {
+      bulkhead.acquire();
+    }
+    Workload previous = WorkloadContext.enter(workload);
+    try {
+      return joinPoint.proceed();
+    } finally {
+      WorkloadContext.restore(previous);
+      if (bulkhead != null) {
+        bulkhead.release();
+      }
+    }
+  }
+
+  private static Workload resolve(ProceedingJoinPoint joinPoint) {
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    UsesWorkload annotation = AnnotatedElementUtils.findMergedAnnotation(method, UsesWorkload.class);
+    if (annotation == null) {
+      annotation =
+          AnnotatedElementUtils.findMergedAnnotation(
+              joinPoint.getTarget().getClass(), UsesWorkload.class);
+    }
+    return annotation != null ? annotation.value() : null;
+  }
+
+  private static final class Bulkhead {
+    private final Workload workload;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Counter rejected;
+
+    private Bulkhead(
+        Workload workload, int maxConcurrent, long maxWaitMillis, MeterRegistry meterRegistry) {
+      this.workload = workload;
+      this.permits = new Semaphore(maxConcurrent);
+      this.maxConcurrent = maxConcurrent;
+      this.maxWaitMillis = maxWaitMillis;
+      this.rejected =
+          Counter.builder("stathis.db.bulkhead.rejected")
+              .description("Calls turned away because their workload's bulkhead was full")
+              .tag("workload", workload.key())
+              .register(meterRegistry);
+      Gauge.builder("stathis.db.bulkhead.active", this, b -> b.maxConcurrent - b.permits.availablePermits())
+          .description("Calls currently admitted through the workload's bulkhead")
+          .tag("workload", workload.key())
+          .register(meterRegistry);
+    }
+
+    void acquire() throws InterruptedException {
+      if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+        rejected.increment();
+        throw new ResponseStatusException(
+            HttpStatus.SERVICE_UNAVAILABLE, "The " + workload.key() + " workload is saturated, retry shortly");
+      }
+    }
+
+    void release() {
+      permits.release();
+    }
+  }
+}
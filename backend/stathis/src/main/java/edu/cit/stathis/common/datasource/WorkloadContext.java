@@ -0,0 +1,44 @@
+package edu.cit.stathis.common.datasource;
+
+import java.util.concurrent.Callable;
+
+/** The workload the current thread is running on behalf of; INTERACTIVE unless set. */
+public final class WorkloadContext {
+
+  private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+  private WorkloadContext() {}
+
+  public static Workload current() {
+    Workload workload = CURRENT.get();
+    return workload != null ? workload : Workload.INTERACTIVE;
+  }
+
+  /**
+   * Runs the task on the given workload, for work on threads of its own that is not entered
+   * through a {@link UsesWorkload} method. Bypasses the workload's bulkhead.
+   */
+  public static <T> T call(Workload workload, Callable<T> task) throws Exception {
+    Workload previous = enter(workload);
+    try {
+      return task.call();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  /** Switches the thread to the given workload and returns the one to restore afterwards. */
+  static Workload enter(Workload workload) {
+    Workload previous = CURRENT.get();
+    CURRENT.set(workload);
+    return previous;
+  }
+
+  static void restore(Workload previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+}
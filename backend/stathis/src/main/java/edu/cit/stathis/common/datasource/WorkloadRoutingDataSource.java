@@ -0,0 +1,43 @@
+package edu.cit.stathis.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the pool of the workload the calling thread is running on behalf of
+ * (see {@link WorkloadContext}), so a burst in one workload exhausts its own pool only.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  private final Map<Workload, HikariDataSource> pools;
+
+  public WorkloadRoutingDataSource(Map<Workload, HikariDataSource> pools) {
+    this.pools = new EnumMap<>(pools);
+    setTargetDataSources(new HashMap<>(pools));
+    setDefaultTargetDataSource(pools.get(Workload.INTERACTIVE));
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return WorkloadContext.current();
+  }
+
+  public HikariDataSource getPool(Workload workload) {
+    return pools.get(workload);
+  }
+
+  /** Null until the pool has handed out its first connection. */
+  public HikariPoolMXBean getPoolMXBean(Workload workload) {
+    HikariDataSource pool = pools.get(workload);
+    return pool != null ? pool.getHikariPoolMXBean() : null;
+  }
+
+  @Override
+  public void close() {
+    pools.values().forEach(HikariDataSource::close);
+  }
+}
@@ -0,0 +1,143 @@
+package edu.cit.stathis.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.OffsetDateTime;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Moves side effects out of the transaction that causes them. Two kinds are supported:
+ *
+ * <ul>
+ *   <li>{@link #publish}: durable events. The event is written to {@code outbox_events} in the
+ *       caller's transaction, so it exists exactly when the change it describes does, and is
+ *       handed to its {@link DomainEventHandler} by the {@link OutboxDispatcher} once the
+ *       transaction commits, with retries.
+ *   <li>{@link #afterCommit}: work that need not survive a crash, such as live broadcasts and
+ *       in-memory statistics. It runs after commit on one of a fixed set of single-threaded
+ *       stripes chosen by key, so work for one key stays in order and never runs concurrently.
+ *       When a stripe's queue is full the committing thread waits for room, which slows the
+ *       producers down instead of losing work.
+ * </ul>
+ *
+ * Either way the caller's transaction, and its connection, end before any serialization or
+ * fan-out to subscribers happens.
+ */
+@Service
+public class DomainEventBus {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxDispatcher outboxDispatcher;
+  private final ObjectMapper objectMapper;
+  // Index of the stripe the current thread works for, if any
+  private static final ThreadLocal<Integer> CURRENT_STRIPE = new ThreadLocal<>();
+
+  private final ThreadPoolExecutor[] stripes;
+  private final Counter blocked;
+
+  public DomainEventBus(
+      OutboxEventRepository outboxEventRepository,
+      OutboxDispatcher outboxDispatcher,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${events.after-commit.stripes:4}") int stripeCount,
+      @Value("${events.after-commit.queue-capacity:1000}") int queueCapacity) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxDispatcher = outboxDispatcher;
+    this.objectMapper = objectMapper;
+    this.blocked =
+        Counter.builder("stathis.events.after-commit.blocked")
+            .description("Times a committing thread waited for room in a full after-commit stripe")
+            .register(meterRegistry);
+    this.stripes = new ThreadPoolExecutor[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      int stripe = i;
+      CustomizableThreadFactory threads = new CustomizableThreadFactory("after-commit-" + i + "-");
+      stripes[i] =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0,
+              TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(queueCapacity),
+              task ->
+                  threads.newThread(
+                      () -> {
+                        CURRENT_STRIPE.set(stripe);
+                        task.run();
+                      }),
+              (task, executor) -> waitForRoom(stripe, task, executor));
+    }
+  }
+
+  private void waitForRoom(int stripe, Runnable task, ThreadPoolExecutor executor) {
+    // The stripe's own thread would wait on itself, and nothing drains a stripe that is shut down
+    if (executor.isShutdown() || Integer.valueOf(stripe).equals(CURRENT_STRIPE.get())) {
+      task.run();
+      return;
+    }
+    blocked.increment();
+    try {
+      executor.getQueue().put(task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      task.run();
+    }
+  }
+
+  /** Records a durable event in the current transaction; it is dispatched after commit. */
+  public void publish(String eventType, Object payload) {
+    String json;
+    try {
+      json = objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Cannot serialize " + eventType + " event", e);
+    }
+    OffsetDateTime now = OffsetDateTime.now();
+    outboxEventRepository.save(
+        OutboxEvent.builder()
+            .eventType(eventType)
+            .payload(json)
+            .createdAt(now)
+            .nextAttemptAt(now)
+            .build());
+    runAfterCommit(outboxDispatcher::wake);
+  }
+
+  /** Runs {@code action} asynchronously once the current transaction commits, ordered by key. */
+  public void afterCommit(String key, Runnable action) {
+    ThreadPoolExecutor stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    runAfterCommit(() -> stripe.execute(action));
+  }
+
+  private static void runAfterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (ThreadPoolExecutor stripe : stripes) {
+      stripe.shutdown();
+    }
+  }
+}
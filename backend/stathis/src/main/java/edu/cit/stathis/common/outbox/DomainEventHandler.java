@@ -0,0 +1,19 @@
+package edu.cit.stathis.common.outbox;
+
+import java.util.List;
+
+/**
+ * Handles one type of outbox event. Events of the type are delivered at least once, in batches of
+ * up to {@code outbox.batch-size}; if {@link #handle} throws, the whole batch is retried later, so
+ * handlers must be idempotent. A handler that delivers events one by one should throw a {@link
+ * PartialDeliveryException} naming the ones that failed, so the rest are not delivered again. Batches are claimed oldest first, but a retried event waits out its
+ * backoff while later events of the type go ahead, so handlers must not rely on delivery order.
+ */
+public interface DomainEventHandler<T> {
+
+  String eventType();
+
+  Class<T> payloadType();
+
+  void handle(List<T> events);
+}
@@ -0,0 +1,347 @@
+package edu.cit.stathis.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Delivers outbox events to their handlers. A single poller thread claims due events in batches of
+ * {@code outbox.batch-size}, holding the row locks only long enough to push each event's next
+ * attempt a lease into the future, then hands each event type's slice of the batch to the worker
+ * pool. All slices of a batch must finish within nine tenths of the lease, so their outcome is
+ * written before another dispatcher could claim them again; a slice still running then is
+ * cancelled and counts as failed. Handled events are deleted; a failed slice is retried with exponential backoff until
+ * {@code outbox.max-attempts}, after which it stays in the table and is logged. A handler that
+ * delivers only part of its slice says which events to retry with a {@link
+ * PartialDeliveryException}; an event whose payload cannot be read fails on its own.
+ *
+ * <p>The poller runs when a transaction that published an event commits and on a fixed delay,
+ * which picks up retries and anything recorded while the application was down. The poller and the
+ * workers run on the background workload's connection pool.
+ */
+@Component
+public class OutboxDispatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final List<DomainEventHandler<?>> handlerList;
+  private final MeterRegistry meterRegistry;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration lease;
+
+  private final ExecutorService poller =
+      Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-poller-"));
+  private final ExecutorService workers;
+  private final AtomicBoolean draining = new AtomicBoolean();
+  private final AtomicBoolean wakeRequested = new AtomicBoolean();
+  private volatile Map<String, DomainEventHandler<?>> handlers;
+
+  public OutboxDispatcher(
+      OutboxEventRepository outboxEventRepository,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      @Lazy List<DomainEventHandler<?>> handlerList,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.batch-size:100}") int batchSize,
+      @Value("${outbox.worker-threads:4}") int workerThreads,
+      @Value("${outbox.max-attempts:10}") int maxAttempts,
+      @Value("${outbox.retry.initial-backoff-ms:1000}") long initialBackoffMillis,
+      @Value("${outbox.retry.max-backoff-ms:300000}") long maxBackoffMillis,
+      @Value("${outbox.lease-ms:60000}") long leaseMillis) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.handlerList = handlerList;
+    this.meterRegistry = meterRegistry;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+    this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    this.lease = Duration.ofMillis(leaseMillis);
+    this.workers =
+        Executors.newFixedThreadPool(workerThreads, new CustomizableThreadFactory("outbox-worker-"));
+  }
+
+  /** Asks the poller to drain due events; a call while it is already draining makes it go again. */
+  public void wake() {
+    wakeRequested.set(true);
+    if (draining.compareAndSet(false, true)) {
+      poller.execute(this::drainWhileRequested);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+  public void poll() {
+    wake();
+  }
+
+  private void drainWhileRequested() {
+    try {
+      WorkloadContext.call(
+          Workload.BACKGROUND,
+          () -> {
+            while (wakeRequested.getAndSet(false)) {
+              drain();
+            }
+            return null;
+          });
+    } catch (Exception e) {
+      logger.error("Outbox dispatch failed", e);
+    } finally {
+      draining.set(false);
+    }
+    if (wakeRequested.get() && draining.compareAndSet(false, true)) {
+      poller.execute(this::drainWhileRequested);
+    }
+  }
+
+  /** Dispatches due events batch by batch until a batch comes back short. */
+  void drain() throws InterruptedException {
+    while (true) {
+      List<OutboxEvent> batch = claim();
+      if (batch.isEmpty()) {
+        return;
+      }
+      dispatch(batch);
+      if (batch.size() < batchSize) {
+        return;
+      }
+    }
+  }
+
+  private List<OutboxEvent> claim() {
+    return transactionTemplate.execute(
+        status -> {
+          OffsetDateTime now = OffsetDateTime.now();
+          List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(now, maxAttempts, batchSize);
+          for (OutboxEvent event : due) {
+            event.setNextAttemptAt(now.plus(lease));
+          }
+          return due;
+        });
+  }
+
+  private void dispatch(List<OutboxEvent> batch) throws InterruptedException {
+    Map<String, List<OutboxEvent>> byType =
+        batch.stream()
+            .collect(
+                Collectors.groupingBy(
+                    OutboxEvent::getEventType, LinkedHashMap::new, Collectors.toList()));
+    Map<String, Future<?>> results = new LinkedHashMap<>();
+    for (Map.Entry<String, List<OutboxEvent>> slice : byType.entrySet()) {
+      results.put(
+          slice.getKey(),
+          workers.submit(
+              () ->
+                  WorkloadContext.call(
+                      Workload.BACKGROUND,
+                      () -> {
+                        handle(slice.getKey(), slice.getValue());
+                        return null;
+                      })));
+    }
+    long deadline = System.nanoTime() + lease.toNanos() / 10 * 9;
+    List<OutboxEvent> handled = new ArrayList<>();
+    for (Map.Entry<String, Future<?>> result : results.entrySet()) {
+      String eventType = result.getKey();
+      List<OutboxEvent> slice = byType.get(eventType);
+      try {
+        result.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        delivered(eventType, slice, handled);
+      } catch (InterruptedException e) {
+        results.values().forEach(future -> future.cancel(true));
+        throw e;
+      } catch (TimeoutException e) {
+        result.getValue().cancel(true);
+        reschedule(eventType, slice, new TimeoutException("Handler still running when its lease ran out"));
+      } catch (Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof PartialDeliveryException partial) {
+          List<OutboxEvent> delivered = new ArrayList<>();
+          List<OutboxEvent> failed = new ArrayList<>();
+          List<OutboxEvent> deferred = new ArrayList<>();
+          for (int i = 0; i < slice.size(); i++) {
+            if (partial.getFailed().contains(i)) {
+              failed.add(slice.get(i));
+            } else if (partial.getDeferred().contains(i)) {
+              deferred.add(slice.get(i));
+            } else {
+              delivered.add(slice.get(i));
+            }
+          }
+          delivered(eventType, delivered, handled);
+          if (!failed.isEmpty()) {
+            reschedule(eventType, failed, cause.getCause() != null ? cause.getCause() : cause);
+          }
+          if (!deferred.isEmpty()) {
+            defer(eventType, deferred, partial.getRetryAfter());
+          }
+        } else {
+          reschedule(eventType, slice, cause);
+        }
+      }
+    }
+    if (!handled.isEmpty()) {
+      outboxEventRepository.deleteAllByIdInBatch(handled.stream().map(OutboxEvent::getId).toList());
+    }
+  }
+
+  private void delivered(String eventType, List<OutboxEvent> events, List<OutboxEvent> handled) {
+    handled.addAll(events);
+    counter("stathis.outbox.dispatched", "Outbox events handled", eventType)
+        .increment(events.size());
+    Timer delay = timer(eventType);
+    OffsetDateTime now = OffsetDateTime.now();
+    for (OutboxEvent event : events) {
+      delay.record(Duration.between(event.getCreatedAt(), now));
+    }
+  }
+
+  /**
+   * Passes the slice's readable events to the handler. An event whose payload cannot be read fails
+   * on its own, and the handler's {@link PartialDeliveryException} indexes are mapped back from the
+   * readable events to positions in the slice.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void handle(String eventType, List<OutboxEvent> slice) throws Exception {
+    DomainEventHandler handler = handlers().get(eventType);
+    if (handler == null) {
+      throw new IllegalStateException("No handler for outbox event type " + eventType);
+    }
+    List<Object> payloads = new ArrayList<>(slice.size());
+    List<Integer> positions = new ArrayList<>(slice.size());
+    Set<Integer> unreadable = new HashSet<>();
+    Throwable error = null;
+    for (int i = 0; i < slice.size(); i++) {
+      try {
+        payloads.add(objectMapper.readValue(slice.get(i).getPayload(), handler.payloadType()));
+        positions.add(i);
+      } catch (JsonProcessingException e) {
+        unreadable.add(i);
+        error = e;
+      }
+    }
+    if (unreadable.isEmpty()) {
+      handler.handle(payloads);
+      return;
+    }
+    Set<Integer> failed = new HashSet<>(unreadable);
+    Set<Integer> deferred = new HashSet<>();
+    Duration retryAfter = Duration.ZERO;
+    try {
+      if (!payloads.isEmpty()) {
+        handler.handle(payloads);
+      }
+    } catch (PartialDeliveryException partial) {
+      partial.getFailed().forEach(index -> failed.add(positions.get(index)));
+      partial.getDeferred().forEach(index -> deferred.add(positions.get(index)));
+      retryAfter = partial.getRetryAfter();
+      error = partial.getCause() != null ? partial.getCause() : error;
+    } catch (RuntimeException e) {
+      failed.addAll(positions);
+      error = e;
+    }
+    throw new PartialDeliveryException(failed, deferred, retryAfter, error);
+  }
+
+  private void reschedule(String eventType, List<OutboxEvent> slice, Throwable cause) {
+    counter("stathis.outbox.failed", "Outbox events rescheduled after their handler failed", eventType)
+        .increment(slice.size());
+    OffsetDateTime now = OffsetDateTime.now();
+    String error = String.valueOf(cause);
+    for (OutboxEvent event : slice) {
+      int attempts = event.getAttempts() + 1;
+      event.setAttempts(attempts);
+      event.setNextAttemptAt(now.plus(backoff(attempts)));
+      event.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+      if (attempts >= maxAttempts) {
+        logger.error("Giving up on outbox event {} ({}) after {} attempts", event.getId(), eventType, attempts, cause);
+      }
+    }
+    logger.warn("Outbox handler for {} failed on {} events, retrying", eventType, slice.size(), cause);
+    outboxEventRepository.saveAll(slice);
+  }
+
+  // Held back by the handler, e.g. by a rate limit; not an attempt
+  private void defer(String eventType, List<OutboxEvent> events, Duration retryAfter) {
+    counter("stathis.outbox.deferred", "Outbox events the handler asked to retry later", eventType)
+        .increment(events.size());
+    OffsetDateTime nextAttempt = OffsetDateTime.now().plus(retryAfter);
+    for (OutboxEvent event : events) {
+      event.setNextAttemptAt(nextAttempt);
+    }
+    outboxEventRepository.saveAll(events);
+  }
+
+  Duration backoff(int attempts) {
+    Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+
+  private Map<String, DomainEventHandler<?>> handlers() {
+    Map<String, DomainEventHandler<?>> current = handlers;
+    if (current == null) {
+      current = new LinkedHashMap<>();
+      for (DomainEventHandler<?> handler : handlerList) {
+        current.put(handler.eventType(), handler);
+      }
+      handlers = current;
+    }
+    return current;
+  }
+
+  private Counter counter(String name, String description, String eventType) {
+    return Counter.builder(name)
+        .description(description)
+        .tag("type", eventType)
+        .register(meterRegistry);
+  }
+
+  private Timer timer(String eventType) {
+    return Timer.builder("stathis.outbox.delay")
+        .description("Time from recording an outbox event to its handler finishing")
+        .tag("type", eventType)
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    poller.shutdown();
+    workers.shutdown();
+  }
+}
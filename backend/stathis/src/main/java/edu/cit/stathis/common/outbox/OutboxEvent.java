@@ -0,0 +1,45 @@
+package edu.cit.stathis.common.outbox;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import lombok.*;
+
+/**
+ * A domain event recorded in the transaction that caused it and deleted once a handler has run.
+ * Rows whose attempts reach {@code outbox.max-attempts} stay behind for inspection.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+    name = "outbox_events",
+    indexes = @Index(name = "idx_outbox_events_next_attempt", columnList = "next_attempt_at"))
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "event_type", nullable = false, length = 64)
+  private String eventType;
+
+  @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(name = "created_at", nullable = false)
+  private OffsetDateTime createdAt;
+
+  // Also the claim lease: a claimed event is not due again until its dispatch has had time to finish
+  @Column(name = "next_attempt_at", nullable = false)
+  private OffsetDateTime nextAttemptAt;
+
+  @Column(name = "attempts", nullable = false)
+  @Builder.Default
+  private int attempts = 0;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+}
@@ -0,0 +1,24 @@
+package edu.cit.stathis.common.outbox;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /** Locks the oldest due events, skipping rows another dispatcher has already locked. */
+  @Query(
+      value =
+          "SELECT * FROM outbox_events"
+              + " WHERE next_attempt_at <= :now AND attempts < :maxAttempts"
+              + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<OutboxEvent> findDueForUpdate(
+      @Param("now") OffsetDateTime now,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("limit") int limit);
+}
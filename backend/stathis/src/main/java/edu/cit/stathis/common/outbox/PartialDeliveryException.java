@@ -0,0 +1,37 @@
+package edu.cit.stathis.common.outbox;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Thrown by a {@link DomainEventHandler} that delivered only part of its batch, so the events it
+ * did deliver are not retried. Indexes refer to positions in the list passed to {@code handle}:
+ * failed events are retried with backoff and count towards {@code outbox.max-attempts}; deferred
+ * ones (e.g. held back by a rate limit) are retried after {@code retryAfter} without counting.
+ */
+public class PartialDeliveryException extends RuntimeException {
+
+  private final Set<Integer> failed;
+  private final Set<Integer> deferred;
+  private final Duration retryAfter;
+
+  public PartialDeliveryException(
+      Set<Integer> failed, Set<Integer> deferred, Duration retryAfter, Throwable cause) {
+    super(failed.size() + " failed, " + deferred.size() + " deferred", cause);
+    this.failed = Set.copyOf(failed);
+    this.deferred = Set.copyOf(deferred);
+    this.retryAfter = retryAfter;
+  }
+
+  public Set<Integer> getFailed() {
+    return failed;
+  }
+
+  public Set<Integer> getDeferred() {
+    return deferred;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -1,39 +1,87 @@
 package edu.cit.stathis.common.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
 import edu.cit.stathis.auth.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import javax.crypto.SecretKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Issues and verifies access tokens. The signing key and parser are built once; {@link
+ * #verify(String)} parses and checks a token in one pass, and keeps the claims of recently
+ * verified tokens in a bounded cache keyed by the SHA-256 of the token, so a client sending the
+ * same token on every request pays for signature verification once. A cached entry is never used
+ * past the token's own expiry.
+ */
 @Component
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+  static final String ROLE_CLAIM = "role";
+  static final String USER_ID_CLAIM = "uid";
+  static final String PHYSICAL_ID_CLAIM = "pid";
+
   @Value("${jwt.secret}")
   private String secret;
 
   @Value("${jwt.expiration}")
   private Long expiration;
 
-  private SecretKey getSigningKey() {
-    return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+  @Value("${jwt.verified-cache.max-size:10000}")
+  private long verifiedCacheMaxSize;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private SecretKey signingKey;
+  private JwtParser parser;
+  private Cache<String, Claims> verifiedTokens;
+
+  @PostConstruct
+  void init() {
+    signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    parser = Jwts.parser().verifyWith(signingKey).build();
+    verifiedTokens =
+        CacheBuilder.newBuilder()
+            .maximumSize(verifiedCacheMaxSize)
+            // Upper bound only; each hit is also checked against the token's own expiry
+            .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+    }
   }
 
   public String generateToken(User user) {
     Map<String, Object> claims = new HashMap<>();
-        claims.put("role", "ROLE_" + user.getUserRole().toString());
+        claims.put(ROLE_CLAIM, "ROLE_" + user.getUserRole().toString());
+    claims.put(USER_ID_CLAIM, user.getUserId().toString());
+    claims.put(PHYSICAL_ID_CLAIM, user.getPhysicalId());
     return createToken(claims, user.getEmail());
   }
 
@@ -43,43 +91,65 @@ public class JwtUtil {
         .subject(subject)
         .issuedAt(new Date(System.currentTimeMillis()))
         .expiration(new Date(System.currentTimeMillis() + expiration))
-        .signWith(getSigningKey())
+        .signWith(signingKey)
         .compact();
   }
 
-  public String extractUsername(String token) {
-        try {
-    return extractClaim(token, Claims::getSubject);
-        } catch (JwtException e) {
-            logger.error("Error extracting username from token: {}", e.getMessage());
-            throw e;
-        }
+  /**
+   * Verifies the token's signature and expiry and returns its claims.
+   *
+   * @throws JwtException if the token is malformed, forged or expired
+   */
+  public Claims verify(String token) {
+    String digest = digest(token);
+    Claims cached = verifiedTokens.getIfPresent(digest);
+    if (cached != null) {
+      if (cached.getExpiration() != null && cached.getExpiration().before(new Date())) {
+        verifiedTokens.invalidate(digest);
+        throw new ExpiredJwtException(null, cached, "JWT expired");
+      }
+      return cached;
+    }
+    Claims claims;
+    try {
+      // The parser rejects expired tokens itself
+      claims = parser.parseSignedClaims(token).getPayload();
+    } catch (JwtException e) {
+      logger.debug("Rejected JWT: {}", e.getMessage());
+      throw e;
+    }
+    verifiedTokens.put(digest, claims);
+    return claims;
   }
 
-  public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        try {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolver.apply(claims);
-        } catch (JwtException e) {
-            logger.error("Error extracting claim from token: {}", e.getMessage());
-            throw e;
-        }
+  /**
+   * The principal carried by verified claims, or {@code null} for tokens issued before the user
+   * identifiers were added to them.
+   */
+  public AuthenticatedUser toPrincipal(Claims claims) {
+    String userId = claims.get(USER_ID_CLAIM, String.class);
+    String physicalId = claims.get(PHYSICAL_ID_CLAIM, String.class);
+    String role = claims.get(ROLE_CLAIM, String.class);
+    if (userId == null || physicalId == null || role == null) {
+      return null;
+    }
+    if (!role.startsWith("ROLE_")) {
+      role = "ROLE_" + role;
+    }
+    return new AuthenticatedUser(UUID.fromString(userId), physicalId, claims.getSubject(), role);
   }
 
-  private Claims extractAllClaims(String token) {
-        try {
-    JwtParser parser = Jwts.parser().verifyWith(getSigningKey()).build();
-            return parser.parseSignedClaims(token).getPayload();
-        } catch (JwtException e) {
-            logger.error("Error parsing JWT token: {}", e.getMessage());
-            throw e;
-        }
+  public String extractUsername(String token) {
+    return verify(token).getSubject();
+  }
+
+  public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+    return claimsResolver.apply(verify(token));
   }
 
   public Boolean validateToken(String token, String username) {
         try {
-    final String extractedUsername = extractUsername(token);
-            boolean isValid = extractedUsername.equals(username) && !isTokenExpired(token);
+            boolean isValid = verify(token).getSubject().equals(username);
             if (!isValid) {
                 logger.debug("Token validation failed for user: {}", username);
             }
@@ -90,12 +160,13 @@ public class JwtUtil {
         }
   }
 
-  private Boolean isTokenExpired(String token) {
-        try {
-    return extractClaim(token, Claims::getExpiration).before(new Date());
-        } catch (JwtException e) {
-            logger.error("Error checking token expiration: {}", e.getMessage());
-            return true;
-        }
+  private static String digest(String token) {
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
   }
 }
@@ -0,0 +1,34 @@
+package edu.cit.stathis.task.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * A template change recorded in the transaction that made it, so every node's template cache can
+ * drop its snapshot. Rows are only read for a short window after they are written, then purged.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+    name = "template_invalidations",
+    indexes = @Index(name = "idx_template_invalidations_created_at", columnList = "created_at"))
+public class TemplateInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "lesson", "quiz" or "exercise"
+    @Column(name = "template_kind", nullable = false, length = 16)
+    private String templateKind;
+
+    @Column(name = "physical_id", nullable = false)
+    private String physicalId;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
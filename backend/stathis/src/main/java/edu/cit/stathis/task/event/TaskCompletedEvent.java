@@ -0,0 +1,7 @@
+package edu.cit.stathis.task.event;
+
+/**
+ * Recorded through the outbox when a student completes a task; badges and the leaderboard are
+ * updated from it after the completion commits.
+ */
+public record TaskCompletedEvent(String studentId, String taskId) {}
@@ -0,0 +1,7 @@
+package edu.cit.stathis.task.event;
+
+/**
+ * Published inside the transaction that ends a task, so modules holding per-task state can
+ * finalize it atomically with the task's state change.
+ */
+public record TaskEndedEvent(String taskPhysicalId, String classroomPhysicalId) {}
@@ -6,11 +6,13 @@ import java.util.UUID;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.List;
+import java.util.Collection;
 
 @Repository
 public interface LessonTemplateRepository extends JpaRepository<LessonTemplate, UUID> {
     LessonTemplate findByTitle(String title);
     Optional<LessonTemplate> findByPhysicalId(String physicalId);
+    List<LessonTemplate> findByPhysicalIdIn(Collection<String> physicalIds);
     List<LessonTemplate> findByTeacherPhysicalId(String teacherPhysicalId);
     void deleteByPhysicalId(String physicalId);
 }
@@ -6,11 +6,13 @@ import java.util.UUID;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.List;
+import java.util.Collection;
 
 @Repository
 public interface QuizTemplateRepository extends JpaRepository<QuizTemplate, UUID> {
     QuizTemplate findByTitle(String title);
     Optional<QuizTemplate> findByPhysicalId(String physicalId);
+    List<QuizTemplate> findByPhysicalIdIn(Collection<String> physicalIds);
     List<QuizTemplate> findByTeacherPhysicalId(String teacherPhysicalId);
     void deleteByPhysicalId(String physicalId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +26,9 @@ public interface ScoreRepository extends JpaRepository<Score, UUID> {
     @Query("SELECT s FROM Score s WHERE s.studentId = :studentId AND s.taskId = :taskId AND s.quizTemplateId = :quizTemplateId")
     Optional<Score> findQuizScore(@Param("studentId") String studentId, @Param("taskId") String taskId, @Param("quizTemplateId") String quizTemplateId);
     
+    @Query("SELECT s FROM Score s WHERE s.studentId = :studentId AND s.taskId IN :taskIds AND s.quizTemplateId IS NOT NULL")
+    List<Score> findQuizScoresForTasks(@Param("studentId") String studentId, @Param("taskIds") Collection<String> taskIds);
+    
     @Query("SELECT s FROM Score s WHERE s.studentId = :studentId AND s.taskId = :taskId AND s.exerciseTemplateId = :exerciseTemplateId")
     Optional<Score> findExerciseScore(@Param("studentId") String studentId, @Param("taskId") String taskId, @Param("exerciseTemplateId") String exerciseTemplateId);
     
@@ -28,6 +28,9 @@ public interface TaskRepository extends JpaRepository<Task, UUID> {
     @Query("SELECT COUNT(t) > 0 FROM Task t WHERE t.physicalId = :physicalId AND t.classroomPhysicalId = :classroomId")
     boolean existsByPhysicalIdAndClassroomId(@Param("physicalId") String physicalId, @Param("classroomId") String classroomId);
 
+    @Query("SELECT COUNT(t) > 0 FROM Task t WHERE t.physicalId = :physicalId AND t.isStarted = true AND t.isActive = true")
+    boolean isRunning(@Param("physicalId") String physicalId);
+
     List<Task> findByClassroomPhysicalIdAndIsActiveTrue(String classroomPhysicalId);
     List<Task> findByClassroomPhysicalIdAndIsStartedTrue(String classroomPhysicalId);
 }
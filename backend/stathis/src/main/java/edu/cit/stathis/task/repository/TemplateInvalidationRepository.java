@@ -0,0 +1,21 @@
+package edu.cit.stathis.task.repository;
+
+import edu.cit.stathis.task.entity.TemplateInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface TemplateInvalidationRepository extends JpaRepository<TemplateInvalidation, Long> {
+    List<TemplateInvalidation> findByCreatedAtAfter(OffsetDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TemplateInvalidation i WHERE i.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
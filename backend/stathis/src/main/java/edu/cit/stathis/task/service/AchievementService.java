@@ -2,7 +2,9 @@ package edu.cit.stathis.task.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import edu.cit.stathis.task.repository.BadgeRepository;
 import edu.cit.stathis.task.repository.LeaderboardRepository;
 import edu.cit.stathis.task.repository.ScoreRepository;
@@ -13,13 +15,25 @@ import edu.cit.stathis.task.entity.Score;
 import edu.cit.stathis.task.entity.TaskCompletion;
 import edu.cit.stathis.task.enums.BadgeType;
 import edu.cit.stathis.task.enums.ExerciseDifficulty;
+import edu.cit.stathis.task.event.TaskCompletedEvent;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.outbox.DomainEventBus;
+import edu.cit.stathis.common.outbox.DomainEventHandler;
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
-public class AchievementService {
+public class AchievementService implements DomainEventHandler<TaskCompletedEvent> {
+    static final String TASK_COMPLETED = "task.completed";
+
     @Autowired
     private BadgeRepository badgeRepository;
 
@@ -32,6 +46,19 @@ public class AchievementService {
     @Autowired
     private TaskCompletionRepository taskCompletionRepository;
 
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate perEvent;
+
+    @PostConstruct
+    void init() {
+        perEvent = new TransactionTemplate(transactionManager);
+    }
+
     @Transactional
     public void startTask(String studentId, String taskId) {
         Optional<TaskCompletion> taskCompletionOptional = taskCompletionRepository.findByStudentIdAndTaskId(studentId, taskId);
@@ -93,10 +120,44 @@ public class AchievementService {
 
         taskCompletionRepository.save(taskCompletion);
 
-        // Get the best score from all components
-        Score bestScore = getBestScore(studentId, taskId);
-        if (bestScore != null) {
-            processTaskCompletion(studentId, taskId, bestScore);
+        // Badges and ranks are recomputed after commit; the completion itself is all the caller waits for
+        domainEventBus.publish(TASK_COMPLETED, new TaskCompletedEvent(studentId, taskId));
+    }
+
+    @Override
+    public String eventType() {
+        return TASK_COMPLETED;
+    }
+
+    @Override
+    public Class<TaskCompletedEvent> payloadType() {
+        return TaskCompletedEvent.class;
+    }
+
+    // Idempotent: badges are only created once and the leaderboard entry is overwritten.
+    // One transaction per event, so a failing event rolls back and is retried on its own.
+    @Override
+    @UsesWorkload(Workload.BACKGROUND)
+    public void handle(List<TaskCompletedEvent> events) {
+        Set<Integer> failed = new HashSet<>();
+        RuntimeException error = null;
+        for (int i = 0; i < events.size(); i++) {
+            TaskCompletedEvent event = events.get(i);
+            try {
+                perEvent.executeWithoutResult(status -> {
+                    // Get the best score from all components
+                    Score bestScore = getBestScore(event.studentId(), event.taskId());
+                    if (bestScore != null) {
+                        processTaskCompletion(event.studentId(), event.taskId(), bestScore);
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed.add(i);
+                error = e;
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new PartialDeliveryException(failed, Set.of(), Duration.ZERO, error);
         }
     }
 
@@ -22,6 +22,9 @@ public class ExerciseTemplateService {
     @Autowired
     private PhysicalIdService physicalIdService;
 
+    @Autowired
+    private TemplateSnapshotCache templateSnapshotCache;
+
     @Transactional
     public ExerciseTemplate createExerciseTemplate(ExerciseTemplateBodyDTO exerciseTemplateBodyDTO) {
         ExerciseTemplate exerciseTemplate = new ExerciseTemplate();
@@ -78,6 +81,7 @@ public class ExerciseTemplateService {
         exerciseTemplate.setGoalReps(Integer.parseInt(exerciseTemplateBodyDTO.getGoalReps()));
         exerciseTemplate.setGoalAccuracy(Integer.parseInt(exerciseTemplateBodyDTO.getGoalAccuracy()));
         exerciseTemplate.setGoalTime(Integer.parseInt(exerciseTemplateBodyDTO.getGoalTime()));
+        templateSnapshotCache.invalidateExercise(physicalId);
         return exerciseTemplateRepository.save(exerciseTemplate);
     }
 
@@ -91,23 +95,16 @@ public class ExerciseTemplateService {
         if (!exerciseTemplate.getTeacherPhysicalId().equals(physicalIdService.getCurrentUserPhysicalId())) {
             throw new RuntimeException("You are not the teacher of this exercise template");
         }
+        templateSnapshotCache.invalidateExercise(physicalId);
         exerciseTemplateRepository.deleteByPhysicalId(physicalId);
     }
 
+    /** Served from the template cache; throws like {@link #getExerciseTemplate} when it does not exist. */
     public ExerciseTemplateResponseDTO getExerciseTemplateResponseDTO(String physicalId) {
-        ExerciseTemplate exerciseTemplate = getExerciseTemplate(physicalId);
-        if (exerciseTemplate == null) {
-            return null;
+        TemplateSnapshotCache.ExerciseSnapshot snapshot = templateSnapshotCache.getExercise(physicalId);
+        if (snapshot == null) {
+            throw new RuntimeException("Exercise template not found");
         }
-        return ExerciseTemplateResponseDTO.builder()
-            .physicalId(exerciseTemplate.getPhysicalId())
-            .title(exerciseTemplate.getTitle())
-            .description(exerciseTemplate.getDescription())
-            .exerciseType(exerciseTemplate.getExerciseType())
-            .exerciseDifficulty(exerciseTemplate.getExerciseDifficulty())
-            .goalReps(exerciseTemplate.getGoalReps())
-            .goalAccuracy(exerciseTemplate.getGoalAccuracy())
-            .goalTime(exerciseTemplate.getGoalTime())
-            .build();
+        return snapshot.toResponseDTO();
     }
 }
@@ -21,6 +21,9 @@ public class LessonTemplateService {
     @Autowired
     private PhysicalIdService physicalIdService;
 
+    @Autowired
+    private TemplateSnapshotCache templateSnapshotCache;
+
     @Transactional
     public LessonTemplate createLessonTemplate(LessonTemplateBodyDTO lessonTemplateBodyDTO) {
         LessonTemplate lessonTemplate = new LessonTemplate();
@@ -68,6 +71,7 @@ public class LessonTemplateService {
         lessonTemplate.setTitle(lessonTemplateBodyDTO.getTitle());
         lessonTemplate.setDescription(lessonTemplateBodyDTO.getDescription());
         lessonTemplate.setContent(lessonTemplateBodyDTO.getContent());
+        templateSnapshotCache.invalidateLesson(physicalId);
         return lessonTemplateRepository.save(lessonTemplate);
     }
 
@@ -81,19 +85,13 @@ public class LessonTemplateService {
         if (!lessonTemplate.getTeacherPhysicalId().equals(physicalIdService.getCurrentUserPhysicalId())) {
             throw new RuntimeException("You are not the teacher of this lesson template");
         }
+        templateSnapshotCache.invalidateLesson(physicalId);
         lessonTemplateRepository.deleteByPhysicalId(physicalId);
     }
 
+    /** Served from the template cache; null when it does not exist. */
     public LessonTemplateResponseDTO getLessonTemplateResponseDTO(String physicalId) {
-        LessonTemplate lessonTemplate = getLessonTemplate(physicalId);
-        if (lessonTemplate == null) {
-            return null;
-        }
-        return LessonTemplateResponseDTO.builder()
-            .physicalId(lessonTemplate.getPhysicalId())
-            .title(lessonTemplate.getTitle())
-            .description(lessonTemplate.getDescription())
-            .content(lessonTemplate.getContent())
-            .build();
+        TemplateSnapshotCache.LessonSnapshot snapshot = templateSnapshotCache.getLesson(physicalId);
+        return snapshot != null ? snapshot.toResponseDTO() : null;
     }
 }
@@ -21,6 +21,9 @@ public class QuizTemplateService {
     @Autowired
     private PhysicalIdService physicalIdService;
 
+    @Autowired
+    private TemplateSnapshotCache templateSnapshotCache;
+
     @Transactional
     public QuizTemplate createQuizTemplate(QuizTemplateBodyDTO quizTemplateBodyDTO) {
         QuizTemplate quizTemplate = new QuizTemplate();
@@ -70,6 +73,7 @@ public class QuizTemplateService {
         quizTemplate.setInstruction(quizTemplateBodyDTO.getInstruction());
         quizTemplate.setMaxScore(quizTemplateBodyDTO.getMaxScore());
         quizTemplate.setContent(quizTemplateBodyDTO.getContent());
+        templateSnapshotCache.invalidateQuiz(physicalId);
         return quizTemplateRepository.save(quizTemplate);
     }
 
@@ -83,20 +87,13 @@ public class QuizTemplateService {
         if (!quizTemplate.getTeacherPhysicalId().equals(physicalIdService.getCurrentUserPhysicalId())) {
             throw new RuntimeException("You are not the teacher of this quiz template");
         }
+        templateSnapshotCache.invalidateQuiz(physicalId);
         quizTemplateRepository.deleteByPhysicalId(physicalId);
     }
 
+    /** Served from the template cache; null when it does not exist. */
     public QuizTemplateResponseDTO getQuizTemplateResponseDTO(String physicalId) {
-        QuizTemplate quizTemplate = getQuizTemplate(physicalId);
-        if (quizTemplate == null) {
-            return null;
-        }
-        return QuizTemplateResponseDTO.builder()
-            .physicalId(quizTemplate.getPhysicalId())
-            .title(quizTemplate.getTitle())
-            .instruction(quizTemplate.getInstruction())
-            .maxScore(quizTemplate.getMaxScore())
-            .content(quizTemplate.getContent())
-            .build();
+        TemplateSnapshotCache.QuizSnapshot snapshot = templateSnapshotCache.getQuiz(physicalId);
+        return snapshot != null ? snapshot.toResponseDTO() : null;
     }
 }
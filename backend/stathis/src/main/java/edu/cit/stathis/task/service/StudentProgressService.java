@@ -39,7 +39,7 @@ public class StudentProgressService {
             tasks.addAll(taskRepository.findByClassroomPhysicalId(classroomId));
         } else {
             // Fetch all classrooms where the student is enrolled (and verified) then collect tasks
-            classroomService.getClassroomsByCurrentStudent().stream()
+            classroomService.listClassroomsByCurrentStudent().stream()
                     .map(c -> c.getPhysicalId())
                     .forEach(cid -> tasks.addAll(taskRepository.findByClassroomPhysicalId(cid)));
         }
@@ -11,17 +11,18 @@ import edu.cit.stathis.task.entity.Score;
 import edu.cit.stathis.task.entity.TaskCompletion;
 import edu.cit.stathis.task.dto.StudentTaskResponseDTO;
 import edu.cit.stathis.task.dto.TaskProgressDTO;
-import edu.cit.stathis.task.dto.LessonTemplateResponseDTO;
-import edu.cit.stathis.task.dto.QuizTemplateResponseDTO;
-import edu.cit.stathis.task.dto.ExerciseTemplateResponseDTO;
 import edu.cit.stathis.task.dto.ScoreDTO;
-import edu.cit.stathis.task.repository.LessonTemplateRepository;
-import edu.cit.stathis.task.repository.QuizTemplateRepository;
-import edu.cit.stathis.task.repository.ExerciseTemplateRepository;
 import edu.cit.stathis.task.dto.QuizSubmissionDTO;
+import edu.cit.stathis.task.service.TemplateSnapshotCache.ExerciseSnapshot;
+import edu.cit.stathis.task.service.TemplateSnapshotCache.LessonSnapshot;
+import edu.cit.stathis.task.service.TemplateSnapshotCache.QuizSnapshot;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import edu.cit.stathis.classroom.service.ClassroomService;
 import jakarta.persistence.EntityNotFoundException;
@@ -40,13 +41,7 @@ public class StudentTaskService {
     private TaskCompletionRepository taskCompletionRepository;
 
     @Autowired
-    private LessonTemplateRepository lessonTemplateRepository;
-
-    @Autowired
-    private QuizTemplateRepository quizTemplateRepository;
-
-    @Autowired
-    private ExerciseTemplateRepository exerciseTemplateRepository;
+    private TemplateSnapshotCache templateSnapshotCache;
 
     @Autowired
     private ClassroomService classroomService;
@@ -58,11 +53,39 @@ public class StudentTaskService {
             throw new RuntimeException("You are not authorized to view tasks for this classroom (not verified)");
         }
         List<Task> tasks = taskRepository.findByClassroomPhysicalId(classroomPhysicalId);
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+
+        // One query per kind of row for the whole list, joined here instead of per task; cached
+        // templates skip their query entirely
+        Map<String, Score> quizScores = scoreRepository.findQuizScoresForTasks(
+                studentId, tasks.stream().map(Task::getPhysicalId).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(
+                score -> score.getTaskId() + "|" + score.getQuizTemplateId(), Function.identity(), (a, b) -> a));
+        Set<String> lessonIds = templateIds(tasks, Task::getLessonTemplateId);
+        Set<String> quizIds = templateIds(tasks, Task::getQuizTemplateId);
+        Set<String> exerciseIds = templateIds(tasks, Task::getExerciseTemplateId);
+        Map<String, LessonSnapshot> lessons = templateSnapshotCache.getLessons(lessonIds);
+        Map<String, QuizSnapshot> quizzes = templateSnapshotCache.getQuizzes(quizIds);
+        Map<String, ExerciseSnapshot> exercises = templateSnapshotCache.getExercises(exerciseIds);
+
         return tasks.stream()
-            .map(task -> buildStudentTaskResponse(task, studentId))
+            .map(task -> buildStudentTaskResponse(
+                task,
+                task.getQuizTemplateId() != null
+                    ? quizScores.get(task.getPhysicalId() + "|" + task.getQuizTemplateId()) : null,
+                lessons.get(task.getLessonTemplateId()),
+                quizzes.get(task.getQuizTemplateId()),
+                exercises.get(task.getExerciseTemplateId())))
             .collect(Collectors.toList());
     }
 
+    private static Set<String> templateIds(List<Task> tasks, Function<Task, String> templateId) {
+        return tasks.stream().map(templateId).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
     @Transactional(readOnly = true)
     public StudentTaskResponseDTO getStudentTask(String taskId, String studentId) {
         Task task = taskRepository.findByPhysicalId(taskId)
@@ -125,12 +148,11 @@ public class StudentTaskService {
 
         // Ensure maxScore is populated from quiz template if available
         if (existingScore.getMaxScore() <= 0) {
-            var optTemplate = quizTemplateRepository.findByPhysicalId(quizTemplateId);
-            if (optTemplate.isPresent()) {
-                var quizTemplate = optTemplate.get();
+            QuizSnapshot quizTemplate = templateSnapshotCache.getQuiz(quizTemplateId);
+            if (quizTemplate != null) {
                 int templateMax = 0;
                 try {
-                    Object quizNode = quizTemplate.getContent() != null ? quizTemplate.getContent().get("quiz") : null;
+                    Object quizNode = quizTemplate.content() != null ? quizTemplate.content().get("quiz") : null;
                     if (quizNode instanceof java.util.Map) {
                         @SuppressWarnings("unchecked")
                         var quizMap = (java.util.Map<String, Object>) quizNode;
@@ -151,7 +173,7 @@ public class StudentTaskService {
                     }
                 } catch (Exception ignored) {}
                 if (templateMax <= 0) {
-                    templateMax = quizTemplate.getMaxScore();
+                    templateMax = quizTemplate.maxScore();
                 }
                 existingScore.setMaxScore(templateMax);
             }
@@ -169,9 +191,11 @@ public class StudentTaskService {
 
     @Transactional
     public Score autoCheckQuiz(String studentId, String taskId, String quizTemplateId, QuizSubmissionDTO submission) {
-        // Load quiz template JSON
-        var quizTemplate = quizTemplateRepository.findByPhysicalId(quizTemplateId)
-            .orElseThrow(() -> new EntityNotFoundException("Quiz template not found with ID: " + quizTemplateId));
+        // The snapshot cache drops an edited quiz on every node within its invalidation poll
+        QuizSnapshot quizTemplate = templateSnapshotCache.getQuiz(quizTemplateId);
+        if (quizTemplate == null) {
+            throw new EntityNotFoundException("Quiz template not found with ID: " + quizTemplateId);
+        }
 
         // Accept either:
         // A) { "quiz": { "content": { "questions": [...] }, "maxScore": n } }
@@ -179,7 +203,7 @@ public class StudentTaskService {
         int computedScore = 0;
         int maxScore = 0;
         try {
-            var contentMapRoot = quizTemplate.getContent();
+            var contentMapRoot = quizTemplate.content();
             if (contentMapRoot != null) {
                 Object quizNode = contentMapRoot.get("quiz");
                 // Determine quiz root (support both shapes)
@@ -229,7 +253,7 @@ public class StudentTaskService {
 
         // Final fallback: if still not positive, use template header maxScore
         if (maxScore <= 0) {
-            maxScore = quizTemplate.getMaxScore();
+            maxScore = quizTemplate.maxScore();
         }
 
         // Persist using existing flow
@@ -339,7 +363,17 @@ public class StudentTaskService {
             score = scoreRepository.findQuizScore(studentId, task.getPhysicalId(), task.getQuizTemplateId())
                 .orElse(null);
         }
+        return buildStudentTaskResponse(
+            task,
+            score,
+            templateSnapshotCache.getLesson(task.getLessonTemplateId()),
+            templateSnapshotCache.getQuiz(task.getQuizTemplateId()),
+            templateSnapshotCache.getExercise(task.getExerciseTemplateId()));
+    }
 
+    private StudentTaskResponseDTO buildStudentTaskResponse(
+            Task task, Score score, LessonSnapshot lessonTemplate, QuizSnapshot quizTemplate,
+            ExerciseSnapshot exerciseTemplate) {
         return StudentTaskResponseDTO.builder()
             .physicalId(task.getPhysicalId())
             .name(task.getName())
@@ -348,12 +382,9 @@ public class StudentTaskService {
             .closingDate(task.getClosingDate().toString())
             .imageUrl(task.getImageUrl())
             .classroomPhysicalId(task.getClassroomPhysicalId())
-            .lessonTemplate(task.getLessonTemplateId() != null ? 
-                buildLessonTemplateDTO(task.getLessonTemplateId()) : null)
-            .quizTemplate(task.getQuizTemplateId() != null ? 
-                buildQuizTemplateDTO(task.getQuizTemplateId()) : null)
-            .exerciseTemplate(task.getExerciseTemplateId() != null ? 
-                buildExerciseTemplateDTO(task.getExerciseTemplateId()) : null)
+            .lessonTemplate(lessonTemplate != null ? lessonTemplate.toResponseDTO() : null)
+            .quizTemplate(quizTemplate != null ? quizTemplate.toResponseDTO() : null)
+            .exerciseTemplate(exerciseTemplate != null ? exerciseTemplate.toResponseDTO() : null)
             .score(score != null ? buildScoreDTO(score) : null)
             .isCompleted(score != null && score.isCompleted())
             .isStarted(task.isStarted())
@@ -362,44 +393,6 @@ public class StudentTaskService {
             .build();
     }
 
-    private LessonTemplateResponseDTO buildLessonTemplateDTO(String lessonTemplateId) {
-        return lessonTemplateRepository.findByPhysicalId(lessonTemplateId)
-            .map(lessonTemplate -> LessonTemplateResponseDTO.builder()
-                .physicalId(lessonTemplate.getPhysicalId())
-                .title(lessonTemplate.getTitle())
-                .description(lessonTemplate.getDescription())
-                .content(lessonTemplate.getContent())
-                .build())
-            .orElse(null);
-    }
-
-    private QuizTemplateResponseDTO buildQuizTemplateDTO(String quizTemplateId) {
-        return quizTemplateRepository.findByPhysicalId(quizTemplateId)
-            .map(quizTemplate -> QuizTemplateResponseDTO.builder()
-                .physicalId(quizTemplate.getPhysicalId())
-                .title(quizTemplate.getTitle())
-                .instruction(quizTemplate.getInstruction())
-                .maxScore(quizTemplate.getMaxScore())
-                .content(quizTemplate.getContent())
-                .build())
-            .orElse(null);
-    }
-
-    private ExerciseTemplateResponseDTO buildExerciseTemplateDTO(String exerciseTemplateId) {
-        return exerciseTemplateRepository.findByPhysicalId(exerciseTemplateId)
-            .map(exerciseTemplate -> ExerciseTemplateResponseDTO.builder()
-                .physicalId(exerciseTemplate.getPhysicalId())
-                .title(exerciseTemplate.getTitle())
-                .description(exerciseTemplate.getDescription())
-                .exerciseType(exerciseTemplate.getExerciseType())
-                .exerciseDifficulty(exerciseTemplate.getExerciseDifficulty())
-                .goalReps(exerciseTemplate.getGoalReps())
-                .goalAccuracy(exerciseTemplate.getGoalAccuracy())
-                .goalTime(exerciseTemplate.getGoalTime())
-                .build())
-            .orElse(null);
-    }
-
     private ScoreDTO buildScoreDTO(Score score) {
         return ScoreDTO.builder()
             .physicalId(score.getPhysicalId())
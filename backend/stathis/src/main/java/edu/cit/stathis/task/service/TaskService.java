@@ -2,10 +2,12 @@ package edu.cit.stathis.task.service;
 
 import edu.cit.stathis.task.dto.TaskBodyDTO;
 import edu.cit.stathis.task.entity.Task;
+import edu.cit.stathis.task.event.TaskEndedEvent;
 import edu.cit.stathis.task.repository.TaskRepository;
 import edu.cit.stathis.classroom.service.ClassroomService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,6 +24,7 @@ public class TaskService {
 
     private final TaskRepository taskRepository;
     private final ClassroomService classroomService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @PreAuthorize("hasRole('TEACHER')")
@@ -126,6 +129,7 @@ public class TaskService {
                 .orElseThrow(() -> new EntityNotFoundException("Task not found with physical ID: " + physicalId));
         task.setActive(false);
         taskRepository.save(task);
+        eventPublisher.publishEvent(new TaskEndedEvent(task.getPhysicalId(), task.getClassroomPhysicalId()));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,418 @@
+package edu.cit.stathis.task.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.common.datasource.ReplicaRoutingDataSource;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.task.dto.ExerciseTemplateResponseDTO;
+import edu.cit.stathis.task.dto.LessonTemplateResponseDTO;
+import edu.cit.stathis.task.dto.QuizTemplateResponseDTO;
+import edu.cit.stathis.task.entity.ExerciseTemplate;
+import edu.cit.stathis.task.entity.LessonTemplate;
+import edu.cit.stathis.task.entity.QuizTemplate;
+import edu.cit.stathis.task.entity.TemplateInvalidation;
+import edu.cit.stathis.task.enums.ExerciseDifficulty;
+import edu.cit.stathis.task.enums.ExerciseType;
+import edu.cit.stathis.task.repository.ExerciseTemplateRepository;
+import edu.cit.stathis.task.repository.LessonTemplateRepository;
+import edu.cit.stathis.task.repository.QuizTemplateRepository;
+import edu.cit.stathis.task.repository.TemplateInvalidationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of lesson, quiz and exercise templates as immutable snapshots keyed by
+ * physical ID, so student task reads stop fetching and deserializing the jsonb content on every
+ * request. Each kind is bounded by entry count and estimated size, and dropped on update or delete
+ * by the template services.
+ *
+ * <p>Misses are always read from the primary: a replica may still hold the row an update just
+ * replaced, and caching it would outlive the replica's lag. An invalidation drops the snapshot on
+ * this node at once and is recorded in {@code template_invalidations} in the writing transaction;
+ * every node polls that table and drops the snapshot within {@code
+ * templates.cache.invalidation-poll-ms} of the commit. The poll re-reads a window of recent rows,
+ * so a change whose transaction commits after later ones is not skipped; the TTL only matters for
+ * a transaction that stays open longer than the window. Grading reads the quiz from here too.
+ */
+@Service
+public class TemplateSnapshotCache {
+
+    public record LessonSnapshot(
+            String physicalId, String teacherPhysicalId, String title, String description,
+            Map<String, Object> content) {
+
+        public LessonTemplateResponseDTO toResponseDTO() {
+            return LessonTemplateResponseDTO.builder()
+                    .physicalId(physicalId)
+                    .title(title)
+                    .description(description)
+                    .content(content)
+                    .build();
+        }
+    }
+
+    public record QuizSnapshot(
+            String physicalId, String teacherPhysicalId, String title, String instruction, int maxScore,
+            Map<String, Object> content) {
+
+        public QuizTemplateResponseDTO toResponseDTO() {
+            return QuizTemplateResponseDTO.builder()
+                    .physicalId(physicalId)
+                    .title(title)
+                    .instruction(instruction)
+                    .maxScore(maxScore)
+                    .content(content)
+                    .build();
+        }
+    }
+
+    public record ExerciseSnapshot(
+            String physicalId, String teacherPhysicalId, String title, String description,
+            ExerciseType exerciseType, ExerciseDifficulty exerciseDifficulty, int goalReps, int goalAccuracy,
+            int goalTime) {
+
+        public ExerciseTemplateResponseDTO toResponseDTO() {
+            return ExerciseTemplateResponseDTO.builder()
+                    .physicalId(physicalId)
+                    .title(title)
+                    .description(description)
+                    .exerciseType(exerciseType)
+                    .exerciseDifficulty(exerciseDifficulty)
+                    .goalReps(goalReps)
+                    .goalAccuracy(goalAccuracy)
+                    .goalTime(goalTime)
+                    .build();
+        }
+    }
+
+    // Fields, record header and the entry in the cache map
+    private static final long BASE_BYTES = 512;
+
+    private static final String LESSON = "lesson";
+    private static final String QUIZ = "quiz";
+    private static final String EXERCISE = "exercise";
+
+    @Autowired
+    private LessonTemplateRepository lessonTemplateRepository;
+
+    @Autowired
+    private QuizTemplateRepository quizTemplateRepository;
+
+    @Autowired
+    private ExerciseTemplateRepository exerciseTemplateRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${templates.cache.max-entries:2000}")
+    private long maxEntries;
+
+    @Value("${templates.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${templates.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${templates.cache.invalidation-window-seconds:60}")
+    private long invalidationWindowSeconds;
+
+    @Autowired
+    private TemplateInvalidationRepository templateInvalidationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate primaryReads;
+
+    private SnapshotCache<LessonSnapshot> lessons;
+    private SnapshotCache<QuizSnapshot> quizzes;
+    private SnapshotCache<ExerciseSnapshot> exercises;
+    private Map<String, SnapshotCache<?>> byKind;
+
+    // Ids of the invalidations in the window at the last poll, already applied here
+    private Set<Long> appliedInvalidations = Set.of();
+
+    @PostConstruct
+    void init() {
+        primaryReads = new TransactionTemplate(transactionManager);
+        primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        primaryReads.setReadOnly(true);
+        lessons = new SnapshotCache<>(
+                build("templates.lesson", lesson -> estimate(lesson.content())),
+                ids -> onPrimary(() -> lessonTemplateRepository.findByPhysicalIdIn(ids).stream()
+                        .map(TemplateSnapshotCache::snapshot).toList()),
+                LessonSnapshot::physicalId);
+        quizzes = new SnapshotCache<>(
+                build("templates.quiz", quiz -> estimate(quiz.content())),
+                ids -> onPrimary(() -> quizTemplateRepository.findByPhysicalIdIn(ids).stream()
+                        .map(TemplateSnapshotCache::snapshot).toList()),
+                QuizSnapshot::physicalId);
+        exercises = new SnapshotCache<>(
+                build("templates.exercise", exercise -> 0L),
+                ids -> onPrimary(() -> exerciseTemplateRepository.findByPhysicalIdIn(ids).stream()
+                        .map(TemplateSnapshotCache::snapshot).toList()),
+                ExerciseSnapshot::physicalId);
+        byKind = Map.of(LESSON, lessons, QUIZ, quizzes, EXERCISE, exercises);
+    }
+
+    private <T> Cache<String, T> build(String name, Function<T, Long> contentBytes) {
+        // Every entry weighs at least maxBytes / maxEntries, so the weight limit also caps the count
+        long floor = Math.max(1, maxBytes / Math.max(1, maxEntries));
+        Cache<String, T> cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, T>weigher((id, snapshot) ->
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(floor, BASE_BYTES + contentBytes.apply(snapshot))))
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+        }
+        return cache;
+    }
+
+    // A read-write transaction is already on the primary; anything else gets its own
+    private <T> T onPrimary(Supplier<T> load) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load.get();
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> primaryReads.execute(status -> load.get()));
+    }
+
+    /** The lesson template, or null when it does not exist. */
+    public LessonSnapshot getLesson(String physicalId) {
+        return lessons.get(physicalId);
+    }
+
+    /** The quiz template, or null when it does not exist. */
+    public QuizSnapshot getQuiz(String physicalId) {
+        return quizzes.get(physicalId);
+    }
+
+    /** The exercise template, or null when it does not exist. */
+    public ExerciseSnapshot getExercise(String physicalId) {
+        return exercises.get(physicalId);
+    }
+
+    /** The lesson templates that exist among the ids, in one query for all the misses. */
+    public Map<String, LessonSnapshot> getLessons(Collection<String> physicalIds) {
+        return lessons.getAll(physicalIds);
+    }
+
+    public Map<String, QuizSnapshot> getQuizzes(Collection<String> physicalIds) {
+        return quizzes.getAll(physicalIds);
+    }
+
+    public Map<String, ExerciseSnapshot> getExercises(Collection<String> physicalIds) {
+        return exercises.getAll(physicalIds);
+    }
+
+    /** Drops the snapshot here and, once the current transaction commits, on every other node. */
+    public void invalidateLesson(String physicalId) {
+        invalidate(LESSON, physicalId);
+    }
+
+    public void invalidateQuiz(String physicalId) {
+        invalidate(QUIZ, physicalId);
+    }
+
+    public void invalidateExercise(String physicalId) {
+        invalidate(EXERCISE, physicalId);
+    }
+
+    private void invalidate(String kind, String physicalId) {
+        byKind.get(kind).invalidate(physicalId);
+        templateInvalidationRepository.save(TemplateInvalidation.builder()
+                .templateKind(kind)
+                .physicalId(physicalId)
+                .createdAt(OffsetDateTime.now())
+                .build());
+    }
+
+    /** Applies the invalidations any node has recorded within the window and not yet seen here. */
+    @Scheduled(fixedDelayString = "${templates.cache.invalidation-poll-ms:2000}")
+    @UsesWorkload(Workload.BACKGROUND)
+    public void pollInvalidations() {
+        OffsetDateTime since = OffsetDateTime.now().minusSeconds(invalidationWindowSeconds);
+        Set<Long> seen = new HashSet<>();
+        for (TemplateInvalidation invalidation : templateInvalidationRepository.findByCreatedAtAfter(since)) {
+            seen.add(invalidation.getId());
+            SnapshotCache<?> cache = byKind.get(invalidation.getTemplateKind());
+            if (cache != null && !appliedInvalidations.contains(invalidation.getId())) {
+                cache.evict(invalidation.getPhysicalId());
+            }
+        }
+        appliedInvalidations = seen;
+    }
+
+    /** Rows are kept for twice the window, so a node whose clock runs behind still reads its own. */
+    @Scheduled(fixedDelayString = "${templates.cache.invalidation-purge-interval-ms:600000}")
+    @UsesWorkload(Workload.BACKGROUND)
+    public void purgeInvalidations() {
+        templateInvalidationRepository.deleteCreatedBefore(
+                OffsetDateTime.now().minusSeconds(2 * invalidationWindowSeconds));
+    }
+
+    void invalidateAll() {
+        lessons.invalidateAll();
+        quizzes.invalidateAll();
+        exercises.invalidateAll();
+    }
+
+    static LessonSnapshot snapshot(LessonTemplate lesson) {
+        return new LessonSnapshot(
+                lesson.getPhysicalId(), lesson.getTeacherPhysicalId(), lesson.getTitle(), lesson.getDescription(),
+                freeze(lesson.getContent()));
+    }
+
+    static QuizSnapshot snapshot(QuizTemplate quiz) {
+        return new QuizSnapshot(
+                quiz.getPhysicalId(), quiz.getTeacherPhysicalId(), quiz.getTitle(), quiz.getInstruction(),
+                quiz.getMaxScore(), freeze(quiz.getContent()));
+    }
+
+    static ExerciseSnapshot snapshot(ExerciseTemplate exercise) {
+        return new ExerciseSnapshot(
+                exercise.getPhysicalId(), exercise.getTeacherPhysicalId(), exercise.getTitle(),
+                exercise.getDescription(), exercise.getExerciseType(), exercise.getExerciseDifficulty(),
+                exercise.getGoalReps(), exercise.getGoalAccuracy(), exercise.getGoalTime());
+    }
+
+    // Deep, unmodifiable copy of the jsonb tree; JSON nulls are kept, so no Map.copyOf
+    @SuppressWarnings("unchecked")
+    static <T> T freeze(T node) {
+        if (node instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, value) -> copy.put(key, freeze(value)));
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (node instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(value -> copy.add(freeze(value)));
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return node;
+    }
+
+    // Rough heap footprint of a jsonb tree: 16-bit chars plus per-node overhead
+    static long estimate(Object node) {
+        if (node instanceof Map<?, ?> map) {
+            long bytes = 64;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += 32 + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return bytes;
+        }
+        if (node instanceof Collection<?> collection) {
+            long bytes = 40;
+            for (Object value : collection) {
+                bytes += 8 + estimate(value);
+            }
+            return bytes;
+        }
+        if (node instanceof CharSequence text) {
+            return 40 + 2L * text.length();
+        }
+        return node == null ? 0 : 16;
+    }
+
+    /**
+     * One kind of template. A load drops what it stored again if anything was invalidated while it
+     * ran, so a reader that fetched the old row just before an update commits cannot re-cache it.
+     */
+    private static final class SnapshotCache<T> {
+
+        private final Cache<String, T> cache;
+        private final Function<Set<String>, List<T>> loader;
+        private final Function<T, String> physicalId;
+        private final AtomicLong invalidations = new AtomicLong();
+
+        SnapshotCache(Cache<String, T> cache, Function<Set<String>, List<T>> loader, Function<T, String> physicalId) {
+            this.cache = cache;
+            this.loader = loader;
+            this.physicalId = physicalId;
+        }
+
+        T get(String id) {
+            if (id == null) {
+                return null;
+            }
+            T snapshot = cache.getIfPresent(id);
+            return snapshot != null ? snapshot : load(Set.of(id)).get(id);
+        }
+
+        Map<String, T> getAll(Collection<String> ids) {
+            Map<String, T> found = new HashMap<>(cache.getAllPresent(ids));
+            Set<String> misses = new HashSet<>(ids);
+            misses.removeAll(found.keySet());
+            misses.remove(null);
+            if (!misses.isEmpty()) {
+                found.putAll(load(misses));
+            }
+            return found;
+        }
+
+        private Map<String, T> load(Set<String> ids) {
+            long generation = invalidations.get();
+            Map<String, T> loaded = new HashMap<>();
+            for (T snapshot : loader.apply(ids)) {
+                loaded.put(physicalId.apply(snapshot), snapshot);
+            }
+            cache.putAll(loaded);
+            if (invalidations.get() != generation) {
+                cache.invalidateAll(loaded.keySet());
+            }
+            return loaded;
+        }
+
+        // Dropped now and again once the writing transaction commits
+        void invalidate(String id) {
+            evict(id);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        evict(id);
+                    }
+                });
+            }
+        }
+
+        void invalidateAll() {
+            invalidations.incrementAndGet();
+            cache.invalidateAll();
+        }
+
+        void evict(String id) {
+            invalidations.incrementAndGet();
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.cit.stathis.vitals.controller;
+
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.service.ReactiveVitalsIngestionService;
+import edu.cit.stathis.vitals.service.VitalsSamplingGovernor;
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * REST ingestion on the reactive path. Returning a {@link Mono} lets Spring MVC release the request
+ * thread while the insert is in flight; the response is written when the R2DBC write completes.
+ */
+@RestController
+@RequestMapping("/api/vitals")
+@ConditionalOnProperty(name = "vitals.ingestion.mode", havingValue = "reactive")
+public class ReactiveVitalsIngestionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveVitalsIngestionController.class);
+
+    @Autowired
+    private ReactiveVitalsIngestionService reactiveVitalsIngestionService;
+
+    @Autowired
+    private VitalsSamplingGovernor vitalsSamplingGovernor;
+
+    @PostMapping
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Ingest vital signs via REST", description = "Accepts vital signs payload and processes it like WebSocket. "
+            + "The response's X-Vitals-Sampling-Interval-Ms header carries the interval the device should send at; "
+            + "devices sending faster get 429 with Retry-After, and 503 when the ingestion pool is exhausted.")
+    public Mono<ResponseEntity<Void>> ingestVitalSigns(@RequestBody VitalSignsDTO vitalSignsDTO, Principal principal) {
+        String classroomId = vitalSignsDTO.getClassroomId();
+        long waitMillis = vitalsSamplingGovernor.admit(principal.getName(), classroomId);
+        String interval = String.valueOf(vitalsSamplingGovernor.getRecommendedIntervalMillis(classroomId));
+        if (waitMillis > 0) {
+            return Mono.just(VitalsIngestionController.throttled(waitMillis, interval));
+        }
+        return reactiveVitalsIngestionService.ingest(vitalSignsDTO, principal.getName())
+                .map(stored -> ResponseEntity.ok().header(VitalsIngestionController.SAMPLING_INTERVAL_HEADER, interval).<Void>build())
+                .onErrorResume(e -> {
+                    logger.warn("Reactive vitals ingestion failed for task {}", vitalSignsDTO.getTaskId(), e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .header(VitalsIngestionController.SAMPLING_INTERVAL_HEADER, interval)
+                            .build());
+                });
+    }
+}
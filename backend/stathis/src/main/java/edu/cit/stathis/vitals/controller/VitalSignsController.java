@@ -1,21 +1,50 @@
 package edu.cit.stathis.vitals.controller;
 
 import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.service.ReactiveVitalsIngestionService;
 import edu.cit.stathis.vitals.service.VitalSignsService;
+import edu.cit.stathis.vitals.service.VitalsSamplingGovernor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.stereotype.Controller;
 import io.swagger.v3.oas.annotations.Operation;
 
+import java.security.Principal;
+
 @Controller
 public class VitalSignsController {
 
+    private static final Logger logger = LoggerFactory.getLogger(VitalSignsController.class);
+
     @Autowired
     private VitalSignsService vitalSignsService;
 
+    @Autowired
+    private VitalsSamplingGovernor vitalsSamplingGovernor;
+
+    // Present only with vitals.ingestion.mode=reactive
+    @Autowired
+    private ObjectProvider<ReactiveVitalsIngestionService> reactiveVitalsIngestionService;
+
     @Operation(summary = "Send vital signs", description = "Send vital signs for classroom broadcasting only")
     @MessageMapping("/vitals/send")
-    public void handleVitalSigns(VitalSignsDTO vitalSignsDTO) {
+    public void handleVitalSigns(VitalSignsDTO vitalSignsDTO, Principal principal) {
+        // Devices sending faster than the classroom's recommended interval are dropped here
+        String deviceKey = principal != null ? principal.getName() : vitalSignsDTO.getStudentId();
+        if (vitalsSamplingGovernor.admit(deviceKey, vitalSignsDTO.getClassroomId()) > 0) {
+            return;
+        }
+        ReactiveVitalsIngestionService reactive = reactiveVitalsIngestionService.getIfAvailable();
+        if (reactive != null) {
+            // Frees the inbound channel thread; the write completes on the ingestion pool
+            reactive.ingest(vitalSignsDTO, principal != null ? principal.getName() : null)
+                    .subscribe(null, e -> logger.warn("Reactive vitals ingestion failed for task {}",
+                            vitalSignsDTO.getTaskId(), e));
+            return;
+        }
         // The service will publish to /topic/classroom/{classroomId}/vitals explicitly
         vitalSignsService.processVitalSigns(vitalSignsDTO);
     }
@@ -1,29 +1,89 @@
 package edu.cit.stathis.vitals.controller;
 
 import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsPageDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsStatsDTO;
+import edu.cit.stathis.vitals.dto.VitalsActivitySummaryDTO;
+import edu.cit.stathis.vitals.dto.VitalsSamplingControlDTO;
 import edu.cit.stathis.vitals.entity.VitalSigns;
+import edu.cit.stathis.vitals.service.VitalSignsHistoryService;
 import edu.cit.stathis.vitals.service.VitalSignsService;
+import edu.cit.stathis.vitals.service.VitalSignsStatsService;
+import edu.cit.stathis.vitals.service.VitalsSamplingGovernor;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/vitals")
 public class VitalSignsRestController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private VitalSignsService vitalSignsService;
 
-    @PostMapping
-    @PreAuthorize("hasRole('STUDENT')")
-    @Operation(summary = "Ingest vital signs via REST", description = "Accepts vital signs payload and processes it like WebSocket")
-    public ResponseEntity<Void> ingestVitalSigns(@RequestBody VitalSignsDTO vitalSignsDTO) {
-        vitalSignsService.processVitalSigns(vitalSignsDTO);
-        return ResponseEntity.ok().build();
+    @Autowired
+    private VitalSignsHistoryService vitalSignsHistoryService;
+
+    @Autowired
+    private VitalSignsStatsService vitalSignsStatsService;
+
+    @Autowired
+    private VitalsSamplingGovernor vitalsSamplingGovernor;
+
+    // Exports outlive the default async timeout; this one applies to them alone
+    @Value("${vitals.history.export-timeout-ms:600000}")
+    private long exportTimeoutMillis;
+
+    @Value("${vitals.history.export-threads:6}")
+    private int exportThreads;
+
+    private ExecutorService exportExecutor;
+
+    @PostConstruct
+    void startExportExecutor() {
+        exportExecutor = new DelegatingSecurityContextExecutorService(new ThreadPoolExecutor(
+                exportThreads, exportThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("vitals-export-")));
+    }
+
+    @PreDestroy
+    void stopExportExecutor() {
+        exportExecutor.shutdownNow();
+    }
+
+    @GetMapping("/control/classroom/{classroomId}")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get recommended sampling interval", description = "Current sampling interval for devices in a classroom; "
+            + "updates are also published to /topic/classroom/{classroomId}/vitals/control")
+    public ResponseEntity<VitalsSamplingControlDTO> getSamplingControl(@PathVariable String classroomId) {
+        return ResponseEntity.ok(new VitalsSamplingControlDTO(
+                classroomId, vitalsSamplingGovernor.getRecommendedIntervalMillis(classroomId), LocalDateTime.now()));
     }
 
     @GetMapping("/classroom/{classroomId}/task/{taskId}")
@@ -35,6 +95,27 @@ public class VitalSignsRestController {
         return ResponseEntity.ok(vitalSignsService.getVitalSignsByClassroomAndTask(classroomId, taskId));
     }
 
+    @GetMapping("/classroom/{classroomId}/task/{taskId}/page")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get a page of vital signs for classroom and task",
+            description = "Keyset-paginated on (timestamp, id); pass the returned nextCursor to fetch the following page")
+    public ResponseEntity<VitalSignsPageDTO> getPageByClassroomAndTask(
+            @PathVariable String classroomId,
+            @PathVariable String taskId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(vitalSignsHistoryService.getPageByClassroomAndTask(classroomId, taskId, cursor, size));
+    }
+
+    @GetMapping("/classroom/{classroomId}/task/{taskId}/stream")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Stream vital signs for classroom and task", description = "Exports the full history as NDJSON")
+    public ResponseEntity<ResponseBodyEmitter> streamByClassroomAndTask(
+            @PathVariable String classroomId,
+            @PathVariable String taskId) {
+        return export(out -> vitalSignsHistoryService.streamByClassroomAndTask(classroomId, taskId, out));
+    }
+
     @GetMapping("/student/{studentId}/task/{taskId}")
     @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
     @Operation(summary = "Get vital signs for student and task")
@@ -44,6 +125,27 @@ public class VitalSignsRestController {
         return ResponseEntity.ok(vitalSignsService.getVitalSignsByStudentAndTask(studentId, taskId));
     }
 
+    @GetMapping("/student/{studentId}/task/{taskId}/page")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get a page of vital signs for student and task",
+            description = "Keyset-paginated on (timestamp, id); pass the returned nextCursor to fetch the following page")
+    public ResponseEntity<VitalSignsPageDTO> getPageByStudentAndTask(
+            @PathVariable String studentId,
+            @PathVariable String taskId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(vitalSignsHistoryService.getPageByStudentAndTask(studentId, taskId, cursor, size));
+    }
+
+    @GetMapping("/student/{studentId}/task/{taskId}/stream")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Stream vital signs for student and task", description = "Exports the full history as NDJSON")
+    public ResponseEntity<ResponseBodyEmitter> streamByStudentAndTask(
+            @PathVariable String studentId,
+            @PathVariable String taskId) {
+        return export(out -> vitalSignsHistoryService.streamByStudentAndTask(studentId, taskId, out));
+    }
+
     @GetMapping("/student/{studentId}/task/{taskId}/pre")
     @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
     @Operation(summary = "Get pre-activity vital signs")
@@ -61,6 +163,75 @@ public class VitalSignsRestController {
             @PathVariable String taskId) {
         return ResponseEntity.ok(vitalSignsService.getPostActivityVitalSigns(studentId, taskId));
     }
-}
 
+    @GetMapping("/summary/classroom/{classroomId}/task/{taskId}")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get pre/post-activity summaries for classroom and task",
+            description = "Resting HR, peak HR, recovery delta, SpO2 minimum and sample count per student")
+    public ResponseEntity<List<VitalsActivitySummaryDTO>> getActivitySummariesByClassroomAndTask(
+            @PathVariable String classroomId,
+            @PathVariable String taskId) {
+        return ResponseEntity.ok(vitalSignsStatsService.getClassroomActivitySummaries(classroomId, taskId));
+    }
+
+    @GetMapping("/stats/classroom/{classroomId}/task/{taskId}")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get vitals statistics for classroom and task",
+            description = "Live per-student statistics while the task runs, the persisted summaries once it has ended")
+    public ResponseEntity<List<VitalSignsStatsDTO>> getStatsByClassroomAndTask(
+            @PathVariable String classroomId,
+            @PathVariable String taskId) {
+        return ResponseEntity.ok(vitalSignsStatsService.getClassroomStats(classroomId, taskId));
+    }
+
+    @GetMapping("/stats/student/{studentId}/task/{taskId}")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @Operation(summary = "Get vitals statistics for student and task")
+    public ResponseEntity<VitalSignsStatsDTO> getStatsByStudentAndTask(
+            @PathVariable String studentId,
+            @PathVariable String taskId) {
+        return ResponseEntity.of(vitalSignsStatsService.getStudentStats(studentId, taskId));
+    }
+
+    /**
+     * Streams an NDJSON export through an emitter carrying the export timeout, writing in 8 KB
+     * chunks from a bounded pool of export threads.
+     */
+    private ResponseEntity<ResponseBodyEmitter> export(StreamingResponseBody body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportTimeoutMillis);
+        try {
+            exportExecutor.execute(() -> {
+                try (OutputStream out = new BufferedOutputStream(new EmitterOutputStream(emitter), 8192)) {
+                    body.writeTo(out);
+                } catch (Exception e) {
+                    emitter.completeWithError(e);
+                    return;
+                }
+                emitter.complete();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports in progress");
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(emitter);
+    }
+
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
 
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        // Copied: the emitter may hold the chunk after the caller reuses its buffer
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            emitter.send(Arrays.copyOfRange(b, off, off + len), NDJSON);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package edu.cit.stathis.vitals.controller;
+
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.service.VitalSignsService;
+import edu.cit.stathis.vitals.service.VitalsSamplingGovernor;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+/**
+ * REST ingestion on the servlet/JPA path, the default. {@code vitals.ingestion.mode=reactive}
+ * replaces it with {@link ReactiveVitalsIngestionController}.
+ */
+@RestController
+@RequestMapping("/api/vitals")
+@ConditionalOnProperty(name = "vitals.ingestion.mode", havingValue = "servlet", matchIfMissing = true)
+public class VitalsIngestionController {
+
+    static final String SAMPLING_INTERVAL_HEADER = "X-Vitals-Sampling-Interval-Ms";
+
+    @Autowired
+    private VitalSignsService vitalSignsService;
+
+    @Autowired
+    private VitalsSamplingGovernor vitalsSamplingGovernor;
+
+    @PostMapping
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Ingest vital signs via REST", description = "Accepts vital signs payload and processes it like WebSocket. "
+            + "The response's X-Vitals-Sampling-Interval-Ms header carries the interval the device should send at; "
+            + "devices sending faster get 429 with Retry-After.")
+    public ResponseEntity<Void> ingestVitalSigns(@RequestBody VitalSignsDTO vitalSignsDTO, Principal principal) {
+        String classroomId = vitalSignsDTO.getClassroomId();
+        long waitMillis = vitalsSamplingGovernor.admit(principal.getName(), classroomId);
+        String interval = String.valueOf(vitalsSamplingGovernor.getRecommendedIntervalMillis(classroomId));
+        if (waitMillis > 0) {
+            return throttled(waitMillis, interval);
+        }
+        vitalSignsService.processVitalSigns(vitalSignsDTO);
+        return ResponseEntity.ok().header(SAMPLING_INTERVAL_HEADER, interval).build();
+    }
+
+    static ResponseEntity<Void> throttled(long waitMillis, String interval) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000))
+                .header(SAMPLING_INTERVAL_HEADER, interval)
+                .build();
+    }
+}
@@ -13,4 +13,7 @@ public class HeartRateAlertDTO {
     private Integer thresholdHeartRate;
     private String alertMessage;
     private LocalDateTime timestamp;
-} 
\ No newline at end of file
+    // Which rule fired, e.g. heart-rate-max or spo2-floor
+    private String ruleId;
+    private Integer currentOxygenSaturation;
+}
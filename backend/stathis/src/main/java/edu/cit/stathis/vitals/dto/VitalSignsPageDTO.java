@@ -0,0 +1,14 @@
+package edu.cit.stathis.vitals.dto;
+
+import edu.cit.stathis.vitals.entity.VitalSigns;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class VitalSignsPageDTO {
+    private List<VitalSigns> items;
+    // Opaque cursor for the next page; null once the history is exhausted
+    private String nextCursor;
+}
@@ -0,0 +1,42 @@
+package edu.cit.stathis.vitals.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalSignsStatsDTO {
+    private String studentId;
+    private String classroomId;
+    private String taskId;
+    // true while the task is running and the figures come from the in-memory accumulator
+    private boolean live;
+    private long sampleCount;
+
+    private Integer minHeartRate;
+    private Integer maxHeartRate;
+    private Double avgHeartRate;
+    private Integer minOxygenSaturation;
+    private Integer maxOxygenSaturation;
+    private Double avgOxygenSaturation;
+
+    // Sliding window over the last windowSeconds; null once the task has ended
+    private Integer windowSeconds;
+    private Integer windowMinHeartRate;
+    private Integer windowMaxHeartRate;
+    private Double windowAvgHeartRate;
+    private Integer windowMinOxygenSaturation;
+    private Integer windowMaxOxygenSaturation;
+    private Double windowAvgOxygenSaturation;
+
+    private Integer predictedMaxHeartRate;
+    // Seconds spent per percent-of-max-HR zone, keyed ZONE_0 (<50%) .. ZONE_5 (>=90%)
+    private Map<String, Long> timeInZoneSeconds;
+    private LocalDateTime lastUpdated;
+}
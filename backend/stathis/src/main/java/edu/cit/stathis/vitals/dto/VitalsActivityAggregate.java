@@ -0,0 +1,18 @@
+package edu.cit.stathis.vitals.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One student's pre/post-activity figures aggregated from raw vital_signs rows by a single JPQL
+ * constructor expression, for tasks whose statistics are in no node's memory and not yet summarized.
+ */
+public record VitalsActivityAggregate(
+        String studentId,
+        long sampleCount,
+        Double restingHeartRate,
+        Integer peakHeartRate,
+        Double postActivityHeartRate,
+        Integer minOxygenSaturation,
+        long preActivitySampleCount,
+        long postActivitySampleCount,
+        LocalDateTime lastUpdated) {}
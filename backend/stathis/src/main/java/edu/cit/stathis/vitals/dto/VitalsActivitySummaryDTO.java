@@ -0,0 +1,29 @@
+package edu.cit.stathis.vitals.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/** Pre/post-activity recovery comparison for one student in one task. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalsActivitySummaryDTO {
+    private String studentId;
+    private String classroomId;
+    private String taskId;
+    // False once the task has ended and the summary is read from vital_signs_summary
+    private boolean live;
+    private long sampleCount;
+    private Double restingHeartRate;
+    private Integer peakHeartRate;
+    private Double postActivityHeartRate;
+    private Double recoveryHeartRateDelta;
+    private Integer minOxygenSaturation;
+    private long preActivitySampleCount;
+    private long postActivitySampleCount;
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,22 @@
+package edu.cit.stathis.vitals.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One student's readings at one heart rate, aggregated from raw vital_signs rows. A task's
+ * readings fold into its final summary from these few rows per student: the heart rate statistics
+ * weight each band by its count, and each band's seconds credit the zone its heart rate falls in.
+ * Readings without a heart rate form a band of their own, with no seconds.
+ */
+public record VitalsHeartRateBand(
+        String studentId,
+        Integer heartRate,
+        long sampleCount,
+        long oxygenSampleCount,
+        Long oxygenSaturationSum,
+        Integer minOxygenSaturation,
+        Integer maxOxygenSaturation,
+        long preActivitySampleCount,
+        long postActivitySampleCount,
+        Double seconds,
+        LocalDateTime lastUpdated) {}
@@ -0,0 +1,9 @@
+package edu.cit.stathis.vitals.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time of the newest stored reading for one student in one task, whichever node received it; lets
+ * a node tell a silent device from one whose samples are reaching another node.
+ */
+public record VitalsLatestReading(String studentId, LocalDateTime timestamp) {}
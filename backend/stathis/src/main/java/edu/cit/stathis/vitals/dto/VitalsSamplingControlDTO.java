@@ -0,0 +1,14 @@
+package edu.cit.stathis.vitals.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class VitalsSamplingControlDTO {
+    private String classroomId;
+    // How often devices in this classroom should send a sample
+    private long recommendedIntervalMillis;
+    private LocalDateTime issuedAt;
+}
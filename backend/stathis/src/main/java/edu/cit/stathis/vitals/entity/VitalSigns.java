@@ -7,7 +7,13 @@ import java.util.UUID;
 
 @Entity
 @Data
-@Table(name = "vital_signs")
+@Table(name = "vital_signs", uniqueConstraints = {
+    // Idempotency key: a retried reading carries the same timestamp and is stored only once
+    @UniqueConstraint(name = "uk_vital_signs_student_task_ts", columnNames = {"student_id", "task_id", "timestamp"})
+}, indexes = {
+    @Index(name = "idx_vital_signs_classroom_task_ts", columnList = "classroom_id, task_id, timestamp, id"),
+    @Index(name = "idx_vital_signs_student_task_ts", columnList = "student_id, task_id, timestamp, id")
+})
 public class VitalSigns {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
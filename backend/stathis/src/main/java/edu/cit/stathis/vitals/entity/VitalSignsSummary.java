@@ -0,0 +1,94 @@
+package edu.cit.stathis.vitals.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Per-student vitals rollup for a task, written when the task ends so reports never rescan
+ * the raw vital_signs rows.
+ */
+@Entity
+@Data
+@Table(name = "vital_signs_summary",
+       uniqueConstraints = @UniqueConstraint(name = "uk_vital_signs_summary_student_task",
+                                             columnNames = {"student_id", "task_id"}),
+       indexes = @Index(name = "idx_vital_signs_summary_classroom_task", columnList = "classroom_id, task_id"))
+public class VitalSignsSummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private String studentId;
+
+    @Column(name = "classroom_id", nullable = false)
+    private String classroomId;
+
+    @Column(name = "task_id", nullable = false)
+    private String taskId;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "min_heart_rate")
+    private Integer minHeartRate;
+
+    @Column(name = "max_heart_rate")
+    private Integer maxHeartRate;
+
+    @Column(name = "avg_heart_rate")
+    private Double avgHeartRate;
+
+    @Column(name = "min_oxygen_saturation")
+    private Integer minOxygenSaturation;
+
+    @Column(name = "max_oxygen_saturation")
+    private Integer maxOxygenSaturation;
+
+    @Column(name = "avg_oxygen_saturation")
+    private Double avgOxygenSaturation;
+
+    // Average heart rate over the pre-activity samples
+    @Column(name = "resting_heart_rate")
+    private Double restingHeartRate;
+
+    // Average heart rate over the post-activity samples
+    @Column(name = "post_activity_heart_rate")
+    private Double postActivityHeartRate;
+
+    // Peak (max) heart rate minus the post-activity average
+    @Column(name = "recovery_heart_rate_delta")
+    private Double recoveryHeartRateDelta;
+
+    @Column(name = "pre_activity_sample_count")
+    private Long preActivitySampleCount;
+
+    @Column(name = "post_activity_sample_count")
+    private Long postActivitySampleCount;
+
+    // Age-predicted maximum (220 - age) the zones were computed against
+    @Column(name = "predicted_max_heart_rate")
+    private Integer predictedMaxHeartRate;
+
+    @Column(name = "zone0_seconds")
+    private Long zone0Seconds;
+
+    @Column(name = "zone1_seconds")
+    private Long zone1Seconds;
+
+    @Column(name = "zone2_seconds")
+    private Long zone2Seconds;
+
+    @Column(name = "zone3_seconds")
+    private Long zone3Seconds;
+
+    @Column(name = "zone4_seconds")
+    private Long zone4Seconds;
+
+    @Column(name = "zone5_seconds")
+    private Long zone5Seconds;
+
+    @Column(name = "finalized_at", nullable = false)
+    private LocalDateTime finalizedAt;
+}
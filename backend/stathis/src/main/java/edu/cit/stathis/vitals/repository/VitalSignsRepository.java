@@ -1,8 +1,17 @@
 package edu.cit.stathis.vitals.repository;
 
+import edu.cit.stathis.vitals.dto.VitalsActivityAggregate;
+import edu.cit.stathis.vitals.dto.VitalsHeartRateBand;
+import edu.cit.stathis.vitals.dto.VitalsLatestReading;
 import edu.cit.stathis.vitals.entity.VitalSigns;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +22,93 @@ public interface VitalSignsRepository extends JpaRepository<VitalSigns, Long> {
     List<VitalSigns> findByStudentIdAndTaskId(String studentId, String taskId);
     List<VitalSigns> findByStudentIdAndTaskIdAndIsPreActivity(String studentId, String taskId, Boolean isPreActivity);
     List<VitalSigns> findByStudentIdAndTaskIdAndIsPostActivity(String studentId, String taskId, Boolean isPostActivity);
-} 
\ No newline at end of file
+
+    // One row per student over the (classroom_id, task_id, ...) index; counts skip readings without a heart rate
+    @Query("SELECT new edu.cit.stathis.vitals.dto.VitalsActivityAggregate(" +
+           "v.studentId, COUNT(v), " +
+           "AVG(CASE WHEN v.isPreActivity = true THEN v.heartRate END), MAX(v.heartRate), " +
+           "AVG(CASE WHEN v.isPostActivity = true THEN v.heartRate END), MIN(v.oxygenSaturation), " +
+           "COUNT(CASE WHEN v.isPreActivity = true THEN v.heartRate END), " +
+           "COUNT(CASE WHEN v.isPostActivity = true THEN v.heartRate END), MAX(v.timestamp)) " +
+           "FROM VitalSigns v WHERE v.classroomId = :classroomId AND v.taskId = :taskId " +
+           "GROUP BY v.studentId ORDER BY v.studentId")
+    List<VitalsActivityAggregate> aggregateActivityByClassroomIdAndTaskId(
+            @Param("classroomId") String classroomId,
+            @Param("taskId") String taskId);
+
+    // One row per student and heart rate; a reading's seconds run to the student's next heart-rate
+    // reading and are dropped past the sample gap, as in the live time-in-zone
+    @Query("SELECT new edu.cit.stathis.vitals.dto.VitalsHeartRateBand(" +
+           "s.studentId, s.heartRate, COUNT(*), COUNT(s.oxygenSaturation), SUM(s.oxygenSaturation), " +
+           "MIN(s.oxygenSaturation), MAX(s.oxygenSaturation), " +
+           "SUM(CASE WHEN s.isPreActivity = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.isPostActivity = true THEN 1 ELSE 0 END), " +
+           "CAST(SUM(CASE WHEN s.gap > 0 AND s.gap <= :maxGapSeconds THEN s.gap ELSE 0 END) AS Double), " +
+           "MAX(s.timestamp)) " +
+           "FROM (SELECT v.studentId AS studentId, v.heartRate AS heartRate, " +
+           "v.oxygenSaturation AS oxygenSaturation, v.isPreActivity AS isPreActivity, " +
+           "v.isPostActivity AS isPostActivity, v.timestamp AS timestamp, " +
+           "EXTRACT(EPOCH FROM LEAD(v.timestamp) OVER (PARTITION BY v.studentId, " +
+           "CASE WHEN v.heartRate IS NULL THEN 0 ELSE 1 END ORDER BY v.timestamp)) " +
+           "- EXTRACT(EPOCH FROM v.timestamp) AS gap " +
+           "FROM VitalSigns v WHERE v.classroomId = :classroomId AND v.taskId = :taskId) s " +
+           "GROUP BY s.studentId, s.heartRate ORDER BY s.studentId")
+    List<VitalsHeartRateBand> aggregateHeartRateBandsByClassroomIdAndTaskId(
+            @Param("classroomId") String classroomId,
+            @Param("taskId") String taskId,
+            @Param("maxGapSeconds") double maxGapSeconds);
+
+    // Newest reading per student over the (student_id, task_id, timestamp) unique index
+    @Query("SELECT new edu.cit.stathis.vitals.dto.VitalsLatestReading(v.studentId, MAX(v.timestamp)) " +
+           "FROM VitalSigns v WHERE v.taskId = :taskId AND v.studentId IN :studentIds GROUP BY v.studentId")
+    List<VitalsLatestReading> findLatestReadingsByTaskIdAndStudentIds(
+            @Param("taskId") String taskId,
+            @Param("studentIds") Collection<String> studentIds);
+
+    // Keyset pagination on (timestamp, id), served by the matching composite indexes on vital_signs
+    List<VitalSigns> findByClassroomIdAndTaskIdOrderByTimestampAscIdAsc(String classroomId, String taskId, Limit limit);
+    List<VitalSigns> findByStudentIdAndTaskIdOrderByTimestampAscIdAsc(String studentId, String taskId, Limit limit);
+
+    @Query(value = "SELECT * FROM vital_signs WHERE classroom_id = :classroomId AND task_id = :taskId " +
+                   "AND (timestamp, id) > (:afterTimestamp, :afterId) ORDER BY timestamp, id LIMIT :size",
+           nativeQuery = true)
+    List<VitalSigns> findPageByClassroomIdAndTaskIdAfter(
+            @Param("classroomId") String classroomId,
+            @Param("taskId") String taskId,
+            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+            @Param("afterId") Long afterId,
+            @Param("size") int size);
+
+    @Query(value = "SELECT * FROM vital_signs WHERE student_id = :studentId AND task_id = :taskId " +
+                   "AND (timestamp, id) > (:afterTimestamp, :afterId) ORDER BY timestamp, id LIMIT :size",
+           nativeQuery = true)
+    List<VitalSigns> findPageByStudentIdAndTaskIdAfter(
+            @Param("studentId") String studentId,
+            @Param("taskId") String taskId,
+            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+            @Param("afterId") Long afterId,
+            @Param("size") int size);
+
+    /**
+     * Inserts one reading unless (student_id, task_id, timestamp) already exists. Returns 1 when
+     * the row was stored and 0 for a duplicate, so a retried sample costs neither a SELECT nor a
+     * failed transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO vital_signs (physical_id, student_id, classroom_id, task_id, heart_rate, " +
+                   "oxygen_saturation, timestamp, is_pre_activity, is_post_activity) " +
+                   "VALUES (:physicalId, :studentId, :classroomId, :taskId, :heartRate, :oxygenSaturation, " +
+                   ":timestamp, :isPreActivity, :isPostActivity) " +
+                   "ON CONFLICT (student_id, task_id, timestamp) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(
+            @Param("physicalId") String physicalId,
+            @Param("studentId") String studentId,
+            @Param("classroomId") String classroomId,
+            @Param("taskId") String taskId,
+            @Param("heartRate") Integer heartRate,
+            @Param("oxygenSaturation") Integer oxygenSaturation,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("isPreActivity") boolean isPreActivity,
+            @Param("isPostActivity") boolean isPostActivity);
+}
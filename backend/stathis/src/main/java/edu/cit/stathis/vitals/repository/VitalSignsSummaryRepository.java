@@ -0,0 +1,13 @@
+package edu.cit.stathis.vitals.repository;
+
+import edu.cit.stathis.vitals.entity.VitalSignsSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VitalSignsSummaryRepository extends JpaRepository<VitalSignsSummary, Long> {
+    Optional<VitalSignsSummary> findByStudentIdAndTaskId(String studentId, String taskId);
+    List<VitalSignsSummary> findByClassroomIdAndTaskId(String classroomId, String taskId);
+}
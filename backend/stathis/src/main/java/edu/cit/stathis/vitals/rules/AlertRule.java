@@ -0,0 +1,50 @@
+package edu.cit.stathis.vitals.rules;
+
+/**
+ * A vitals safety rule evaluated once per sample against constant-size per-student state.
+ *
+ * <p>Rules are compiled once at startup: each declares how many {@code double} state slots it
+ * needs and receives the offset of its slots in {@link StudentRuleState}. Evaluation works on
+ * primitives only so the ingestion path does not allocate; {@link #message} is called only when
+ * the rule actually fires. Register a rule as a Spring bean to plug it into the engine.
+ */
+public interface AlertRule {
+
+    /** Marker for a missing heart-rate or SpO2 reading. */
+    int NO_VALUE = Integer.MIN_VALUE;
+
+    String id();
+
+    /** Number of {@code double} slots this rule keeps per student. */
+    default int stateSlots() {
+        return 0;
+    }
+
+    /** How long the condition must hold before the rule fires; 0 fires on the first match. */
+    default long sustainMillis() {
+        return 0;
+    }
+
+    /**
+     * Whether a condition that keeps holding fires again after each cooldown; {@code false} fires
+     * once and re-arms only after the condition has cleared.
+     */
+    default boolean repeatWhileMatching() {
+        return true;
+    }
+
+    /** Whether the condition holds for this sample. */
+    boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis);
+
+    /** Whether the condition holds when no sample has arrived; evaluated by the periodic sweep. */
+    default boolean testIdle(StudentRuleState state, int offset, long nowMillis) {
+        return false;
+    }
+
+    /** Threshold reported with the alert, if the rule has one. */
+    default Integer threshold(StudentRuleState state) {
+        return null;
+    }
+
+    String message(StudentRuleState state, int heartRate, int oxygenSaturation);
+}
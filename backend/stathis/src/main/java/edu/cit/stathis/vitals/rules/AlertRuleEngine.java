@@ -0,0 +1,253 @@
+package edu.cit.stathis.vitals.rules;
+
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.task.event.TaskEndedEvent;
+import edu.cit.stathis.task.repository.TaskRepository;
+import edu.cit.stathis.vitals.dto.HeartRateAlertDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalsLatestReading;
+import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import edu.cit.stathis.vitals.service.StudentVitalsProfileCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates every registered {@link AlertRule} against each incoming sample and pushes fired
+ * alerts to {@code /topic/classroom/{classroomId}/alerts}.
+ *
+ * <p>Rules are compiled once at startup into a fixed array with precomputed state offsets and
+ * meters. Per-student state lives in memory for the duration of the task, so evaluation never
+ * touches the database; the student's name and max heart rate come from
+ * {@link StudentVitalsProfileCache} when their first sample arrives. Only the periodic sweep
+ * reads the shared tables, so idle alerts do not fire for samples another node received. A rule
+ * that keeps matching fires again only after the cooldown, or not at all until it clears if it
+ * does not {@linkplain AlertRule#repeatWhileMatching() repeat}.
+ */
+@Service
+public class AlertRuleEngine {
+
+    private final CompiledRule[] rules;
+    private final int slotCount;
+    private final StudentVitalsProfileCache studentVitalsProfileCache;
+    private final VitalSignsRepository vitalSignsRepository;
+    private final TaskRepository taskRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long cooldownMillis;
+    private final long stateIdleEvictionMillis;
+
+    // taskId -> studentId -> rule state
+    private final Map<String, Map<String, StudentRuleState>> states = new ConcurrentHashMap<>();
+
+    public AlertRuleEngine(List<AlertRule> alertRules,
+                           MeterRegistry meterRegistry,
+                           StudentVitalsProfileCache studentVitalsProfileCache,
+                           VitalSignsRepository vitalSignsRepository,
+                           TaskRepository taskRepository,
+                           SimpMessagingTemplate messagingTemplate,
+                           @Value("${vitals.alerts.cooldown-seconds:30}") long cooldownSeconds,
+                           @Value("${vitals.alerts.state-idle-eviction-minutes:10}") long stateIdleEvictionMinutes) {
+        this.rules = new CompiledRule[alertRules.size()];
+        int offset = 0;
+        for (int i = 0; i < rules.length; i++) {
+            AlertRule rule = alertRules.get(i);
+            rules[i] = new CompiledRule(
+                    rule,
+                    offset,
+                    Timer.builder("stathis.vitals.alerts.evaluation")
+                            .description("Time spent evaluating one alert rule against one sample")
+                            .tag("rule", rule.id())
+                            .register(meterRegistry),
+                    Counter.builder("stathis.vitals.alerts.fired")
+                            .description("Alerts fired")
+                            .tag("rule", rule.id())
+                            .register(meterRegistry));
+            offset += rule.stateSlots();
+        }
+        this.slotCount = offset;
+        this.studentVitalsProfileCache = studentVitalsProfileCache;
+        this.vitalSignsRepository = vitalSignsRepository;
+        this.taskRepository = taskRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.cooldownMillis = TimeUnit.SECONDS.toMillis(cooldownSeconds);
+        this.stateIdleEvictionMillis = TimeUnit.MINUTES.toMillis(stateIdleEvictionMinutes);
+    }
+
+    public void evaluate(VitalSignsDTO vitalSignsDTO) {
+        StudentRuleState state = getOrCreateState(vitalSignsDTO);
+        int heartRate = vitalSignsDTO.getHeartRate() != null ? vitalSignsDTO.getHeartRate() : AlertRule.NO_VALUE;
+        int oxygenSaturation = vitalSignsDTO.getOxygenSaturation() != null
+                ? vitalSignsDTO.getOxygenSaturation()
+                : AlertRule.NO_VALUE;
+        long now = System.currentTimeMillis();
+        long sampleMillis = vitalSignsDTO.getTimestamp() != null ? toMillis(vitalSignsDTO.getTimestamp()) : now;
+
+        synchronized (state) {
+            state.lastReceivedMillis = now;
+            state.lastSampleMillis = sampleMillis;
+            for (int i = 0; i < rules.length; i++) {
+                CompiledRule compiled = rules[i];
+                long start = System.nanoTime();
+                boolean matches = compiled.rule.test(state, compiled.offset, heartRate, oxygenSaturation, sampleMillis);
+                compiled.evaluationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (shouldFire(state, i, matches, now)) {
+                    fire(state, compiled, heartRate, oxygenSaturation, sampleMillis);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the idle checks (e.g. missing data) for every tracked student and drops state for
+     * students that have been silent long enough that their task has effectively ended.
+     *
+     * <p>A node only sees the samples routed to it, so before an idle rule can fire the shared
+     * tables are consulted: the task's state is dropped if the task has ended on any node, and a
+     * student's if a newer reading was stored by another node, which then owns that student's
+     * alerts.
+     */
+    @Scheduled(fixedDelayString = "${vitals.alerts.sweep-interval-ms:5000}")
+    @UsesWorkload(Workload.BACKGROUND)
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, StudentRuleState>> task : states.entrySet()) {
+            Map<String, StudentRuleState> byStudent = task.getValue();
+            byStudent.values().removeIf(state -> now - state.lastReceivedMillis > stateIdleEvictionMillis);
+            if (!releaseStateOwnedElsewhere(task.getKey(), byStudent, now)) {
+                states.remove(task.getKey(), byStudent);
+                continue;
+            }
+            for (StudentRuleState state : byStudent.values()) {
+                synchronized (state) {
+                    for (int i = 0; i < rules.length; i++) {
+                        CompiledRule compiled = rules[i];
+                        boolean matches = compiled.rule.testIdle(state, compiled.offset, now);
+                        if (shouldFire(state, i, matches, now)) {
+                            fire(state, compiled, AlertRule.NO_VALUE, AlertRule.NO_VALUE, now);
+                        }
+                    }
+                }
+            }
+        }
+        states.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Checks the students an idle rule would fire for against the database and drops those whose
+     * newest stored reading this node did not receive. Returns false when the task is no longer
+     * running; the database is only read when some student is idle.
+     */
+    private boolean releaseStateOwnedElsewhere(String taskId, Map<String, StudentRuleState> byStudent, long now) {
+        List<String> idleStudentIds = byStudent.values().stream()
+                .filter(state -> isIdle(state, now))
+                .map(StudentRuleState::getStudentId)
+                .toList();
+        if (idleStudentIds.isEmpty()) {
+            return true;
+        }
+        if (!taskRepository.isRunning(taskId)) {
+            return false;
+        }
+        for (VitalsLatestReading latest : vitalSignsRepository.findLatestReadingsByTaskIdAndStudentIds(taskId, idleStudentIds)) {
+            StudentRuleState state = byStudent.get(latest.studentId());
+            if (state != null && toMillis(latest.timestamp()) > state.lastSampleMillis) {
+                byStudent.remove(latest.studentId(), state);
+            }
+        }
+        return true;
+    }
+
+    private boolean isIdle(StudentRuleState state, long now) {
+        for (CompiledRule compiled : rules) {
+            if (compiled.rule.testIdle(state, compiled.offset, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEnded(TaskEndedEvent event) {
+        states.remove(event.taskPhysicalId());
+    }
+
+    private boolean shouldFire(StudentRuleState state, int ruleIndex, boolean matches, long now) {
+        if (!matches) {
+            state.conditionSince[ruleIndex] = StudentRuleState.INACTIVE;
+            return false;
+        }
+        if (state.conditionSince[ruleIndex] == StudentRuleState.INACTIVE) {
+            state.conditionSince[ruleIndex] = now;
+        }
+        if (now - state.conditionSince[ruleIndex] < rules[ruleIndex].rule.sustainMillis()) {
+            return false;
+        }
+        long lastFired = state.lastFiredMillis[ruleIndex];
+        if (lastFired != StudentRuleState.INACTIVE && now - lastFired < cooldownMillis) {
+            return false;
+        }
+        if (lastFired != StudentRuleState.INACTIVE
+                && lastFired >= state.conditionSince[ruleIndex]
+                && !rules[ruleIndex].rule.repeatWhileMatching()) {
+            return false;
+        }
+        state.lastFiredMillis[ruleIndex] = now;
+        return true;
+    }
+
+    private void fire(StudentRuleState state, CompiledRule compiled, int heartRate, int oxygenSaturation,
+                      long sampleMillis) {
+        compiled.firedCounter.increment();
+        String destination = "/topic/classroom/" + state.getClassroomId() + "/alerts";
+        messagingTemplate.convertAndSend(destination, new HeartRateAlertDTO(
+                state.getStudentId(),
+                state.getStudentName(),
+                heartRate != AlertRule.NO_VALUE ? heartRate : null,
+                compiled.rule.threshold(state),
+                compiled.rule.message(state, heartRate, oxygenSaturation),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(sampleMillis), ZoneId.systemDefault()),
+                compiled.rule.id(),
+                oxygenSaturation != AlertRule.NO_VALUE ? oxygenSaturation : null));
+    }
+
+    private StudentRuleState getOrCreateState(VitalSignsDTO vitalSignsDTO) {
+        Map<String, StudentRuleState> byStudent =
+                states.computeIfAbsent(vitalSignsDTO.getTaskId(), taskId -> new ConcurrentHashMap<>());
+        StudentRuleState state = byStudent.get(vitalSignsDTO.getStudentId());
+        if (state != null) {
+            return state;
+        }
+        StudentVitalsProfileCache.StudentVitalsProfile profile =
+                studentVitalsProfileCache.get(vitalSignsDTO.getStudentId());
+        StudentRuleState created = new StudentRuleState(
+                vitalSignsDTO.getStudentId(),
+                profile.studentName(),
+                vitalSignsDTO.getClassroomId(),
+                vitalSignsDTO.getTaskId(),
+                profile.maxHeartRate(),
+                slotCount,
+                rules.length);
+        StudentRuleState existing = byStudent.putIfAbsent(vitalSignsDTO.getStudentId(), created);
+        return existing != null ? existing : created;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record CompiledRule(AlertRule rule, int offset, Timer evaluationTimer, Counter firedCounter) {}
+}
@@ -0,0 +1,53 @@
+package edu.cit.stathis.vitals.rules;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Built-in vitals rules; each can be switched off or tuned through {@code vitals.alerts.*}. */
+@Configuration
+public class AlertRulesConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "vitals.alerts.heart-rate-max.enabled", havingValue = "true", matchIfMissing = true)
+    public AlertRule heartRateMaxRule(
+            @Value("${vitals.alerts.heart-rate-max.fraction-of-max:0.85}") double fractionOfMax,
+            @Value("${vitals.alerts.heart-rate-max.sustain-seconds:0}") long sustainSeconds) {
+        return new HeartRateMaxRule(fractionOfMax, sustainSeconds * 1000);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "vitals.alerts.spo2-floor.enabled", havingValue = "true", matchIfMissing = true)
+    public AlertRule oxygenSaturationFloorRule(
+            @Value("${vitals.alerts.spo2-floor.percent:90}") int floor,
+            @Value("${vitals.alerts.spo2-floor.sustain-seconds:10}") long sustainSeconds) {
+        return new OxygenSaturationFloorRule(floor, sustainSeconds * 1000);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "vitals.alerts.heart-rate-rate-of-change.enabled", havingValue = "true", matchIfMissing = true)
+    public AlertRule heartRateRateOfChangeRule(
+            @Value("${vitals.alerts.heart-rate-rate-of-change.max-bpm-per-second:5}") double maxBpmPerSecond,
+            @Value("${vitals.alerts.heart-rate-rate-of-change.sustain-seconds:0}") long sustainSeconds) {
+        return new HeartRateRateOfChangeRule(maxBpmPerSecond, sustainSeconds * 1000);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "vitals.alerts.heart-rate-drift.enabled", havingValue = "true", matchIfMissing = true)
+    public AlertRule heartRateDriftRule(
+            @Value("${vitals.alerts.heart-rate-drift.fast-alpha:0.3}") double fastAlpha,
+            @Value("${vitals.alerts.heart-rate-drift.slow-alpha:0.02}") double slowAlpha,
+            @Value("${vitals.alerts.heart-rate-drift.max-drift-bpm:30}") double maxDriftBpm,
+            @Value("${vitals.alerts.heart-rate-drift.warmup-samples:30}") int warmupSamples,
+            @Value("${vitals.alerts.heart-rate-drift.sustain-seconds:15}") long sustainSeconds) {
+        return new HeartRateDriftRule(fastAlpha, slowAlpha, maxDriftBpm, warmupSamples, sustainSeconds * 1000);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "vitals.alerts.missing-data.enabled", havingValue = "true", matchIfMissing = true)
+    public AlertRule missingDataRule(
+            @Value("${vitals.alerts.missing-data.timeout-seconds:30}") long timeoutSeconds) {
+        return new MissingDataRule(timeoutSeconds * 1000);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.cit.stathis.vitals.rules;
+
+/**
+ * Upward heart-rate drift: a fast EWMA pulling away from a slow EWMA baseline by more than a
+ * given number of bpm, once enough samples have been seen to trust the baseline.
+ */
+public class HeartRateDriftRule implements AlertRule {
+
+    private static final int FAST = 0;
+    private static final int SLOW = 1;
+    private static final int SAMPLES = 2;
+
+    private final double fastAlpha;
+    private final double slowAlpha;
+    private final double maxDriftBpm;
+    private final int warmupSamples;
+    private final long sustainMillis;
+
+    public HeartRateDriftRule(double fastAlpha, double slowAlpha, double maxDriftBpm, int warmupSamples,
+                              long sustainMillis) {
+        this.fastAlpha = fastAlpha;
+        this.slowAlpha = slowAlpha;
+        this.maxDriftBpm = maxDriftBpm;
+        this.warmupSamples = warmupSamples;
+        this.sustainMillis = sustainMillis;
+    }
+
+    @Override
+    public String id() {
+        return "heart-rate-drift";
+    }
+
+    @Override
+    public int stateSlots() {
+        return 3;
+    }
+
+    @Override
+    public long sustainMillis() {
+        return sustainMillis;
+    }
+
+    @Override
+    public boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis) {
+        if (heartRate == NO_VALUE) {
+            return false;
+        }
+        double fast = state.get(offset + FAST);
+        double slow = state.get(offset + SLOW);
+        double samples = state.get(offset + SAMPLES);
+        if (Double.isNaN(fast)) {
+            fast = heartRate;
+            slow = heartRate;
+            samples = 0;
+        } else {
+            fast += fastAlpha * (heartRate - fast);
+            slow += slowAlpha * (heartRate - slow);
+        }
+        samples++;
+        state.set(offset + FAST, fast);
+        state.set(offset + SLOW, slow);
+        state.set(offset + SAMPLES, samples);
+        return samples >= warmupSamples && fast - slow > maxDriftBpm;
+    }
+
+    @Override
+    public String message(StudentRuleState state, int heartRate, int oxygenSaturation) {
+        return String.format("ALERT: Student %s's heart rate (%d bpm) is drifting more than %.0f bpm above baseline",
+                state.getStudentName(), heartRate, maxDriftBpm);
+    }
+}
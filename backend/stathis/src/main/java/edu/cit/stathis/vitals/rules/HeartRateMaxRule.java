@@ -0,0 +1,41 @@
+package edu.cit.stathis.vitals.rules;
+
+/** Heart rate above a fraction of the student's age-predicted maximum (220 - age). */
+public class HeartRateMaxRule implements AlertRule {
+
+    private final double fractionOfMax;
+    private final long sustainMillis;
+
+    public HeartRateMaxRule(double fractionOfMax, long sustainMillis) {
+        this.fractionOfMax = fractionOfMax;
+        this.sustainMillis = sustainMillis;
+    }
+
+    @Override
+    public String id() {
+        return "heart-rate-max";
+    }
+
+    @Override
+    public long sustainMillis() {
+        return sustainMillis;
+    }
+
+    @Override
+    public boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis) {
+        Integer maxHeartRate = state.getMaxHeartRate();
+        return heartRate != NO_VALUE && maxHeartRate != null && heartRate > (int) (maxHeartRate * fractionOfMax);
+    }
+
+    @Override
+    public Integer threshold(StudentRuleState state) {
+        Integer maxHeartRate = state.getMaxHeartRate();
+        return maxHeartRate == null ? null : (int) (maxHeartRate * fractionOfMax);
+    }
+
+    @Override
+    public String message(StudentRuleState state, int heartRate, int oxygenSaturation) {
+        return String.format("ALERT: Student %s's heart rate (%d bpm) exceeds safety threshold (%d bpm)",
+                state.getStudentName(), heartRate, threshold(state));
+    }
+}
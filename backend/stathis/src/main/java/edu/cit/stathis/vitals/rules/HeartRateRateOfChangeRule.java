@@ -0,0 +1,56 @@
+package edu.cit.stathis.vitals.rules;
+
+/** Heart rate changing faster than a given number of bpm per second between consecutive samples. */
+public class HeartRateRateOfChangeRule implements AlertRule {
+
+    private static final int LAST_HEART_RATE = 0;
+    private static final int LAST_SAMPLE_MILLIS = 1;
+
+    private final double maxBpmPerSecond;
+    private final long sustainMillis;
+
+    public HeartRateRateOfChangeRule(double maxBpmPerSecond, long sustainMillis) {
+        this.maxBpmPerSecond = maxBpmPerSecond;
+        this.sustainMillis = sustainMillis;
+    }
+
+    @Override
+    public String id() {
+        return "heart-rate-rate-of-change";
+    }
+
+    @Override
+    public int stateSlots() {
+        return 2;
+    }
+
+    @Override
+    public long sustainMillis() {
+        return sustainMillis;
+    }
+
+    @Override
+    public boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis) {
+        if (heartRate == NO_VALUE) {
+            return false;
+        }
+        double lastHeartRate = state.get(offset + LAST_HEART_RATE);
+        double lastSampleMillis = state.get(offset + LAST_SAMPLE_MILLIS);
+        state.set(offset + LAST_HEART_RATE, heartRate);
+        state.set(offset + LAST_SAMPLE_MILLIS, sampleMillis);
+        if (Double.isNaN(lastHeartRate)) {
+            return false;
+        }
+        double elapsedSeconds = (sampleMillis - lastSampleMillis) / 1000.0;
+        if (elapsedSeconds <= 0) {
+            return false;
+        }
+        return Math.abs(heartRate - lastHeartRate) / elapsedSeconds > maxBpmPerSecond;
+    }
+
+    @Override
+    public String message(StudentRuleState state, int heartRate, int oxygenSaturation) {
+        return String.format("ALERT: Student %s's heart rate is changing abnormally fast (now %d bpm, limit %.1f bpm/s)",
+                state.getStudentName(), heartRate, maxBpmPerSecond);
+    }
+}
@@ -0,0 +1,40 @@
+package edu.cit.stathis.vitals.rules;
+
+/**
+ * No sample received from a student's device for longer than the timeout. Fires once per gap; the
+ * next sample clears the condition and re-arms it.
+ */
+public class MissingDataRule implements AlertRule {
+
+    private final long timeoutMillis;
+
+    public MissingDataRule(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public String id() {
+        return "missing-data";
+    }
+
+    @Override
+    public boolean repeatWhileMatching() {
+        return false;
+    }
+
+    @Override
+    public boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis) {
+        return false;
+    }
+
+    @Override
+    public boolean testIdle(StudentRuleState state, int offset, long nowMillis) {
+        return nowMillis - state.getLastReceivedMillis() > timeoutMillis;
+    }
+
+    @Override
+    public String message(StudentRuleState state, int heartRate, int oxygenSaturation) {
+        return String.format("ALERT: No vitals received from student %s for over %d seconds",
+                state.getStudentName(), timeoutMillis / 1000);
+    }
+}
@@ -0,0 +1,39 @@
+package edu.cit.stathis.vitals.rules;
+
+/** SpO2 below a fixed floor. */
+public class OxygenSaturationFloorRule implements AlertRule {
+
+    private final int floor;
+    private final long sustainMillis;
+
+    public OxygenSaturationFloorRule(int floor, long sustainMillis) {
+        this.floor = floor;
+        this.sustainMillis = sustainMillis;
+    }
+
+    @Override
+    public String id() {
+        return "spo2-floor";
+    }
+
+    @Override
+    public long sustainMillis() {
+        return sustainMillis;
+    }
+
+    @Override
+    public boolean test(StudentRuleState state, int offset, int heartRate, int oxygenSaturation, long sampleMillis) {
+        return oxygenSaturation != NO_VALUE && oxygenSaturation < floor;
+    }
+
+    @Override
+    public Integer threshold(StudentRuleState state) {
+        return floor;
+    }
+
+    @Override
+    public String message(StudentRuleState state, int heartRate, int oxygenSaturation) {
+        return String.format("ALERT: Student %s's oxygen saturation (%d%%) is below %d%%",
+                state.getStudentName(), oxygenSaturation, floor);
+    }
+}
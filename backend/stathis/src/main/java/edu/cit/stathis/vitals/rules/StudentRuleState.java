@@ -0,0 +1,74 @@
+package edu.cit.stathis.vitals.rules;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size rule state for one student in one task. Allocated once when the student's first
+ * sample arrives and mutated in place afterwards; callers synchronize on the instance.
+ */
+public class StudentRuleState {
+
+    static final long INACTIVE = Long.MIN_VALUE;
+
+    private final String studentId;
+    private final String studentName;
+    private final String classroomId;
+    private final String taskId;
+    private final Integer maxHeartRate;
+
+    final double[] slots;
+    final long[] conditionSince;
+    final long[] lastFiredMillis;
+    volatile long lastReceivedMillis;
+    // Device time of the newest sample this node evaluated
+    volatile long lastSampleMillis = INACTIVE;
+
+    StudentRuleState(String studentId, String studentName, String classroomId, String taskId,
+                     Integer maxHeartRate, int slotCount, int ruleCount) {
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.classroomId = classroomId;
+        this.taskId = taskId;
+        this.maxHeartRate = maxHeartRate;
+        this.slots = new double[slotCount];
+        this.conditionSince = new long[ruleCount];
+        this.lastFiredMillis = new long[ruleCount];
+        Arrays.fill(slots, Double.NaN);
+        Arrays.fill(conditionSince, INACTIVE);
+        Arrays.fill(lastFiredMillis, INACTIVE);
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public String getClassroomId() {
+        return classroomId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    /** Age-predicted maximum heart rate, or null when the student's birthdate is unknown. */
+    public Integer getMaxHeartRate() {
+        return maxHeartRate;
+    }
+
+    public long getLastReceivedMillis() {
+        return lastReceivedMillis;
+    }
+
+    /** Rule-owned slot; unset slots read as {@code NaN}. */
+    public double get(int slot) {
+        return slots[slot];
+    }
+
+    public void set(int slot, double value) {
+        slots[slot] = value;
+    }
+}
@@ -0,0 +1,240 @@
+package edu.cit.stathis.vitals.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.task.event.TaskEndedEvent;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking ingestion path, enabled with {@code vitals.ingestion.mode=reactive}. The insert-only
+ * write goes through R2DBC on its own small connection pool, so a burst of samples neither holds
+ * request threads while waiting on Postgres nor competes with the rest of the API for Hikari
+ * connections.
+ *
+ * <p>The lookups the servlet path does through JPA (the sender's physical ID, whether the task is
+ * running) are answered from caches filled over the same R2DBC pool. After the insert, alert rules,
+ * statistics and broadcasts run on a bounded dispatch scheduler; when its queue is full the sample
+ * fails fast instead of queueing without limit.
+ *
+ * <p>The pool is built here rather than as a bean: a {@code ConnectionFactory} bean would switch
+ * off the JDBC {@code DataSource} auto-configuration the rest of the application relies on.
+ */
+@Service
+@ConditionalOnProperty(name = "vitals.ingestion.mode", havingValue = "reactive")
+public class ReactiveVitalsIngestionService implements DisposableBean {
+
+    // Same statement as VitalSignsRepository.insertIfAbsent: only a duplicate reading is skipped,
+    // any other constraint violation still fails the sample
+    static final String INSERT_SQL =
+            "INSERT INTO vital_signs (physical_id, student_id, classroom_id, task_id, heart_rate, " +
+            "oxygen_saturation, timestamp, is_pre_activity, is_post_activity) " +
+            "VALUES (:physicalId, :studentId, :classroomId, :taskId, :heartRate, :oxygenSaturation, " +
+            ":timestamp, :isPreActivity, :isPostActivity) " +
+            "ON CONFLICT (student_id, task_id, timestamp) DO NOTHING";
+    private static final String STUDENT_ID_SQL = "SELECT physical_id FROM users WHERE email = :email";
+    private static final String TASK_STATE_SQL =
+            "SELECT is_started, is_active FROM task WHERE physical_id = :taskId";
+
+    private final VitalSignsService vitalSignsService;
+    private final RecentVitalsKeyFilter recentVitalsKeyFilter;
+    private final VitalsSamplingGovernor vitalsSamplingGovernor;
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final Scheduler dispatchScheduler;
+    private String insertSql = INSERT_SQL;
+    // email -> student physical ID; never changes once assigned
+    private final Cache<String, String> studentIds;
+    // Only running tasks are cached. A task ended on this node is dropped at once; one ended on
+    // another node is seen when its entry expires, so the TTL bounds how long samples still land
+    private final Cache<String, Boolean> runningTasks;
+
+    public ReactiveVitalsIngestionService(VitalSignsService vitalSignsService,
+                                          RecentVitalsKeyFilter recentVitalsKeyFilter,
+                                          VitalsSamplingGovernor vitalsSamplingGovernor,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${vitals.ingestion.reactive.url:}") String url,
+                                          @Value("${spring.datasource.url:}") String jdbcUrl,
+                                          @Value("${spring.datasource.username:}") String username,
+                                          @Value("${spring.datasource.password:}") String password,
+                                          @Value("${vitals.ingestion.reactive.pool.initial-size:2}") int initialSize,
+                                          @Value("${vitals.ingestion.reactive.pool.max-size:8}") int maxSize,
+                                          @Value("${vitals.ingestion.reactive.pool.max-acquire-ms:2000}") long maxAcquireMillis,
+                                          @Value("${vitals.ingestion.reactive.dispatch.threads:4}") int dispatchThreads,
+                                          @Value("${vitals.ingestion.reactive.dispatch.queue-capacity:10000}") int dispatchQueueCapacity,
+                                          @Value("${vitals.ingestion.reactive.task-state-ttl-seconds:5}") long taskStateTtlSeconds,
+                                          @Value("${vitals.ingestion.reactive.student-id-cache.max-size:5000}") long studentIdCacheSize) {
+        this.vitalSignsService = vitalSignsService;
+        this.recentVitalsKeyFilter = recentVitalsKeyFilter;
+        this.vitalsSamplingGovernor = vitalsSamplingGovernor;
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions
+                .parse(StringUtils.hasText(url) ? url : toR2dbcUrl(jdbcUrl))
+                .mutate();
+        if (StringUtils.hasText(username)) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (StringUtils.hasText(password)) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name("vitals-ingest")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(Duration.ofMillis(maxAcquireMillis))
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.dispatchScheduler = Schedulers.newBoundedElastic(dispatchThreads, dispatchQueueCapacity, "vitals-dispatch");
+        this.studentIds = CacheBuilder.newBuilder()
+                .maximumSize(studentIdCacheSize)
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                .build();
+        this.runningTasks = CacheBuilder.newBuilder()
+                .expireAfterWrite(taskStateTtlSeconds, TimeUnit.SECONDS)
+                .build();
+
+        Gauge.builder("stathis.vitals.ingest.r2dbc.connections", connectionPool,
+                        pool -> pool.getMetrics().map(PoolMetrics::acquiredSize).orElse(0))
+                .description("R2DBC connections held by the reactive ingestion path")
+                .tag("state", "acquired")
+                .register(meterRegistry);
+        Gauge.builder("stathis.vitals.ingest.r2dbc.connections", connectionPool,
+                        pool -> pool.getMetrics().map(PoolMetrics::pendingAcquireSize).orElse(0))
+                .description("R2DBC connections held by the reactive ingestion path")
+                .tag("state", "pending")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the sample sent by the user with the given login and runs the usual alerting and
+     * broadcasting for it. Emits true when the sample was stored, false when it was skipped (task not
+     * running, duplicate); errors when the pool or the dispatch queue is exhausted.
+     */
+    public Mono<Boolean> ingest(VitalSignsDTO vitalSignsDTO, String principalName) {
+        String taskId = vitalSignsDTO.getTaskId();
+        if (taskId == null || principalName == null) {
+            return Mono.just(false);
+        }
+        return Mono.defer(() -> {
+                    vitalsSamplingGovernor.ingestStarted();
+                    return isTaskRunning(taskId)
+                            .flatMap(running -> running ? studentId(principalName) : Mono.empty())
+                            .flatMap(studentId -> store(vitalSignsDTO, studentId))
+                            .defaultIfEmpty(false);
+                })
+                .doFinally(signal -> vitalsSamplingGovernor.ingestFinished());
+    }
+
+    private Mono<Boolean> store(VitalSignsDTO vitalSignsDTO, String studentId) {
+        String taskId = vitalSignsDTO.getTaskId();
+        LocalDateTime timestamp = VitalSignsService.normalizeTimestamp(vitalSignsDTO.getTimestamp());
+        if (!recentVitalsKeyFilter.markIfAbsent(studentId, taskId, timestamp)) {
+            return Mono.just(false);
+        }
+        String physicalId = "VITAL-" + UUID.randomUUID();
+        long writeStart = System.nanoTime();
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(insertSql)
+                .bind("physicalId", physicalId)
+                .bind("studentId", studentId)
+                .bind("taskId", taskId)
+                .bind("timestamp", timestamp)
+                .bind("isPreActivity", Boolean.TRUE.equals(vitalSignsDTO.getIsPreActivity()))
+                .bind("isPostActivity", Boolean.TRUE.equals(vitalSignsDTO.getIsPostActivity()));
+        insert = bindNullable(insert, "classroomId", vitalSignsDTO.getClassroomId(), String.class);
+        insert = bindNullable(insert, "heartRate", vitalSignsDTO.getHeartRate(), Integer.class);
+        insert = bindNullable(insert, "oxygenSaturation", vitalSignsDTO.getOxygenSaturation(), Integer.class);
+        return insert.fetch()
+                .rowsUpdated()
+                .doOnError(e -> recentVitalsKeyFilter.release(studentId, taskId, timestamp))
+                // Alert rules may load a profile over JPA; keep that off the driver's event loop
+                .publishOn(dispatchScheduler)
+                .map(inserted -> {
+                    vitalsSamplingGovernor.recordWrite(System.nanoTime() - writeStart);
+                    if (inserted == 0) {
+                        recentVitalsKeyFilter.recordConstraintDuplicate();
+                        return false;
+                    }
+                    vitalSignsDTO.setPhysicalId(physicalId);
+                    vitalSignsDTO.setStudentId(studentId);
+                    vitalSignsDTO.setTimestamp(timestamp);
+                    vitalSignsService.dispatch(vitalSignsDTO);
+                    return true;
+                });
+    }
+
+    private Mono<Boolean> isTaskRunning(String taskId) {
+        if (runningTasks.getIfPresent(taskId) != null) {
+            return Mono.just(true);
+        }
+        return databaseClient.sql(TASK_STATE_SQL)
+                .bind("taskId", taskId)
+                .map(row -> Boolean.TRUE.equals(row.get("is_started", Boolean.class))
+                        && Boolean.TRUE.equals(row.get("is_active", Boolean.class)))
+                .first()
+                .defaultIfEmpty(false)
+                .doOnNext(running -> {
+                    if (running) {
+                        runningTasks.put(taskId, Boolean.TRUE);
+                    }
+                });
+    }
+
+    private Mono<String> studentId(String email) {
+        String cached = studentIds.getIfPresent(email);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return databaseClient.sql(STUDENT_ID_SQL)
+                .bind("email", email)
+                .map(row -> row.get("physical_id", String.class))
+                .first()
+                .doOnNext(studentId -> studentIds.put(email, studentId));
+    }
+
+    @EventListener
+    public void onTaskEnded(TaskEndedEvent event) {
+        runningTasks.invalidate(event.taskPhysicalId());
+    }
+
+    @Override
+    public void destroy() {
+        dispatchScheduler.dispose();
+        connectionPool.dispose();
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                      String name, T value, Class<T> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    // "jdbc:postgresql://host:5432/db?sslmode=require" -> "r2dbc:postgresql://host:5432/db?sslMode=require"
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!StringUtils.hasText(jdbcUrl) || !jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalStateException(
+                    "vitals.ingestion.reactive.url is not set and spring.datasource.url is not a JDBC URL");
+        }
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length()).replace("sslmode=", "sslMode=");
+    }
+}
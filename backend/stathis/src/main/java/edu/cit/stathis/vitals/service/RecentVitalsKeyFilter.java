@@ -0,0 +1,80 @@
+package edu.cit.stathis.vitals.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded set of recently ingested (student, task, timestamp) keys. Catches client retries in
+ * memory before they reach the database; the unique constraint on vital_signs catches whatever
+ * this node has not seen (evicted keys, samples ingested by another node).
+ */
+@Service
+public class RecentVitalsKeyFilter {
+
+    private final Cache<String, Boolean> recentKeys;
+    private final Counter filteredDuplicates;
+    private final Counter constraintDuplicates;
+
+    public RecentVitalsKeyFilter(MeterRegistry meterRegistry,
+                                 @Value("${vitals.idempotency.recent-keys.max-size:100000}") long maxSize,
+                                 @Value("${vitals.idempotency.recent-keys.ttl-minutes:10}") long ttlMinutes) {
+        this.recentKeys = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+        this.filteredDuplicates = Counter.builder("stathis.vitals.duplicates")
+                .description("Duplicate vitals samples dropped")
+                .tag("source", "filter")
+                .register(meterRegistry);
+        this.constraintDuplicates = Counter.builder("stathis.vitals.duplicates")
+                .description("Duplicate vitals samples dropped")
+                .tag("source", "constraint")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims the key for this sample. Returns false when it was already seen. Inside a transaction
+     * the claim is released again on rollback so the client's retry is not lost.
+     */
+    public boolean markIfAbsent(String studentId, String taskId, LocalDateTime timestamp) {
+        String key = key(studentId, taskId, timestamp);
+        if (recentKeys.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            filteredDuplicates.increment();
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        recentKeys.invalidate(key);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /** Releases a claim whose write failed outside a Spring transaction, so the retry goes through. */
+    public void release(String studentId, String taskId, LocalDateTime timestamp) {
+        recentKeys.invalidate(key(studentId, taskId, timestamp));
+    }
+
+    /** Records a duplicate the in-memory filter missed and the unique constraint caught. */
+    public void recordConstraintDuplicate() {
+        constraintDuplicates.increment();
+    }
+
+    static String key(String studentId, String taskId, LocalDateTime timestamp) {
+        return studentId + '|' + taskId + '|' + timestamp;
+    }
+}
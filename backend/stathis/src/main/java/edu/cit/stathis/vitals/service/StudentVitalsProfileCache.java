@@ -0,0 +1,60 @@
+package edu.cit.stathis.vitals.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.auth.repository.UserProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The few profile fields vitals processing needs (display name, age-predicted max HR), cached so
+ * ingestion hits the database once per student instead of once per sample.
+ */
+@Service
+public class StudentVitalsProfileCache {
+
+    public record StudentVitalsProfile(String studentName, Integer maxHeartRate) {}
+
+    private static final StudentVitalsProfile UNKNOWN = new StudentVitalsProfile(null, null);
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Value("${vitals.profile-cache.max-size:5000}")
+    private long maxSize;
+
+    @Value("${vitals.profile-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private Cache<String, StudentVitalsProfile> cache;
+
+    @PostConstruct
+    void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public StudentVitalsProfile get(String studentId) {
+        try {
+            return cache.get(studentId, () -> load(studentId));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load profile for student " + studentId, e.getCause());
+        }
+    }
+
+    private StudentVitalsProfile load(String studentId) {
+        return userProfileRepository.findByUser_PhysicalId(studentId)
+                .map(profile -> new StudentVitalsProfile(
+                        profile.getFirstName() + " " + profile.getLastName(),
+                        // Age-predicted maximum heart rate (220 - age)
+                        profile.getAge() != null ? 220 - profile.getAge() : null))
+                .orElse(UNKNOWN);
+    }
+}
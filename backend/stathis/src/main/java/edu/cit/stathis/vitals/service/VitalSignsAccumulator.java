@@ -0,0 +1,276 @@
+package edu.cit.stathis.vitals.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running vitals statistics for one student in one task, updated in O(1) per sample.
+ *
+ * <p>Whole-task figures (count, sum, min, max, time-in-zone) are lock-free atomics. The sliding
+ * windows are small bucket rings guarded by their own monitor, so the only lock taken is striped
+ * per student and per metric.
+ */
+public class VitalSignsAccumulator {
+
+    // Zone 0 is below 50% of max HR, zones 1-5 are the 50/60/70/80/90% bands
+    public static final int ZONE_COUNT = 6;
+
+    static final int NO_ZONE = -1;
+    private static final int ZONE_BITS = 3;
+
+    private final String studentId;
+    private final String classroomId;
+    private final String taskId;
+    private final Integer maxHeartRate;
+    private final long maxSampleGapMillis;
+
+    private final LongAdder sampleCount = new LongAdder();
+    private final Metric heartRate;
+    private final Metric oxygenSaturation;
+    // Heart rate measured before and after the activity, for the recovery comparison
+    private final RunningAverage preActivityHeartRate = new RunningAverage();
+    private final RunningAverage postActivityHeartRate = new RunningAverage();
+    private final AtomicLongArray zoneMillis = new AtomicLongArray(ZONE_COUNT);
+    // Last heart-rate sample as (epochMillis << ZONE_BITS) | zone, so one getAndSet links consecutive samples
+    private final AtomicLong lastZoneSample = new AtomicLong(-1);
+    private volatile long lastUpdatedMillis;
+
+    public VitalSignsAccumulator(String studentId, String classroomId, String taskId, Integer maxHeartRate,
+                                 long windowMillis, int windowBuckets, long maxSampleGapMillis) {
+        this.studentId = studentId;
+        this.classroomId = classroomId;
+        this.taskId = taskId;
+        this.maxHeartRate = maxHeartRate;
+        this.maxSampleGapMillis = maxSampleGapMillis;
+        this.heartRate = new Metric(windowMillis, windowBuckets);
+        this.oxygenSaturation = new Metric(windowMillis, windowBuckets);
+    }
+
+    public void record(Integer heartRateValue, Integer oxygenSaturationValue, long sampleMillis, long nowMillis) {
+        record(heartRateValue, oxygenSaturationValue, false, false, sampleMillis, nowMillis);
+    }
+
+    public void record(Integer heartRateValue, Integer oxygenSaturationValue, boolean preActivity,
+                       boolean postActivity, long sampleMillis, long nowMillis) {
+        sampleCount.increment();
+        if (heartRateValue != null) {
+            heartRate.record(heartRateValue, nowMillis);
+            recordZoneTime(heartRateValue, sampleMillis);
+            if (preActivity) {
+                preActivityHeartRate.add(heartRateValue);
+            }
+            if (postActivity) {
+                postActivityHeartRate.add(heartRateValue);
+            }
+        }
+        if (oxygenSaturationValue != null) {
+            oxygenSaturation.record(oxygenSaturationValue, nowMillis);
+        }
+        lastUpdatedMillis = nowMillis;
+    }
+
+    private void recordZoneTime(int heartRateValue, long sampleMillis) {
+        int zone = zoneOf(heartRateValue);
+        if (zone == NO_ZONE) {
+            return;
+        }
+        long previous = lastZoneSample.getAndSet((sampleMillis << ZONE_BITS) | zone);
+        if (previous < 0) {
+            return;
+        }
+        // Time between two samples is credited to the zone the student was in at the earlier one
+        long elapsed = sampleMillis - (previous >>> ZONE_BITS);
+        if (elapsed > 0 && elapsed <= maxSampleGapMillis) {
+            zoneMillis.addAndGet((int) (previous & ((1 << ZONE_BITS) - 1)), elapsed);
+        }
+    }
+
+    int zoneOf(int heartRateValue) {
+        return zoneOf(heartRateValue, maxHeartRate);
+    }
+
+    static int zoneOf(int heartRateValue, Integer maxHeartRate) {
+        if (maxHeartRate == null || maxHeartRate <= 0) {
+            return NO_ZONE;
+        }
+        int percent = heartRateValue * 100 / maxHeartRate;
+        if (percent < 50) {
+            return 0;
+        }
+        return Math.min(ZONE_COUNT - 1, (percent - 40) / 10);
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getClassroomId() {
+        return classroomId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public Integer getMaxHeartRate() {
+        return maxHeartRate;
+    }
+
+    public long getSampleCount() {
+        return sampleCount.sum();
+    }
+
+    public Metric getHeartRate() {
+        return heartRate;
+    }
+
+    public Metric getOxygenSaturation() {
+        return oxygenSaturation;
+    }
+
+    public RunningAverage getPreActivityHeartRate() {
+        return preActivityHeartRate;
+    }
+
+    public RunningAverage getPostActivityHeartRate() {
+        return postActivityHeartRate;
+    }
+
+    /** Peak heart rate minus the post-activity average; null until both are known. */
+    public Double getRecoveryHeartRateDelta() {
+        Integer peak = heartRate.getMax();
+        Double post = postActivityHeartRate.getAverage();
+        return peak == null || post == null ? null : peak - post;
+    }
+
+    public long getZoneMillis(int zone) {
+        return zoneMillis.get(zone);
+    }
+
+    public long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    /** Whole-task aggregates plus a sliding window for one vital. */
+    public static final class Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicInteger max = new AtomicInteger(Integer.MIN_VALUE);
+        private final SlidingWindow window;
+
+        Metric(long windowMillis, int windowBuckets) {
+            this.window = new SlidingWindow(windowMillis, windowBuckets);
+        }
+
+        void record(int value, long nowMillis) {
+            count.increment();
+            sum.add(value);
+            min.accumulateAndGet(value, Math::min);
+            max.accumulateAndGet(value, Math::max);
+            window.record(value, nowMillis);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public Integer getMin() {
+            return getCount() == 0 ? null : min.get();
+        }
+
+        public Integer getMax() {
+            return getCount() == 0 ? null : max.get();
+        }
+
+        public Double getAverage() {
+            long n = count.sum();
+            return n == 0 ? null : (double) sum.sum() / n;
+        }
+
+        public WindowStats getWindow(long nowMillis) {
+            return window.snapshot(nowMillis);
+        }
+    }
+
+    /** Lock-free count and mean. */
+    public static final class RunningAverage {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        void add(int value) {
+            count.increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public Double getAverage() {
+            long n = count.sum();
+            return n == 0 ? null : (double) sum.sum() / n;
+        }
+    }
+
+    public record WindowStats(long count, Double average, Integer min, Integer max) {}
+
+    /** Fixed ring of time buckets; a bucket is reset lazily when its slot is reused. */
+    static final class SlidingWindow {
+        private final long bucketMillis;
+        private final long[] bucketIndex;
+        private final long[] counts;
+        private final long[] sums;
+        private final int[] mins;
+        private final int[] maxs;
+
+        SlidingWindow(long windowMillis, int buckets) {
+            this.bucketMillis = Math.max(1, windowMillis / buckets);
+            this.bucketIndex = new long[buckets];
+            this.counts = new long[buckets];
+            this.sums = new long[buckets];
+            this.mins = new int[buckets];
+            this.maxs = new int[buckets];
+            Arrays.fill(bucketIndex, -1);
+        }
+
+        synchronized void record(int value, long nowMillis) {
+            long index = nowMillis / bucketMillis;
+            int slot = (int) (index % bucketIndex.length);
+            if (bucketIndex[slot] != index) {
+                bucketIndex[slot] = index;
+                counts[slot] = 0;
+                sums[slot] = 0;
+                mins[slot] = Integer.MAX_VALUE;
+                maxs[slot] = Integer.MIN_VALUE;
+            }
+            counts[slot]++;
+            sums[slot] += value;
+            mins[slot] = Math.min(mins[slot], value);
+            maxs[slot] = Math.max(maxs[slot], value);
+        }
+
+        synchronized WindowStats snapshot(long nowMillis) {
+            long newest = nowMillis / bucketMillis;
+            long oldest = newest - bucketIndex.length + 1;
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int slot = 0; slot < bucketIndex.length; slot++) {
+                if (bucketIndex[slot] >= oldest && bucketIndex[slot] <= newest) {
+                    count += counts[slot];
+                    sum += sums[slot];
+                    min = Math.min(min, mins[slot]);
+                    max = Math.max(max, maxs[slot]);
+                }
+            }
+            return count == 0
+                    ? new WindowStats(0, null, null, null)
+                    : new WindowStats(count, (double) sum / count, min, max);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package edu.cit.stathis.vitals.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.vitals.dto.VitalSignsPageDTO;
+import edu.cit.stathis.vitals.entity.VitalSigns;
+import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Bounded-memory access to vitals history: keyset pages on (timestamp, id) for dashboards, and
+ * NDJSON exports that stream rows straight from a forward-only JDBC cursor.
+ */
+@Service
+public class VitalSignsHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String STREAM_COLUMNS =
+            "SELECT id, physical_id, student_id, classroom_id, task_id, heart_rate, oxygen_saturation, " +
+            "timestamp, is_pre_activity, is_post_activity FROM vital_signs ";
+
+    @Autowired
+    private VitalSignsRepository vitalSignsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${vitals.history.stream-fetch-size:1000}")
+    private int streamFetchSize;
+
+    @Transactional(readOnly = true)
+    public VitalSignsPageDTO getPageByClassroomAndTask(String classroomId, String taskId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        Cursor after = decodeCursor(cursor);
+        List<VitalSigns> items = after == null
+                ? vitalSignsRepository.findByClassroomIdAndTaskIdOrderByTimestampAscIdAsc(
+                        classroomId, taskId, Limit.of(pageSize))
+                : vitalSignsRepository.findPageByClassroomIdAndTaskIdAfter(
+                        classroomId, taskId, after.timestamp(), after.id(), pageSize);
+        return toPage(items, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public VitalSignsPageDTO getPageByStudentAndTask(String studentId, String taskId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        Cursor after = decodeCursor(cursor);
+        List<VitalSigns> items = after == null
+                ? vitalSignsRepository.findByStudentIdAndTaskIdOrderByTimestampAscIdAsc(
+                        studentId, taskId, Limit.of(pageSize))
+                : vitalSignsRepository.findPageByStudentIdAndTaskIdAfter(
+                        studentId, taskId, after.timestamp(), after.id(), pageSize);
+        return toPage(items, pageSize);
+    }
+
+    // Must run in a transaction: PostgreSQL only honours the fetch size with autocommit off
+    @Transactional(readOnly = true)
+    @UsesWorkload(Workload.BACKGROUND)
+    public void streamByClassroomAndTask(String classroomId, String taskId, OutputStream out) throws IOException {
+        stream(STREAM_COLUMNS + "WHERE classroom_id = ? AND task_id = ? ORDER BY timestamp, id",
+                classroomId, taskId, out);
+    }
+
+    @Transactional(readOnly = true)
+    @UsesWorkload(Workload.BACKGROUND)
+    public void streamByStudentAndTask(String studentId, String taskId, OutputStream out) throws IOException {
+        stream(STREAM_COLUMNS + "WHERE student_id = ? AND task_id = ? ORDER BY timestamp, id",
+                studentId, taskId, out);
+    }
+
+    private void stream(String sql, String firstKey, String taskId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            VitalSigns row = new VitalSigns();
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(streamFetchSize);
+                    statement.setString(1, firstKey);
+                    statement.setString(2, taskId);
+                    return statement;
+                }, (ResultSet rs) -> {
+                    // A single row object is reused, so memory stays flat for any history length
+                    mapRow(rs, row);
+                    try {
+                        objectMapper.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.flush();
+        }
+    }
+
+    private static void mapRow(ResultSet rs, VitalSigns row) throws SQLException {
+        row.setId(rs.getLong("id"));
+        row.setPhysicalId(rs.getString("physical_id"));
+        row.setStudentId(rs.getString("student_id"));
+        row.setClassroomId(rs.getString("classroom_id"));
+        row.setTaskId(rs.getString("task_id"));
+        row.setHeartRate(rs.getObject("heart_rate", Integer.class));
+        row.setOxygenSaturation(rs.getObject("oxygen_saturation", Integer.class));
+        row.setTimestamp(rs.getObject("timestamp", LocalDateTime.class));
+        // getBoolean would turn a NULL into false
+        row.setIsPreActivity(rs.getObject("is_pre_activity", Boolean.class));
+        row.setIsPostActivity(rs.getObject("is_post_activity", Boolean.class));
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static VitalSignsPageDTO toPage(List<VitalSigns> items, int pageSize) {
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            VitalSigns last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getTimestamp(), last.getId());
+        }
+        return new VitalSignsPageDTO(items, nextCursor);
+    }
+
+    private record Cursor(LocalDateTime timestamp, Long id) {}
+
+    static String encodeCursor(LocalDateTime timestamp, Long id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
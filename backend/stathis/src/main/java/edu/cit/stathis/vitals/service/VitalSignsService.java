@@ -1,18 +1,26 @@
 package edu.cit.stathis.vitals.service;
 
 import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsStatsDTO;
 import edu.cit.stathis.vitals.entity.VitalSigns;
 import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import edu.cit.stathis.vitals.rules.AlertRuleEngine;
 import edu.cit.stathis.task.entity.Task;
 import edu.cit.stathis.task.repository.TaskRepository;
 import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.common.datasource.UsesWorkload;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.outbox.DomainEventBus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class VitalSignsService {
@@ -27,45 +35,97 @@ public class VitalSignsService {
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private HeartRateMonitorService heartRateMonitorService;
+    private AlertRuleEngine alertRuleEngine;
 
     @Autowired
     private PhysicalIdService physicalIdService;
 
+    @Autowired
+    private VitalSignsStatsService vitalSignsStatsService;
+
+    @Autowired
+    private RecentVitalsKeyFilter recentVitalsKeyFilter;
+
+    @Autowired
+    private VitalsSamplingGovernor vitalsSamplingGovernor;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
     @Transactional
+    @UsesWorkload(Workload.INGEST)
     public void processVitalSigns(VitalSignsDTO vitalSignsDTO) {
+        vitalsSamplingGovernor.ingestStarted();
+        try {
+            ingest(vitalSignsDTO);
+        } finally {
+            vitalsSamplingGovernor.ingestFinished();
+        }
+    }
+
+    private void ingest(VitalSignsDTO vitalSignsDTO) {
         // Check if task is started
         Optional<Task> taskOptional = taskRepository.findByPhysicalId(vitalSignsDTO.getTaskId());
         Task task = taskOptional.orElse(null);
-        if (task == null || !task.isStarted()) {
-            return; // Skip processing if task is not started
+        if (task == null || !task.isStarted() || !task.isActive()) {
+            return; // Skip processing if task is not started or has ended
         }
 
         // Get current student's physical ID
         String studentId = physicalIdService.getCurrentUserPhysicalId();
 
-        // Convert DTO to entity
-        VitalSigns vitalSigns = new VitalSigns();
-        vitalSigns.setStudentId(studentId);
-        vitalSigns.setClassroomId(vitalSignsDTO.getClassroomId());
-        vitalSigns.setTaskId(vitalSignsDTO.getTaskId());
-        vitalSigns.setHeartRate(vitalSignsDTO.getHeartRate());
-        vitalSigns.setOxygenSaturation(vitalSignsDTO.getOxygenSaturation());
-        vitalSigns.setTimestamp(vitalSignsDTO.getTimestamp());
-        vitalSigns.setIsPreActivity(vitalSignsDTO.getIsPreActivity());
-        vitalSigns.setIsPostActivity(vitalSignsDTO.getIsPostActivity());
-
-        // Save to database
-        vitalSigns = vitalSignsRepository.save(vitalSigns);
-        vitalSignsDTO.setPhysicalId(vitalSigns.getPhysicalId());
+        LocalDateTime timestamp = normalizeTimestamp(vitalSignsDTO.getTimestamp());
+
+        // Drop client retries: recent keys in memory first, the unique constraint behind them
+        if (!recentVitalsKeyFilter.markIfAbsent(studentId, vitalSignsDTO.getTaskId(), timestamp)) {
+            return;
+        }
+        String physicalId = "VITAL-" + UUID.randomUUID();
+        long writeStart = System.nanoTime();
+        int inserted = vitalSignsRepository.insertIfAbsent(
+                physicalId,
+                studentId,
+                vitalSignsDTO.getClassroomId(),
+                vitalSignsDTO.getTaskId(),
+                vitalSignsDTO.getHeartRate(),
+                vitalSignsDTO.getOxygenSaturation(),
+                timestamp,
+                Boolean.TRUE.equals(vitalSignsDTO.getIsPreActivity()),
+                Boolean.TRUE.equals(vitalSignsDTO.getIsPostActivity()));
+        vitalsSamplingGovernor.recordWrite(System.nanoTime() - writeStart);
+        if (inserted == 0) {
+            recentVitalsKeyFilter.recordConstraintDuplicate();
+            return;
+        }
+        vitalSignsDTO.setPhysicalId(physicalId);
         vitalSignsDTO.setStudentId(studentId);
+        vitalSignsDTO.setTimestamp(timestamp);
+        // Alerts and the broadcast run once the reading is committed, in order per student
+        domainEventBus.afterCommit(studentId, () -> dispatch(vitalSignsDTO));
+    }
+
+    /**
+     * Runs everything that follows a stored reading: alert rules, running statistics and the
+     * classroom broadcast. Shared by the servlet and reactive ingestion paths.
+     */
+    public void dispatch(VitalSignsDTO vitalSignsDTO) {
+        // Evaluate alert rules and send alerts if necessary
+        alertRuleEngine.evaluate(vitalSignsDTO);
 
-        // Check heart rate and send alerts if necessary
-        heartRateMonitorService.checkHeartRate(vitalSignsDTO);
+        // Update the student's running statistics
+        Optional<VitalSignsStatsDTO> stats = vitalSignsStatsService.record(vitalSignsDTO);
 
         // Broadcast to WebSocket subscribers
         String destination = "/topic/classroom/" + vitalSignsDTO.getClassroomId() + "/vitals";
         messagingTemplate.convertAndSend(destination, vitalSignsDTO);
+        stats.ifPresent(live -> messagingTemplate.convertAndSend(destination + "/stats", live));
+    }
+
+    // Readings are keyed by (student, task, timestamp); stored at the database's microsecond precision
+    static LocalDateTime normalizeTimestamp(LocalDateTime timestamp) {
+        return timestamp != null
+                ? timestamp.truncatedTo(ChronoUnit.MICROS)
+                : LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     public List<VitalSigns> getVitalSignsByClassroomAndTask(String classroomId, String taskId) {
@@ -0,0 +1,409 @@
+package edu.cit.stathis.vitals.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.cit.stathis.task.event.TaskEndedEvent;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsStatsDTO;
+import edu.cit.stathis.vitals.dto.VitalsActivityAggregate;
+import edu.cit.stathis.vitals.dto.VitalsActivitySummaryDTO;
+import edu.cit.stathis.vitals.dto.VitalsHeartRateBand;
+import edu.cit.stathis.vitals.entity.VitalSignsSummary;
+import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import edu.cit.stathis.vitals.repository.VitalSignsSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Live per-student, per-task vitals statistics kept in memory while a task runs. Accumulators
+ * are node-local: in relay mode each node only sees the samples it ingested itself, so they serve
+ * live reads only. The final summaries are aggregated from the stored readings of every node when
+ * the task ends, and a task that ends on another node is dropped from memory once it goes idle.
+ */
+@Service
+public class VitalSignsStatsService {
+
+    @Autowired
+    private StudentVitalsProfileCache studentVitalsProfileCache;
+
+    @Autowired
+    private VitalSignsSummaryRepository vitalSignsSummaryRepository;
+
+    @Autowired
+    private VitalSignsRepository vitalSignsRepository;
+
+    @Value("${vitals.stats.window-seconds:60}")
+    private int windowSeconds;
+
+    @Value("${vitals.stats.window-buckets:12}")
+    private int windowBuckets;
+
+    @Value("${vitals.stats.max-sample-gap-seconds:10}")
+    private int maxSampleGapSeconds;
+
+    @Value("${vitals.stats.idle-ttl-seconds:1800}")
+    private long idleTtlSeconds;
+
+    // taskId -> studentId -> accumulator
+    private final Map<String, Map<String, VitalSignsAccumulator>> accumulators = new ConcurrentHashMap<>();
+
+    // Tasks whose summaries are committed; samples still in flight for them are ignored
+    private final Cache<String, Boolean> endedTasks = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    /** Adds a sample to the student's running statistics; empty once the sample's task has ended. */
+    public Optional<VitalSignsStatsDTO> record(VitalSignsDTO vitalSignsDTO) {
+        if (endedTasks.getIfPresent(vitalSignsDTO.getTaskId()) != null) {
+            return Optional.empty();
+        }
+        VitalSignsAccumulator accumulator = getOrCreateAccumulator(vitalSignsDTO);
+        // The task may have ended while the accumulator was being created
+        if (endedTasks.getIfPresent(vitalSignsDTO.getTaskId()) != null) {
+            accumulators.remove(vitalSignsDTO.getTaskId());
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        long sampleMillis = vitalSignsDTO.getTimestamp() != null
+                ? vitalSignsDTO.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : now;
+        accumulator.record(vitalSignsDTO.getHeartRate(), vitalSignsDTO.getOxygenSaturation(),
+                Boolean.TRUE.equals(vitalSignsDTO.getIsPreActivity()),
+                Boolean.TRUE.equals(vitalSignsDTO.getIsPostActivity()),
+                sampleMillis, now);
+        return Optional.of(toLiveStats(accumulator, now));
+    }
+
+    public List<VitalSignsStatsDTO> getClassroomStats(String classroomId, String taskId) {
+        Map<String, VitalSignsAccumulator> byStudent = accumulators.get(taskId);
+        if (byStudent == null) {
+            return vitalSignsSummaryRepository.findByClassroomIdAndTaskId(classroomId, taskId).stream()
+                    .map(this::toFinalStats)
+                    .collect(Collectors.toList());
+        }
+        long now = System.currentTimeMillis();
+        return byStudent.values().stream()
+                .filter(accumulator -> accumulator.getClassroomId().equals(classroomId))
+                .map(accumulator -> toLiveStats(accumulator, now))
+                .collect(Collectors.toList());
+    }
+
+    public Optional<VitalSignsStatsDTO> getStudentStats(String studentId, String taskId) {
+        Map<String, VitalSignsAccumulator> byStudent = accumulators.get(taskId);
+        VitalSignsAccumulator accumulator = byStudent != null ? byStudent.get(studentId) : null;
+        if (accumulator != null) {
+            return Optional.of(toLiveStats(accumulator, System.currentTimeMillis()));
+        }
+        return vitalSignsSummaryRepository.findByStudentIdAndTaskId(studentId, taskId).map(this::toFinalStats);
+    }
+
+    /**
+     * Pre/post-activity recovery summaries for a classroom: from memory while the task runs, from
+     * one indexed query on vital_signs_summary once it has ended. A node without the task in memory,
+     * such as one that restarted or did not ingest its samples, aggregates the raw readings instead.
+     */
+    public List<VitalsActivitySummaryDTO> getClassroomActivitySummaries(String classroomId, String taskId) {
+        Map<String, VitalSignsAccumulator> byStudent = accumulators.get(taskId);
+        if (byStudent == null) {
+            List<VitalsActivitySummaryDTO> finalized =
+                    vitalSignsSummaryRepository.findByClassroomIdAndTaskId(classroomId, taskId).stream()
+                            .map(this::toFinalActivitySummary)
+                            .collect(Collectors.toList());
+            if (!finalized.isEmpty()) {
+                return finalized;
+            }
+            return vitalSignsRepository.aggregateActivityByClassroomIdAndTaskId(classroomId, taskId).stream()
+                    .map(aggregate -> toAggregatedActivitySummary(aggregate, classroomId, taskId))
+                    .collect(Collectors.toList());
+        }
+        return byStudent.values().stream()
+                .filter(accumulator -> accumulator.getClassroomId().equals(classroomId))
+                .map(this::toLiveActivitySummary)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Persists one summary row per student when a task ends, from one aggregate query over the
+     * task's stored readings, so samples ingested by other nodes are included. Runs inside the
+     * transaction that ends the task, so the summaries commit with it; the accumulators stay until
+     * it has committed, so a rollback leaves the task running with its statistics intact.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTaskEnded(TaskEndedEvent event) {
+        Map<String, List<VitalsHeartRateBand>> bandsByStudent = vitalSignsRepository
+                .aggregateHeartRateBandsByClassroomIdAndTaskId(
+                        event.classroomPhysicalId(), event.taskPhysicalId(), maxSampleGapSeconds).stream()
+                .collect(Collectors.groupingBy(VitalsHeartRateBand::studentId, LinkedHashMap::new,
+                        Collectors.toList()));
+        if (bandsByStudent.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Rows left by an earlier run of the same task are updated in place; one query for all of them
+        Map<String, VitalSignsSummary> existing = vitalSignsSummaryRepository
+                .findByClassroomIdAndTaskId(event.classroomPhysicalId(), event.taskPhysicalId()).stream()
+                .collect(Collectors.toMap(VitalSignsSummary::getStudentId, summary -> summary));
+        List<VitalSignsSummary> summaries = bandsByStudent.entrySet().stream()
+                .map(entry -> toSummary(entry.getKey(), event, entry.getValue(),
+                        existing.getOrDefault(entry.getKey(), new VitalSignsSummary()), now))
+                .collect(Collectors.toList());
+        vitalSignsSummaryRepository.saveAll(summaries);
+    }
+
+    /** Releases an ended task's accumulators once its summaries are committed. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void releaseEndedTask(TaskEndedEvent event) {
+        endedTasks.put(event.taskPhysicalId(), Boolean.TRUE);
+        accumulators.remove(event.taskPhysicalId());
+    }
+
+    /**
+     * Drops tasks that have had no sample for {@code vitals.stats.idle-ttl-seconds}. The end of a
+     * task is only seen by the node that ended it; the others release its accumulators here.
+     */
+    @Scheduled(fixedDelayString = "${vitals.stats.eviction-interval-ms:60000}")
+    public void evictIdleTasks() {
+        long cutoff = System.currentTimeMillis() - idleTtlSeconds * 1000L;
+        // An empty map is one whose first accumulator is still being created
+        accumulators.values().removeIf(byStudent -> !byStudent.isEmpty()
+                && byStudent.values().stream().allMatch(accumulator -> accumulator.getLastUpdatedMillis() < cutoff));
+    }
+
+    private VitalSignsAccumulator getOrCreateAccumulator(VitalSignsDTO vitalSignsDTO) {
+        Map<String, VitalSignsAccumulator> byStudent =
+                accumulators.computeIfAbsent(vitalSignsDTO.getTaskId(), taskId -> new ConcurrentHashMap<>());
+        VitalSignsAccumulator accumulator = byStudent.get(vitalSignsDTO.getStudentId());
+        if (accumulator != null) {
+            return accumulator;
+        }
+        // Resolved outside the map's bin lock; a cache miss costs one profile query
+        Integer maxHeartRate = studentVitalsProfileCache.get(vitalSignsDTO.getStudentId()).maxHeartRate();
+        VitalSignsAccumulator created = new VitalSignsAccumulator(
+                vitalSignsDTO.getStudentId(),
+                vitalSignsDTO.getClassroomId(),
+                vitalSignsDTO.getTaskId(),
+                maxHeartRate,
+                windowSeconds * 1000L,
+                windowBuckets,
+                maxSampleGapSeconds * 1000L);
+        VitalSignsAccumulator existing = byStudent.putIfAbsent(vitalSignsDTO.getStudentId(), created);
+        return existing != null ? existing : created;
+    }
+
+    private VitalSignsStatsDTO toLiveStats(VitalSignsAccumulator accumulator, long now) {
+        VitalSignsAccumulator.Metric heartRate = accumulator.getHeartRate();
+        VitalSignsAccumulator.Metric oxygen = accumulator.getOxygenSaturation();
+        VitalSignsAccumulator.WindowStats heartRateWindow = heartRate.getWindow(now);
+        VitalSignsAccumulator.WindowStats oxygenWindow = oxygen.getWindow(now);
+        long[] zoneSeconds = new long[VitalSignsAccumulator.ZONE_COUNT];
+        for (int zone = 0; zone < zoneSeconds.length; zone++) {
+            zoneSeconds[zone] = accumulator.getZoneMillis(zone) / 1000;
+        }
+        return VitalSignsStatsDTO.builder()
+                .studentId(accumulator.getStudentId())
+                .classroomId(accumulator.getClassroomId())
+                .taskId(accumulator.getTaskId())
+                .live(true)
+                .sampleCount(accumulator.getSampleCount())
+                .minHeartRate(heartRate.getMin())
+                .maxHeartRate(heartRate.getMax())
+                .avgHeartRate(heartRate.getAverage())
+                .minOxygenSaturation(oxygen.getMin())
+                .maxOxygenSaturation(oxygen.getMax())
+                .avgOxygenSaturation(oxygen.getAverage())
+                .windowSeconds(windowSeconds)
+                .windowMinHeartRate(heartRateWindow.min())
+                .windowMaxHeartRate(heartRateWindow.max())
+                .windowAvgHeartRate(heartRateWindow.average())
+                .windowMinOxygenSaturation(oxygenWindow.min())
+                .windowMaxOxygenSaturation(oxygenWindow.max())
+                .windowAvgOxygenSaturation(oxygenWindow.average())
+                .predictedMaxHeartRate(accumulator.getMaxHeartRate())
+                .timeInZoneSeconds(zoneMap(zoneSeconds))
+                .lastUpdated(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(accumulator.getLastUpdatedMillis()), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private VitalSignsStatsDTO toFinalStats(VitalSignsSummary summary) {
+        return VitalSignsStatsDTO.builder()
+                .studentId(summary.getStudentId())
+                .classroomId(summary.getClassroomId())
+                .taskId(summary.getTaskId())
+                .live(false)
+                .sampleCount(summary.getSampleCount())
+                .minHeartRate(summary.getMinHeartRate())
+                .maxHeartRate(summary.getMaxHeartRate())
+                .avgHeartRate(summary.getAvgHeartRate())
+                .minOxygenSaturation(summary.getMinOxygenSaturation())
+                .maxOxygenSaturation(summary.getMaxOxygenSaturation())
+                .avgOxygenSaturation(summary.getAvgOxygenSaturation())
+                .predictedMaxHeartRate(summary.getPredictedMaxHeartRate())
+                .timeInZoneSeconds(zoneMap(new long[] {
+                        summary.getZone0Seconds(), summary.getZone1Seconds(), summary.getZone2Seconds(),
+                        summary.getZone3Seconds(), summary.getZone4Seconds(), summary.getZone5Seconds()}))
+                .lastUpdated(summary.getFinalizedAt())
+                .build();
+    }
+
+    private VitalsActivitySummaryDTO toLiveActivitySummary(VitalSignsAccumulator accumulator) {
+        return VitalsActivitySummaryDTO.builder()
+                .studentId(accumulator.getStudentId())
+                .classroomId(accumulator.getClassroomId())
+                .taskId(accumulator.getTaskId())
+                .live(true)
+                .sampleCount(accumulator.getSampleCount())
+                .restingHeartRate(accumulator.getPreActivityHeartRate().getAverage())
+                .peakHeartRate(accumulator.getHeartRate().getMax())
+                .postActivityHeartRate(accumulator.getPostActivityHeartRate().getAverage())
+                .recoveryHeartRateDelta(accumulator.getRecoveryHeartRateDelta())
+                .minOxygenSaturation(accumulator.getOxygenSaturation().getMin())
+                .preActivitySampleCount(accumulator.getPreActivityHeartRate().getCount())
+                .postActivitySampleCount(accumulator.getPostActivityHeartRate().getCount())
+                .lastUpdated(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(accumulator.getLastUpdatedMillis()), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private VitalsActivitySummaryDTO toAggregatedActivitySummary(VitalsActivityAggregate aggregate,
+                                                                 String classroomId, String taskId) {
+        Integer peak = aggregate.peakHeartRate();
+        Double post = aggregate.postActivityHeartRate();
+        return VitalsActivitySummaryDTO.builder()
+                .studentId(aggregate.studentId())
+                .classroomId(classroomId)
+                .taskId(taskId)
+                .live(true)
+                .sampleCount(aggregate.sampleCount())
+                .restingHeartRate(aggregate.restingHeartRate())
+                .peakHeartRate(peak)
+                .postActivityHeartRate(post)
+                .recoveryHeartRateDelta(peak == null || post == null ? null : peak - post)
+                .minOxygenSaturation(aggregate.minOxygenSaturation())
+                .preActivitySampleCount(aggregate.preActivitySampleCount())
+                .postActivitySampleCount(aggregate.postActivitySampleCount())
+                .lastUpdated(aggregate.lastUpdated())
+                .build();
+    }
+
+    private VitalsActivitySummaryDTO toFinalActivitySummary(VitalSignsSummary summary) {
+        return VitalsActivitySummaryDTO.builder()
+                .studentId(summary.getStudentId())
+                .classroomId(summary.getClassroomId())
+                .taskId(summary.getTaskId())
+                .live(false)
+                .sampleCount(summary.getSampleCount())
+                .restingHeartRate(summary.getRestingHeartRate())
+                .peakHeartRate(summary.getMaxHeartRate())
+                .postActivityHeartRate(summary.getPostActivityHeartRate())
+                .recoveryHeartRateDelta(summary.getRecoveryHeartRateDelta())
+                .minOxygenSaturation(summary.getMinOxygenSaturation())
+                .preActivitySampleCount(summary.getPreActivitySampleCount() != null ? summary.getPreActivitySampleCount() : 0)
+                .postActivitySampleCount(summary.getPostActivitySampleCount() != null ? summary.getPostActivitySampleCount() : 0)
+                .lastUpdated(summary.getFinalizedAt())
+                .build();
+    }
+
+    private VitalSignsSummary toSummary(String studentId, TaskEndedEvent event, List<VitalsHeartRateBand> bands,
+                                        VitalSignsSummary summary, LocalDateTime finalizedAt) {
+        Integer predictedMaxHeartRate = studentVitalsProfileCache.get(studentId).maxHeartRate();
+        long sampleCount = 0;
+        long heartRateCount = 0;
+        long heartRateSum = 0;
+        long oxygenCount = 0;
+        long oxygenSum = 0;
+        long preActivityCount = 0;
+        long preActivitySum = 0;
+        long postActivityCount = 0;
+        long postActivitySum = 0;
+        Integer minHeartRate = null;
+        Integer maxHeartRate = null;
+        Integer minOxygen = null;
+        Integer maxOxygen = null;
+        double[] zoneSeconds = new double[VitalSignsAccumulator.ZONE_COUNT];
+        for (VitalsHeartRateBand band : bands) {
+            sampleCount += band.sampleCount();
+            oxygenCount += band.oxygenSampleCount();
+            oxygenSum += band.oxygenSaturationSum() != null ? band.oxygenSaturationSum() : 0;
+            minOxygen = min(minOxygen, band.minOxygenSaturation());
+            maxOxygen = max(maxOxygen, band.maxOxygenSaturation());
+            Integer heartRate = band.heartRate();
+            if (heartRate == null) {
+                continue;
+            }
+            heartRateCount += band.sampleCount();
+            heartRateSum += heartRate * band.sampleCount();
+            minHeartRate = min(minHeartRate, heartRate);
+            maxHeartRate = max(maxHeartRate, heartRate);
+            preActivityCount += band.preActivitySampleCount();
+            preActivitySum += heartRate * band.preActivitySampleCount();
+            postActivityCount += band.postActivitySampleCount();
+            postActivitySum += heartRate * band.postActivitySampleCount();
+            int zone = VitalSignsAccumulator.zoneOf(heartRate, predictedMaxHeartRate);
+            if (zone != VitalSignsAccumulator.NO_ZONE && band.seconds() != null) {
+                zoneSeconds[zone] += band.seconds();
+            }
+        }
+        Double postActivityHeartRate = average(postActivitySum, postActivityCount);
+        summary.setStudentId(studentId);
+        summary.setClassroomId(event.classroomPhysicalId());
+        summary.setTaskId(event.taskPhysicalId());
+        summary.setSampleCount(sampleCount);
+        summary.setMinHeartRate(minHeartRate);
+        summary.setMaxHeartRate(maxHeartRate);
+        summary.setAvgHeartRate(average(heartRateSum, heartRateCount));
+        summary.setMinOxygenSaturation(minOxygen);
+        summary.setMaxOxygenSaturation(maxOxygen);
+        summary.setAvgOxygenSaturation(average(oxygenSum, oxygenCount));
+        summary.setRestingHeartRate(average(preActivitySum, preActivityCount));
+        summary.setPostActivityHeartRate(postActivityHeartRate);
+        summary.setRecoveryHeartRateDelta(
+                maxHeartRate == null || postActivityHeartRate == null ? null : maxHeartRate - postActivityHeartRate);
+        summary.setPreActivitySampleCount(preActivityCount);
+        summary.setPostActivitySampleCount(postActivityCount);
+        summary.setPredictedMaxHeartRate(predictedMaxHeartRate);
+        summary.setZone0Seconds((long) zoneSeconds[0]);
+        summary.setZone1Seconds((long) zoneSeconds[1]);
+        summary.setZone2Seconds((long) zoneSeconds[2]);
+        summary.setZone3Seconds((long) zoneSeconds[3]);
+        summary.setZone4Seconds((long) zoneSeconds[4]);
+        summary.setZone5Seconds((long) zoneSeconds[5]);
+        summary.setFinalizedAt(finalizedAt);
+        return summary;
+    }
+
+    private static Double average(long sum, long count) {
+        return count == 0 ? null : (double) sum / count;
+    }
+
+    private static Integer min(Integer current, Integer value) {
+        return current == null || (value != null && value < current) ? value : current;
+    }
+
+    private static Integer max(Integer current, Integer value) {
+        return current == null || (value != null && value > current) ? value : current;
+    }
+
+    private static Map<String, Long> zoneMap(long[] zoneSeconds) {
+        Map<String, Long> zones = new LinkedHashMap<>();
+        for (int zone = 0; zone < zoneSeconds.length; zone++) {
+            zones.put("ZONE_" + zone, zoneSeconds[zone]);
+        }
+        return zones;
+    }
+}
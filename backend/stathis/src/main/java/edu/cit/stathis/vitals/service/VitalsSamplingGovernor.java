@@ -0,0 +1,244 @@
+package edu.cit.stathis.vitals.service;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadRoutingDataSource;
+import edu.cit.stathis.vitals.dto.VitalsSamplingControlDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tells devices how often to send vitals and throttles the ones that send faster.
+ *
+ * <p>Ingestion is synchronous, so its "queue" is the samples currently being written plus the
+ * threads waiting for a connection from the ingest pool. Together with the recent insert latency this gives one
+ * node-wide load factor; each classroom's interval is the base interval scaled by that load and by
+ * how many dashboards the classroom's broadcasts fan out to. Intervals are recomputed on a fixed
+ * delay and published to {@code /topic/classroom/{classroomId}/vitals/control} when they change.
+ *
+ * <p>Every device gets a token bucket refilled at its classroom's interval (with some slack for
+ * jitter), checked before the ingest transaction opens, so a device that ignores the interval is
+ * turned away without costing a database connection.
+ */
+@Service
+public class VitalsSamplingGovernor {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final WorkloadRoutingDataSource dataSource;
+
+    @Value("${vitals.sampling.base-interval-ms:1000}")
+    private long baseIntervalMillis;
+
+    @Value("${vitals.sampling.max-interval-ms:10000}")
+    private long maxIntervalMillis;
+
+    @Value("${vitals.sampling.interval-step-ms:250}")
+    private long intervalStepMillis;
+
+    @Value("${vitals.sampling.target-queue-depth:8}")
+    private int targetQueueDepth;
+
+    @Value("${vitals.sampling.target-write-latency-ms:50}")
+    private double targetWriteLatencyMillis;
+
+    @Value("${vitals.sampling.subscribers-per-base-interval:25}")
+    private int subscribersPerBaseInterval;
+
+    @Value("${vitals.sampling.burst:5}")
+    private int burst;
+
+    // Refill faster than the recommended interval so clock jitter on the device is not throttled
+    @Value("${vitals.sampling.throttle-slack:0.8}")
+    private double throttleSlack;
+
+    @Value("${vitals.sampling.idle-eviction-minutes:10}")
+    private long idleEvictionMinutes;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private volatile double writeLatencyMillis;
+    private volatile double loadFactor = 1;
+    private final Counter throttled;
+
+    private final Map<String, ClassroomSampling> classrooms = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> devices = new ConcurrentHashMap<>();
+
+    public VitalsSamplingGovernor(SimpMessagingTemplate messagingTemplate,
+                                  SimpUserRegistry simpUserRegistry,
+                                  WorkloadRoutingDataSource dataSource,
+                                  MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.dataSource = dataSource;
+        this.throttled = Counter.builder("stathis.vitals.sampling.throttled")
+                .description("Vitals samples rejected because the device exceeded its sampling interval")
+                .register(meterRegistry);
+        Gauge.builder("stathis.vitals.sampling.in-flight", inFlight, AtomicInteger::get)
+                .description("Vitals samples currently being ingested")
+                .register(meterRegistry);
+        Gauge.builder("stathis.vitals.sampling.load-factor", this, governor -> governor.loadFactor)
+                .description("Node-wide multiplier applied to the base sampling interval")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for the device. Returns 0 when the sample may be ingested, otherwise the number
+     * of milliseconds until the device may send again.
+     */
+    public long admit(String deviceKey, String classroomId) {
+        if (deviceKey == null || classroomId == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        ClassroomSampling classroom = classrooms.computeIfAbsent(classroomId, id -> new ClassroomSampling(baseIntervalMillis));
+        classroom.lastSampleMillis = now;
+        TokenBucket bucket = devices.computeIfAbsent(deviceKey, key -> new TokenBucket(burst, now));
+        long refillMillis = Math.max(1, (long) (classroom.intervalMillis * throttleSlack));
+        long waitMillis = bucket.tryAcquire(now, refillMillis);
+        if (waitMillis > 0) {
+            throttled.increment();
+        }
+        return waitMillis;
+    }
+
+    public long getRecommendedIntervalMillis(String classroomId) {
+        ClassroomSampling classroom = classrooms.get(classroomId);
+        return classroom != null ? classroom.intervalMillis : baseIntervalMillis;
+    }
+
+    public void ingestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void ingestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    public void recordWrite(long nanos) {
+        writeCount.increment();
+        writeNanos.add(nanos);
+    }
+
+    @Scheduled(fixedDelayString = "${vitals.sampling.update-interval-ms:5000}")
+    public void update() {
+        long now = System.currentTimeMillis();
+        long idleCutoff = now - TimeUnit.MINUTES.toMillis(idleEvictionMinutes);
+        classrooms.values().removeIf(classroom -> classroom.lastSampleMillis < idleCutoff);
+        devices.values().removeIf(bucket -> bucket.lastRefillMillis < idleCutoff);
+
+        long writes = writeCount.sumThenReset();
+        long nanos = writeNanos.sumThenReset();
+        if (writes > 0) {
+            double windowLatency = nanos / 1_000_000.0 / writes;
+            writeLatencyMillis = writeLatencyMillis == 0 ? windowLatency : 0.5 * writeLatencyMillis + 0.5 * windowLatency;
+        } else {
+            // No writes to measure; let an old spike fade out
+            writeLatencyMillis *= 0.5;
+        }
+        double queuePressure = (inFlight.get() + threadsAwaitingConnection()) / (double) targetQueueDepth;
+        double latencyPressure = writeLatencyMillis / targetWriteLatencyMillis;
+        loadFactor = Math.max(1, Math.max(queuePressure, latencyPressure));
+
+        Map<String, Integer> subscribers = countVitalsSubscribers();
+        LocalDateTime issuedAt = LocalDateTime.now();
+        for (Map.Entry<String, ClassroomSampling> entry : classrooms.entrySet()) {
+            int classroomSubscribers = subscribers.getOrDefault(entry.getKey(), 0);
+            double fanOutFactor = Math.max(1, classroomSubscribers / (double) subscribersPerBaseInterval);
+            long interval = computeInterval(loadFactor * fanOutFactor);
+            ClassroomSampling classroom = entry.getValue();
+            if (interval != classroom.intervalMillis) {
+                classroom.intervalMillis = interval;
+                messagingTemplate.convertAndSend("/topic/classroom/" + entry.getKey() + "/vitals/control",
+                        new VitalsSamplingControlDTO(entry.getKey(), interval, issuedAt));
+            }
+        }
+    }
+
+    long computeInterval(double factor) {
+        long interval = Math.round(baseIntervalMillis * factor / intervalStepMillis) * intervalStepMillis;
+        return Math.max(baseIntervalMillis, Math.min(maxIntervalMillis, interval));
+    }
+
+    private Map<String, Integer> countVitalsSubscribers() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (SimpUser user : simpUserRegistry.getUsers()) {
+            for (SimpSession session : user.getSessions()) {
+                for (SimpSubscription subscription : session.getSubscriptions()) {
+                    String classroomId = vitalsClassroom(subscription.getDestination());
+                    if (classroomId != null) {
+                        counts.merge(classroomId, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    // "/topic/classroom/{classroomId}/vitals" -> classroomId
+    static String vitalsClassroom(String destination) {
+        String prefix = "/topic/classroom/";
+        String suffix = "/vitals";
+        if (destination == null || !destination.startsWith(prefix) || !destination.endsWith(suffix)
+                || destination.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        return destination.substring(prefix.length(), destination.length() - suffix.length());
+    }
+
+    private int threadsAwaitingConnection() {
+        // Only the ingest pool's queue reflects vitals load
+        HikariPoolMXBean pool = dataSource.getPoolMXBean(Workload.INGEST);
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    private static final class ClassroomSampling {
+        private volatile long intervalMillis;
+        private volatile long lastSampleMillis;
+
+        private ClassroomSampling(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+    }
+
+    /** One token per sample, refilled continuously at the classroom's interval. */
+    static final class TokenBucket {
+        private final int capacity;
+        private double tokens;
+        private volatile long lastRefillMillis;
+
+        TokenBucket(int capacity, long nowMillis) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillMillis = nowMillis;
+        }
+
+        synchronized long tryAcquire(long nowMillis, long refillMillis) {
+            tokens = Math.min(capacity, tokens + (double) (nowMillis - lastRefillMillis) / refillMillis);
+            lastRefillMillis = nowMillis;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * refillMillis);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+-- Schema changes Hibernate's ddl-auto=validate will not make on an existing PostgreSQL database.
+-- Every statement is idempotent. The prod profile runs this file before the JPA validation
+-- (spring.sql.init.*); to apply it by hand use: psql -v ON_ERROR_STOP=1 -f upgrade.sql after
+-- replacing each "^;" separator with ";".
+--
+-- Tables and indexes covered, with the entity that declares them:
+--   vital_signs          uk_vital_signs_student_task_ts, idx_vital_signs_classroom_task_ts,
+--                        idx_vital_signs_student_task_ts                        (VitalSigns)
+--   vital_signs_summary  table, uk_vital_signs_summary_student_task,
+--                        idx_vital_signs_summary_classroom_task                 (VitalSignsSummary)
+--   outbox_events        table, idx_outbox_events_next_attempt                  (OutboxEvent)
+--   template_invalidations table, idx_template_invalidations_created_at      (TemplateInvalidation)
+--   tokens               selector column, uk_tokens_selector, idx_tokens_user_type,
+--                        idx_tokens_expires_at                                  (Token)
+--   classroom_students   uk_classroom_students_classroom_student,
+--                        idx_classroom_students_classroom_verified              (ClassroomStudents)
+--   users                user_role check constraint including ADMIN             (UserRoleEnum)
+
+-- Ingestion inserts with ON CONFLICT (student_id, task_id, timestamp), which needs this exact
+-- unique constraint. Readings stored twice before it existed are collapsed onto the first row.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_vital_signs_student_task_ts') THEN
+        DELETE FROM vital_signs v
+        USING vital_signs d
+        WHERE v.student_id = d.student_id
+          AND v.task_id = d.task_id
+          AND v.timestamp = d.timestamp
+          AND v.id > d.id;
+        ALTER TABLE vital_signs
+            ADD CONSTRAINT uk_vital_signs_student_task_ts UNIQUE (student_id, task_id, timestamp);
+    END IF;
+END $$^;
+
+CREATE INDEX IF NOT EXISTS idx_vital_signs_classroom_task_ts
+    ON vital_signs (classroom_id, task_id, timestamp, id)^;
+
+CREATE INDEX IF NOT EXISTS idx_vital_signs_student_task_ts
+    ON vital_signs (student_id, task_id, timestamp, id)^;
+
+CREATE TABLE IF NOT EXISTS vital_signs_summary (
+    id                          BIGSERIAL PRIMARY KEY,
+    student_id                  VARCHAR(255) NOT NULL,
+    classroom_id                VARCHAR(255) NOT NULL,
+    task_id                     VARCHAR(255) NOT NULL,
+    sample_count                BIGINT NOT NULL,
+    min_heart_rate              INTEGER,
+    max_heart_rate              INTEGER,
+    avg_heart_rate              DOUBLE PRECISION,
+    min_oxygen_saturation       INTEGER,
+    max_oxygen_saturation       INTEGER,
+    avg_oxygen_saturation       DOUBLE PRECISION,
+    resting_heart_rate          DOUBLE PRECISION,
+    post_activity_heart_rate    DOUBLE PRECISION,
+    recovery_heart_rate_delta   DOUBLE PRECISION,
+    pre_activity_sample_count   BIGINT,
+    post_activity_sample_count  BIGINT,
+    predicted_max_heart_rate    INTEGER,
+    zone0_seconds               BIGINT,
+    zone1_seconds               BIGINT,
+    zone2_seconds               BIGINT,
+    zone3_seconds               BIGINT,
+    zone4_seconds               BIGINT,
+    zone5_seconds               BIGINT,
+    finalized_at                TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_vital_signs_summary_student_task UNIQUE (student_id, task_id)
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_vital_signs_summary_classroom_task
+    ON vital_signs_summary (classroom_id, task_id)^;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id               BIGSERIAL PRIMARY KEY,
+    event_type       VARCHAR(64) NOT NULL,
+    payload          TEXT NOT NULL,
+    created_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    next_attempt_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    attempts         INTEGER NOT NULL,
+    last_error       VARCHAR(1000)
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_next_attempt
+    ON outbox_events (next_attempt_at)^;
+
+CREATE TABLE IF NOT EXISTS template_invalidations (
+    id             BIGSERIAL PRIMARY KEY,
+    template_kind  VARCHAR(16) NOT NULL,
+    physical_id    VARCHAR(255) NOT NULL,
+    created_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_template_invalidations_created_at
+    ON template_invalidations (created_at)^;
+
+-- Null for tokens issued before the selector.verifier format
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS selector VARCHAR(32)^;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_tokens_selector ON tokens (selector)^;
+
+CREATE INDEX IF NOT EXISTS idx_tokens_user_type ON tokens (user_id, token_type)^;
+
+CREATE INDEX IF NOT EXISTS idx_tokens_expires_at ON tokens (expires_at)^;
+
+-- A student enrolled twice keeps the verified enrollment, else the oldest one
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_classroom_students_classroom_student') THEN
+        DELETE FROM classroom_students
+        WHERE physical_id IN (
+            SELECT physical_id
+            FROM (SELECT physical_id,
+                         ROW_NUMBER() OVER (PARTITION BY classroom_id, student_id
+                                            ORDER BY verified DESC, created_at, physical_id) AS rn
+                  FROM classroom_students) ranked
+            WHERE rn > 1);
+        ALTER TABLE classroom_students
+            ADD CONSTRAINT uk_classroom_students_classroom_student UNIQUE (classroom_id, student_id);
+    END IF;
+END $$^;
+
+CREATE INDEX IF NOT EXISTS idx_classroom_students_classroom_verified
+    ON classroom_students (classroom_id, verified)^;
+
+-- Hibernate creates the enum check when it creates the table and never widens it
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_user_role_check^;
+
+ALTER TABLE users ADD CONSTRAINT users_user_role_check
+    CHECK (user_role IN ('GUEST_USER', 'STUDENT', 'TEACHER', 'ADMIN'))^;
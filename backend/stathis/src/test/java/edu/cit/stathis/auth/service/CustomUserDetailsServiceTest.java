@@ -0,0 +1,96 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import edu.cit.stathis.auth.repository.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CustomUserDetailsServiceTest {
+
+  private static final String EMAIL = "24-0001-001@cit.edu";
+  private static final AuthenticatedUser FROM_TOKEN =
+      new AuthenticatedUser(UUID.randomUUID(), "24-0001-001", EMAIL, "ROLE_STUDENT");
+
+  private UserRepository userRepository;
+  private CustomUserDetailsService userDetailsService;
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    userDetailsService = new CustomUserDetailsService();
+    ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+    ReflectionTestUtils.setField(userDetailsService, "userCheckTtlMillis", 30_000L);
+    ReflectionTestUtils.setField(userDetailsService, "userCheckMaxSize", 100L);
+    userDetailsService.init();
+  }
+
+  @AfterEach
+  void teardown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void trustsTokenPrincipalWithoutQuery() {
+    assertSame(FROM_TOKEN, userDetailsService.resolvePrincipal(EMAIL, FROM_TOKEN).orElseThrow());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void physicalIdServiceAnswersFromPrincipal() {
+    PhysicalIdService physicalIdService = new PhysicalIdService();
+    ReflectionTestUtils.setField(physicalIdService, "userRepository", userRepository);
+    SecurityContextHolder.getContext()
+        .setAuthentication(UsernamePasswordAuthenticationToken.authenticated(FROM_TOKEN, null, List.of()));
+
+    assertEquals("24-0001-001", physicalIdService.getCurrentUserPhysicalId());
+    assertEquals(FROM_TOKEN.userId(), physicalIdService.getCurrentUserUUID());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void userCheckRejectsDeletedOrReroledUsersAndCachesLookups() {
+    ReflectionTestUtils.setField(userDetailsService, "userCheckEnabled", true);
+    User teacher =
+        User.builder()
+            .userId(FROM_TOKEN.userId())
+            .physicalId("24-0001-001")
+            .email(EMAIL)
+            .userRole(UserRoleEnum.TEACHER)
+            .build();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(teacher));
+
+    assertTrue(userDetailsService.resolvePrincipal(EMAIL, FROM_TOKEN).isEmpty());
+    assertTrue(userDetailsService.resolvePrincipal(EMAIL, FROM_TOKEN).isEmpty());
+    verify(userRepository, times(1)).findByEmail(EMAIL);
+
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+    userDetailsService.evict(EMAIL);
+    assertTrue(userDetailsService.resolvePrincipal(EMAIL, FROM_TOKEN).isEmpty());
+  }
+
+  @Test
+  void resolvesOlderTokensByLookup() {
+    User student =
+        User.builder()
+            .userId(FROM_TOKEN.userId())
+            .physicalId("24-0001-001")
+            .email(EMAIL)
+            .userRole(UserRoleEnum.STUDENT)
+            .build();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(student));
+
+    assertEquals(FROM_TOKEN, userDetailsService.resolvePrincipal(EMAIL, null).orElseThrow());
+  }
+}
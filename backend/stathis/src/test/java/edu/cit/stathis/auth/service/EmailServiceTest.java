@@ -0,0 +1,130 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.TokenTypeEnum;
+import edu.cit.stathis.auth.repository.UserRepository;
+import edu.cit.stathis.auth.service.EmailService.OutgoingEmail;
+import edu.cit.stathis.auth.service.PasswordResetEmailHandler.PasswordResetEmail;
+import edu.cit.stathis.auth.service.TokenService.CreatedToken;
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** Sends through an embedded SMTP server standing in for Gmail. */
+public class EmailServiceTest {
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private JavaMailSenderImpl mailSender;
+
+  @BeforeEach
+  void setup() {
+    mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(greenMail.getSmtp().getPort());
+  }
+
+  @Test
+  void sendsBatchOverSmtp() throws Exception {
+    EmailService emailService = emailService(6000);
+
+    emailService.handle(
+        List.of(
+            new OutgoingEmail("a@cit.edu", "Reset Your Password", "<a href=\"x\">reset</a>"),
+            new OutgoingEmail("b@cit.edu", "Reset Your Password", "<a href=\"y\">reset</a>")));
+
+    MimeMessage[] received = greenMail.getReceivedMessages();
+    assertEquals(2, received.length);
+    assertEquals("Reset Your Password", received[0].getSubject());
+  }
+
+  @Test
+  void defersWhatTheRateLimitDoesNotAllow() {
+    EmailService emailService = emailService(60);
+
+    PartialDeliveryException e =
+        assertThrows(
+            PartialDeliveryException.class,
+            () ->
+                emailService.handle(
+                    List.of(
+                        new OutgoingEmail("a@cit.edu", "s", "t"),
+                        new OutgoingEmail("b@cit.edu", "s", "t"),
+                        new OutgoingEmail("c@cit.edu", "s", "t"))));
+
+    assertTrue(e.getFailed().isEmpty());
+    assertEquals(Set.of(1, 2), e.getDeferred());
+    assertEquals(1, greenMail.getReceivedMessages().length);
+  }
+
+  @Test
+  void reportsEverythingFailedWhenServerIsDown() {
+    mailSender.setPort(1);
+    EmailService emailService = emailService(6000);
+
+    PartialDeliveryException e =
+        assertThrows(
+            PartialDeliveryException.class,
+            () -> emailService.handle(List.of(new OutgoingEmail("a@cit.edu", "s", "t"))));
+
+    assertEquals(Set.of(0), e.getFailed());
+  }
+
+  @Test
+  void issuesResetTokensOnlyForMailThatGoesOut() {
+    UUID userId = UUID.randomUUID();
+    User user = User.builder().userId(userId).email("a@cit.edu").build();
+    UserRepository userRepository = mock(UserRepository.class);
+    when(userRepository.findByUserId(userId)).thenReturn(Optional.of(user));
+    TokenService tokenService = mock(TokenService.class);
+    when(tokenService.createToken(eq(user), eq(TokenTypeEnum.PASSWORD_RESET), any()))
+        .thenReturn(new CreatedToken("selector.verifier", null));
+    PasswordResetEmailHandler handler = new PasswordResetEmailHandler();
+    ReflectionTestUtils.setField(handler, "emailService", emailService(60));
+    ReflectionTestUtils.setField(handler, "tokenService", tokenService);
+    ReflectionTestUtils.setField(handler, "userRepository", userRepository);
+
+    PartialDeliveryException e =
+        assertThrows(
+            PartialDeliveryException.class,
+            () ->
+                handler.handle(
+                    List.of(
+                        new PasswordResetEmail(userId, "a@cit.edu"),
+                        new PasswordResetEmail(userId, "a@cit.edu"))));
+
+    // The second mail is held back by the rate limit before any token is issued for it
+    assertEquals(Set.of(1), e.getDeferred());
+    verify(tokenService, times(1)).createToken(eq(user), eq(TokenTypeEnum.PASSWORD_RESET), any());
+    assertTrue(GreenMailUtil.getBody(greenMail.getReceivedMessages()[0]).contains("selector.verifier"));
+  }
+
+  private EmailService emailService(double ratePerMinute) {
+    EmailService emailService = new EmailService();
+    ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+    ReflectionTestUtils.setField(emailService, "mailFrom", "noreply@stathis.test");
+    ReflectionTestUtils.setField(emailService, "ratePerMinute", ratePerMinute);
+    emailService.init();
+    return emailService;
+  }
+}
@@ -0,0 +1,84 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.auth.repository.TokenRepository;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadBulkheadAspect;
+import edu.cit.stathis.common.datasource.WorkloadContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+public class TokenPurgeJobTest {
+
+  private TokenRepository tokenRepo;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setup() {
+    tokenRepo = mock(TokenRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void deletesInBatchesUntilShortBatch() {
+    when(tokenRepo.deletePurgeable(any(), eq(100))).thenReturn(100, 100, 42);
+    when(tokenRepo.count()).thenReturn(1000L);
+
+    job(true, 10).purge();
+
+    ArgumentCaptor<OffsetDateTime> cutoff = ArgumentCaptor.forClass(OffsetDateTime.class);
+    verify(tokenRepo, times(3)).deletePurgeable(cutoff.capture(), eq(100));
+    assertTrue(cutoff.getValue().isBefore(OffsetDateTime.now().minusDays(6)));
+    assertEquals(242, meterRegistry.get("stathis.tokens.purged").counter().count());
+    assertEquals(1000, meterRegistry.get("stathis.tokens.rows").gauge().value());
+  }
+
+  @Test
+  void stopsAtMaxBatchesPerRun() {
+    when(tokenRepo.deletePurgeable(any(), eq(100))).thenReturn(100);
+
+    job(true, 3).purge();
+
+    verify(tokenRepo, times(3)).deletePurgeable(any(), eq(100));
+  }
+
+  @Test
+  void doesNothingWhenDisabled() {
+    job(false, 10).purge();
+
+    verifyNoInteractions(tokenRepo);
+  }
+
+  @Test
+  void deletesOnTheBackgroundWorkload() {
+    List<Workload> workloads = new ArrayList<>();
+    when(tokenRepo.deletePurgeable(any(), eq(100)))
+        .thenAnswer(
+            invocation -> {
+              workloads.add(WorkloadContext.current());
+              return 0;
+            });
+    AspectJProxyFactory factory = new AspectJProxyFactory(job(true, 10));
+    factory.addAspect(new WorkloadBulkheadAspect(new MockEnvironment(), meterRegistry));
+    TokenPurgeJob proxy = factory.getProxy();
+
+    proxy.purge();
+
+    assertEquals(List.of(Workload.BACKGROUND), workloads);
+  }
+
+  private TokenPurgeJob job(boolean enabled, int maxBatches) {
+    return new TokenPurgeJob(tokenRepo, meterRegistry, enabled, 7, 100, maxBatches, 0);
+  }
+}
@@ -0,0 +1,83 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.auth.entity.Token;
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.TokenTypeEnum;
+import edu.cit.stathis.auth.repository.TokenRepository;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TokenServiceTest {
+
+  private TokenRepository tokenRepo;
+  private TokenService tokenService;
+
+  @BeforeEach
+  void setup() {
+    tokenRepo = mock(TokenRepository.class);
+    tokenService = new TokenService();
+    ReflectionTestUtils.setField(tokenService, "tokenRepo", tokenRepo);
+    ReflectionTestUtils.setField(tokenService, "passwordEncoder", new BCryptPasswordEncoder(4));
+    ReflectionTestUtils.setField(tokenService, "hashSecret", "test-secret");
+    ReflectionTestUtils.setField(tokenService, "legacyFallbackEnabled", true);
+  }
+
+  @Test
+  void findsTokenBySelectorAndVerifiesHash() {
+    String raw = issue(TokenTypeEnum.REFRESH, OffsetDateTime.now().plusDays(7));
+
+    assertTrue(tokenService.getValidToken(raw, TokenTypeEnum.REFRESH).isPresent());
+    assertFalse(tokenService.getValidToken(raw, TokenTypeEnum.PASSWORD_RESET).isPresent());
+    String tampered = raw.substring(0, raw.indexOf('.') + 1) + "AAAA";
+    assertFalse(tokenService.getValidToken(tampered, TokenTypeEnum.REFRESH).isPresent());
+    verify(tokenRepo, never()).findAllBySelectorIsNullAndRevokedFalseAndExpiresAtAfter(any());
+  }
+
+  @Test
+  void rejectsExpiredAndRevokedTokens() {
+    String expired = issue(TokenTypeEnum.REFRESH, OffsetDateTime.now().minusMinutes(1));
+    assertFalse(tokenService.validateToken(expired, TokenTypeEnum.REFRESH));
+
+    String revoked = issue(TokenTypeEnum.REFRESH, OffsetDateTime.now().plusDays(7));
+    tokenService.revokeToken(revoked);
+    assertFalse(tokenService.validateToken(revoked, TokenTypeEnum.REFRESH));
+  }
+
+  @Test
+  void acceptsLegacyTokensThroughFallback() {
+    String legacyRaw = "7d1c2a0e-0b7e-4f6e-9d8a-2f4b5c6d7e8f";
+    Token legacy =
+        Token.builder()
+            .tokenType(TokenTypeEnum.REFRESH)
+            .tokenHash(new BCryptPasswordEncoder(4).encode(legacyRaw))
+            .expiresAt(OffsetDateTime.now().plusDays(1))
+            .build();
+    when(tokenRepo.findAllBySelectorIsNullAndRevokedFalseAndExpiresAtAfter(any()))
+        .thenReturn(List.of(legacy));
+
+    assertTrue(tokenService.validateToken(legacyRaw, TokenTypeEnum.REFRESH));
+
+    ReflectionTestUtils.setField(tokenService, "legacyFallbackEnabled", false);
+    assertFalse(tokenService.validateToken(legacyRaw, TokenTypeEnum.REFRESH));
+  }
+
+  private String issue(TokenTypeEnum type, OffsetDateTime expiresAt) {
+    String raw = tokenService.createToken(new User(), type, expiresAt).rawToken();
+    ArgumentCaptor<Token> saved = ArgumentCaptor.forClass(Token.class);
+    verify(tokenRepo, atLeastOnce()).save(saved.capture());
+    Token token = saved.getValue();
+    assertNotEquals(raw.substring(raw.indexOf('.') + 1), token.getTokenHash());
+    when(tokenRepo.findBySelector(token.getSelector())).thenReturn(Optional.of(token));
+    return raw;
+  }
+}
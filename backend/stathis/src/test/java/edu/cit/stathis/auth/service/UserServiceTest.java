@@ -0,0 +1,134 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.auth.dto.AuthResponseDTO;
+import edu.cit.stathis.auth.dto.LoginDTO;
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.TokenTypeEnum;
+import edu.cit.stathis.auth.repository.TokenRepository;
+import edu.cit.stathis.auth.repository.UserProfileRepository;
+import edu.cit.stathis.auth.repository.UserRepository;
+import edu.cit.stathis.common.utils.JwtUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Login against the transactional proxies: authentication may wait on the hashing pool and must
+ * run before any transaction (and so any pooled connection) is opened.
+ */
+@SpringJUnitConfig(UserServiceTest.Config.class)
+@TestPropertySource(properties = "token.hash-secret=test-secret")
+public class UserServiceTest {
+
+  private static final String EMAIL = "24-0001-001@cit.edu";
+
+  @Autowired private UserService userService;
+  @Autowired private RecordingTransactionManager transactionManager;
+
+  @MockitoBean private UserRepository uRepo;
+  @MockitoBean private UserProfileRepository upRepo;
+  @MockitoBean private TokenRepository tokenRepo;
+  @MockitoBean private PasswordEncoder passwordEncoder;
+  @MockitoBean private EmailService emailService;
+  @MockitoBean private AuthenticationManager authenticationManager;
+  @MockitoBean private JwtUtil jwtUtil;
+  @MockitoBean private CustomUserDetailsService userDetailsService;
+  @MockitoBean private WebhookService webhookService;
+  @MockitoBean private PhysicalIdService physicalIdService;
+
+  @BeforeEach
+  void setup() {
+    transactionManager.events.clear();
+  }
+
+  @AfterEach
+  void teardown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void authenticatesOutsideTheTransactionThatRotatesTokens() {
+    User user = User.builder().email(EMAIL).build();
+    when(authenticationManager.authenticate(any()))
+        .thenAnswer(
+            invocation -> {
+              transactionManager.events.add("authenticate");
+              return UsernamePasswordAuthenticationToken.authenticated(EMAIL, null, List.of());
+            });
+    when(uRepo.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    when(jwtUtil.generateToken(user)).thenReturn("access");
+    when(tokenRepo.revokeAllByUserAndTokenType(user, TokenTypeEnum.REFRESH))
+        .thenAnswer(invocation -> transactionManager.events.add("revoke") ? 1 : 0);
+
+    LoginDTO login = new LoginDTO();
+    login.setEmail(EMAIL);
+    login.setPassword("secret");
+    AuthResponseDTO response = userService.loginAndGenerateTokens(login);
+
+    assertEquals("access", response.getAccessToken());
+    assertNotNull(response.getRefreshToken());
+    assertEquals(List.of("authenticate", "begin", "revoke", "commit"), transactionManager.events);
+    verify(tokenRepo).save(any());
+  }
+
+  @Configuration
+  @EnableTransactionManagement
+  @Import({UserService.class, TokenService.class})
+  static class Config {
+
+    @Bean
+    RecordingTransactionManager transactionManager() {
+      return new RecordingTransactionManager();
+    }
+  }
+
+  /** Records where transactions begin and end relative to the calls made inside them. */
+  static class RecordingTransactionManager extends AbstractPlatformTransactionManager
+      implements PlatformTransactionManager {
+
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+      events.add("begin");
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+      events.add("commit");
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+      events.add("rollback");
+    }
+  }
+}
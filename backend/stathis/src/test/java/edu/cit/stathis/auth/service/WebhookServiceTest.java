@@ -0,0 +1,43 @@
+package edu.cit.stathis.auth.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class WebhookServiceTest {
+
+  @Test
+  void retriesOnlyTheNotificationsThatWereNotSent() {
+    SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    WebhookService webhookService = new WebhookService();
+    ReflectionTestUtils.setField(webhookService, "messagingTemplate", messagingTemplate);
+    WebhookService.UserEvent sent = event();
+    WebhookService.UserEvent failing = event();
+    doThrow(new MessageDeliveryException("broker unavailable"))
+        .when(messagingTemplate)
+        .convertAndSend(eq("/topic/user/" + failing.userId()), any(Object.class));
+
+    PartialDeliveryException partial =
+        assertThrows(
+            PartialDeliveryException.class,
+            () -> webhookService.handle(List.of(sent, failing, event())));
+
+    assertEquals(Set.of(1), partial.getFailed());
+    verify(messagingTemplate, times(3)).convertAndSend(any(String.class), any(Object.class));
+  }
+
+  private static WebhookService.UserEvent event() {
+    UUID userId = UUID.randomUUID();
+    return new WebhookService.UserEvent(userId, userId + "@cit.edu", "24-0001-001", "registered");
+  }
+}
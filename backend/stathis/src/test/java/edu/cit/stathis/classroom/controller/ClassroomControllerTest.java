@@ -0,0 +1,44 @@
+package edu.cit.stathis.classroom.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.cit.stathis.classroom.service.ClassroomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/** Request validation of the bulk roster endpoints, without security; the service is mocked. */
+public class ClassroomControllerTest {
+
+  private ClassroomService classroomService;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setup() {
+    classroomService = mock(ClassroomService.class);
+    ClassroomController controller = new ClassroomController();
+    ReflectionTestUtils.setField(controller, "classroomService", classroomService);
+    mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @Test
+  void rejectsBulkRequestsWithoutStudentIds() throws Exception {
+    for (String action : new String[] {"verify", "unenroll"}) {
+      mockMvc
+          .perform(
+              post("/api/classrooms/ROOM-26-001/students/" + action)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content("{\"studentIds\":[]}"))
+          .andExpect(status().isBadRequest());
+    }
+
+    verify(classroomService, never()).verifyStudents(any(), any());
+    verify(classroomService, never()).unenrollStudents(any(), any());
+  }
+}
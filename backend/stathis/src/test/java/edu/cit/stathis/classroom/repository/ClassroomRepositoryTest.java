@@ -0,0 +1,116 @@
+package edu.cit.stathis.classroom.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.classroom.dto.ClassroomSummary;
+import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+public class ClassroomRepositoryTest {
+
+  private static final String TEACHER = "26-1000-000";
+
+  @Autowired private ClassroomRepository classroomRepository;
+  @Autowired private EntityManager entityManager;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    profile(TEACHER, "Ada", "Lovelace");
+    Classroom crowded = classroom("ROOM-26-001", "FISH-000001");
+    classroom("ROOM-26-002", "STAR-000002");
+    for (int i = 0; i < 30; i++) {
+      ClassroomStudents enrollment = new ClassroomStudents();
+      enrollment.setPhysicalId(String.format("CS-26-%03d", i));
+      enrollment.setClassroom(crowded);
+      enrollment.setStudent(profile(String.format("26-0000-%03d", i), "S", "" + i));
+      entityManager.persist(enrollment);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void teacherListingIsOneStatement() {
+    List<ClassroomSummary> summaries = classroomRepository.findSummariesByTeacherId(TEACHER);
+
+    assertEquals(
+        List.of("ROOM-26-001", "ROOM-26-002"),
+        summaries.stream().map(ClassroomSummary::physicalId).toList());
+    assertEquals(30, summaries.get(0).studentCount());
+    assertEquals(0, summaries.get(1).studentCount());
+    assertEquals("Ada", summaries.get(0).teacherFirstName());
+    assertEquals("Lovelace", summaries.get(0).teacherLastName());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void studentListingCountsTheWholeRoster() {
+    List<ClassroomSummary> summaries = classroomRepository.findSummariesByStudentPhysicalId("26-0000-007");
+
+    assertEquals(1, summaries.size());
+    assertEquals("ROOM-26-001", summaries.get(0).physicalId());
+    assertEquals(30, summaries.get(0).studentCount());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertTrue(classroomRepository.findSummariesByStudentPhysicalId("26-9999-999").isEmpty());
+  }
+
+  @Test
+  void teacherWithoutAProfileStillListsTheClassroom() {
+    Classroom orphaned = new Classroom();
+    orphaned.setPhysicalId("ROOM-26-003");
+    orphaned.setName("PE 103");
+    orphaned.setTeacherId("26-3000-000");
+    orphaned.setClassroomCode("MOON-000003");
+    entityManager.persist(orphaned);
+    entityManager.flush();
+
+    List<ClassroomSummary> summaries = classroomRepository.findSummariesByTeacherId("26-3000-000");
+
+    assertEquals(1, summaries.size());
+    assertNull(summaries.get(0).teacherName());
+  }
+
+  private Classroom classroom(String physicalId, String code) {
+    Classroom classroom = new Classroom();
+    classroom.setPhysicalId(physicalId);
+    classroom.setName("PE " + physicalId);
+    classroom.setTeacherId(TEACHER);
+    classroom.setClassroomCode(code);
+    entityManager.persist(classroom);
+    return classroom;
+  }
+
+  private UserProfile profile(String physicalId, String firstName, String lastName) {
+    User user =
+        User.builder()
+            .physicalId(physicalId)
+            .email(physicalId + "@cit.edu")
+            .passwordHash("{bcrypt}x")
+            .build();
+    entityManager.persist(user);
+    UserProfile profile =
+        UserProfile.builder().user(user).firstName(firstName).lastName(lastName).build();
+    entityManager.persist(profile);
+    return profile;
+  }
+}
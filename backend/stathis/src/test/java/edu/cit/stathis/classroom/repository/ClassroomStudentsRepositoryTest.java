@@ -0,0 +1,93 @@
+package edu.cit.stathis.classroom.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import jakarta.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+public class ClassroomStudentsRepositoryTest {
+
+  private static final int ROSTER_SIZE = 200;
+
+  @Autowired private ClassroomStudentsRepository classroomStudentsRepository;
+  @Autowired private EntityManager entityManager;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    Classroom classroom = new Classroom();
+    classroom.setPhysicalId("ROOM-26-001");
+    classroom.setName("PE 101");
+    classroom.setTeacherId("26-0000-000");
+    classroom.setClassroomCode("FISH-000001");
+    entityManager.persist(classroom);
+    for (int i = 0; i < ROSTER_SIZE; i++) {
+      ClassroomStudents enrollment = new ClassroomStudents();
+      enrollment.setPhysicalId(String.format("CS-26-%03d", i));
+      enrollment.setClassroom(classroom);
+      enrollment.setStudent(student(i));
+      enrollment.setVerified(i % 2 == 0);
+      entityManager.persist(enrollment);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void membershipIsAnsweredWithoutLoadingTheRoster() {
+    assertTrue(classroomStudentsRepository.existsEnrollment("ROOM-26-001", physicalId(7)));
+    assertTrue(classroomStudentsRepository.existsVerifiedEnrollment("ROOM-26-001", physicalId(8)));
+    assertFalse(classroomStudentsRepository.existsVerifiedEnrollment("ROOM-26-001", physicalId(7)));
+    assertFalse(classroomStudentsRepository.existsEnrollment("ROOM-26-001", "26-9999-999"));
+    assertFalse(classroomStudentsRepository.existsEnrollment("ROOM-26-404", physicalId(7)));
+
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(5, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void enrollmentIsFoundAndRemovedIndividually() {
+    ClassroomStudents enrollment =
+        classroomStudentsRepository.findEnrollment("ROOM-26-001", physicalId(3)).orElseThrow();
+    assertEquals("CS-26-003", enrollment.getPhysicalId());
+
+    assertEquals(1, classroomStudentsRepository.deleteEnrollment("ROOM-26-001", physicalId(3)));
+    assertFalse(classroomStudentsRepository.existsEnrollment("ROOM-26-001", physicalId(3)));
+    assertEquals(ROSTER_SIZE - 1, classroomStudentsRepository.count());
+  }
+
+  private UserProfile student(int i) {
+    User user =
+        User.builder()
+            .physicalId(physicalId(i))
+            .email("student" + i + "@cit.edu")
+            .passwordHash("{bcrypt}x")
+            .build();
+    entityManager.persist(user);
+    UserProfile profile = UserProfile.builder().user(user).firstName("S").lastName("" + i).build();
+    entityManager.persist(profile);
+    return profile;
+  }
+
+  private static String physicalId(int i) {
+    return String.format("26-0000-%03d", i);
+  }
+}
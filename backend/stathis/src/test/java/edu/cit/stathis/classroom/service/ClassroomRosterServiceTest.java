@@ -0,0 +1,155 @@
+package edu.cit.stathis.classroom.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.auth.service.UserService;
+import edu.cit.stathis.classroom.dto.StudentListPageDTO;
+import edu.cit.stathis.classroom.dto.StudentListResponseDTO;
+import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@Import({ClassroomService.class, ClassroomRosterService.class})
+public class ClassroomRosterServiceTest {
+
+  private static final String TEACHER = "26-1000-000";
+  private static final String CLASSROOM = "ROOM-26-001";
+  private static final String[] LAST_NAMES = {"reyes", "Santos", "cruz", "Bautista", "Garcia"};
+
+  @Autowired private ClassroomRosterService classroomRosterService;
+  @Autowired private EntityManager entityManager;
+
+  @MockitoBean private UserService userService;
+  @MockitoBean private PhysicalIdService physicalIdService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    when(physicalIdService.getCurrentUserPhysicalId()).thenReturn(TEACHER);
+    Classroom classroom = new Classroom();
+    classroom.setPhysicalId(CLASSROOM);
+    classroom.setName("PE 101");
+    classroom.setTeacherId(TEACHER);
+    classroom.setClassroomCode("FISH-000001");
+    entityManager.persist(classroom);
+    // Five students share each last name, in mixed case, so the keyset has to break ties
+    for (int i = 0; i < 25; i++) {
+      ClassroomStudents enrollment = new ClassroomStudents();
+      enrollment.setPhysicalId(String.format("CS-26-%09d", i));
+      enrollment.setClassroom(classroom);
+      enrollment.setStudent(profile(i, LAST_NAMES[i % 5], i % 3 == 0 ? "Ana" : "Ben_" + i));
+      enrollment.setVerified(i % 2 == 0);
+      entityManager.persist(enrollment);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void pagesThroughTheRosterInNameOrder() {
+    List<StudentListResponseDTO> all = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      StudentListPageDTO page = classroomRosterService.getRosterPage(CLASSROOM, null, null, cursor, 10);
+      all.addAll(page.getItems());
+      cursor = page.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(3, pages);
+    assertEquals(25, all.size());
+    assertEquals(25, all.stream().map(StudentListResponseDTO::getPhysicalId).distinct().count());
+    List<String> keys =
+        all.stream()
+            .map(s -> (s.getLastName() + "|" + s.getFirstName()).toLowerCase())
+            .toList();
+    assertEquals(keys.stream().sorted().toList(), keys);
+    assertEquals("Bautista", all.get(0).getLastName());
+  }
+
+  @Test
+  void eachPageIsOneQueryAfterTheMembershipCheck() {
+    StudentListPageDTO first = classroomRosterService.getRosterPage(CLASSROOM, null, null, null, 10);
+    statistics.clear();
+    classroomRosterService.getRosterPage(CLASSROOM, null, null, first.getNextCursor(), 10);
+
+    // Existence of the enrollment, teacher check, then the page itself
+    assertEquals(3, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void searchesNamePrefixesCaseInsensitivelyAndFiltersByStatus() {
+    assertEquals(5, search("SAN", null).size());
+    assertEquals(5, search("reY", null).size());
+    assertEquals(9, search("ana", null).size());
+    assertEquals(1, search("student07@", null).size());
+    assertEquals(8, search("ben_1", null).size());
+    // LIKE metacharacters in the query are matched literally
+    assertTrue(search("ben%", null).isEmpty());
+    assertEquals(13, search(null, true).size());
+    assertTrue(search("santos", true).stream().allMatch(StudentListResponseDTO::isVerified));
+    assertTrue(search("zzz", null).isEmpty());
+  }
+
+  @Test
+  void rejectsNonMembersAndForgedCursors() {
+    ResponseStatusException badCursor =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> classroomRosterService.getRosterPage(CLASSROOM, null, null, "not-a-cursor", 10));
+    assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+
+    when(physicalIdService.getCurrentUserPhysicalId()).thenReturn("26-2000-000");
+    ResponseStatusException outsider =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> classroomRosterService.getRosterPage(CLASSROOM, null, null, null, 10));
+    assertEquals(HttpStatus.FORBIDDEN, outsider.getStatusCode());
+  }
+
+  private List<StudentListResponseDTO> search(String query, Boolean verified) {
+    return classroomRosterService.getRosterPage(CLASSROOM, query, verified, null, 200).getItems();
+  }
+
+  private UserProfile profile(int i, String lastName, String firstName) {
+    User user =
+        User.builder()
+            .physicalId(String.format("26-0000-%03d", i))
+            .email(String.format("student%02d@cit.edu", i))
+            .userRole(UserRoleEnum.STUDENT)
+            .passwordHash("{bcrypt}x")
+            .build();
+    entityManager.persist(user);
+    UserProfile profile =
+        UserProfile.builder().user(user).firstName(firstName).lastName(lastName).build();
+    entityManager.persist(profile);
+    return profile;
+  }
+}
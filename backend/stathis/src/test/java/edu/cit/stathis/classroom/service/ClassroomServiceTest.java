@@ -0,0 +1,205 @@
+package edu.cit.stathis.classroom.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import edu.cit.stathis.auth.repository.UserProfileRepository;
+import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.auth.service.UserService;
+import edu.cit.stathis.classroom.dto.ClassroomSummary;
+import edu.cit.stathis.classroom.dto.RosterRowResultDTO;
+import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import edu.cit.stathis.classroom.enums.RosterRowStatusEnum;
+import edu.cit.stathis.classroom.repository.ClassroomStudentsRepository;
+import jakarta.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+      "spring.jpa.properties.hibernate.order_inserts=true"
+    })
+@Import(ClassroomService.class)
+public class ClassroomServiceTest {
+
+  private static final String TEACHER = "26-1000-000";
+  private static final String CLASSROOM = "ROOM-26-001";
+
+  @Autowired private ClassroomService classroomService;
+  @Autowired private ClassroomStudentsRepository classroomStudentsRepository;
+  @Autowired private UserProfileRepository userProfileRepository;
+  @Autowired private EntityManager entityManager;
+
+  @MockitoBean private UserService userService;
+  @MockitoBean private PhysicalIdService physicalIdService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    when(physicalIdService.getCurrentUserPhysicalId()).thenReturn(TEACHER);
+    when(userService.findUserProfilesByEmails(any()))
+        .thenAnswer(
+            invocation -> userProfileRepository.findAllByUserEmailIn(invocation.getArgument(0)));
+
+    profile(TEACHER, UserRoleEnum.TEACHER);
+    Classroom classroom = new Classroom();
+    classroom.setPhysicalId(CLASSROOM);
+    classroom.setName("PE 101");
+    classroom.setTeacherId(TEACHER);
+    classroom.setClassroomCode("FISH-000001");
+    entityManager.persist(classroom);
+    for (int i = 0; i < 60; i++) {
+      UserProfile student = profile(student(i), UserRoleEnum.STUDENT);
+      if (i < 3) {
+        ClassroomStudents enrollment = new ClassroomStudents();
+        enrollment.setPhysicalId("CS-26-00000000" + i);
+        enrollment.setClassroom(classroom);
+        enrollment.setStudent(student);
+        enrollment.setVerified(i == 0);
+        entityManager.persist(enrollment);
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void importsRosterInBatchesWithPerLineReport() {
+    StringBuilder csv = new StringBuilder("email,name\n");
+    csv.append(email(student(1))).append(",already enrolled\n");
+    csv.append(email(TEACHER)).append('\n');
+    csv.append("\n");
+    csv.append("nobody@cit.edu\n");
+    csv.append("not-an-email\n");
+    for (int i = 3; i < 60; i++) {
+      csv.append('"').append(email(student(i))).append("\"\n");
+    }
+    csv.append(email(student(3))).append('\n');
+
+    List<RosterRowResultDTO> report = classroomService.importRoster(CLASSROOM, csv.toString());
+    entityManager.flush();
+
+    assertEquals(62, report.size());
+    assertRow(report.get(0), 2, RosterRowStatusEnum.ALREADY_ENROLLED);
+    assertRow(report.get(1), 3, RosterRowStatusEnum.NOT_A_STUDENT);
+    assertRow(report.get(2), 5, RosterRowStatusEnum.USER_NOT_FOUND);
+    assertRow(report.get(3), 6, RosterRowStatusEnum.INVALID);
+    assertRow(report.get(4), 7, RosterRowStatusEnum.ENROLLED);
+    assertEquals(email(student(3)), report.get(4).getValue());
+    assertRow(report.get(61), 64, RosterRowStatusEnum.DUPLICATE);
+    assertEquals(
+        57, report.stream().filter(row -> row.getStatus() == RosterRowStatusEnum.ENROLLED).count());
+
+    assertEquals(60, classroomStudentsRepository.count());
+    assertTrue(classroomStudentsRepository.existsVerifiedEnrollment(CLASSROOM, student(59)));
+    // Users, enrollments, id check, two insert batches and the final count: not one per student
+    assertTrue(statistics.getPrepareStatementCount() < 10, "" + statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void skipsTheFirstLineOnlyWhenItIsAHeader() {
+    assertEquals(
+        Map.of(2, "a@cit.edu"), ClassroomService.parseRosterCsv("\"Email\",name\na@cit.edu,A\n"));
+    // A mistyped first address is reported, not taken for a header
+    assertEquals(
+        Map.of(1, "a-cit.edu", 2, "b@cit.edu"),
+        ClassroomService.parseRosterCsv("a-cit.edu\nb@cit.edu\n"));
+  }
+
+  @Test
+  void verifiesAndUnenrollsListedStudents() {
+    List<RosterRowResultDTO> verified =
+        classroomService.verifyStudents(
+            CLASSROOM, List.of(student(0), student(1), student(2), student(1), student(10)));
+
+    assertEquals(
+        List.of(
+            RosterRowStatusEnum.ALREADY_VERIFIED,
+            RosterRowStatusEnum.VERIFIED,
+            RosterRowStatusEnum.VERIFIED,
+            RosterRowStatusEnum.DUPLICATE,
+            RosterRowStatusEnum.NOT_ENROLLED),
+        verified.stream().map(RosterRowResultDTO::getStatus).toList());
+    assertTrue(classroomStudentsRepository.existsVerifiedEnrollment(CLASSROOM, student(2)));
+
+    List<RosterRowResultDTO> removed =
+        classroomService.unenrollStudents(CLASSROOM, List.of(student(1), student(10)));
+
+    assertEquals(
+        List.of(RosterRowStatusEnum.UNENROLLED, RosterRowStatusEnum.NOT_ENROLLED),
+        removed.stream().map(RosterRowResultDTO::getStatus).toList());
+    assertEquals(2, classroomStudentsRepository.count());
+  }
+
+  @Test
+  void onlyTheClassroomsTeacherMayChangeItsRoster() {
+    when(physicalIdService.getCurrentUserPhysicalId()).thenReturn("26-2000-000");
+
+    RuntimeException error =
+        assertThrows(
+            RuntimeException.class,
+            () -> classroomService.verifyStudents(CLASSROOM, List.of(student(1))));
+    assertEquals("You are not authorized to update this classroom", error.getMessage());
+    assertFalse(classroomStudentsRepository.existsVerifiedEnrollment(CLASSROOM, student(1)));
+  }
+
+  @Test
+  void listingShowsNoTeacherNameWhenTheProfileIsMissing() {
+    OffsetDateTime now = OffsetDateTime.now();
+    ClassroomSummary withoutProfile =
+        new ClassroomSummary(CLASSROOM, "PE 101", null, now, now, true, "FISH-000001", null, null, 3);
+    ClassroomSummary withProfile =
+        new ClassroomSummary(CLASSROOM, "PE 101", null, now, now, true, "FISH-000001", "Ada", "Lovelace", 3);
+
+    assertNull(classroomService.buildClassroomResponse(withoutProfile).getTeacherName());
+    assertEquals("Ada Lovelace", classroomService.buildClassroomResponse(withProfile).getTeacherName());
+  }
+
+  private static void assertRow(RosterRowResultDTO row, int line, RosterRowStatusEnum status) {
+    assertEquals(line, row.getRow());
+    assertEquals(status, row.getStatus());
+  }
+
+  private UserProfile profile(String physicalId, UserRoleEnum role) {
+    User user =
+        User.builder()
+            .physicalId(physicalId)
+            .email(email(physicalId))
+            .userRole(role)
+            .passwordHash("{bcrypt}x")
+            .build();
+    entityManager.persist(user);
+    UserProfile profile =
+        UserProfile.builder().user(user).firstName("F").lastName(physicalId).build();
+    entityManager.persist(profile);
+    return profile;
+  }
+
+  private static String student(int i) {
+    return String.format("26-0000-%03d", i);
+  }
+
+  private static String email(String physicalId) {
+    return physicalId + "@cit.edu";
+  }
+}
@@ -0,0 +1,116 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+public class CborSubscriptionInterceptorTest {
+
+  private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+
+  private CborSubscriptionInterceptor interceptor;
+
+  @BeforeEach
+  void setup() {
+    interceptor = new CborSubscriptionInterceptor(new SimpleMeterRegistry());
+  }
+
+  @Test
+  void transcodesOnlyForSessionsThatCanReceiveBinaryFrames() throws Exception {
+    subscribe("cbor-session", "sub-1", "application/cbor");
+    subscribe("sockjs-session", "sub-1", "application/cbor", Map.of());
+    byte[] json = jsonMapper.writeValueAsBytes(sample());
+
+    Message<?> cborFrame = interceptor.preSend(broadcast("cbor-session", "sub-1", json), null);
+    Message<?> sockJsFrame = interceptor.preSend(broadcast("sockjs-session", "sub-1", json), null);
+
+    assertSame(json, sockJsFrame.getPayload());
+    assertEquals(jsonMapper.readTree(json), cborMapper.readTree((byte[]) cborFrame.getPayload()));
+  }
+
+  @Test
+  void stopsTranscodingAfterUnsubscribe() throws Exception {
+    subscribe("cbor-session", "sub-1", "application/cbor");
+    StompHeaderAccessor unsubscribe = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+    unsubscribe.setSessionId("cbor-session");
+    unsubscribe.setSubscriptionId("sub-1");
+    interceptor.preSend(frame(unsubscribe, new byte[0]), null);
+    byte[] json = jsonMapper.writeValueAsBytes(sample());
+
+    Message<?> frame = interceptor.preSend(broadcast("cbor-session", "sub-1", json), null);
+
+    assertSame(json, frame.getPayload());
+  }
+
+  @Test
+  void cborConverterReadsInboundVitals() throws Exception {
+    VitalSignsDTO decoded = cborMapper.readValue(cborMapper.writeValueAsBytes(sample()), VitalSignsDTO.class);
+
+    assertEquals(sample(), decoded);
+  }
+
+  private void subscribe(String sessionId, String subscriptionId, String contentType) {
+    subscribe(
+        sessionId,
+        subscriptionId,
+        contentType,
+        Map.of(BinaryTransportHandshakeInterceptor.BINARY_TRANSPORT_ATTRIBUTE, Boolean.TRUE));
+  }
+
+  private void subscribe(
+      String sessionId, String subscriptionId, String contentType, Map<String, Object> attributes) {
+    StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+    subscribe.setSessionId(sessionId);
+    subscribe.setSessionAttributes(new HashMap<>(attributes));
+    subscribe.setSubscriptionId(subscriptionId);
+    subscribe.setDestination("/topic/classroom/ROOM-25-001/vitals");
+    if (contentType != null) {
+      subscribe.setNativeHeader("content-type", contentType);
+    }
+    interceptor.preSend(frame(subscribe, new byte[0]), null);
+  }
+
+  private static Message<byte[]> broadcast(String sessionId, String subscriptionId, byte[] payload) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId(subscriptionId);
+    accessor.setDestination("/topic/classroom/ROOM-25-001/vitals");
+    accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+    return frame(accessor, payload);
+  }
+
+  private static Message<byte[]> frame(SimpMessageHeaderAccessor accessor, byte[] payload) {
+    accessor.setLeaveMutable(true);
+    return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+  }
+
+  static VitalSignsDTO sample() {
+    VitalSignsDTO dto = new VitalSignsDTO();
+    dto.setPhysicalId("VITAL-3f2a9c1e-6b7d-4e21-9a8f-0c5d2e7b1a44");
+    dto.setStudentId("24-0001-001");
+    dto.setClassroomId("ROOM-25-001");
+    dto.setTaskId("TASK-25-001");
+    dto.setHeartRate(128);
+    dto.setOxygenSaturation(97);
+    dto.setTimestamp(LocalDateTime.of(2025, 6, 1, 10, 15, 30));
+    dto.setIsPreActivity(false);
+    dto.setIsPostActivity(false);
+    return dto;
+  }
+}
@@ -0,0 +1,180 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+/**
+ * CBOR subscriptions over the real transport: the frame a client receives on the plain endpoint
+ * must be a binary message whose body decodes as CBOR, while SockJS sessions keep getting JSON.
+ */
+@SpringBootTest(
+    classes = CborWebSocketTransportTest.Server.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"cors.allowed-origins=*", "websocket.outbound.threads=2"})
+public class CborWebSocketTransportTest {
+
+  private static final String DESTINATION = "/topic/classroom/ROOM-25-001/vitals";
+
+  private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+  private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+
+  @LocalServerPort private int port;
+  @Autowired private SimpMessagingTemplate brokerMessagingTemplate;
+
+  private WebSocketSession session;
+
+  @AfterEach
+  void teardown() throws Exception {
+    if (session != null && session.isOpen()) {
+      session.close();
+    }
+  }
+
+  @Test
+  void cborSubscriptionOnThePlainEndpointReceivesBinaryCbor() throws Exception {
+    session = connect(new StandardWebSocketClient(), "ws://localhost:" + port + "/ws-cbor");
+    subscribe("application/cbor");
+
+    WebSocketMessage<?> frame = publishUntilReceived();
+    assertInstanceOf(BinaryMessage.class, frame);
+    Message<byte[]> message = decode(frame);
+    assertEquals("application/cbor", StompHeaderAccessor.wrap(message).getFirstNativeHeader("content-type"));
+    assertEquals(
+        CborSubscriptionInterceptorTest.sample(),
+        cborMapper.readValue(message.getPayload(), VitalSignsDTO.class));
+  }
+
+  @Test
+  void sockJsSessionAskingForCborStillGetsJson() throws Exception {
+    session =
+        connect(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))),
+            "http://localhost:" + port + "/ws");
+    subscribe("application/cbor");
+
+    WebSocketMessage<?> frame = publishUntilReceived();
+    assertInstanceOf(TextMessage.class, frame);
+    assertEquals(
+        CborSubscriptionInterceptorTest.sample(),
+        jsonMapper.readValue(decode(frame).getPayload(), VitalSignsDTO.class));
+  }
+
+  private WebSocketSession connect(WebSocketClient client, String url) throws Exception {
+    WebSocketSession connected =
+        client
+            .execute(
+                new AbstractWebSocketHandler() {
+                  @Override
+                  public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) {
+                    received.add(message);
+                  }
+                },
+                url)
+            .get(10, TimeUnit.SECONDS);
+    StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+    connect.setAcceptVersion("1.2");
+    connect.setHeartbeat(0, 0);
+    send(connected, connect);
+    assertEquals(StompCommand.CONNECTED, nextCommand());
+    return connected;
+  }
+
+  private void subscribe(String contentType) throws Exception {
+    StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+    subscribe.setSubscriptionId("sub-1");
+    subscribe.setDestination(DESTINATION);
+    subscribe.setNativeHeader("content-type", contentType);
+    send(session, subscribe);
+  }
+
+  /** The simple broker sends no receipts, so publish until the subscription is in place. */
+  private WebSocketMessage<?> publishUntilReceived() throws InterruptedException {
+    for (int attempt = 0; attempt < 50; attempt++) {
+      brokerMessagingTemplate.convertAndSend(DESTINATION, CborSubscriptionInterceptorTest.sample());
+      WebSocketMessage<?> frame = received.poll(200, TimeUnit.MILLISECONDS);
+      if (frame != null) {
+        return frame;
+      }
+    }
+    return fail("no broadcast received");
+  }
+
+  private StompCommand nextCommand() throws InterruptedException {
+    WebSocketMessage<?> frame = received.poll(10, TimeUnit.SECONDS);
+    assertNotNull(frame, "no frame received");
+    return StompHeaderAccessor.wrap(decode(frame)).getCommand();
+  }
+
+  private static void send(WebSocketSession session, StompHeaderAccessor accessor) throws Exception {
+    byte[] frame = new StompEncoder().encode(accessor.getMessageHeaders(), new byte[0]);
+    session.sendMessage(new TextMessage(new String(frame, StandardCharsets.UTF_8)));
+  }
+
+  private static Message<byte[]> decode(WebSocketMessage<?> frame) {
+    byte[] bytes =
+        frame instanceof TextMessage text
+            ? text.asBytes()
+            : ((BinaryMessage) frame).getPayload().array();
+    List<Message<byte[]>> messages = new StompDecoder().decode(ByteBuffer.wrap(bytes));
+    assertEquals(1, messages.size());
+    return messages.get(0);
+  }
+
+  @Configuration
+  @ImportAutoConfiguration({
+    ServletWebServerFactoryAutoConfiguration.class,
+    DispatcherServletAutoConfiguration.class,
+    WebSocketServletAutoConfiguration.class
+  })
+  @Import({
+    WebSocketConfig.class,
+    BrokerDestinationMetricsInterceptor.class,
+    CborSubscriptionInterceptor.class
+  })
+  static class Server {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
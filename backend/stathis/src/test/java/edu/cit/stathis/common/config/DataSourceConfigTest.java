@@ -0,0 +1,97 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.cit.stathis.common.datasource.ReplicaRoutingDataSource;
+import edu.cit.stathis.common.datasource.ReplicaSelector;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+/** Pool naming and sizing from the properties; no pool is started. */
+public class DataSourceConfigTest {
+
+  private final DataSourceConfig config = new DataSourceConfig();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private DataSourceProperties properties;
+  private MockEnvironment environment;
+  private WorkloadRoutingDataSource primary;
+  private ReplicaRoutingDataSource routing;
+
+  @BeforeEach
+  void setup() throws Exception {
+    properties = new DataSourceProperties();
+    properties.setUrl("jdbc:h2:mem:pools");
+    properties.setUsername("sa");
+    properties.afterPropertiesSet();
+    environment =
+        new MockEnvironment()
+            .withProperty("spring.datasource.hikari.pool-name", "HikariProdPool")
+            .withProperty("spring.datasource.hikari.maximum-pool-size", "20")
+            .withProperty("datasource.workloads.interactive.maximum-pool-size", "12")
+            .withProperty("datasource.workloads.ingest.maximum-pool-size", "5")
+            .withProperty("datasource.workloads.ingest.pool-name", "shared")
+            .withProperty("datasource.workloads.background.maximum-pool-size", "3")
+            .withProperty("datasource.workloads.background.pool-name", "shared")
+            .withProperty("datasource.replica.pool.maximum-pool-size", "10")
+            .withProperty("datasource.replica.workloads.background.maximum-pool-size", "3");
+  }
+
+  @AfterEach
+  void teardown() throws Exception {
+    if (routing != null) {
+      routing.close();
+    }
+    if (primary != null) {
+      primary.close();
+    }
+  }
+
+  @Test
+  void everyWorkloadPoolHasItsOwnNameAndSize() {
+    primary = config.workloadRoutingDataSource(properties, environment, meterRegistry);
+
+    assertEquals("HikariProdPool-interactive", primary.getPool(Workload.INTERACTIVE).getPoolName());
+    assertEquals("HikariProdPool-ingest", primary.getPool(Workload.INGEST).getPoolName());
+    assertEquals("HikariProdPool-background", primary.getPool(Workload.BACKGROUND).getPoolName());
+    assertEquals(12, primary.getPool(Workload.INTERACTIVE).getMaximumPoolSize());
+    assertEquals(5, primary.getPool(Workload.INGEST).getMaximumPoolSize());
+    assertEquals(3, primary.getPool(Workload.BACKGROUND).getMaximumPoolSize());
+  }
+
+  @Test
+  void replicasGetAPoolPerWorkload() {
+    primary = config.workloadRoutingDataSource(properties, environment, meterRegistry);
+    List<String> urls = List.of("jdbc:h2:mem:replica-a", "jdbc:h2:mem:replica-b");
+    ReplicaSelector replicaSelector = config.replicaSelector(urls, 2000, 5000, 100);
+    routing =
+        config.replicaRoutingDataSource(
+            primary, replicaSelector, properties, environment, meterRegistry, urls, "", "");
+
+    Set<String> names = new HashSet<>();
+    for (Workload workload : Workload.values()) {
+      names.add(primary.getPool(workload).getPoolName());
+    }
+    for (String replica : List.of("replica-0", "replica-1")) {
+      WorkloadRoutingDataSource pools = (WorkloadRoutingDataSource) routing.getReplicas().get(replica);
+      HikariDataSource background = pools.getPool(Workload.BACKGROUND);
+      assertEquals("HikariProdPool-" + replica + "-background", background.getPoolName());
+      assertEquals(3, background.getMaximumPoolSize());
+      assertEquals(10, pools.getPool(Workload.INTERACTIVE).getMaximumPoolSize());
+      assertTrue(background.isReadOnly());
+      for (Workload workload : Workload.values()) {
+        names.add(pools.getPool(workload).getPoolName());
+      }
+    }
+    assertEquals(9, names.size());
+  }
+}
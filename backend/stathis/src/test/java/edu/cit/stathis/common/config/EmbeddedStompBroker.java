@@ -0,0 +1,52 @@
+package edu.cit.stathis.common.config;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+
+/**
+ * In-process Artemis broker with a STOMP acceptor, used as the local stand-in for the external
+ * broker that {@code websocket.broker.mode=relay} points at in a multi-node deployment.
+ */
+public class EmbeddedStompBroker implements AutoCloseable {
+
+  private final EmbeddedActiveMQ server = new EmbeddedActiveMQ();
+  private final int port;
+
+  public EmbeddedStompBroker() throws IOException {
+    this.port = findFreePort();
+  }
+
+  public EmbeddedStompBroker start() throws Exception {
+    Configuration config =
+        new ConfigurationImpl()
+            .setPersistenceEnabled(false)
+            .setSecurityEnabled(false)
+            .setJMXManagementEnabled(false)
+            .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port + "?protocols=STOMP");
+    server.setConfiguration(config);
+    server.start();
+    return this;
+  }
+
+  public String getHost() {
+    return "127.0.0.1";
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  @Override
+  public void close() throws Exception {
+    server.stop();
+  }
+
+  private static int findFreePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
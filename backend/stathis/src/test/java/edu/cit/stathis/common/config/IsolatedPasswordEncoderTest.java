@@ -0,0 +1,76 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+public class IsolatedPasswordEncoderTest {
+
+  @Test
+  void matchesOldAndNewHashesAndFlagsOldOnesForUpgrade() {
+    PasswordEncoder encoder = SecurityConfig.delegatingPasswordEncoder(6);
+    String stored = new BCryptPasswordEncoder(4).encode("secret");
+    String current = encoder.encode("secret");
+
+    assertTrue(current.startsWith("{bcrypt}$2a$06$"));
+    assertTrue(encoder.matches("secret", stored));
+    assertTrue(encoder.matches("secret", current));
+    assertFalse(encoder.matches("wrong", current));
+    assertTrue(encoder.upgradeEncoding(stored));
+    assertFalse(encoder.upgradeEncoding(current));
+  }
+
+  @Test
+  void rejectsWithServiceUnavailableWhenSaturated() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking =
+        new PasswordEncoder() {
+          @Override
+          public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+          }
+
+          @Override
+          public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return true;
+          }
+        };
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    IsolatedPasswordEncoder encoder = new IsolatedPasswordEncoder(blocking, 1, 1, 10_000, meterRegistry);
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    try {
+      // One running, one queued; the third has nowhere to go
+      callers.submit(() -> encoder.matches("a", "a"));
+      callers.submit(() -> encoder.matches("b", "b"));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (meterRegistry.get("stathis.password.hashing.queue").gauge().value() < 1
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      ResponseStatusException e =
+          assertThrows(ResponseStatusException.class, () -> encoder.matches("c", "c"));
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+      assertEquals(1, meterRegistry.get("stathis.password.hashing.rejected").counter().count());
+    } finally {
+      release.countDown();
+      callers.shutdown();
+      callers.awaitTermination(5, TimeUnit.SECONDS);
+      encoder.shutdown();
+    }
+  }
+}
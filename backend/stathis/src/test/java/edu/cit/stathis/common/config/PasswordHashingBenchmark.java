@@ -0,0 +1,72 @@
+package edu.cit.stathis.common.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Login throughput at different BCrypt costs: 16 concurrent sign-ins checking a password through
+ * the isolated encoder, with one hashing thread per core. Each step of the cost halves throughput,
+ * so this is the number to look at before raising {@code password.bcrypt.strength}. Run with
+ * {@code mvn test -Dtest=PasswordHashingBenchmark} after removing {@code @Disabled}.
+ */
+@Disabled("Benchmark; enable locally to compare BCrypt costs")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(16)
+public class PasswordHashingBenchmark {
+
+  @Param({"8", "10", "12"})
+  public int strength;
+
+  private IsolatedPasswordEncoder encoder;
+  private String stored;
+
+  @Test
+  void run() throws Exception {
+    new Runner(new OptionsBuilder().include(getClass().getSimpleName()).build()).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    encoder =
+        new IsolatedPasswordEncoder(
+            SecurityConfig.delegatingPasswordEncoder(strength),
+            Runtime.getRuntime().availableProcessors(),
+            64,
+            60_000,
+            new SimpleMeterRegistry());
+    stored = encoder.encode("correct horse battery staple");
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    encoder.shutdown();
+  }
+
+  @Benchmark
+  public boolean login() {
+    return encoder.matches("correct horse battery staple", stored);
+  }
+}
@@ -0,0 +1,173 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+public class SessionOrderedExecutorTest {
+
+  private static final String VITALS = "/topic/classroom/ROOM-25-001/vitals";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private SessionOrderedExecutor executor;
+
+  @AfterEach
+  void teardown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void keepsEachSessionsOrderAcrossThePool() throws Exception {
+    executor = new SessionOrderedExecutor(4, 1000, meterRegistry);
+    Map<String, List<Integer>> delivered = new ConcurrentHashMap<>();
+    CountDownLatch done = new CountDownLatch(700);
+
+    for (int i = 0; i < 700; i++) {
+      int sequence = i;
+      String sessionId = "session-" + (i % 7);
+      executor.execute(
+          task(
+              VITALS,
+              sessionId,
+              () -> {
+                delivered.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(sequence);
+                done.countDown();
+              }));
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(7, delivered.size());
+    for (List<Integer> frames : delivered.values()) {
+      assertEquals(100, frames.size());
+      for (int i = 1; i < frames.size(); i++) {
+        assertTrue(frames.get(i - 1) < frames.get(i), frames.toString());
+      }
+    }
+  }
+
+  @Test
+  void dropsOnlyTheSlowSessionsFrames() throws Exception {
+    executor = new SessionOrderedExecutor(2, 1, meterRegistry);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(
+        task(
+            VITALS,
+            "slow",
+            () -> {
+              started.countDown();
+              awaitQuietly(release);
+            }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    executor.execute(task(VITALS, "slow", () -> {}));
+    executor.execute(task(VITALS, "slow", () -> {}));
+    CountDownLatch fast = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(task(VITALS, "fast", fast::countDown));
+      // The fast session's queue holds one frame, so give each a chance to drain
+      Thread.sleep(20);
+    }
+
+    assertTrue(fast.await(5, TimeUnit.SECONDS), "a fast session lost frames to a slow one");
+    assertEquals(1.0, meterRegistry.get("stathis.websocket.outbound.dropped").counter().count());
+    release.countDown();
+  }
+
+  @Test
+  void controlFramesQueuePastTheLimitWithoutBlockingTheSender() throws Exception {
+    executor = new SessionOrderedExecutor(1, 1, meterRegistry);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    List<String> delivered = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(3);
+    executor.execute(
+        task(
+            VITALS,
+            "session-1",
+            () -> {
+              started.countDown();
+              awaitQuietly(release);
+              done.countDown();
+            }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    executor.execute(
+        task(SimpMessageType.MESSAGE, "session-1", () -> {
+          delivered.add("message");
+          done.countDown();
+        }));
+
+    long sent = System.nanoTime();
+    executor.execute(
+        task(SimpMessageType.CONNECT_ACK, "session-1", () -> {
+          delivered.add("receipt");
+          done.countDown();
+        }));
+    assertTrue(System.nanoTime() - sent < TimeUnit.MILLISECONDS.toNanos(500), "sender was blocked");
+
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("message", "receipt"), delivered);
+    assertEquals(0.0, meterRegistry.get("stathis.websocket.outbound.dropped").counter().count());
+  }
+
+  private static MessageHandlingRunnable task(String destination, String sessionId, Runnable body) {
+    return task(message(destination, sessionId), body);
+  }
+
+  private static MessageHandlingRunnable task(SimpMessageType type, String sessionId, Runnable body) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+    accessor.setSessionId(sessionId);
+    return task(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), body);
+  }
+
+  private static MessageHandlingRunnable task(Message<?> message, Runnable body) {
+    return new MessageHandlingRunnable() {
+      @Override
+      public Message<?> getMessage() {
+        return message;
+      }
+
+      @Override
+      public MessageHandler getMessageHandler() {
+        return m -> body.run();
+      }
+
+      @Override
+      public void run() {
+        body.run();
+      }
+    };
+  }
+
+  private static Message<?> message(String destination, String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination(destination);
+    accessor.setSessionId(sessionId);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
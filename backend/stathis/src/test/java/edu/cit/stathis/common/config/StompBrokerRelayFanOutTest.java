@@ -0,0 +1,229 @@
+package edu.cit.stathis.common.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/**
+ * Two contexts built from the shipped {@link WebSocketConfig} in relay mode stand in for two
+ * backend nodes sharing one broker: a vitals broadcast published on node A must reach a dashboard
+ * session connected to node B, through the pooled TCP client and the broker channel metrics. A
+ * node relays at most {@value #MAX_SESSIONS} sessions here, so the limit is easy to pass.
+ */
+public class StompBrokerRelayFanOutTest {
+
+  private static final String DESTINATION = "/topic/classroom/ROOM-25-001/vitals";
+  private static final int MAX_SESSIONS = 2;
+
+  private EmbeddedStompBroker broker;
+  private AnnotationConfigWebApplicationContext ingestNode;
+  private AnnotationConfigWebApplicationContext dashboardNode;
+  private final BlockingQueue<Message<?>> dashboardOutbound = new LinkedBlockingQueue<>();
+
+  @BeforeEach
+  void setup() throws Exception {
+    broker = new EmbeddedStompBroker().start();
+    ingestNode = startNode();
+    dashboardNode = startNode();
+    dashboardNode
+        .getBean("clientOutboundChannel", SubscribableChannel.class)
+        .subscribe(dashboardOutbound::add);
+  }
+
+  @AfterEach
+  void teardown() throws Exception {
+    if (ingestNode != null) {
+      ingestNode.close();
+    }
+    if (dashboardNode != null) {
+      dashboardNode.close();
+    }
+    broker.close();
+  }
+
+  @Test
+  void broadcastFromOneNodeReachesSubscriberOnAnother() throws Exception {
+    connect("dashboard-1");
+    subscribe("dashboard-1");
+
+    publish();
+
+    assertBroadcastReceived();
+
+    Counter published =
+        ingestNode
+            .getBean(MeterRegistry.class)
+            .find("stathis.websocket.broker.messages")
+            .tag("destination", "/topic/classroom/{id}/vitals")
+            .counter();
+    assertNotNull(published, "broker channel metrics were not recorded");
+    assertEquals(1, published.count());
+  }
+
+  @Test
+  void relayConnectsThroughTheBoundedPool() {
+    StompBrokerRelayMessageHandler relay = ingestNode.getBean(StompBrokerRelayMessageHandler.class);
+
+    assertInstanceOf(ReactorNettyTcpClient.class, relay.getTcpClient());
+    assertNotNull(
+        Metrics.globalRegistry
+            .find("reactor.netty.connection.provider.max.connections")
+            .tag("name", "stomp-relay")
+            .gauge(),
+        "relay connections did not go through the stomp-relay pool");
+  }
+
+  @Test
+  void sessionsPastTheLimitAreRefusedAtOnceWhileAdmittedOnesKeepReceiving() throws Exception {
+    // With the system session these fill the pool, which must not hold them back
+    connect("dashboard-1");
+    connect("dashboard-2");
+    subscribe("dashboard-1");
+
+    long started = System.nanoTime();
+    MessageDeliveryException refused =
+        assertThrows(MessageDeliveryException.class, () -> sendConnect("dashboard-3"));
+    assertTrue(refused.getMessage().contains("limit of " + MAX_SESSIONS + " sessions"));
+    // Refused up front, not after the pool's pending-acquire timeout
+    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+    assertEquals(
+        1,
+        dashboardNode
+            .getBean(MeterRegistry.class)
+            .get("stathis.websocket.session.rejected")
+            .counter()
+            .count());
+
+    // The system session still publishes and the admitted sessions still receive
+    publish();
+    assertBroadcastReceived();
+
+    // A closed session frees its slot
+    StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+    disconnect.setSessionId("dashboard-2");
+    dashboardInbound().send(frame(disconnect, new byte[0]));
+    connect("dashboard-3");
+  }
+
+  private AnnotationConfigWebApplicationContext startNode() throws InterruptedException {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("cors.allowed-origins", "http://localhost:3000")
+            .withProperty("websocket.broker-prefix", "/topic")
+            .withProperty("websocket.endpoint", "/ws")
+            .withProperty("websocket.broker.mode", "relay")
+            .withProperty("websocket.broker.relay.host", broker.getHost())
+            .withProperty("websocket.broker.relay.port", String.valueOf(broker.getPort()))
+            .withProperty("websocket.broker.relay.max-sessions", String.valueOf(MAX_SESSIONS))
+            .withProperty("websocket.outbound.threads", "2");
+    AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+    context.setEnvironment(environment);
+    context.setServletContext(new MockServletContext());
+    context.register(Node.class);
+    context.refresh();
+
+    StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!relay.isBrokerAvailable() && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    assertTrue(relay.isBrokerAvailable(), "relay did not connect");
+    return context;
+  }
+
+  private MessageChannel dashboardInbound() {
+    return dashboardNode.getBean("clientInboundChannel", MessageChannel.class);
+  }
+
+  private void sendConnect(String sessionId) {
+    StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+    connect.setSessionId(sessionId);
+    connect.setAcceptVersion("1.1,1.2");
+    connect.setHeartbeat(0, 0);
+    dashboardInbound().send(frame(connect, new byte[0]));
+  }
+
+  private void connect(String sessionId) throws InterruptedException {
+    sendConnect(sessionId);
+    assertEquals(StompCommand.CONNECTED, nextCommand(sessionId));
+  }
+
+  private void subscribe(String sessionId) throws InterruptedException {
+    StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+    subscribe.setSessionId(sessionId);
+    subscribe.setSubscriptionId("sub-1");
+    subscribe.setDestination(DESTINATION);
+    subscribe.setReceipt("subscribed");
+    dashboardInbound().send(frame(subscribe, new byte[0]));
+    assertEquals(StompCommand.RECEIPT, nextCommand(sessionId));
+  }
+
+  private void publish() {
+    ingestNode
+        .getBean("brokerMessagingTemplate", SimpMessagingTemplate.class)
+        .convertAndSend(DESTINATION, Map.of("heartRate", 120));
+  }
+
+  private void assertBroadcastReceived() throws InterruptedException {
+    Message<?> received = dashboardOutbound.poll(10, TimeUnit.SECONDS);
+    assertNotNull(received, "dashboard node did not receive the broadcast");
+    StompHeaderAccessor headers = StompHeaderAccessor.wrap(received);
+    assertEquals(StompCommand.MESSAGE, headers.getCommand());
+    assertEquals(DESTINATION, headers.getDestination());
+    assertEquals("{\"heartRate\":120}", new String((byte[]) received.getPayload()));
+  }
+
+  private StompCommand nextCommand(String sessionId) throws InterruptedException {
+    Message<?> message = dashboardOutbound.poll(10, TimeUnit.SECONDS);
+    assertNotNull(message, "no frame received from relay");
+    StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+    assertEquals(sessionId, headers.getSessionId());
+    return headers.getCommand();
+  }
+
+  private static Message<byte[]> frame(SimpMessageHeaderAccessor accessor, byte[] payload) {
+    accessor.setLeaveMutable(true);
+    return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+  }
+
+  @Configuration
+  @Import({
+    WebSocketConfig.class,
+    BrokerDestinationMetricsInterceptor.class,
+    CborSubscriptionInterceptor.class
+  })
+  static class Node {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
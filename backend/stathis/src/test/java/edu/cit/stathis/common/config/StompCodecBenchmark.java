@@ -0,0 +1,73 @@
+package edu.cit.stathis.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.vitals.dto.HeartRateAlertDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Rough bytes-per-frame and serialization-cost comparison of the STOMP payload codecs. Prints a
+ * table instead of asserting on timings; run it on its own with {@code mvn test
+ * -Dtest=StompCodecBenchmark} after removing {@code @Disabled}.
+ */
+@Disabled("Benchmark; enable locally to compare codecs")
+public class StompCodecBenchmark {
+
+  private static final int WARMUP = 200_000;
+  private static final int ITERATIONS = 1_000_000;
+
+  private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+  private final CborSubscriptionInterceptor interceptor =
+      new CborSubscriptionInterceptor(new SimpleMeterRegistry());
+
+  @Test
+  void compareCodecs() throws Exception {
+    report("VitalSignsDTO", CborSubscriptionInterceptorTest.sample());
+    report(
+        "HeartRateAlertDTO",
+        new HeartRateAlertDTO(
+            "24-0001-001",
+            "Juan Dela Cruz",
+            178,
+            170,
+            "ALERT: Student Juan Dela Cruz's heart rate (178 bpm) exceeds safety threshold (170 bpm)",
+            LocalDateTime.of(2025, 6, 1, 10, 15, 30),
+            "heart-rate-max",
+            97));
+  }
+
+  private void report(String name, Object payload) throws Exception {
+    byte[] json = jsonMapper.writeValueAsBytes(payload);
+    byte[] cbor = cborMapper.writeValueAsBytes(payload);
+    System.out.printf(
+        "%-18s json %4d B   cbor %4d B (%.0f%%)%n",
+        name, json.length, cbor.length, 100.0 * cbor.length / json.length);
+    System.out.printf(
+        "%-18s json encode %6.0f ns   cbor encode %6.0f ns   json->cbor transcode %6.0f ns%n",
+        "",
+        nanosPerOp(() -> jsonMapper.writeValueAsBytes(payload)),
+        nanosPerOp(() -> cborMapper.writeValueAsBytes(payload)),
+        // Copy the array each time so the per-thread transcode cache never hits
+        nanosPerOp(() -> interceptor.transcode(json.clone())));
+  }
+
+  private static double nanosPerOp(Op op) throws Exception {
+    for (int i = 0; i < WARMUP; i++) {
+      op.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      op.run();
+    }
+    return (double) (System.nanoTime() - start) / ITERATIONS;
+  }
+
+  @FunctionalInterface
+  private interface Op {
+    Object run() throws Exception;
+  }
+}
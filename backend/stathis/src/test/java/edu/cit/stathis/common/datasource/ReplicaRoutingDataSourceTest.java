@@ -0,0 +1,139 @@
+package edu.cit.stathis.common.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Two in-memory H2 databases stand in for the primary and its replica. */
+public class ReplicaRoutingDataSourceTest {
+
+  private ReplicaSelector replicaSelector;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  void setup() {
+    DataSource primary = database("primary");
+    DataSource replica = database("replica");
+    replicaSelector = new ReplicaSelector(List.of("replica-0"), 1000, 60_000, 100);
+    replicaSelector.updateLag("replica-0", 0);
+    ReplicaRoutingDataSource routing =
+        new ReplicaRoutingDataSource(
+            primary, Map.of("replica-0", replica), replicaSelector, new SimpleMeterRegistry());
+    routing.afterPropertiesSet();
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  void teardown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void readOnlyTransactionsGoToReplica() {
+    assertEquals("replica", readOnly.execute(status -> whereAmI()));
+    assertEquals("primary", readWrite.execute(status -> whereAmI()));
+  }
+
+  @Test
+  void laggingReplicaFallsBackToPrimary() {
+    replicaSelector.updateLag("replica-0", 5000);
+    assertEquals("primary", readOnly.execute(status -> whereAmI()));
+
+    replicaSelector.markUnavailable("replica-0");
+    assertEquals("primary", readOnly.execute(status -> whereAmI()));
+  }
+
+  @Test
+  void writerReadsOwnWritesFromPrimary() {
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated("student@cit.edu", null, List.of()));
+    assertEquals("replica", readOnly.execute(status -> whereAmI()));
+
+    readWrite.executeWithoutResult(
+        status -> jdbcTemplate.update("UPDATE marker SET writes = writes + 1"));
+
+    assertEquals("primary", readOnly.execute(status -> whereAmI()));
+    SecurityContextHolder.clearContext();
+    assertEquals("replica", readOnly.execute(status -> whereAmI()));
+  }
+
+  @Test
+  void primaryOnlyReadsSkipTheReplica() {
+    assertEquals(
+        "primary",
+        ReplicaRoutingDataSource.onPrimary(() -> readOnly.execute(status -> whereAmI())));
+    assertEquals("replica", readOnly.execute(status -> whereAmI()));
+  }
+
+  @Test
+  void backgroundReadsUseTheReplicasOwnPool() throws Exception {
+    database("replica-interactive");
+    database("replica-background");
+    Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+    for (Workload workload : Workload.values()) {
+      String target = workload == Workload.BACKGROUND ? "replica-background" : "replica-interactive";
+      HikariDataSource pool = new HikariDataSource();
+      pool.setJdbcUrl("jdbc:h2:mem:" + target + ";DB_CLOSE_DELAY=-1");
+      pool.setUsername("sa");
+      pool.setMaximumPoolSize(1);
+      pools.put(workload, pool);
+    }
+    WorkloadRoutingDataSource replica = new WorkloadRoutingDataSource(pools);
+    replica.afterPropertiesSet();
+    try (ReplicaRoutingDataSource routing =
+        new ReplicaRoutingDataSource(
+            database("primary"), Map.of("replica-0", replica), replicaSelector, new SimpleMeterRegistry())) {
+      routing.afterPropertiesSet();
+      DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+      JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+      TransactionTemplate reads = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+      reads.setReadOnly(true);
+      String sql = "SELECT name FROM marker";
+
+      assertEquals("replica-interactive", reads.execute(status -> jdbc.queryForObject(sql, String.class)));
+      Workload previous = WorkloadContext.enter(Workload.BACKGROUND);
+      try {
+        assertEquals("replica-background", reads.execute(status -> jdbc.queryForObject(sql, String.class)));
+      } finally {
+        WorkloadContext.restore(previous);
+      }
+    }
+  }
+
+  private String whereAmI() {
+    return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    jdbc.execute("DROP TABLE IF EXISTS marker");
+    jdbc.execute("CREATE TABLE marker (name VARCHAR(32), writes INT)");
+    jdbc.update("INSERT INTO marker VALUES (?, 0)", name);
+    return dataSource;
+  }
+}
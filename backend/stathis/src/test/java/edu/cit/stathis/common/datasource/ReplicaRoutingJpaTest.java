@@ -0,0 +1,106 @@
+package edu.cit.stathis.common.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routing through the JpaTransactionManager the application uses: the read-only flag of a
+ * {@code @Transactional(readOnly = true)} method must be set before Hibernate's first statement
+ * takes the connection.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaRoutingJpaTest.Routing.class, ReplicaRoutingJpaTest.Reads.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReplicaRoutingJpaTest {
+
+  @Autowired private Reads reads;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void readOnlyTransactionalMethodsGoToTheReplica() {
+    assertEquals("replica", reads.readOnly());
+    assertEquals("primary", reads.readWrite());
+  }
+
+  @Test
+  void readOnlyMethodJoiningAWriteStaysOnThePrimary() {
+    assertEquals(
+        "primary",
+        new TransactionTemplate(transactionManager).execute(status -> {
+          reads.readWrite();
+          return reads.readOnly();
+        }));
+  }
+
+  @TestConfiguration
+  static class Routing {
+
+    @Bean
+    @Primary
+    DataSource dataSource() {
+      ReplicaSelector replicaSelector = new ReplicaSelector(List.of("replica-0"), 1000, 60_000, 100);
+      replicaSelector.updateLag("replica-0", 0);
+      ReplicaRoutingDataSource routing =
+          new ReplicaRoutingDataSource(
+              database("jpa-primary", "primary"),
+              Map.of("replica-0", database("jpa-replica", "replica")),
+              replicaSelector,
+              new SimpleMeterRegistry());
+      routing.afterPropertiesSet();
+      return new LazyConnectionDataSourceProxy(routing);
+    }
+  }
+
+  @Component
+  static class Reads {
+
+    @PersistenceContext private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public String readOnly() {
+      return whereAmI();
+    }
+
+    @Transactional
+    public String readWrite() {
+      return whereAmI();
+    }
+
+    private String whereAmI() {
+      return (String) entityManager.createNativeQuery("SELECT name FROM marker").getSingleResult();
+    }
+  }
+
+  private static DataSource database(String database, String name) {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    jdbc.execute("DROP TABLE IF EXISTS marker");
+    jdbc.execute("CREATE TABLE marker (name VARCHAR(16))");
+    jdbc.update("INSERT INTO marker VALUES (?)", name);
+    return dataSource;
+  }
+}
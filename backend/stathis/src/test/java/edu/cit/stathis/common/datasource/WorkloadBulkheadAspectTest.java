@@ -0,0 +1,85 @@
+package edu.cit.stathis.common.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+
+public class WorkloadBulkheadAspectTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private Jobs jobs;
+
+  @BeforeEach
+  void setup() {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("datasource.bulkhead.ingest.max-concurrent", "1")
+            .withProperty("datasource.bulkhead.ingest.max-wait-ms", "0");
+    AspectJProxyFactory factory = new AspectJProxyFactory(new Jobs());
+    factory.addAspect(new WorkloadBulkheadAspect(environment, meterRegistry));
+    jobs = factory.getProxy();
+  }
+
+  @AfterEach
+  void teardown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void routesAnnotatedCallsAndRestoresDefault() {
+    assertEquals(Workload.INGEST, jobs.ingest());
+    assertEquals(Workload.BACKGROUND, jobs.export());
+    assertEquals(Workload.INTERACTIVE, WorkloadContext.current());
+  }
+
+  @Test
+  void rejectsWhenBulkheadIsFull() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> holder = executor.submit(() -> jobs.holdIngest(entered, release));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+    assertThrows(ResponseStatusException.class, jobs::ingest);
+    assertEquals(
+        1.0,
+        meterRegistry.get("stathis.db.bulkhead.rejected").tag("workload", "ingest").counter().count());
+
+    release.countDown();
+    holder.get(5, TimeUnit.SECONDS);
+    assertEquals(Workload.INGEST, jobs.ingest());
+  }
+
+  public static class Jobs {
+    @UsesWorkload(Workload.INGEST)
+    public Workload ingest() {
+      return WorkloadContext.current();
+    }
+
+    @UsesWorkload(Workload.INGEST)
+    public void holdIngest(CountDownLatch entered, CountDownLatch release) {
+      entered.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @UsesWorkload(Workload.BACKGROUND)
+    public Workload export() {
+      return WorkloadContext.current();
+    }
+  }
+}
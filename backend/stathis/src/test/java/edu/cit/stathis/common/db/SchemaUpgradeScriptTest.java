@@ -0,0 +1,61 @@
+package edu.cit.stathis.common.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.auth.entity.Token;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import edu.cit.stathis.common.outbox.OutboxEvent;
+import edu.cit.stathis.task.entity.TemplateInvalidation;
+import edu.cit.stathis.vitals.entity.VitalSigns;
+import edu.cit.stathis.vitals.entity.VitalSignsSummary;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/** Every named index and constraint an entity declares must be created by db/upgrade.sql. */
+public class SchemaUpgradeScriptTest {
+
+  @Test
+  void coversEveryDeclaredIndexAndConstraint() throws Exception {
+    String script =
+        new ClassPathResource("db/upgrade.sql").getContentAsString(StandardCharsets.UTF_8);
+
+    for (Class<?> entity :
+        List.of(
+            VitalSigns.class,
+            VitalSignsSummary.class,
+            OutboxEvent.class,
+            TemplateInvalidation.class,
+            Token.class,
+            ClassroomStudents.class)) {
+      Table table = entity.getAnnotation(Table.class);
+      for (Index index : table.indexes()) {
+        assertTrue(script.contains(index.name()), entity.getSimpleName() + ": " + index.name());
+      }
+      for (UniqueConstraint constraint : table.uniqueConstraints()) {
+        assertTrue(
+            script.contains("CONSTRAINT " + constraint.name()),
+            entity.getSimpleName() + ": " + constraint.name());
+      }
+    }
+  }
+
+  @Test
+  void everyStatementEndsWithTheConfiguredSeparator() throws Exception {
+    String script =
+        new ClassPathResource("db/upgrade.sql").getContentAsString(StandardCharsets.UTF_8);
+    String[] statements = script.replaceAll("(?m)^--.*$", "").split("\\^;");
+
+    assertTrue(statements[statements.length - 1].isBlank());
+    for (int i = 0; i < statements.length - 1; i++) {
+      String statement = statements[i].strip();
+      assertFalse(statement.isEmpty());
+      // A plain ";" may only appear inside DO blocks
+      assertTrue(statement.startsWith("DO $$") || !statement.contains(";"), statement);
+    }
+  }
+}
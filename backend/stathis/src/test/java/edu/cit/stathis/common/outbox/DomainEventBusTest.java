@@ -0,0 +1,131 @@
+package edu.cit.stathis.common.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class DomainEventBusTest {
+
+  private OutboxEventRepository repository;
+  private OutboxDispatcher dispatcher;
+  private DomainEventBus bus;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(OutboxEventRepository.class);
+    dispatcher = mock(OutboxDispatcher.class);
+    bus = new DomainEventBus(repository, dispatcher, new ObjectMapper(), new SimpleMeterRegistry(), 2, 100);
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void teardown() {
+    TransactionSynchronizationManager.clearSynchronization();
+    bus.shutdown();
+  }
+
+  @Test
+  void publishRecordsInTransactionAndWakesDispatcherAfterCommit() {
+    bus.publish("greeting", List.of("ada"));
+
+    verify(repository).save(any(OutboxEvent.class));
+    verify(dispatcher, never()).wake();
+
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+    verify(dispatcher).wake();
+  }
+
+  @Test
+  void afterCommitWorkRunsInOrderOnlyOnCommit() throws Exception {
+    List<Integer> ran = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      int sample = i;
+      bus.afterCommit("student-1", () -> {
+        ran.add(sample);
+        done.countDown();
+      });
+    }
+    Thread.sleep(50);
+    assertTrue(ran.isEmpty());
+
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(0, 1, 2), ran);
+  }
+
+  @Test
+  void fullStripeMakesTheCallerWaitInsteadOfDropping() throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    DomainEventBus small = new DomainEventBus(repository, dispatcher, new ObjectMapper(), meterRegistry, 1, 1);
+    // Outside a transaction the work is handed to the stripe straight away
+    TransactionSynchronizationManager.clearSynchronization();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> ran = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(4);
+    small.afterCommit("student-1", () -> {
+      awaitQuietly(release);
+      ran.add(0);
+      done.countDown();
+    });
+    Thread producer = new Thread(() -> {
+      for (int i = 1; i < 4; i++) {
+        int sample = i;
+        small.afterCommit("student-1", () -> {
+          ran.add(sample);
+          done.countDown();
+        });
+      }
+    });
+    producer.start();
+    Thread.sleep(100);
+    assertTrue(producer.isAlive(), "Producer should be waiting for room in the stripe");
+
+    release.countDown();
+    producer.join(5000);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(0, 1, 2, 3), ran);
+    assertTrue(meterRegistry.get("stathis.events.after-commit.blocked").counter().count() >= 1);
+    small.shutdown();
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @Test
+  void rolledBackWorkNeverRuns() throws Exception {
+    List<Integer> ran = new CopyOnWriteArrayList<>();
+    bus.afterCommit("student-1", () -> ran.add(1));
+
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+    Thread.sleep(50);
+    assertTrue(ran.isEmpty());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void complete(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+      synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+    synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+  }
+}
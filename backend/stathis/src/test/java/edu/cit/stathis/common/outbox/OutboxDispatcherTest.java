@@ -0,0 +1,277 @@
+package edu.cit.stathis.common.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class OutboxDispatcherTest {
+
+  public record Greeting(String name) {}
+
+  private final List<String> greeted = new ArrayList<>();
+  private final List<Workload> handlerWorkloads = new CopyOnWriteArrayList<>();
+  private boolean failing;
+  private PartialDeliveryException partial;
+
+  private OutboxEventRepository repository;
+  private SimpleMeterRegistry meterRegistry;
+  private OutboxDispatcher dispatcher;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(OutboxEventRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    DomainEventHandler<Greeting> handler =
+        new DomainEventHandler<>() {
+          @Override
+          public String eventType() {
+            return "greeting";
+          }
+
+          @Override
+          public Class<Greeting> payloadType() {
+            return Greeting.class;
+          }
+
+          @Override
+          public void handle(List<Greeting> events) {
+            handlerWorkloads.add(WorkloadContext.current());
+            if (failing) {
+              throw new IllegalStateException("broker down");
+            }
+            events.forEach(event -> greeted.add(event.name()));
+            if (partial != null) {
+              throw partial;
+            }
+          }
+        };
+    dispatcher =
+        new OutboxDispatcher(
+            repository,
+            mock(PlatformTransactionManager.class),
+            new ObjectMapper(),
+            List.of(handler),
+            meterRegistry,
+            2,
+            2,
+            3,
+            1000,
+            60_000,
+            60_000);
+  }
+
+  @AfterEach
+  void teardown() {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  void deliversInOrderAndDeletesHandledEvents() throws Exception {
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenReturn(List.of(event(1, "greeting", "ada"), event(2, "greeting", "grace")))
+        .thenReturn(List.of(event(3, "greeting", "linus")));
+
+    dispatcher.drain();
+
+    assertEquals(List.of("ada", "grace", "linus"), greeted);
+    verify(repository).deleteAllByIdInBatch(List.of(1L, 2L));
+    verify(repository).deleteAllByIdInBatch(List.of(3L));
+    assertEquals(
+        3, meterRegistry.get("stathis.outbox.dispatched").tag("type", "greeting").counter().count());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reschedulesFailedEventsWithBackoff() throws Exception {
+    failing = true;
+    OutboxEvent event = event(1, "greeting", "ada");
+    event.setAttempts(1);
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt())).thenReturn(List.of(event));
+
+    dispatcher.drain();
+
+    ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    OutboxEvent rescheduled = saved.getValue().get(0);
+    assertEquals(2, rescheduled.getAttempts());
+    assertTrue(rescheduled.getNextAttemptAt().isAfter(OffsetDateTime.now().plusSeconds(1)));
+    assertTrue(rescheduled.getLastError().contains("broker down"));
+    verify(repository, never()).deleteAllByIdInBatch(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void unknownTypeDoesNotHoldUpOthers() throws Exception {
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenReturn(List.of(event(1, "unknown", "x"), event(2, "greeting", "ada")))
+        .thenReturn(List.of());
+
+    dispatcher.drain();
+
+    assertEquals(List.of("ada"), greeted);
+    verify(repository).deleteAllByIdInBatch(List.of(2L));
+    ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    assertEquals(1L, saved.getValue().get(0).getId());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void partialDeliveryRetriesOnlyWhatWasNotDelivered() throws Exception {
+    partial = new PartialDeliveryException(Set.of(1), Set.of(2), Duration.ofSeconds(30), null);
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenReturn(
+            List.of(
+                event(1, "greeting", "ada"),
+                event(2, "greeting", "grace"),
+                event(3, "greeting", "linus")))
+        .thenReturn(List.of());
+
+    dispatcher.drain();
+
+    verify(repository).deleteAllByIdInBatch(List.of(1L));
+    ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository, times(2)).saveAll(saved.capture());
+    OutboxEvent failed = saved.getAllValues().get(0).get(0);
+    assertEquals(2L, failed.getId());
+    assertEquals(1, failed.getAttempts());
+    OutboxEvent deferred = saved.getAllValues().get(1).get(0);
+    assertEquals(3L, deferred.getId());
+    assertEquals(0, deferred.getAttempts());
+    assertTrue(deferred.getNextAttemptAt().isAfter(OffsetDateTime.now().plusSeconds(20)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void unreadableEventFailsAloneAndHandlerIndexesMapBackToTheSlice() throws Exception {
+    // grace is index 1 of what the handler sees, but index 2 of the slice
+    partial = new PartialDeliveryException(Set.of(1), Set.of(), Duration.ZERO, null);
+    OutboxEvent unreadable = event(2, "greeting", "x");
+    unreadable.setPayload("not json");
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenReturn(List.of(event(1, "greeting", "ada"), unreadable, event(3, "greeting", "grace")))
+        .thenReturn(List.of());
+
+    dispatcher.drain();
+
+    assertEquals(List.of("ada", "grace"), greeted);
+    verify(repository).deleteAllByIdInBatch(List.of(1L));
+    ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    assertEquals(List.of(2L, 3L), saved.getValue().stream().map(OutboxEvent::getId).toList());
+    assertEquals(1, saved.getValue().get(0).getAttempts());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void cancelsAHandlerStillRunningWhenTheLeaseRunsOut() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    DomainEventHandler<Greeting> stuck =
+        new DomainEventHandler<>() {
+          @Override
+          public String eventType() {
+            return "stuck";
+          }
+
+          @Override
+          public Class<Greeting> payloadType() {
+            return Greeting.class;
+          }
+
+          @Override
+          public void handle(List<Greeting> events) {
+            try {
+              Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+            }
+          }
+        };
+    OutboxDispatcher leased =
+        new OutboxDispatcher(
+            repository,
+            mock(PlatformTransactionManager.class),
+            new ObjectMapper(),
+            List.of(stuck),
+            meterRegistry,
+            2,
+            2,
+            3,
+            1000,
+            60_000,
+            200);
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenReturn(List.of(event(1, "stuck", "ada")));
+
+    long started = System.nanoTime();
+    leased.drain();
+
+    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    assertEquals(1, saved.getValue().get(0).getAttempts());
+    assertTrue(saved.getValue().get(0).getLastError().contains("lease"));
+    leased.shutdown();
+  }
+
+  @Test
+  void pollerAndWorkersRunOnTheBackgroundWorkload() throws Exception {
+    List<Workload> claimWorkloads = new CopyOnWriteArrayList<>();
+    CountDownLatch deleted = new CountDownLatch(1);
+    when(repository.findDueForUpdate(any(), anyInt(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              claimWorkloads.add(WorkloadContext.current());
+              return claimWorkloads.size() == 1 ? List.of(event(1, "greeting", "ada")) : List.of();
+            });
+    doAnswer(invocation -> {
+          deleted.countDown();
+          return null;
+        })
+        .when(repository)
+        .deleteAllByIdInBatch(any());
+
+    dispatcher.wake();
+
+    assertTrue(deleted.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(Workload.BACKGROUND), claimWorkloads.subList(0, 1));
+    assertEquals(List.of(Workload.BACKGROUND), handlerWorkloads);
+  }
+
+  @Test
+  void backoffDoublesUpToTheCap() {
+    assertEquals(Duration.ofSeconds(1), dispatcher.backoff(1));
+    assertEquals(Duration.ofSeconds(8), dispatcher.backoff(4));
+    assertEquals(Duration.ofSeconds(60), dispatcher.backoff(10));
+  }
+
+  private static OutboxEvent event(long id, String type, String name) {
+    return OutboxEvent.builder()
+        .id(id)
+        .eventType(type)
+        .payload("{\"name\":\"" + name + "\"}")
+        .createdAt(OffsetDateTime.now())
+        .nextAttemptAt(OffsetDateTime.now())
+        .build();
+  }
+}
@@ -0,0 +1,163 @@
+package edu.cit.stathis.common.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** The claim query against a real database; each step commits, as the dispatcher's do. */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxEventRepositoryTest {
+
+  public record Greeting(String name) {}
+
+  @Autowired private OutboxEventRepository outboxEventRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setup() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @AfterEach
+  void teardown() {
+    outboxEventRepository.deleteAll();
+  }
+
+  @Test
+  void claimsOnlyDueEventsWithAttemptsLeftOldestFirst() {
+    OffsetDateTime now = OffsetDateTime.now();
+    Long first = save("ada", now.minusMinutes(2), 0).getId();
+    save("grace", now.plusMinutes(5), 0);
+    save("linus", now.minusMinutes(1), 3);
+    Long second = save("alan", now.minusSeconds(1), 2).getId();
+    save("barbara", now.minusSeconds(1), 0);
+
+    List<OutboxEvent> due =
+        transactionTemplate.execute(status -> outboxEventRepository.findDueForUpdate(now, 3, 2));
+
+    assertEquals(List.of(first, second), due.stream().map(OutboxEvent::getId).toList());
+  }
+
+  @Test
+  void skipsRowsAnotherClaimHoldsLocked() throws Exception {
+    // H2 locks every row the filter matches before applying the limit, so the first claim is
+    // bounded by due time rather than by its limit
+    OffsetDateTime now = OffsetDateTime.now();
+    save("ada", now.minusMinutes(2), 0);
+    save("grace", now.minusMinutes(2), 0);
+    save("linus", now.minusSeconds(1), 0);
+    save("alan", now.minusSeconds(1), 0);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<List<String>> holder =
+        CompletableFuture.supplyAsync(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                      List<OutboxEvent> claimed =
+                          outboxEventRepository.findDueForUpdate(now.minusMinutes(1), 3, 10);
+                      locked.countDown();
+                      try {
+                        release.await(5, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return claimed.stream().map(OutboxEvent::getPayload).toList();
+                    }));
+    assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+    List<String> others =
+        transactionTemplate.execute(
+            status ->
+                outboxEventRepository.findDueForUpdate(now, 3, 10).stream()
+                    .map(OutboxEvent::getPayload)
+                    .toList());
+    release.countDown();
+
+    assertEquals(List.of(payload("ada"), payload("grace")), holder.get(5, TimeUnit.SECONDS));
+    assertEquals(List.of(payload("linus"), payload("alan")), others);
+  }
+
+  @Test
+  void claimedEventsAreNotDueAgainWhileTheirHandlerRuns() throws Exception {
+    save("ada", OffsetDateTime.now().minusSeconds(1), 0);
+    List<Integer> visibleWhileHandling = new CopyOnWriteArrayList<>();
+    DomainEventHandler<Greeting> handler =
+        new DomainEventHandler<>() {
+          @Override
+          public String eventType() {
+            return "greeting";
+          }
+
+          @Override
+          public Class<Greeting> payloadType() {
+            return Greeting.class;
+          }
+
+          @Override
+          public void handle(List<Greeting> events) {
+            visibleWhileHandling.add(
+                transactionTemplate.execute(
+                    status ->
+                        outboxEventRepository
+                            .findDueForUpdate(OffsetDateTime.now().plusSeconds(30), 3, 10)
+                            .size()));
+          }
+        };
+    OutboxDispatcher dispatcher =
+        new OutboxDispatcher(
+            outboxEventRepository,
+            transactionManager,
+            new ObjectMapper(),
+            List.of(handler),
+            new SimpleMeterRegistry(),
+            10,
+            2,
+            3,
+            1000,
+            60_000,
+            60_000);
+    try {
+      dispatcher.drain();
+    } finally {
+      dispatcher.shutdown();
+    }
+
+    assertEquals(List.of(0), visibleWhileHandling);
+    assertEquals(0, outboxEventRepository.count());
+  }
+
+  private OutboxEvent save(String name, OffsetDateTime nextAttemptAt, int attempts) {
+    return outboxEventRepository.save(
+        OutboxEvent.builder()
+            .eventType("greeting")
+            .payload(payload(name))
+            .createdAt(OffsetDateTime.now())
+            .nextAttemptAt(nextAttemptAt)
+            .attempts(attempts)
+            .build());
+  }
+
+  private static String payload(String name) {
+    return "{\"name\":\"" + name + "\"}";
+  }
+}
@@ -0,0 +1,77 @@
+package edu.cit.stathis.common.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.auth.dto.AuthenticatedUser;
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JwtUtilTest {
+
+  private static final String SECRET = "test-secret-test-secret-test-secret-test-secret-0123456789";
+
+  @Test
+  void verifiesOnceAndServesRepeatsFromCache() {
+    JwtUtil jwtUtil = jwtUtil(60_000);
+    String token = jwtUtil.generateToken(student());
+
+    assertEquals("24-0001-001@cit.edu", jwtUtil.verify(token).getSubject());
+    assertSame(jwtUtil.verify(token), jwtUtil.verify(token));
+    assertEquals("ROLE_STUDENT", jwtUtil.extractClaim(token, claims -> claims.get("role", String.class)));
+  }
+
+  @Test
+  void carriesUserIdentifiersAsPrincipal() {
+    JwtUtil jwtUtil = jwtUtil(60_000);
+    AuthenticatedUser principal = jwtUtil.toPrincipal(jwtUtil.verify(jwtUtil.generateToken(student())));
+
+    assertEquals(UUID.fromString("3f1c9b2e-7d4a-4e8b-9c6f-1a2b3c4d5e6f"), principal.userId());
+    assertEquals("24-0001-001", principal.physicalId());
+    assertEquals("24-0001-001@cit.edu", principal.getName());
+    assertEquals("ROLE_STUDENT", principal.role());
+  }
+
+  @Test
+  void rejectsTamperedToken() {
+    JwtUtil jwtUtil = jwtUtil(60_000);
+    String token = jwtUtil.generateToken(student());
+    String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+    assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+    assertFalse(jwtUtil.validateToken(tampered, "24-0001-001@cit.edu"));
+  }
+
+  @Test
+  void cachedTokenStillExpires() throws Exception {
+    // exp is truncated to whole seconds, so a one-second token may already be expired
+    JwtUtil jwtUtil = jwtUtil(2_000);
+    String token = jwtUtil.generateToken(student());
+    jwtUtil.verify(token);
+    Thread.sleep(2_100);
+
+    assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+  }
+
+  private static User student() {
+    User user = new User();
+    user.setUserId(UUID.fromString("3f1c9b2e-7d4a-4e8b-9c6f-1a2b3c4d5e6f"));
+    user.setPhysicalId("24-0001-001");
+    user.setEmail("24-0001-001@cit.edu");
+    user.setUserRole(UserRoleEnum.STUDENT);
+    return user;
+  }
+
+  private static JwtUtil jwtUtil(long expirationMillis) {
+    JwtUtil jwtUtil = new JwtUtil();
+    ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+    ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMillis);
+    ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 100L);
+    jwtUtil.init();
+    return jwtUtil;
+  }
+}
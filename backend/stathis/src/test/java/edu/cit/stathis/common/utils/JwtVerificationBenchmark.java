@@ -0,0 +1,102 @@
+package edu.cit.stathis.common.utils;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Token work done by {@code JwtAuthenticationFilter} per request. {@code before} replays the old
+ * filter: four parses (username, validate, expiry, role), each building a new key and parser.
+ * {@code afterUncached} is one parse with the shared parser, {@code afterCached} a repeat request
+ * served from the verified-token cache. Run with {@code mvn test -Dtest=JwtVerificationBenchmark}
+ * after removing {@code @Disabled}.
+ */
+@Disabled("Benchmark; enable locally to compare JWT verification paths")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+  private JwtUtil cached;
+  private JwtUtil uncached;
+  private String token;
+
+  @Test
+  void run() throws Exception {
+    new Runner(new OptionsBuilder().include(getClass().getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setup() {
+    cached = jwtUtil(10_000);
+    uncached = jwtUtil(0);
+    User user = new User();
+    user.setUserId(UUID.fromString("3f1c9b2e-7d4a-4e8b-9c6f-1a2b3c4d5e6f"));
+    user.setPhysicalId("24-0001-001");
+    user.setEmail("24-0001-001@cit.edu");
+    user.setUserRole(UserRoleEnum.STUDENT);
+    token = cached.generateToken(user);
+    cached.verify(token);
+  }
+
+  @Benchmark
+  public Object before() {
+    String username = legacyParse(token).getSubject();
+    boolean valid =
+        legacyParse(token).getSubject().equals(username)
+            && !legacyParse(token).getExpiration().before(new java.util.Date());
+    return valid ? legacyParse(token).get("role", String.class) : null;
+  }
+
+  @Benchmark
+  public Object afterUncached() {
+    return uncached.verify(token).get("role", String.class);
+  }
+
+  @Benchmark
+  public Object afterCached() {
+    return cached.verify(token).get("role", String.class);
+  }
+
+  private static Claims legacyParse(String token) {
+    return Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+  }
+
+  private static JwtUtil jwtUtil(long cacheSize) {
+    JwtUtil jwtUtil = new JwtUtil();
+    ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+    ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+    ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", cacheSize);
+    jwtUtil.init();
+    return jwtUtil;
+  }
+}
@@ -0,0 +1,75 @@
+package edu.cit.stathis.task.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.common.outbox.PartialDeliveryException;
+import edu.cit.stathis.task.entity.Score;
+import edu.cit.stathis.task.event.TaskCompletedEvent;
+import edu.cit.stathis.task.repository.BadgeRepository;
+import edu.cit.stathis.task.repository.LeaderboardRepository;
+import edu.cit.stathis.task.repository.ScoreRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+public class AchievementServiceTest {
+
+  private ScoreRepository scoreRepository;
+  private LeaderboardRepository leaderboardRepository;
+  private PlatformTransactionManager transactionManager;
+  private AchievementService achievementService;
+
+  @BeforeEach
+  void setup() {
+    scoreRepository = mock(ScoreRepository.class);
+    leaderboardRepository = mock(LeaderboardRepository.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenAnswer(invocation -> mock(TransactionStatus.class));
+    achievementService = new AchievementService();
+    ReflectionTestUtils.setField(achievementService, "scoreRepository", scoreRepository);
+    ReflectionTestUtils.setField(achievementService, "leaderboardRepository", leaderboardRepository);
+    ReflectionTestUtils.setField(achievementService, "badgeRepository", mock(BadgeRepository.class));
+    ReflectionTestUtils.setField(achievementService, "transactionManager", transactionManager);
+    achievementService.init();
+  }
+
+  @Test
+  void failingEventRollsBackAloneAndIsReportedByIndex() {
+    when(scoreRepository.findByStudentIdAndTaskId(any(), any())).thenReturn(List.of(score(80)));
+    when(scoreRepository.findByStudentIdAndTaskId("STUDENT-2", "TASK-1"))
+        .thenThrow(new CannotAcquireLockException("deadlock"));
+
+    PartialDeliveryException partial =
+        assertThrows(
+            PartialDeliveryException.class,
+            () ->
+                achievementService.handle(
+                    List.of(
+                        new TaskCompletedEvent("STUDENT-1", "TASK-1"),
+                        new TaskCompletedEvent("STUDENT-2", "TASK-1"),
+                        new TaskCompletedEvent("STUDENT-3", "TASK-1"))));
+
+    assertEquals(Set.of(1), partial.getFailed());
+    assertTrue(partial.getDeferred().isEmpty());
+    assertInstanceOf(CannotAcquireLockException.class, partial.getCause());
+    verify(transactionManager, times(3)).getTransaction(any());
+    verify(transactionManager, times(2)).commit(any());
+    verify(transactionManager, times(1)).rollback(any());
+    verify(leaderboardRepository, times(2)).findByStudentIdAndTaskId(any(), any());
+  }
+
+  private static Score score(int points) {
+    Score score = new Score();
+    score.setScore(points);
+    score.setMaxScore(100);
+    score.setTimeTaken(60);
+    return score;
+  }
+}
@@ -0,0 +1,226 @@
+package edu.cit.stathis.task.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.auth.entity.User;
+import edu.cit.stathis.auth.entity.UserProfile;
+import edu.cit.stathis.auth.enums.UserRoleEnum;
+import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.auth.service.UserService;
+import edu.cit.stathis.classroom.entity.Classroom;
+import edu.cit.stathis.classroom.entity.ClassroomStudents;
+import edu.cit.stathis.classroom.service.ClassroomService;
+import edu.cit.stathis.task.dto.QuizSubmissionDTO;
+import edu.cit.stathis.task.dto.StudentTaskResponseDTO;
+import edu.cit.stathis.task.entity.ExerciseTemplate;
+import edu.cit.stathis.task.entity.LessonTemplate;
+import edu.cit.stathis.task.entity.QuizTemplate;
+import edu.cit.stathis.task.entity.Score;
+import edu.cit.stathis.task.entity.Task;
+import edu.cit.stathis.task.enums.ExerciseDifficulty;
+import edu.cit.stathis.task.enums.ExerciseType;
+import jakarta.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Query-count budget for the student task list; the templates' jsonb columns map to H2 text. */
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:student-tasks;MODE=PostgreSQL;"
+          + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS VARCHAR",
+      "spring.datasource.driver-class-name=org.h2.Driver",
+      "spring.datasource.hikari.driver-class-name=org.h2.Driver",
+      "spring.datasource.username=sa",
+      "spring.datasource.password=",
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentTaskService.class, ClassroomService.class, TemplateSnapshotCache.class})
+public class StudentTaskServiceTest {
+
+  // Membership check, tasks, quiz scores, then lesson, quiz and exercise templates
+  private static final int QUERY_BUDGET = 6;
+  private static final int TASKS = 30;
+  private static final String CLASSROOM = "ROOM-26-001";
+  private static final String STUDENT = "26-0000-001";
+
+  @Autowired private StudentTaskService studentTaskService;
+  @Autowired private TemplateSnapshotCache templateSnapshotCache;
+  @Autowired private EntityManager entityManager;
+
+  @MockitoBean private UserService userService;
+  @MockitoBean private PhysicalIdService physicalIdService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    // The budget covers the database path, not a cache warmed by an earlier test
+    templateSnapshotCache.invalidateAll();
+    Classroom classroom = new Classroom();
+    classroom.setPhysicalId(CLASSROOM);
+    classroom.setName("PE 101");
+    classroom.setTeacherId("26-1000-000");
+    classroom.setClassroomCode("FISH-000001");
+    entityManager.persist(classroom);
+    ClassroomStudents enrollment = new ClassroomStudents();
+    enrollment.setPhysicalId("CS-26-000000001");
+    enrollment.setClassroom(classroom);
+    enrollment.setStudent(student());
+    enrollment.setVerified(true);
+    entityManager.persist(enrollment);
+
+    for (int i = 0; i < TASKS; i++) {
+      Task task = new Task();
+      task.setPhysicalId(String.format("TASK-26-%04d-000", i));
+      task.setName("Task " + i);
+      task.setClassroomPhysicalId(CLASSROOM);
+      task.setSubmissionDate(OffsetDateTime.now());
+      task.setClosingDate(OffsetDateTime.now().plusDays(7));
+      task.setLessonTemplateId(lesson(i % 3));
+      // Every other task has a quiz; a third of those have a score already
+      if (i % 2 == 0) {
+        task.setQuizTemplateId(quiz(i % 4));
+        if (i % 3 == 0) {
+          score(task, i);
+        }
+      }
+      task.setExerciseTemplateId(i % 5 == 0 ? exercise(i % 2) : null);
+      entityManager.persist(task);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void taskListStaysWithinQueryBudget() {
+    List<StudentTaskResponseDTO> tasks = studentTaskService.getStudentTasks(CLASSROOM, STUDENT);
+
+    assertEquals(TASKS, tasks.size());
+    assertTrue(
+        statistics.getPrepareStatementCount() <= QUERY_BUDGET,
+        "Student task list took " + statistics.getPrepareStatementCount() + " queries for " + TASKS
+            + " tasks; budget is " + QUERY_BUDGET);
+  }
+
+  @Test
+  void assemblesTemplatesAndScoresPerTask() {
+    Map<String, StudentTaskResponseDTO> tasks =
+        studentTaskService.getStudentTasks(CLASSROOM, STUDENT).stream()
+            .collect(Collectors.toMap(StudentTaskResponseDTO::getPhysicalId, Function.identity()));
+
+    StudentTaskResponseDTO scored = tasks.get("TASK-26-0006-000");
+    assertEquals("LESSON-0", scored.getLessonTemplate().getPhysicalId());
+    assertEquals("QUIZ-2", scored.getQuizTemplate().getPhysicalId());
+    assertEquals(6, scored.getScore().getScore());
+    assertTrue(scored.isCompleted());
+    assertNull(scored.getExerciseTemplate());
+
+    StudentTaskResponseDTO unscored = tasks.get("TASK-26-0010-000");
+    assertEquals("QUIZ-2", unscored.getQuizTemplate().getPhysicalId());
+    assertEquals("EXERCISE-0", unscored.getExerciseTemplate().getPhysicalId());
+    assertEquals(ExerciseType.PUSH_UP, unscored.getExerciseTemplate().getExerciseType());
+    assertNull(unscored.getScore());
+
+    StudentTaskResponseDTO lessonOnly = tasks.get("TASK-26-0001-000");
+    assertNull(lessonOnly.getQuizTemplate());
+    assertNull(lessonOnly.getScore());
+    assertEquals("Lesson 1", lessonOnly.getLessonTemplate().getTitle());
+  }
+
+  @Test
+  void gradesAgainstTheCachedQuiz() {
+    templateSnapshotCache.getQuiz("QUIZ-2");
+    statistics.clear();
+
+    Score graded =
+        studentTaskService.autoCheckQuiz(
+            STUDENT, "TASK-26-0010-000", "QUIZ-2", new QuizSubmissionDTO());
+
+    assertEquals(10, graded.getMaxScore());
+    assertEquals(0, statistics.getEntityStatistics(QuizTemplate.class.getName()).getLoadCount());
+  }
+
+  private String lesson(int n) {
+    String physicalId = "LESSON-" + n;
+    if (isNew("LessonTemplate", physicalId)) {
+      entityManager.persist(
+          LessonTemplate.builder().physicalId(physicalId).title("Lesson " + n).build());
+    }
+    return physicalId;
+  }
+
+  private String quiz(int n) {
+    String physicalId = "QUIZ-" + n;
+    if (isNew("QuizTemplate", physicalId)) {
+      entityManager.persist(
+          QuizTemplate.builder().physicalId(physicalId).title("Quiz " + n).maxScore(10).build());
+    }
+    return physicalId;
+  }
+
+  private String exercise(int n) {
+    String physicalId = "EXERCISE-" + n;
+    if (isNew("ExerciseTemplate", physicalId)) {
+      entityManager.persist(
+          ExerciseTemplate.builder()
+              .physicalId(physicalId)
+              .title("Exercise " + n)
+              .exerciseType(n == 0 ? ExerciseType.PUSH_UP : ExerciseType.SQUATS)
+              .exerciseDifficulty(ExerciseDifficulty.BEGINNER)
+              .build());
+    }
+    return physicalId;
+  }
+
+  private boolean isNew(String entity, String physicalId) {
+    return entityManager
+            .createQuery("SELECT COUNT(t) FROM " + entity + " t WHERE t.physicalId = :id", Long.class)
+            .setParameter("id", physicalId)
+            .getSingleResult()
+        == 0;
+  }
+
+  private void score(Task task, int value) {
+    entityManager.persist(
+        Score.builder()
+            .physicalId("SCORE-" + value)
+            .studentId(STUDENT)
+            .taskId(task.getPhysicalId())
+            .quizTemplateId(task.getQuizTemplateId())
+            .score(value)
+            .maxScore(10)
+            .attempts(1)
+            .isCompleted(true)
+            .build());
+  }
+
+  private UserProfile student() {
+    User user =
+        User.builder()
+            .physicalId(STUDENT)
+            .email(STUDENT + "@cit.edu")
+            .userRole(UserRoleEnum.STUDENT)
+            .passwordHash("{bcrypt}x")
+            .build();
+    entityManager.persist(user);
+    UserProfile profile = UserProfile.builder().user(user).firstName("S").lastName("One").build();
+    entityManager.persist(profile);
+    return profile;
+  }
+}
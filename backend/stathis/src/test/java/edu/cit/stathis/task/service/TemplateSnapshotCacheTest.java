@@ -0,0 +1,184 @@
+package edu.cit.stathis.task.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+import edu.cit.stathis.auth.service.PhysicalIdService;
+import edu.cit.stathis.task.dto.QuizTemplateBodyDTO;
+import edu.cit.stathis.task.entity.QuizTemplate;
+import edu.cit.stathis.task.entity.TemplateInvalidation;
+import edu.cit.stathis.task.service.TemplateSnapshotCache.QuizSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Quiz templates through the snapshot cache; the jsonb content column maps to H2 text. */
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:template-cache;MODE=PostgreSQL;"
+          + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS VARCHAR",
+      "spring.datasource.driver-class-name=org.h2.Driver",
+      "spring.datasource.hikari.driver-class-name=org.h2.Driver",
+      "spring.datasource.username=sa",
+      "spring.datasource.password=",
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QuizTemplateService.class, TemplateSnapshotCache.class, SimpleMeterRegistry.class})
+public class TemplateSnapshotCacheTest {
+
+  private static final String TEACHER = "26-1000-000";
+
+  @Autowired private TemplateSnapshotCache templateSnapshotCache;
+  @Autowired private QuizTemplateService quizTemplateService;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private EntityManager entityManager;
+
+  @MockitoBean private PhysicalIdService physicalIdService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setup() {
+    when(physicalIdService.getCurrentUserPhysicalId()).thenReturn(TEACHER);
+    // The cache outlives each test's rolled-back rows
+    templateSnapshotCache.invalidateAll();
+    for (int i = 0; i < 3; i++) {
+      entityManager.persist(
+          QuizTemplate.builder()
+              .physicalId("QUIZ-" + i)
+              .teacherPhysicalId(TEACHER)
+              .title("Quiz " + i)
+              .maxScore(2)
+              .content(
+                  Map.of(
+                      "quiz",
+                      Map.of("content", Map.of("questions", List.of(Map.of("answer", 1)), "maxScore", 2))))
+              .build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void servesRepeatReadsFromMemory() {
+    double hitsBefore = hits("templates.quiz");
+    QuizSnapshot first = templateSnapshotCache.getQuiz("QUIZ-0");
+    QuizSnapshot second = templateSnapshotCache.getQuiz("QUIZ-0");
+
+    assertSame(first, second);
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1.0, hits("templates.quiz") - hitsBefore);
+    assertEquals("Quiz 0", quizTemplateService.getQuizTemplateResponseDTO("QUIZ-0").getTitle());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void snapshotsCannotBeChangedByTheirReaders() {
+    Map<String, Object> content = templateSnapshotCache.getQuiz("QUIZ-1").content();
+
+    assertThrows(UnsupportedOperationException.class, () -> content.put("quiz", null));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> quiz = (Map<String, Object>) content.get("quiz");
+    @SuppressWarnings("unchecked")
+    Map<String, Object> inner = (Map<String, Object>) quiz.get("content");
+    assertThrows(UnsupportedOperationException.class, () -> ((List<?>) inner.get("questions")).clear());
+  }
+
+  @Test
+  void loadsOnlyTheMissesOfABatchInOneQuery() {
+    templateSnapshotCache.getQuiz("QUIZ-0");
+    statistics.clear();
+
+    Map<String, QuizSnapshot> quizzes =
+        templateSnapshotCache.getQuizzes(List.of("QUIZ-0", "QUIZ-1", "QUIZ-2", "QUIZ-404"));
+
+    assertEquals(3, quizzes.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertNull(quizzes.get("QUIZ-404"));
+  }
+
+  @Test
+  void updateAndDeleteInvalidateTheSnapshot() {
+    templateSnapshotCache.getQuiz("QUIZ-2");
+
+    quizTemplateService.updateQuizTemplate(
+        "QUIZ-2", QuizTemplateBodyDTO.builder().title("Renamed").instruction("Go").maxScore(5).build());
+    entityManager.flush();
+
+    QuizSnapshot updated = templateSnapshotCache.getQuiz("QUIZ-2");
+    assertEquals("Renamed", updated.title());
+    assertEquals(5, updated.maxScore());
+
+    quizTemplateService.deleteQuizTemplate("QUIZ-2");
+    entityManager.flush();
+
+    assertNull(templateSnapshotCache.getQuiz("QUIZ-2"));
+    assertNull(quizTemplateService.getQuizTemplateResponseDTO("QUIZ-2"));
+  }
+
+  @Test
+  void appliesInvalidationsRecordedByAnotherNodeOnce() {
+    templateSnapshotCache.getQuiz("QUIZ-1");
+    // Another node edits the quiz: the row and its invalidation change, this node's cache does not
+    entityManager
+        .createQuery("UPDATE QuizTemplate q SET q.title = 'Edited' WHERE q.physicalId = 'QUIZ-1'")
+        .executeUpdate();
+    entityManager.persist(
+        TemplateInvalidation.builder()
+            .templateKind("quiz")
+            .physicalId("QUIZ-1")
+            .createdAt(OffsetDateTime.now())
+            .build());
+    entityManager.flush();
+    entityManager.clear();
+    assertEquals("Quiz 1", templateSnapshotCache.getQuiz("QUIZ-1").title());
+
+    templateSnapshotCache.pollInvalidations();
+    assertEquals("Edited", templateSnapshotCache.getQuiz("QUIZ-1").title());
+
+    statistics.clear();
+    templateSnapshotCache.pollInvalidations();
+    templateSnapshotCache.getQuiz("QUIZ-1");
+    // Only the poll itself: the invalidation was not applied a second time
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void updatesAreRecordedForTheOtherNodes() {
+    quizTemplateService.updateQuizTemplate(
+        "QUIZ-0", QuizTemplateBodyDTO.builder().title("Renamed").instruction("Go").maxScore(5).build());
+    entityManager.flush();
+
+    List<String> recorded =
+        entityManager
+            .createQuery(
+                "SELECT i.templateKind || ':' || i.physicalId FROM TemplateInvalidation i", String.class)
+            .getResultList();
+    assertEquals(List.of("quiz:QUIZ-0"), recorded);
+  }
+
+  private double hits(String cache) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", cache)
+        .tag("result", "hit")
+        .functionCounter()
+        .count();
+  }
+}
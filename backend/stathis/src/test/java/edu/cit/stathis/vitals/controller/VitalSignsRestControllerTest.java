@@ -0,0 +1,85 @@
+package edu.cit.stathis.vitals.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.cit.stathis.vitals.service.VitalSignsHistoryService;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/** The NDJSON export endpoints, without security; the history service is mocked. */
+public class VitalSignsRestControllerTest {
+
+  private VitalSignsHistoryService historyService;
+  private VitalSignsRestController controller;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setup() {
+    historyService = mock(VitalSignsHistoryService.class);
+    controller = new VitalSignsRestController();
+    ReflectionTestUtils.setField(controller, "vitalSignsHistoryService", historyService);
+    ReflectionTestUtils.setField(controller, "exportTimeoutMillis", 600_000L);
+    ReflectionTestUtils.setField(controller, "exportThreads", 1);
+    controller.startExportExecutor();
+    mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @AfterEach
+  void teardown() {
+    controller.stopExportExecutor();
+  }
+
+  @Test
+  void streamsTheExportWithItsOwnTimeout() throws Exception {
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      expected.append("{\"heartRate\":").append(100 + i % 50).append("}\n");
+    }
+    doAnswer(invocation -> {
+          OutputStream out = invocation.getArgument(2);
+          out.write(expected.toString().getBytes(StandardCharsets.UTF_8));
+          return null;
+        })
+        .when(historyService)
+        .streamByStudentAndTask(eq("STUDENT-1"), eq("TASK-1"), any());
+
+    MvcResult result =
+        mockMvc.perform(get("/api/vitals/student/STUDENT-1/task/TASK-1/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    assertEquals(600_000L, result.getRequest().getAsyncContext().getTimeout());
+    result.getAsyncResult(5000);
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andExpect(content().string(expected.toString()));
+  }
+
+  @Test
+  void failedExportEndsTheResponseWithTheError() throws Exception {
+    doThrow(new IllegalStateException("cursor lost"))
+        .when(historyService)
+        .streamByClassroomAndTask(eq("ROOM-1"), eq("TASK-1"), any());
+
+    MvcResult result =
+        mockMvc.perform(get("/api/vitals/classroom/ROOM-1/task/TASK-1/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    assertInstanceOf(IllegalStateException.class, result.getAsyncResult(5000));
+  }
+}
@@ -0,0 +1,122 @@
+package edu.cit.stathis.vitals.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+/**
+ * Drives {@code POST /api/vitals} on a running backend so the servlet and reactive ingestion paths
+ * can be compared on the same database: start the backend once with {@code
+ * VITALS_INGESTION_MODE=servlet} and once with {@code reactive}, run this against each and compare
+ * throughput, latency percentiles and the 429/503 counts it prints.
+ *
+ * <p>Needs a started task and one student token per simulated device, since sampling control
+ * throttles per device:
+ *
+ * <pre>
+ * STATHIS_URL=http://localhost:8080 STATHIS_TOKENS=tok1,tok2,... STATHIS_CLASSROOM=ROOM-..
+ * STATHIS_TASK=TASK-.. mvn test -Dtest=VitalsIngestionLoadTest
+ * </pre>
+ *
+ * It is skipped unless {@code STATHIS_TOKENS} is set. Optional: {@code STATHIS_DURATION_SECONDS}
+ * (default 60) and {@code STATHIS_INTERVAL_MS}, the per-device send interval (default 1000).
+ */
+@EnabledIfEnvironmentVariable(
+    named = "STATHIS_TOKENS",
+    matches = ".+",
+    disabledReason = "Load test; needs a running backend and student tokens")
+public class VitalsIngestionLoadTest {
+
+  @Test
+  void ingestAtDeviceRate() throws Exception {
+    String baseUrl = env("STATHIS_URL", "http://localhost:8080");
+    List<String> tokens = List.of(env("STATHIS_TOKENS", "").split(","));
+    String classroomId = env("STATHIS_CLASSROOM", "");
+    String taskId = env("STATHIS_TASK", "");
+    long durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(env("STATHIS_DURATION_SECONDS", "60")));
+    long intervalMillis = Long.parseLong(env("STATHIS_INTERVAL_MS", "1000"));
+
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+    AtomicInteger failures = new AtomicInteger();
+    long end = System.currentTimeMillis() + durationMillis;
+
+    ExecutorService devices = Executors.newFixedThreadPool(tokens.size());
+    for (String token : tokens) {
+      devices.submit(
+          () -> {
+            int heartRate = 90;
+            while (System.currentTimeMillis() < end) {
+              heartRate = 80 + (heartRate + 7) % 90;
+              HttpRequest request =
+                  HttpRequest.newBuilder(URI.create(baseUrl + "/api/vitals"))
+                      .header("Authorization", "Bearer " + token.trim())
+                      .header("Content-Type", "application/json")
+                      .POST(HttpRequest.BodyPublishers.ofString(body(classroomId, taskId, heartRate)))
+                      .build();
+              long start = System.nanoTime();
+              try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                if (status == 200) {
+                  latencies.add(System.nanoTime() - start);
+                }
+              } catch (Exception e) {
+                failures.incrementAndGet();
+              }
+              Thread.sleep(intervalMillis);
+            }
+            return null;
+          });
+    }
+    devices.shutdown();
+    devices.awaitTermination(durationMillis + 60_000, TimeUnit.MILLISECONDS);
+
+    List<Long> sorted = new ArrayList<>(latencies);
+    Collections.sort(sorted);
+    System.out.printf(
+        "devices %d   stored/s %.1f   p50 %.1f ms   p95 %.1f ms   p99 %.1f ms   max %.1f ms%n",
+        tokens.size(),
+        sorted.size() * 1000.0 / durationMillis,
+        percentile(sorted, 0.50),
+        percentile(sorted, 0.95),
+        percentile(sorted, 0.99),
+        percentile(sorted, 1.0));
+    System.out.printf("statuses %s   transport failures %d%n", statuses, failures.get());
+  }
+
+  private static String body(String classroomId, String taskId, int heartRate) {
+    return String.format(
+        "{\"classroomId\":\"%s\",\"taskId\":\"%s\",\"heartRate\":%d,\"oxygenSaturation\":97,"
+            + "\"timestamp\":\"%s\",\"isPreActivity\":false,\"isPostActivity\":false}",
+        classroomId, taskId, heartRate, LocalDateTime.now());
+  }
+
+  private static double percentile(List<Long> sortedNanos, double percentile) {
+    if (sortedNanos.isEmpty()) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+    return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value != null && !value.isBlank() ? value : defaultValue;
+  }
+}
@@ -0,0 +1,115 @@
+package edu.cit.stathis.vitals.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.cit.stathis.vitals.dto.VitalsActivityAggregate;
+import edu.cit.stathis.vitals.dto.VitalsHeartRateBand;
+import edu.cit.stathis.vitals.dto.VitalsLatestReading;
+import edu.cit.stathis.vitals.entity.VitalSigns;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+public class VitalSignsRepositoryTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+  @Autowired private VitalSignsRepository vitalSignsRepository;
+  @Autowired private EntityManager entityManager;
+
+  @BeforeEach
+  void setup() {
+    persist("STUDENT-1", 0, 70, 99, true, false);
+    persist("STUDENT-1", 1, 74, 98, true, false);
+    persist("STUDENT-1", 2, 150, 95, false, false);
+    persist("STUDENT-1", 3, 170, 93, false, false);
+    persist("STUDENT-1", 4, 100, 97, false, true);
+    persist("STUDENT-1", 5, null, 96, false, true);
+    persist("STUDENT-2", 0, 80, 97, false, false);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  void aggregatesRecoveryFiguresPerStudentFromRawReadings() {
+    List<VitalsActivityAggregate> aggregates =
+        vitalSignsRepository.aggregateActivityByClassroomIdAndTaskId("ROOM-1", "TASK-1");
+
+    assertEquals(2, aggregates.size());
+    VitalsActivityAggregate first = aggregates.get(0);
+    assertEquals("STUDENT-1", first.studentId());
+    assertEquals(6, first.sampleCount());
+    assertEquals(72.0, first.restingHeartRate());
+    assertEquals(170, first.peakHeartRate());
+    assertEquals(100.0, first.postActivityHeartRate());
+    assertEquals(93, first.minOxygenSaturation());
+    assertEquals(2, first.preActivitySampleCount());
+    assertEquals(1, first.postActivitySampleCount());
+    assertEquals(START.plusSeconds(5), first.lastUpdated());
+
+    VitalsActivityAggregate second = aggregates.get(1);
+    assertNull(second.restingHeartRate());
+    assertNull(second.postActivityHeartRate());
+    assertEquals(0, second.preActivitySampleCount());
+  }
+
+  @Test
+  void aggregatesHeartRateBandsWithTheSecondsToTheNextHeartRateReading() {
+    persist("STUDENT-1", 20, 150, 94, false, false);
+    entityManager.flush();
+
+    List<VitalsHeartRateBand> bands =
+        vitalSignsRepository.aggregateHeartRateBandsByClassroomIdAndTaskId("ROOM-1", "TASK-1", 10);
+
+    assertEquals(
+        List.of(
+            // 100 bpm is followed 16 s later, past the sample gap; the last 150 bpm reading has no next
+            "STUDENT-1|100|1|1|97|0|1|0.0",
+            "STUDENT-1|150|2|2|189|0|0|1.0",
+            "STUDENT-1|170|1|1|93|0|0|1.0",
+            "STUDENT-1|70|1|1|99|1|0|1.0",
+            "STUDENT-1|74|1|1|98|1|0|1.0",
+            "STUDENT-1|null|1|1|96|0|1|0.0",
+            "STUDENT-2|80|1|1|97|0|0|0.0"),
+        bands.stream()
+            .map(
+                band ->
+                    band.studentId() + "|" + band.heartRate() + "|" + band.sampleCount() + "|"
+                        + band.oxygenSampleCount() + "|" + band.oxygenSaturationSum() + "|"
+                        + band.preActivitySampleCount() + "|" + band.postActivitySampleCount() + "|"
+                        + band.seconds())
+            .sorted()
+            .toList());
+    VitalsHeartRateBand fastest =
+        bands.stream().filter(band -> Integer.valueOf(150).equals(band.heartRate())).findFirst().orElseThrow();
+    assertEquals(94, fastest.minOxygenSaturation());
+    assertEquals(START.plusSeconds(20), fastest.lastUpdated());
+  }
+
+  @Test
+  void findsTheNewestReadingOfEachRequestedStudent() {
+    List<VitalsLatestReading> latest =
+        vitalSignsRepository.findLatestReadingsByTaskIdAndStudentIds(
+            "TASK-1", List.of("STUDENT-1", "STUDENT-3"));
+
+    assertEquals(List.of(new VitalsLatestReading("STUDENT-1", START.plusSeconds(5))), latest);
+  }
+
+  private void persist(String studentId, int second, Integer heartRate, int oxygen, boolean pre, boolean post) {
+    VitalSigns vitals = new VitalSigns();
+    vitals.setStudentId(studentId);
+    vitals.setClassroomId("ROOM-1");
+    vitals.setTaskId("TASK-1");
+    vitals.setHeartRate(heartRate);
+    vitals.setOxygenSaturation(oxygen);
+    vitals.setTimestamp(START.plusSeconds(second));
+    vitals.setIsPreActivity(pre);
+    vitals.setIsPostActivity(post);
+    entityManager.persist(vitals);
+  }
+}
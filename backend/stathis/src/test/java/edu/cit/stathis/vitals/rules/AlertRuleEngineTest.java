@@ -0,0 +1,229 @@
+package edu.cit.stathis.vitals.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.common.datasource.Workload;
+import edu.cit.stathis.common.datasource.WorkloadBulkheadAspect;
+import edu.cit.stathis.common.datasource.WorkloadContext;
+import edu.cit.stathis.task.repository.TaskRepository;
+import edu.cit.stathis.vitals.dto.HeartRateAlertDTO;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalsLatestReading;
+import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import edu.cit.stathis.vitals.service.StudentVitalsProfileCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+public class AlertRuleEngineTest {
+
+  private static final String ALERTS = "/topic/classroom/ROOM-25-001/alerts";
+  private static final long START = 1_700_000_000_000L;
+
+  private SimpMessagingTemplate messagingTemplate;
+  private SimpleMeterRegistry meterRegistry;
+  private VitalSignsRepository vitalSignsRepository;
+  private TaskRepository taskRepository;
+  private AlertRuleEngine engine;
+
+  @BeforeEach
+  void setup() {
+    messagingTemplate = mock(SimpMessagingTemplate.class);
+    meterRegistry = new SimpleMeterRegistry();
+    vitalSignsRepository = mock(VitalSignsRepository.class);
+    taskRepository = mock(TaskRepository.class);
+    when(taskRepository.isRunning("TASK-1")).thenReturn(true);
+    StudentVitalsProfileCache profileCache = mock(StudentVitalsProfileCache.class);
+    when(profileCache.get("24-0001-001"))
+        .thenReturn(new StudentVitalsProfileCache.StudentVitalsProfile("Juan Dela Cruz", 200));
+    engine =
+        new AlertRuleEngine(
+            List.of(new HeartRateMaxRule(0.85, 0), new OxygenSaturationFloorRule(90, 0)),
+            meterRegistry,
+            profileCache,
+            vitalSignsRepository,
+            taskRepository,
+            messagingTemplate,
+            30,
+            10);
+  }
+
+  @Test
+  void firesOnceThenHoldsForCooldown() {
+    engine.evaluate(sample(171, 98));
+    engine.evaluate(sample(175, 98));
+
+    ArgumentCaptor<HeartRateAlertDTO> alert = ArgumentCaptor.forClass(HeartRateAlertDTO.class);
+    verify(messagingTemplate, times(1)).convertAndSend(eq(ALERTS), alert.capture());
+    assertEquals("heart-rate-max", alert.getValue().getRuleId());
+    assertEquals(171, alert.getValue().getCurrentHeartRate());
+    assertEquals(170, alert.getValue().getThresholdHeartRate());
+    assertEquals(1.0, meterRegistry.get("stathis.vitals.alerts.fired").tag("rule", "heart-rate-max").counter().count());
+  }
+
+  @Test
+  void evaluatesEachRuleIndependently() {
+    engine.evaluate(sample(120, 88));
+
+    ArgumentCaptor<HeartRateAlertDTO> alert = ArgumentCaptor.forClass(HeartRateAlertDTO.class);
+    verify(messagingTemplate).convertAndSend(eq(ALERTS), alert.capture());
+    assertEquals("spo2-floor", alert.getValue().getRuleId());
+    assertEquals(88, alert.getValue().getCurrentOxygenSaturation());
+  }
+
+  @Test
+  void staysQuietWithinLimits() {
+    engine.evaluate(sample(150, 97));
+
+    verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+  }
+
+  @Test
+  void rateOfChangeComparesConsecutiveSamples() {
+    HeartRateRateOfChangeRule rule = new HeartRateRateOfChangeRule(5, 0);
+    StudentRuleState state = state(rule.stateSlots());
+
+    assertFalse(rule.test(state, 0, 100, 98, START));
+    assertFalse(rule.test(state, 0, 104, 98, START + 1000));
+    assertTrue(rule.test(state, 0, 120, 98, START + 2000));
+  }
+
+  @Test
+  void driftNeedsWarmupAndSeparatedAverages() {
+    HeartRateDriftRule rule = new HeartRateDriftRule(0.5, 0.01, 20, 5, 0);
+    StudentRuleState state = state(rule.stateSlots());
+
+    for (int i = 0; i < 5; i++) {
+      assertFalse(rule.test(state, 0, 90, 98, START + i * 1000L));
+    }
+    boolean drifted = false;
+    for (int i = 5; i < 15; i++) {
+      drifted = rule.test(state, 0, 140, 98, START + i * 1000L);
+    }
+    assertTrue(drifted);
+  }
+
+  @Test
+  void missingDataTriggersOnlyWhenIdle() {
+    MissingDataRule rule = new MissingDataRule(30_000);
+    StudentRuleState state = state(0);
+    state.lastReceivedMillis = START;
+
+    assertFalse(rule.testIdle(state, 0, START + 10_000));
+    assertTrue(rule.testIdle(state, 0, START + 31_000));
+  }
+
+  @Test
+  void missingDataFiresOncePerGapAndRearmsWhenDataArrives() throws Exception {
+    AlertRuleEngine missingData = missingDataEngine();
+
+    VitalSignsDTO first = sample(120, 98);
+    missingData.evaluate(first);
+    storedLatest(first.getTimestamp());
+    Thread.sleep(5);
+    missingData.sweep();
+    missingData.sweep();
+    verify(messagingTemplate, times(1)).convertAndSend(eq(ALERTS), any(HeartRateAlertDTO.class));
+
+    VitalSignsDTO second = sample(120, 98);
+    missingData.evaluate(second);
+    storedLatest(second.getTimestamp());
+    Thread.sleep(5);
+    missingData.sweep();
+    verify(messagingTemplate, times(2)).convertAndSend(eq(ALERTS), any(HeartRateAlertDTO.class));
+  }
+
+  @Test
+  void missingDataStaysQuietWhileAnotherNodeReceivesTheSamples() throws Exception {
+    AlertRuleEngine missingData = missingDataEngine();
+    VitalSignsDTO sample = sample(120, 98);
+    missingData.evaluate(sample);
+    storedLatest(sample.getTimestamp().plusSeconds(1));
+    Thread.sleep(5);
+
+    missingData.sweep();
+    missingData.sweep();
+
+    verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    // The state was handed over, so the second sweep had nothing to check
+    verify(vitalSignsRepository, times(1)).findLatestReadingsByTaskIdAndStudentIds(any(), any());
+  }
+
+  @Test
+  void missingDataStaysQuietForATaskEndedOnAnotherNode() throws Exception {
+    AlertRuleEngine missingData = missingDataEngine();
+    missingData.evaluate(sample(120, 98));
+    when(taskRepository.isRunning("TASK-1")).thenReturn(false);
+    Thread.sleep(5);
+
+    missingData.sweep();
+
+    verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    verify(vitalSignsRepository, never()).findLatestReadingsByTaskIdAndStudentIds(any(), any());
+  }
+
+  @Test
+  void sweepReadsTheDatabaseOnTheBackgroundWorkload() throws Exception {
+    List<Workload> workloads = new ArrayList<>();
+    when(taskRepository.isRunning("TASK-1"))
+        .thenAnswer(
+            invocation -> {
+              workloads.add(WorkloadContext.current());
+              return true;
+            });
+    AspectJProxyFactory factory = new AspectJProxyFactory(missingDataEngine());
+    factory.addAspect(new WorkloadBulkheadAspect(new MockEnvironment(), meterRegistry));
+    AlertRuleEngine proxy = factory.getProxy();
+    proxy.evaluate(sample(120, 98));
+    Thread.sleep(5);
+
+    proxy.sweep();
+
+    assertEquals(List.of(Workload.BACKGROUND), workloads);
+  }
+
+  private AlertRuleEngine missingDataEngine() {
+    StudentVitalsProfileCache profileCache = mock(StudentVitalsProfileCache.class);
+    when(profileCache.get("24-0001-001"))
+        .thenReturn(new StudentVitalsProfileCache.StudentVitalsProfile("Juan Dela Cruz", 200));
+    return new AlertRuleEngine(
+        List.of(new MissingDataRule(0)),
+        meterRegistry,
+        profileCache,
+        vitalSignsRepository,
+        taskRepository,
+        messagingTemplate,
+        0,
+        10);
+  }
+
+  private void storedLatest(LocalDateTime timestamp) {
+    when(vitalSignsRepository.findLatestReadingsByTaskIdAndStudentIds("TASK-1", List.of("24-0001-001")))
+        .thenReturn(List.of(new VitalsLatestReading("24-0001-001", timestamp)));
+  }
+
+  private static StudentRuleState state(int slots) {
+    return new StudentRuleState("24-0001-001", "Juan Dela Cruz", "ROOM-25-001", "TASK-1", 200, slots, 1);
+  }
+
+  private static VitalSignsDTO sample(int heartRate, int oxygenSaturation) {
+    VitalSignsDTO dto = new VitalSignsDTO();
+    dto.setStudentId("24-0001-001");
+    dto.setClassroomId("ROOM-25-001");
+    dto.setTaskId("TASK-1");
+    dto.setHeartRate(heartRate);
+    dto.setOxygenSaturation(oxygenSaturation);
+    dto.setTimestamp(LocalDateTime.now());
+    return dto;
+  }
+}
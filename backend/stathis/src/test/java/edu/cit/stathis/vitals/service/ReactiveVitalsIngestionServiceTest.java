@@ -0,0 +1,199 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The insert and dispatch path against a real database over R2DBC; H2 in PostgreSQL mode stands in
+ * for Postgres, with the schema the statements rely on. H2 cannot parse a conflict target, so the
+ * insert runs without one here; the table's only unique key is the one the target names.
+ */
+public class ReactiveVitalsIngestionServiceTest {
+
+  private static final String DATABASE = "reactive-ingest";
+  private static final String STUDENT_EMAIL = "student@cit.edu";
+  private static final String STUDENT_ID = "24-0001-001";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<ReactiveVitalsIngestionService> services = new ArrayList<>();
+  private final List<String> dispatchThreads = new CopyOnWriteArrayList<>();
+  private JdbcTemplate jdbc;
+  private VitalSignsService vitalSignsService;
+
+  @BeforeEach
+  void setup() {
+    jdbc =
+        new JdbcTemplate(
+            new DriverManagerDataSource(
+                "jdbc:h2:mem:" + DATABASE + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    jdbc.execute("DROP ALL OBJECTS");
+    jdbc.execute("CREATE TABLE users (email VARCHAR(255), physical_id VARCHAR(32))");
+    jdbc.execute(
+        "CREATE TABLE task (physical_id VARCHAR(32), is_started BOOLEAN, is_active BOOLEAN)");
+    jdbc.execute(
+        "CREATE TABLE vital_signs (physical_id VARCHAR(64), student_id VARCHAR(32),"
+            + " classroom_id VARCHAR(32), task_id VARCHAR(32), heart_rate INT,"
+            + " oxygen_saturation INT, timestamp TIMESTAMP, is_pre_activity BOOLEAN,"
+            + " is_post_activity BOOLEAN, UNIQUE (student_id, task_id, timestamp))");
+    jdbc.update("INSERT INTO users VALUES (?, ?)", STUDENT_EMAIL, STUDENT_ID);
+    jdbc.update("INSERT INTO task VALUES ('TASK-RUNNING', TRUE, TRUE)");
+    jdbc.update("INSERT INTO task VALUES ('TASK-ENDED', TRUE, FALSE)");
+
+    vitalSignsService = mock(VitalSignsService.class);
+    doAnswer(invocation -> dispatchThreads.add(Thread.currentThread().getName()))
+        .when(vitalSignsService)
+        .dispatch(any());
+  }
+
+  @AfterEach
+  void teardown() {
+    services.forEach(ReactiveVitalsIngestionService::destroy);
+  }
+
+  @Test
+  void storesTheSampleAndDispatchesItOffTheDriverThread() {
+    ReactiveVitalsIngestionService service = service(new RecentVitalsKeyFilter(meterRegistry, 100, 10));
+    VitalSignsDTO sample = sample("TASK-RUNNING", 120);
+
+    assertEquals(Boolean.TRUE, service.ingest(sample, STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+
+    assertEquals(
+        List.of(STUDENT_ID + "|120|98|false"),
+        jdbc.query(
+            "SELECT student_id, heart_rate, oxygen_saturation, is_pre_activity FROM vital_signs"
+                + " WHERE physical_id = ?",
+            (rs, row) ->
+                rs.getString(1) + "|" + rs.getInt(2) + "|" + rs.getInt(3) + "|" + rs.getBoolean(4),
+            sample.getPhysicalId()));
+    assertEquals(STUDENT_ID, sample.getStudentId());
+    verify(vitalSignsService).dispatch(sample);
+    assertTrue(dispatchThreads.get(0).startsWith("vitals-dispatch"), dispatchThreads.get(0));
+  }
+
+  @Test
+  void duplicateMissedByTheFilterIsCaughtByTheConstraint() {
+    // Two nodes each have their own in-memory filter; only the unique constraint sees both
+    ReactiveVitalsIngestionService first = service(new RecentVitalsKeyFilter(meterRegistry, 100, 10));
+    ReactiveVitalsIngestionService second = service(new RecentVitalsKeyFilter(meterRegistry, 100, 10));
+    LocalDateTime timestamp = LocalDateTime.now().withNano(0);
+    VitalSignsDTO sample = sample("TASK-RUNNING", 120);
+    sample.setTimestamp(timestamp);
+    VitalSignsDTO retry = sample("TASK-RUNNING", 120);
+    retry.setTimestamp(timestamp);
+
+    assertEquals(Boolean.TRUE, first.ingest(sample, STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+    assertEquals(Boolean.FALSE, second.ingest(retry, STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+
+    assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM vital_signs", Integer.class));
+    assertEquals(
+        1.0,
+        meterRegistry.get("stathis.vitals.duplicates").tag("source", "constraint").counter().count());
+    verify(vitalSignsService, times(1)).dispatch(any());
+  }
+
+  @Test
+  void skipsSamplesForTasksThatAreNotRunning() {
+    ReactiveVitalsIngestionService service = service(new RecentVitalsKeyFilter(meterRegistry, 100, 10));
+
+    assertEquals(
+        Boolean.FALSE,
+        service.ingest(sample("TASK-ENDED", 120), STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+
+    assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM vital_signs", Integer.class));
+    verify(vitalSignsService, never()).dispatch(any());
+  }
+
+  @Test
+  void taskEndedOnAnotherNodeStopsSamplesOnceItsStateExpires() throws Exception {
+    ReactiveVitalsIngestionService service =
+        service(new RecentVitalsKeyFilter(meterRegistry, 100, 10), 1);
+    assertEquals(
+        Boolean.TRUE,
+        service.ingest(sample("TASK-RUNNING", 120), STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+
+    // Ended elsewhere: this node gets no TaskEndedEvent, only the row changes
+    jdbc.update("UPDATE task SET is_active = FALSE WHERE physical_id = 'TASK-RUNNING'");
+    Thread.sleep(1100);
+
+    assertEquals(
+        Boolean.FALSE,
+        service.ingest(sample("TASK-RUNNING", 121), STUDENT_EMAIL).block(Duration.ofSeconds(10)));
+    assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM vital_signs", Integer.class));
+  }
+
+  @Test
+  void insertSkipsOnlyDuplicateReadings() {
+    assertTrue(
+        ReactiveVitalsIngestionService.INSERT_SQL.endsWith(
+            "ON CONFLICT (student_id, task_id, timestamp) DO NOTHING"));
+  }
+
+  @Test
+  void derivesReactiveUrlFromJdbcUrl() {
+    assertEquals(
+        "r2dbc:postgresql://db:5432/stathis?sslMode=require",
+        ReactiveVitalsIngestionService.toR2dbcUrl("jdbc:postgresql://db:5432/stathis?sslmode=require"));
+  }
+
+  @Test
+  void rejectsMissingJdbcUrl() {
+    assertThrows(IllegalStateException.class, () -> ReactiveVitalsIngestionService.toR2dbcUrl(""));
+  }
+
+  private ReactiveVitalsIngestionService service(RecentVitalsKeyFilter recentVitalsKeyFilter) {
+    return service(recentVitalsKeyFilter, 30);
+  }
+
+  private ReactiveVitalsIngestionService service(
+      RecentVitalsKeyFilter recentVitalsKeyFilter, long taskStateTtlSeconds) {
+    ReactiveVitalsIngestionService service =
+        new ReactiveVitalsIngestionService(
+            vitalSignsService,
+            recentVitalsKeyFilter,
+            mock(VitalsSamplingGovernor.class),
+            meterRegistry,
+            "r2dbc:h2:mem:///" + DATABASE + "?options=MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+            "",
+            "sa",
+            "",
+            1,
+            2,
+            2000,
+            2,
+            100,
+            taskStateTtlSeconds,
+            100);
+    ReflectionTestUtils.setField(
+        service,
+        "insertSql",
+        ReactiveVitalsIngestionService.INSERT_SQL.replace(
+            "ON CONFLICT (student_id, task_id, timestamp)", "ON CONFLICT"));
+    services.add(service);
+    return service;
+  }
+
+  private static VitalSignsDTO sample(String taskId, int heartRate) {
+    VitalSignsDTO sample = new VitalSignsDTO();
+    sample.setClassroomId("ROOM-25-001");
+    sample.setTaskId(taskId);
+    sample.setHeartRate(heartRate);
+    sample.setOxygenSaturation(98);
+    sample.setTimestamp(LocalDateTime.now());
+    return sample;
+  }
+}
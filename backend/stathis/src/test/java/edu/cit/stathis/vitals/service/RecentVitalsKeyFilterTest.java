@@ -0,0 +1,55 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class RecentVitalsKeyFilterTest {
+
+  private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 6, 1, 10, 15, 30);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RecentVitalsKeyFilter filter = new RecentVitalsKeyFilter(meterRegistry, 1000, 10);
+
+  @AfterEach
+  void teardown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void rejectsRepeatedKey() {
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+    assertFalse(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP.plusSeconds(1)));
+    assertTrue(filter.markIfAbsent("24-0001-002", "TASK-1", TIMESTAMP));
+    assertEquals(
+        1.0, meterRegistry.get("stathis.vitals.duplicates").tag("source", "filter").counter().count());
+  }
+
+  @Test
+  void releasesKeyWhenTransactionRollsBack() {
+    TransactionSynchronizationManager.initSynchronization();
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+  }
+
+  @Test
+  void releaseAllowsRetryAfterFailedWrite() {
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+    filter.release("24-0001-001", "TASK-1", TIMESTAMP);
+
+    assertTrue(filter.markIfAbsent("24-0001-001", "TASK-1", TIMESTAMP));
+  }
+}
@@ -0,0 +1,87 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class VitalSignsAccumulatorTest {
+
+  private static final long WINDOW_MILLIS = 60_000;
+  private static final long START = 1_700_000_000_000L;
+
+  private VitalSignsAccumulator accumulator;
+
+  @BeforeEach
+  void setup() {
+    // Max HR 200 -> zone bands at 100/120/140/160/180 bpm
+    accumulator =
+        new VitalSignsAccumulator("24-0001-001", "ROOM-25-001", "TASK-1", 200, WINDOW_MILLIS, 12, 10_000);
+  }
+
+  @Test
+  void tracksWholeTaskMinMaxAverage() {
+    accumulator.record(100, 98, START, START);
+    accumulator.record(140, 95, START + 1000, START + 1000);
+    accumulator.record(120, null, START + 2000, START + 2000);
+
+    assertEquals(3, accumulator.getSampleCount());
+    assertEquals(100, accumulator.getHeartRate().getMin());
+    assertEquals(140, accumulator.getHeartRate().getMax());
+    assertEquals(120.0, accumulator.getHeartRate().getAverage());
+    assertEquals(95, accumulator.getOxygenSaturation().getMin());
+    assertEquals(2, accumulator.getOxygenSaturation().getCount());
+  }
+
+  @Test
+  void slidingWindowDropsExpiredBuckets() {
+    accumulator.record(180, 97, START, START);
+    accumulator.record(100, 97, START + WINDOW_MILLIS + 5000, START + WINDOW_MILLIS + 5000);
+
+    VitalSignsAccumulator.WindowStats window =
+        accumulator.getHeartRate().getWindow(START + WINDOW_MILLIS + 5000);
+    assertEquals(1, window.count());
+    assertEquals(100, window.max());
+    assertEquals(180, accumulator.getHeartRate().getMax());
+  }
+
+  @Test
+  void creditsElapsedTimeToPreviousZoneAndSkipsGaps() {
+    accumulator.record(90, null, START, START); // zone 0 (<50%)
+    accumulator.record(150, null, START + 5000, START + 5000); // zone 3 (70-80%)
+    accumulator.record(185, null, START + 8000, START + 8000); // zone 5 (>=90%)
+    accumulator.record(185, null, START + 60_000, START + 60_000); // gap too long, not credited
+
+    assertEquals(5000, accumulator.getZoneMillis(0));
+    assertEquals(3000, accumulator.getZoneMillis(3));
+    assertEquals(0, accumulator.getZoneMillis(5));
+  }
+
+  @Test
+  void zonesDisabledWithoutPredictedMax() {
+    VitalSignsAccumulator noAge =
+        new VitalSignsAccumulator("24-0001-002", "ROOM-25-001", "TASK-1", null, WINDOW_MILLIS, 12, 10_000);
+    noAge.record(150, null, START, START);
+    noAge.record(150, null, START + 1000, START + 1000);
+
+    for (int zone = 0; zone < VitalSignsAccumulator.ZONE_COUNT; zone++) {
+      assertEquals(0, noAge.getZoneMillis(zone));
+    }
+    assertEquals(2, noAge.getHeartRate().getCount());
+  }
+
+  @Test
+  void tracksPreAndPostActivityRecovery() {
+    accumulator.record(70, 98, true, false, START, START);
+    accumulator.record(74, 98, true, false, START + 1000, START + 1000);
+    accumulator.record(165, 94, false, false, START + 2000, START + 2000);
+    accumulator.record(110, 97, false, true, START + 3000, START + 3000);
+    accumulator.record(100, 97, false, true, START + 4000, START + 4000);
+
+    assertEquals(72.0, accumulator.getPreActivityHeartRate().getAverage());
+    assertEquals(105.0, accumulator.getPostActivityHeartRate().getAverage());
+    assertEquals(60.0, accumulator.getRecoveryHeartRateDelta());
+    assertEquals(2, accumulator.getPostActivityHeartRate().getCount());
+    assertEquals(94, accumulator.getOxygenSaturation().getMin());
+  }
+}
@@ -0,0 +1,111 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.stathis.vitals.entity.VitalSigns;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** NDJSON exports read through the JDBC cursor against H2. */
+@DataJpaTest(
+    properties = {
+      "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+      "vitals.history.stream-fetch-size=2"
+    })
+@Import(VitalSignsHistoryService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class VitalSignsHistoryServiceTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+  @Autowired private VitalSignsHistoryService vitalSignsHistoryService;
+  @Autowired private EntityManager entityManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private ObjectMapper objectMapper;
+
+  @BeforeEach
+  void setup() {
+    // Persisted out of order; the export orders by (timestamp, id)
+    persist("STUDENT-1", "TASK-1", 2, 130);
+    persist("STUDENT-2", "TASK-1", 0, 90);
+    persist("STUDENT-1", "TASK-1", 1, 120);
+    persist("STUDENT-1", "TASK-2", 0, 100);
+    persist("STUDENT-1", "TASK-1", 0, 110);
+    entityManager.flush();
+  }
+
+  @Test
+  void streamsOneOrderedLinePerReading() throws Exception {
+    List<JsonNode> lines = export(true, "STUDENT-1", "TASK-1");
+
+    assertEquals(3, lines.size());
+    assertEquals(List.of(110, 120, 130), lines.stream().map(line -> line.get("heartRate").asInt()).toList());
+    assertEquals("2026-03-02T09:00:00", lines.get(0).get("timestamp").asText());
+    assertFalse(lines.get(0).get("isPreActivity").asBoolean());
+
+    List<JsonNode> classroom = export(false, "ROOM-1", "TASK-1");
+    assertEquals(4, classroom.size());
+    // Same timestamp: the earlier id goes first
+    assertEquals("STUDENT-2", classroom.get(0).get("studentId").asText());
+    assertEquals("STUDENT-1", classroom.get(1).get("studentId").asText());
+  }
+
+  @Test
+  void keepsMissingValuesNull() throws Exception {
+    // Rows written before the flags were mandatory
+    jdbcTemplate.execute("ALTER TABLE vital_signs ALTER COLUMN is_pre_activity SET NULL");
+    jdbcTemplate.update(
+        "INSERT INTO vital_signs (physical_id, student_id, classroom_id, task_id, timestamp, "
+            + "is_pre_activity, is_post_activity) VALUES ('VITAL-legacy', 'STUDENT-3', 'ROOM-1', 'TASK-1', ?, NULL, TRUE)",
+        START);
+
+    JsonNode legacy = export(true, "STUDENT-3", "TASK-1").get(0);
+
+    assertTrue(legacy.get("isPreActivity").isNull());
+    assertTrue(legacy.get("isPostActivity").asBoolean());
+    assertTrue(legacy.get("heartRate").isNull());
+  }
+
+  private List<JsonNode> export(boolean byStudent, String key, String taskId) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (byStudent) {
+      vitalSignsHistoryService.streamByStudentAndTask(key, taskId, out);
+    } else {
+      vitalSignsHistoryService.streamByClassroomAndTask(key, taskId, out);
+    }
+    List<JsonNode> lines = new ArrayList<>();
+    for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+      if (!line.isEmpty()) {
+        lines.add(objectMapper.readTree(line));
+      }
+    }
+    return lines;
+  }
+
+  private void persist(String studentId, String taskId, int second, int heartRate) {
+    VitalSigns vitals = new VitalSigns();
+    vitals.setStudentId(studentId);
+    vitals.setClassroomId("ROOM-1");
+    vitals.setTaskId(taskId);
+    vitals.setHeartRate(heartRate);
+    vitals.setOxygenSaturation(98);
+    vitals.setTimestamp(START.plusSeconds(second));
+    vitals.setIsPreActivity(false);
+    vitals.setIsPostActivity(false);
+    entityManager.persist(vitals);
+  }
+}
@@ -0,0 +1,164 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import edu.cit.stathis.task.event.TaskEndedEvent;
+import edu.cit.stathis.vitals.dto.VitalSignsDTO;
+import edu.cit.stathis.vitals.dto.VitalsActivityAggregate;
+import edu.cit.stathis.vitals.dto.VitalsActivitySummaryDTO;
+import edu.cit.stathis.vitals.dto.VitalsHeartRateBand;
+import edu.cit.stathis.vitals.entity.VitalSignsSummary;
+import edu.cit.stathis.vitals.repository.VitalSignsRepository;
+import edu.cit.stathis.vitals.repository.VitalSignsSummaryRepository;
+import edu.cit.stathis.vitals.service.StudentVitalsProfileCache.StudentVitalsProfile;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class VitalSignsStatsServiceTest {
+
+  private static final TaskEndedEvent ENDED = new TaskEndedEvent("TASK-1", "ROOM-1");
+
+  private VitalSignsSummaryRepository summaryRepository;
+  private VitalSignsRepository vitalSignsRepository;
+  private VitalSignsStatsService statsService;
+
+  @BeforeEach
+  void setup() {
+    summaryRepository = mock(VitalSignsSummaryRepository.class);
+    vitalSignsRepository = mock(VitalSignsRepository.class);
+    StudentVitalsProfileCache profileCache = mock(StudentVitalsProfileCache.class);
+    when(profileCache.get(any())).thenReturn(new StudentVitalsProfile("Ada", 190));
+    when(summaryRepository.findByClassroomIdAndTaskId("ROOM-1", "TASK-1")).thenReturn(List.of());
+    when(summaryRepository.findByStudentIdAndTaskId(any(), any())).thenReturn(Optional.empty());
+    statsService = new VitalSignsStatsService();
+    ReflectionTestUtils.setField(statsService, "studentVitalsProfileCache", profileCache);
+    ReflectionTestUtils.setField(statsService, "vitalSignsSummaryRepository", summaryRepository);
+    ReflectionTestUtils.setField(statsService, "vitalSignsRepository", vitalSignsRepository);
+    ReflectionTestUtils.setField(statsService, "windowSeconds", 60);
+    ReflectionTestUtils.setField(statsService, "windowBuckets", 12);
+    ReflectionTestUtils.setField(statsService, "maxSampleGapSeconds", 10);
+    ReflectionTestUtils.setField(statsService, "idleTtlSeconds", 1800L);
+  }
+
+  @Test
+  void rolledBackEndKeepsTheLiveStatistics() {
+    statsService.record(sample(120));
+    statsService.record(sample(140));
+    when(vitalSignsRepository.aggregateHeartRateBandsByClassroomIdAndTaskId("ROOM-1", "TASK-1", 10))
+        .thenReturn(List.of(band("STUDENT-1", 120, 1, 1.0), band("STUDENT-1", 140, 1, 0.0)));
+
+    // Summaries are written before commit; a rollback means the release never follows
+    statsService.onTaskEnded(ENDED);
+
+    verify(summaryRepository).saveAll(anyList());
+    assertTrue(statsService.getStudentStats("STUDENT-1", "TASK-1").orElseThrow().isLive());
+    assertEquals(3, statsService.record(sample(160)).orElseThrow().getSampleCount());
+  }
+
+  @Test
+  void samplesArrivingAfterTheEndAreIgnored() {
+    statsService.record(sample(120));
+    statsService.onTaskEnded(ENDED);
+    statsService.releaseEndedTask(ENDED);
+
+    assertTrue(statsService.record(sample(150)).isEmpty());
+    assertTrue(statsService.getStudentStats("STUDENT-1", "TASK-1").isEmpty());
+    verify(summaryRepository).findByStudentIdAndTaskId("STUDENT-1", "TASK-1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void finalSummaryIsAggregatedFromReadingsStoredByEveryNode() {
+    // This node ingested one sample; the others were stored by another node
+    statsService.record(sample(120));
+    VitalSignsSummary earlierRun = new VitalSignsSummary();
+    earlierRun.setStudentId("STUDENT-2");
+    when(summaryRepository.findByClassroomIdAndTaskId("ROOM-1", "TASK-1")).thenReturn(List.of(earlierRun));
+    LocalDateTime last = LocalDateTime.now();
+    when(vitalSignsRepository.aggregateHeartRateBandsByClassroomIdAndTaskId("ROOM-1", "TASK-1", 10))
+        .thenReturn(List.of(
+            new VitalsHeartRateBand("STUDENT-1", 120, 3, 3, 291L, 96, 98, 2, 0, 5.5, last),
+            new VitalsHeartRateBand("STUDENT-1", 160, 1, 1, 94L, 94, 94, 0, 1, 3.0, last),
+            new VitalsHeartRateBand("STUDENT-1", null, 1, 1, 99L, 99, 99, 0, 1, 0.0, last),
+            band("STUDENT-2", 80, 2, 0.0)));
+
+    statsService.onTaskEnded(ENDED);
+
+    ArgumentCaptor<List<VitalSignsSummary>> saved = ArgumentCaptor.forClass(List.class);
+    verify(summaryRepository).saveAll(saved.capture());
+    assertEquals(2, saved.getValue().size());
+    VitalSignsSummary first = saved.getValue().get(0);
+    assertEquals("STUDENT-1", first.getStudentId());
+    assertEquals("ROOM-1", first.getClassroomId());
+    assertEquals(5, first.getSampleCount());
+    assertEquals(120, first.getMinHeartRate());
+    assertEquals(160, first.getMaxHeartRate());
+    assertEquals(130.0, first.getAvgHeartRate());
+    assertEquals(94, first.getMinOxygenSaturation());
+    assertEquals(99, first.getMaxOxygenSaturation());
+    assertEquals(96.8, first.getAvgOxygenSaturation());
+    assertEquals(120.0, first.getRestingHeartRate());
+    assertEquals(160.0, first.getPostActivityHeartRate());
+    assertEquals(1, first.getPostActivitySampleCount());
+    assertEquals(0.0, first.getRecoveryHeartRateDelta());
+    // Against a predicted maximum of 190 bpm, 120 bpm is zone 2 and 160 bpm zone 4
+    assertEquals(5, first.getZone2Seconds());
+    assertEquals(3, first.getZone4Seconds());
+    assertEquals(0, first.getZone3Seconds());
+    assertSame(earlierRun, saved.getValue().get(1));
+    assertEquals(80.0, earlierRun.getAvgHeartRate());
+  }
+
+  @Test
+  void idleTasksAreEvictedFromMemory() throws InterruptedException {
+    statsService.record(sample(120));
+    statsService.evictIdleTasks();
+    assertTrue(statsService.getStudentStats("STUDENT-1", "TASK-1").orElseThrow().isLive());
+
+    ReflectionTestUtils.setField(statsService, "idleTtlSeconds", 0L);
+    Thread.sleep(5);
+    statsService.evictIdleTasks();
+
+    assertTrue(statsService.getStudentStats("STUDENT-1", "TASK-1").isEmpty());
+  }
+
+  @Test
+  void activitySummariesFallBackToRawReadingsWhenNotInMemory() {
+    LocalDateTime last = LocalDateTime.now();
+    when(vitalSignsRepository.aggregateActivityByClassroomIdAndTaskId("ROOM-1", "TASK-1"))
+        .thenReturn(List.of(new VitalsActivityAggregate("STUDENT-1", 6, 72.0, 170, 100.0, 93, 2, 1, last)));
+
+    List<VitalsActivitySummaryDTO> summaries = statsService.getClassroomActivitySummaries("ROOM-1", "TASK-1");
+
+    assertEquals(1, summaries.size());
+    VitalsActivitySummaryDTO summary = summaries.get(0);
+    assertTrue(summary.isLive());
+    assertEquals("ROOM-1", summary.getClassroomId());
+    assertEquals(70.0, summary.getRecoveryHeartRateDelta());
+    assertEquals(last, summary.getLastUpdated());
+  }
+
+  private static VitalsHeartRateBand band(String studentId, int heartRate, long samples, double seconds) {
+    return new VitalsHeartRateBand(
+        studentId, heartRate, samples, samples, 98L * samples, 98, 98, 0, 0, seconds, LocalDateTime.now());
+  }
+
+  private static VitalSignsDTO sample(int heartRate) {
+    VitalSignsDTO sample = new VitalSignsDTO();
+    sample.setStudentId("STUDENT-1");
+    sample.setClassroomId("ROOM-1");
+    sample.setTaskId("TASK-1");
+    sample.setHeartRate(heartRate);
+    sample.setOxygenSaturation(98);
+    sample.setTimestamp(LocalDateTime.now());
+    return sample;
+  }
+}
@@ -0,0 +1,39 @@
+package edu.cit.stathis.vitals.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class VitalsSamplingGovernorTest {
+
+  private static final long START = 1_700_000_000_000L;
+
+  @Test
+  void tokenBucketAllowsBurstThenPacesToInterval() {
+    VitalsSamplingGovernor.TokenBucket bucket = new VitalsSamplingGovernor.TokenBucket(3, START);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, bucket.tryAcquire(START, 1000));
+    }
+    assertEquals(1000, bucket.tryAcquire(START, 1000));
+    assertEquals(500, bucket.tryAcquire(START + 500, 1000));
+    assertEquals(0, bucket.tryAcquire(START + 1000, 1000));
+  }
+
+  @Test
+  void tokenBucketFollowsIntervalChanges() {
+    VitalsSamplingGovernor.TokenBucket bucket = new VitalsSamplingGovernor.TokenBucket(1, START);
+
+    assertEquals(0, bucket.tryAcquire(START, 1000));
+    // Interval raised to 4 s under load: one second later the device is still early
+    assertEquals(3000, bucket.tryAcquire(START + 1000, 4000));
+  }
+
+  @Test
+  void extractsClassroomFromVitalsDestination() {
+    assertEquals("ROOM-25-001", VitalsSamplingGovernor.vitalsClassroom("/topic/classroom/ROOM-25-001/vitals"));
+    assertNull(VitalsSamplingGovernor.vitalsClassroom("/topic/classroom/ROOM-25-001/alerts"));
+    assertNull(VitalsSamplingGovernor.vitalsClassroom("/topic/classroom/vitals"));
+    assertNull(VitalsSamplingGovernor.vitalsClassroom(null));
+  }
+}
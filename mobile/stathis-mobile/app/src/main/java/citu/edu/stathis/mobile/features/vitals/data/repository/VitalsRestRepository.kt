@@ -29,6 +29,10 @@ class VitalsRestRepository @Inject constructor(
     
     private val _lastError = MutableStateFlow<String?>(null)
     val lastError: StateFlow<String?> = _lastError.asStateFlow()
+
+    // Sampling interval recommended by the backend, read from every vitals POST response
+    private val _recommendedIntervalMs = MutableStateFlow(DEFAULT_SAMPLING_INTERVAL_MS)
+    val recommendedIntervalMs: StateFlow<Long> = _recommendedIntervalMs.asStateFlow()
     
     /**
      * Posts vital signs data to the REST API if there are significant changes
@@ -89,6 +93,12 @@ class VitalsRestRepository @Inject constructor(
             Log.d(TAG, "=================================")
             
             val response = vitalsRestApiService.postVitals(requestDto)
+            response.headers()[SAMPLING_INTERVAL_HEADER]?.toLongOrNull()?.let { interval ->
+                if (interval != _recommendedIntervalMs.value) {
+                    Log.d(TAG, "Backend recommends a sampling interval of $interval ms")
+                    _recommendedIntervalMs.value = interval
+                }
+            }
             
             Log.d(TAG, "=== VITALS POST RESPONSE DEBUG ===")
             Log.d(TAG, "Response Code: ${response.code()}")
@@ -98,7 +108,13 @@ class VitalsRestRepository @Inject constructor(
             Log.d(TAG, "Is Successful: ${response.isSuccessful}")
             Log.d(TAG, "===================================")
             
-            if (response.isSuccessful) {
+            if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+                // Sent faster than the backend allows; the next loop iteration uses the new interval
+                val errorMessage = "Vitals throttled by server, retry after ${response.headers()["Retry-After"]} s"
+                _postingState.value = VitalsPostingState.IDLE
+                Log.w(TAG, errorMessage)
+                ClientResponse(success = false, message = errorMessage, data = null)
+            } else if (response.isSuccessful) {
                 changeDetector.updateLastPostedVitals(vitalSigns)
                 _postingState.value = VitalsPostingState.SUCCESS
                 _lastError.value = null
@@ -184,6 +200,10 @@ class VitalsRestRepository @Inject constructor(
     }
 }
 
+private const val SAMPLING_INTERVAL_HEADER = "X-Vitals-Sampling-Interval-Ms"
+private const val HTTP_TOO_MANY_REQUESTS = 429
+const val DEFAULT_SAMPLING_INTERVAL_MS = 1000L
+
 enum class VitalsPostingState {
     IDLE,
     POSTING,
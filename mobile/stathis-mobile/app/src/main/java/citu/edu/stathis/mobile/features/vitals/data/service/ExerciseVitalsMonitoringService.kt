@@ -88,14 +88,14 @@ class ExerciseVitalsMonitoringService @Inject constructor(
                 Log.e(TAG, "Error posting pre-activity vitals", e)
             }
             
-            // Then start continuous monitoring - force POST every second
+            // Then start continuous monitoring - force POST at the backend's recommended interval
             while (_isMonitoring.value) {
                 try {
                     val vitals = vitalsProvider()
                     if (vitals != null) {
-                        Log.d(TAG, "Force posting vitals every second: HR=${vitals.heartRate}, O2=${vitals.oxygenSaturation}")
+                        Log.d(TAG, "Force posting vitals: HR=${vitals.heartRate}, O2=${vitals.oxygenSaturation}")
                         
-                        // Force POST every second, bypassing change detection
+                        // Force POST every interval, bypassing change detection
                         val result = forcePostVitals(vitals)
                         
                         if (result.success) {
@@ -110,8 +110,8 @@ class ExerciseVitalsMonitoringService @Inject constructor(
                     Log.e(TAG, "Error during vitals monitoring", e)
                 }
                 
-                // Force update every second for real-time monitoring
-                delay(1000) // 1 second
+                // The backend lengthens the interval when ingestion is under load
+                delay(vitalsRestRepository.recommendedIntervalMs.value)
             }
         }
     }